@@ -0,0 +1,655 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.aegis.AegisContext;
+import org.apache.cxf.aegis.AegisReader;
+import org.apache.cxf.aegis.AegisWriter;
+import org.apache.cxf.aegis.type.AegisType;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes a bean with 50 properties (strings, primitives and five nested beans) 
+ * through the Aegis databinding and reads it back.  The write and read variants 
+ * measure the two directions on their own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AegisBeanBenchmark {
+    private static final QName ROOT = new QName("urn:benchmark", "record");
+    
+    private AegisContext context;
+    private AegisType type;
+    private Record record;
+    private byte[] document;
+    private ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+    
+    @Setup
+    public void setUp() throws Exception {
+        context = new AegisContext();
+        context.setRootClasses(Collections.<Type>singleton(Record.class));
+        context.initialize();
+        type = context.getTypeMapping().getType(Record.class);
+        record = newRecord();
+        document = write(record);
+    }
+    
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        return read(write(record));
+    }
+    
+    @Benchmark
+    public byte[] write() throws Exception {
+        return write(record);
+    }
+    
+    @Benchmark
+    public Object read() throws Exception {
+        return read(document);
+    }
+    
+    private byte[] write(Object o) throws Exception {
+        out.reset();
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        AegisWriter<XMLStreamWriter> aegisWriter = context.createXMLStreamWriter();
+        aegisWriter.write(o, ROOT, false, writer, type);
+        writer.close();
+        return out.toByteArray();
+    }
+    
+    private Object read(byte[] bytes) throws Exception {
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(bytes));
+        AegisReader<XMLStreamReader> aegisReader = context.createXMLStreamReader();
+        Object o = aegisReader.read(reader, type);
+        reader.close();
+        return o;
+    }
+    
+    private static Record newRecord() {
+        Record r = new Record();
+        r.setS01("value of s01");
+        r.setS02("value of s02");
+        r.setS03("value of s03");
+        r.setS04("value of s04");
+        r.setS05("value of s05");
+        r.setS06("value of s06");
+        r.setS07("value of s07");
+        r.setS08("value of s08");
+        r.setS09("value of s09");
+        r.setS10("value of s10");
+        r.setS11("value of s11");
+        r.setS12("value of s12");
+        r.setS13("value of s13");
+        r.setS14("value of s14");
+        r.setS15("value of s15");
+        r.setS16("value of s16");
+        r.setS17("value of s17");
+        r.setS18("value of s18");
+        r.setS19("value of s19");
+        r.setS20("value of s20");
+        r.setI01(1 * 1000);
+        r.setI02(2 * 1000);
+        r.setI03(3 * 1000);
+        r.setI04(4 * 1000);
+        r.setI05(5 * 1000);
+        r.setI06(6 * 1000);
+        r.setI07(7 * 1000);
+        r.setI08(8 * 1000);
+        r.setI09(9 * 1000);
+        r.setI10(10 * 1000);
+        r.setL01(System.currentTimeMillis() + 1);
+        r.setL02(System.currentTimeMillis() + 2);
+        r.setL03(System.currentTimeMillis() + 3);
+        r.setL04(System.currentTimeMillis() + 4);
+        r.setL05(System.currentTimeMillis() + 5);
+        r.setD01(1.25);
+        r.setD02(2.25);
+        r.setD03(3.25);
+        r.setD04(4.25);
+        r.setD05(5.25);
+        r.setB01(true);
+        r.setB02(false);
+        r.setB03(true);
+        r.setB04(false);
+        r.setB05(true);
+        r.setC01(newItem(1));
+        r.setC02(newItem(2));
+        r.setC03(newItem(3));
+        r.setC04(newItem(4));
+        r.setC05(newItem(5));
+        return r;
+    }
+    
+    private static Item newItem(int n) {
+        Item item = new Item();
+        item.setName("item " + n);
+        item.setValue(n * 10);
+        item.setFlag(n % 2 == 0);
+        return item;
+    }
+    
+    public static class Record {
+        private String s01;
+        private String s02;
+        private String s03;
+        private String s04;
+        private String s05;
+        private String s06;
+        private String s07;
+        private String s08;
+        private String s09;
+        private String s10;
+        private String s11;
+        private String s12;
+        private String s13;
+        private String s14;
+        private String s15;
+        private String s16;
+        private String s17;
+        private String s18;
+        private String s19;
+        private String s20;
+        private int i01;
+        private int i02;
+        private int i03;
+        private int i04;
+        private int i05;
+        private int i06;
+        private int i07;
+        private int i08;
+        private int i09;
+        private int i10;
+        private long l01;
+        private long l02;
+        private long l03;
+        private long l04;
+        private long l05;
+        private double d01;
+        private double d02;
+        private double d03;
+        private double d04;
+        private double d05;
+        private boolean b01;
+        private boolean b02;
+        private boolean b03;
+        private boolean b04;
+        private boolean b05;
+        private Item c01;
+        private Item c02;
+        private Item c03;
+        private Item c04;
+        private Item c05;
+
+        public String getS01() {
+            return s01;
+        }
+
+        public void setS01(String s01) {
+            this.s01 = s01;
+        }
+
+        public String getS02() {
+            return s02;
+        }
+
+        public void setS02(String s02) {
+            this.s02 = s02;
+        }
+
+        public String getS03() {
+            return s03;
+        }
+
+        public void setS03(String s03) {
+            this.s03 = s03;
+        }
+
+        public String getS04() {
+            return s04;
+        }
+
+        public void setS04(String s04) {
+            this.s04 = s04;
+        }
+
+        public String getS05() {
+            return s05;
+        }
+
+        public void setS05(String s05) {
+            this.s05 = s05;
+        }
+
+        public String getS06() {
+            return s06;
+        }
+
+        public void setS06(String s06) {
+            this.s06 = s06;
+        }
+
+        public String getS07() {
+            return s07;
+        }
+
+        public void setS07(String s07) {
+            this.s07 = s07;
+        }
+
+        public String getS08() {
+            return s08;
+        }
+
+        public void setS08(String s08) {
+            this.s08 = s08;
+        }
+
+        public String getS09() {
+            return s09;
+        }
+
+        public void setS09(String s09) {
+            this.s09 = s09;
+        }
+
+        public String getS10() {
+            return s10;
+        }
+
+        public void setS10(String s10) {
+            this.s10 = s10;
+        }
+
+        public String getS11() {
+            return s11;
+        }
+
+        public void setS11(String s11) {
+            this.s11 = s11;
+        }
+
+        public String getS12() {
+            return s12;
+        }
+
+        public void setS12(String s12) {
+            this.s12 = s12;
+        }
+
+        public String getS13() {
+            return s13;
+        }
+
+        public void setS13(String s13) {
+            this.s13 = s13;
+        }
+
+        public String getS14() {
+            return s14;
+        }
+
+        public void setS14(String s14) {
+            this.s14 = s14;
+        }
+
+        public String getS15() {
+            return s15;
+        }
+
+        public void setS15(String s15) {
+            this.s15 = s15;
+        }
+
+        public String getS16() {
+            return s16;
+        }
+
+        public void setS16(String s16) {
+            this.s16 = s16;
+        }
+
+        public String getS17() {
+            return s17;
+        }
+
+        public void setS17(String s17) {
+            this.s17 = s17;
+        }
+
+        public String getS18() {
+            return s18;
+        }
+
+        public void setS18(String s18) {
+            this.s18 = s18;
+        }
+
+        public String getS19() {
+            return s19;
+        }
+
+        public void setS19(String s19) {
+            this.s19 = s19;
+        }
+
+        public String getS20() {
+            return s20;
+        }
+
+        public void setS20(String s20) {
+            this.s20 = s20;
+        }
+
+        public int getI01() {
+            return i01;
+        }
+
+        public void setI01(int i01) {
+            this.i01 = i01;
+        }
+
+        public int getI02() {
+            return i02;
+        }
+
+        public void setI02(int i02) {
+            this.i02 = i02;
+        }
+
+        public int getI03() {
+            return i03;
+        }
+
+        public void setI03(int i03) {
+            this.i03 = i03;
+        }
+
+        public int getI04() {
+            return i04;
+        }
+
+        public void setI04(int i04) {
+            this.i04 = i04;
+        }
+
+        public int getI05() {
+            return i05;
+        }
+
+        public void setI05(int i05) {
+            this.i05 = i05;
+        }
+
+        public int getI06() {
+            return i06;
+        }
+
+        public void setI06(int i06) {
+            this.i06 = i06;
+        }
+
+        public int getI07() {
+            return i07;
+        }
+
+        public void setI07(int i07) {
+            this.i07 = i07;
+        }
+
+        public int getI08() {
+            return i08;
+        }
+
+        public void setI08(int i08) {
+            this.i08 = i08;
+        }
+
+        public int getI09() {
+            return i09;
+        }
+
+        public void setI09(int i09) {
+            this.i09 = i09;
+        }
+
+        public int getI10() {
+            return i10;
+        }
+
+        public void setI10(int i10) {
+            this.i10 = i10;
+        }
+
+        public long getL01() {
+            return l01;
+        }
+
+        public void setL01(long l01) {
+            this.l01 = l01;
+        }
+
+        public long getL02() {
+            return l02;
+        }
+
+        public void setL02(long l02) {
+            this.l02 = l02;
+        }
+
+        public long getL03() {
+            return l03;
+        }
+
+        public void setL03(long l03) {
+            this.l03 = l03;
+        }
+
+        public long getL04() {
+            return l04;
+        }
+
+        public void setL04(long l04) {
+            this.l04 = l04;
+        }
+
+        public long getL05() {
+            return l05;
+        }
+
+        public void setL05(long l05) {
+            this.l05 = l05;
+        }
+
+        public double getD01() {
+            return d01;
+        }
+
+        public void setD01(double d01) {
+            this.d01 = d01;
+        }
+
+        public double getD02() {
+            return d02;
+        }
+
+        public void setD02(double d02) {
+            this.d02 = d02;
+        }
+
+        public double getD03() {
+            return d03;
+        }
+
+        public void setD03(double d03) {
+            this.d03 = d03;
+        }
+
+        public double getD04() {
+            return d04;
+        }
+
+        public void setD04(double d04) {
+            this.d04 = d04;
+        }
+
+        public double getD05() {
+            return d05;
+        }
+
+        public void setD05(double d05) {
+            this.d05 = d05;
+        }
+
+        public boolean isB01() {
+            return b01;
+        }
+
+        public void setB01(boolean b01) {
+            this.b01 = b01;
+        }
+
+        public boolean isB02() {
+            return b02;
+        }
+
+        public void setB02(boolean b02) {
+            this.b02 = b02;
+        }
+
+        public boolean isB03() {
+            return b03;
+        }
+
+        public void setB03(boolean b03) {
+            this.b03 = b03;
+        }
+
+        public boolean isB04() {
+            return b04;
+        }
+
+        public void setB04(boolean b04) {
+            this.b04 = b04;
+        }
+
+        public boolean isB05() {
+            return b05;
+        }
+
+        public void setB05(boolean b05) {
+            this.b05 = b05;
+        }
+
+        public Item getC01() {
+            return c01;
+        }
+
+        public void setC01(Item c01) {
+            this.c01 = c01;
+        }
+
+        public Item getC02() {
+            return c02;
+        }
+
+        public void setC02(Item c02) {
+            this.c02 = c02;
+        }
+
+        public Item getC03() {
+            return c03;
+        }
+
+        public void setC03(Item c03) {
+            this.c03 = c03;
+        }
+
+        public Item getC04() {
+            return c04;
+        }
+
+        public void setC04(Item c04) {
+            this.c04 = c04;
+        }
+
+        public Item getC05() {
+            return c05;
+        }
+
+        public void setC05(Item c05) {
+            this.c05 = c05;
+        }
+    }
+    
+    public static class Item {
+        private String name;
+        private int value;
+        private boolean flag;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        public boolean isFlag() {
+            return flag;
+        }
+
+        public void setFlag(boolean flag) {
+            this.flag = flag;
+        }
+    }
+}
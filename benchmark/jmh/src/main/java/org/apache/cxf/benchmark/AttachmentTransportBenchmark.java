@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.attachment.AttachmentImpl;
+import org.apache.cxf.attachment.AttachmentSerializer;
+import org.apache.cxf.attachment.ByteDataSource;
+import org.apache.cxf.message.Attachment;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.ConduitInitiatorManager;
+import org.apache.cxf.transport.Destination;
+import org.apache.cxf.transport.DestinationFactoryManager;
+import org.apache.cxf.transport.MessageObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sends an MTOM style multipart message with one attachment through the
+ * URLConnection HTTP conduit to a Jetty destination (upload) and has the
+ * Jetty destination send one back (download).  The attachment is either
+ * backed by a temp file or held in memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttachmentTransportBenchmark {
+    private static final String TRANSPORT = "http://cxf.apache.org/transports/http";
+    private static final byte[] BODY = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        .concat("<soap:Body><upload/></soap:Body></soap:Envelope>").getBytes();
+    
+    @Param({"1048576", "33554432" })
+    int size;
+    
+    @Param({"file", "memory" })
+    String source;
+    
+    private Bus bus;
+    private File file;
+    private DataSource dataSource;
+    private Destination destination;
+    private Conduit conduit;
+    private volatile long received;
+    
+    @Setup
+    public void setUp() throws Exception {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        if ("file".equals(source)) {
+            file = File.createTempFile("cxf-bench", ".bin");
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(data);
+            out.close();
+            dataSource = new FileDataSource(file);
+        } else {
+            dataSource = new ByteDataSource(data, "application/octet-stream");
+        }
+        
+        bus = BusFactory.newInstance().createBus();
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://localhost:" + freePort() + "/attachments");
+        destination = bus.getExtension(DestinationFactoryManager.class)
+            .getDestinationFactory(TRANSPORT).getDestination(ei, bus);
+        destination.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                try {
+                    drain(message.getContent(InputStream.class));
+                    Message response = new MessageImpl();
+                    message.getExchange().setOutMessage(response);
+                    if ("GET".equals(message.get(Message.HTTP_REQUEST_METHOD))) {
+                        sendMultipart(destination.getBackChannel(message), response);
+                    } else {
+                        response.put(Message.RESPONSE_CODE, 200);
+                        Conduit back = destination.getBackChannel(message);
+                        back.prepare(response);
+                        back.close(response);
+                    }
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+        
+        conduit = bus.getExtension(ConduitInitiatorManager.class)
+            .getConduitInitiator(TRANSPORT).getConduit(ei, bus);
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                try {
+                    received = drain(message.getContent(InputStream.class));
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+    }
+    
+    @TearDown
+    public void tearDown() {
+        conduit.close();
+        destination.shutdown();
+        bus.shutdown(true);
+        if (file != null) {
+            file.delete();
+        }
+    }
+    
+    @Benchmark
+    public long upload() throws Exception {
+        Message message = createClientMessage("POST");
+        sendMultipart(conduit, message);
+        return received;
+    }
+    
+    @Benchmark
+    public long download() throws Exception {
+        Message message = createClientMessage("GET");
+        conduit.prepare(message);
+        conduit.close(message);
+        return received;
+    }
+    
+    private static Message createClientMessage(String method) {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOutMessage(message);
+        message.put(Message.HTTP_REQUEST_METHOD, method);
+        return message;
+    }
+    
+    private void sendMultipart(Conduit c, Message message) throws IOException {
+        AttachmentImpl att = new AttachmentImpl("attachment@cxf.apache.org", new DataHandler(dataSource));
+        message.setAttachments(Collections.<Attachment>singletonList(att));
+        message.put(Message.CONTENT_TYPE, "text/xml");
+        AttachmentSerializer serializer = new AttachmentSerializer(message);
+        c.prepare(message);
+        serializer.writeProlog();
+        OutputStream out = message.getContent(OutputStream.class);
+        out.write(BODY);
+        serializer.writeAttachments();
+        c.close(message);
+    }
+    
+    private static long drain(InputStream in) throws IOException {
+        long count = 0;
+        if (in != null) {
+            byte[] buf = new byte[64 * 1024];
+            int i = in.read(buf);
+            while (i != -1) {
+                count += i;
+                i = in.read(buf);
+            }
+            in.close();
+        }
+        return count;
+    }
+    
+    private static int freePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
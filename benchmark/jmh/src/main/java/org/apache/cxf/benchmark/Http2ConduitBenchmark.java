@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.Destination;
+import org.apache.cxf.transport.DestinationFactoryManager;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.h2.Http2ConduitFactory;
+import org.apache.cxf.transport.http.h2.Http2ConduitFactory.UseHttp2Policy;
+import org.apache.cxf.transport.http.h2.Http2TestServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sends concurrent requests through the Http2ConduitFactory conduit, once over
+ * HTTP/1.1 to a Jetty destination and once over HTTP/2 to the h2c test server of
+ * the HTTP/2 transport.  Both servers echo the body after a fixed delay.  The
+ * sample mode reports the latency percentiles (p0.99 included), the number of
+ * connections the server accepted is printed when the trial ends.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(200)
+@State(Scope.Benchmark)
+public class Http2ConduitBenchmark {
+    private static final String TRANSPORT = "http://cxf.apache.org/transports/http";
+    private static final byte[] BODY = ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        + "<soap:Body><ns:echo xmlns:ns=\"urn:bench\">Hello HTTP/2</ns:echo></soap:Body></soap:Envelope>")
+        .getBytes();
+    
+    @Param({"HTTP/1.1", "HTTP/2" })
+    String protocol;
+    
+    @Param({"10" })
+    long delay;
+    
+    private Bus bus;
+    private Destination destination;
+    private Http2TestServer h2Server;
+    private Http2ConduitFactory factory;
+    private HTTPConduit conduit;
+    
+    @Setup
+    public void setUp() throws Exception {
+        bus = BusFactory.newInstance().createBus();
+        String address;
+        if ("HTTP/2".equals(protocol)) {
+            h2Server = new Http2TestServer(100, delay);
+            address = "http://localhost:" + h2Server.getPort() + "/echo";
+        } else {
+            address = "http://localhost:" + freePort() + "/echo";
+            startJettyEcho(address);
+        }
+        
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(Http2ConduitFactory.USE_POLICY, 
+                  "HTTP/2".equals(protocol) ? UseHttp2Policy.ALWAYS : UseHttp2Policy.NEVER);
+        factory = new Http2ConduitFactory(props);
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(address);
+        conduit = factory.createConduit(bus, ei, null);
+        conduit.finalizeConfig();
+        conduit.getClient().setConnectionTimeout(60000);
+        conduit.getClient().setReceiveTimeout(60000);
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                message.getExchange().setInMessage(message);
+            }
+        });
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        conduit.close();
+        factory.shutdown();
+        if (h2Server != null) {
+            h2Server.stop();
+        } else {
+            destination.shutdown();
+        }
+        bus.shutdown(true);
+    }
+    
+    @Benchmark
+    public int echo() throws Exception {
+        Message m = new MessageImpl();
+        Exchange ex = new ExchangeImpl();
+        m.setExchange(ex);
+        ex.setOutMessage(m);
+        ex.put(Bus.class, bus);
+        m.put(Message.CONTENT_TYPE, "text/xml");
+        conduit.prepare(m);
+        OutputStream os = m.getContent(OutputStream.class);
+        os.write(BODY);
+        os.close();
+        InputStream in = ex.getInMessage().getContent(InputStream.class);
+        int length = IOUtils.readBytesFromStream(in).length;
+        in.close();
+        return length;
+    }
+    
+    private void startJettyEcho(String address) throws Exception {
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress(address);
+        destination = bus.getExtension(DestinationFactoryManager.class)
+            .getDestinationFactory(TRANSPORT).getDestination(ei, bus);
+        destination.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                try {
+                    byte[] body = IOUtils.readBytesFromStream(message.getContent(InputStream.class));
+                    Thread.sleep(delay);
+                    
+                    Message response = new MessageImpl();
+                    message.getExchange().setOutMessage(response);
+                    response.put(Message.RESPONSE_CODE, 200);
+                    response.put(Message.CONTENT_TYPE, "text/xml");
+                    Conduit back = destination.getBackChannel(message);
+                    back.prepare(response);
+                    OutputStream out = response.getContent(OutputStream.class);
+                    out.write(body);
+                    back.close(response);
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+    }
+    
+    private static int freePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the synchronized and the lock free execution modes of
+ * PhaseInterceptorChain.  Every invocation clones the template chain, the
+ * same way the transports do for each incoming message, and runs it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhaseInterceptorChainBenchmark {
+    
+    @Param({"false", "true" })
+    public boolean lockFree;
+    
+    @Param({"20" })
+    public int interceptors;
+    
+    private PhaseInterceptorChain template;
+    
+    @Setup
+    public void setUp() {
+        SortedSet<Phase> phases = new PhaseManagerImpl().getInPhases();
+        List<Interceptor<? extends Message>> list 
+            = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        Phase[] phaseArray = phases.toArray(new Phase[phases.size()]);
+        for (int x = 0; x < interceptors; x++) {
+            list.add(new NoOpInterceptor("noop" + x, phaseArray[x % phaseArray.length].getName()));
+        }
+        template = new PhaseInterceptorChain(phases, lockFree);
+        template.add(list);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public boolean threads1() {
+        return run();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public boolean threads8() {
+        return run();
+    }
+    
+    @Benchmark
+    @Threads(64)
+    public boolean threads64() {
+        return run();
+    }
+    
+    private boolean run() {
+        PhaseInterceptorChain chain = template.cloneChain();
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(message);
+        message.setInterceptorChain(chain);
+        return chain.doIntercept(message);
+    }
+    
+    static final class NoOpInterceptor extends AbstractPhaseInterceptor<Message> {
+        NoOpInterceptor(String id, String phase) {
+            super(id, phase);
+        }
+        
+        public void handleMessage(Message message) {
+            message.getInterceptorChain().getState();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.cxf.staxutils.StaxUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses a SOAP envelope and writes it back out through StaxUtils on 32 threads.
+ * The woodstox variant uses the shared Woodstox factories, the jdk variant forces
+ * the JDK StAX implementation so that every call goes through the StaxUtils 
+ * factory pools.  Run with "-prof gc" to get the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class StaxUtilsBenchmark {
+    private static final byte[] ENVELOPE = (
+        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        + "<soap:Header>"
+        + "<wsa:Action xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+        + "http://apache.org/hello_world_soap_http/Greeter/greetMeRequest</wsa:Action>"
+        + "<wsa:MessageID xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+        + "urn:uuid:6d0d2d6c-9c7c-4b5f-8c1e-1c1f4c0f8a11</wsa:MessageID>"
+        + "<wsa:To xmlns:wsa=\"http://www.w3.org/2005/08/addressing\">"
+        + "http://localhost:9000/SoapContext/SoapPort</wsa:To>"
+        + "</soap:Header>"
+        + "<soap:Body>"
+        + "<ns2:greetMe xmlns:ns2=\"http://apache.org/hello_world_soap_http/types\">"
+        + "<ns2:requestType>Hello from a benchmark client</ns2:requestType>"
+        + "<ns2:count>42</ns2:count>"
+        + "<ns2:items><ns2:item id=\"1\">one</ns2:item><ns2:item id=\"2\">two</ns2:item>"
+        + "<ns2:item id=\"3\">three</ns2:item></ns2:items>"
+        + "</ns2:greetMe>"
+        + "</soap:Body>"
+        + "</soap:Envelope>").getBytes();
+    
+    @Benchmark
+    @Threads(32)
+    @Fork(1)
+    public int woodstox() throws Exception {
+        return roundTrip();
+    }
+    
+    @Benchmark
+    @Threads(32)
+    @Fork(value = 1, jvmArgsAppend = {
+        "-Djavax.xml.stream.XMLInputFactory=com.sun.xml.internal.stream.XMLInputFactoryImpl",
+        "-Djavax.xml.stream.XMLOutputFactory=com.sun.xml.internal.stream.XMLOutputFactoryImpl"
+    })
+    public int jdk() throws Exception {
+        return roundTrip();
+    }
+    
+    private int roundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(ENVELOPE.length + 128);
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(new ByteArrayInputStream(ENVELOPE));
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        try {
+            StaxUtils.copy(reader, writer);
+            writer.flush();
+        } finally {
+            StaxUtils.close(writer);
+            StaxUtils.close(reader);
+        }
+        return out.size();
+    }
+}
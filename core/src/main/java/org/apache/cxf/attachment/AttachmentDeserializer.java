@@ -60,7 +60,9 @@ public class AttachmentDeserializer {
 
     private boolean lazyLoading = true;
 
-    private int pbAmount = 2048;
+    //the parts are read in chunks of up to this size, the boundary search
+    //is done over the whole chunk
+    private int pbAmount = 16 * 1024;
     private PushbackInputStream stream;
     private int createCount; 
     private int closedCount;
@@ -213,7 +215,7 @@ public class AttachmentDeserializer {
         try {
             out = new CachedOutputStream();
             AttachmentUtil.setStreamedAttachmentProperties(message, out);
-            IOUtils.copy(input, out);
+            IOUtils.copy(input, out, pbAmount);
             input.setInputStream(out.getInputStream());
             origIn.close();
         } finally {
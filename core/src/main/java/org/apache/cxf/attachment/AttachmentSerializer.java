@@ -19,11 +19,15 @@
 
 package org.apache.cxf.attachment;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -31,13 +35,17 @@ import java.util.List;
 import java.util.Map;
 
 import javax.activation.DataHandler;
+import javax.activation.DataSource;
+import javax.activation.FileDataSource;
 
+import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.message.Attachment;
 import org.apache.cxf.message.Message;
 
 public class AttachmentSerializer {
     // http://tools.ietf.org/html/rfc2387
     private static final String DEFAULT_MULTIPART_TYPE = "multipart/related";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
     
     private Message message;
     private String bodyBoundary;
@@ -261,7 +269,7 @@ public class AttachmentSerializer {
                 writeHeaders(handler.getContentType(), a.getId(),
                              headers, writer);
                 out.write(writer.getBuffer().toString().getBytes(encoding));
-                handler.writeTo(out);
+                writeAttachmentBody(handler);
             }
         }
         StringWriter writer = new StringWriter();                
@@ -273,6 +281,41 @@ public class AttachmentSerializer {
         out.flush();
     }
 
+    private void writeAttachmentBody(DataHandler handler) throws IOException {
+        DataSource ds = handler.getDataSource();
+        if (!(ds instanceof FileDataSource 
+            || ds instanceof AttachmentDataSource && ((AttachmentDataSource)ds).isCached())) {
+            handler.writeTo(out);
+            return;
+        }
+        //file backed, the data source streams the raw bytes so skip the 
+        //small buffers DataHandler.writeTo copies through
+        InputStream in = ds.getInputStream();
+        try {
+            if (!(in instanceof FileInputStream && out instanceof WritableByteChannel)
+                || !transferTo(((FileInputStream)in).getChannel(), (WritableByteChannel)out)) {
+                IOUtils.copy(in, out, COPY_BUFFER_SIZE);
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    private static boolean transferTo(FileChannel fc, WritableByteChannel target) throws IOException {
+        long pos = fc.position();
+        long size = fc.size();
+        while (pos < size) {
+            long n = fc.transferTo(pos, size - pos, target);
+            if (n <= 0) {
+                //the target isn't taking any more, the rest is copied
+                break;
+            }
+            pos += n;
+        }
+        fc.position(pos);
+        return pos >= size;
+    }
+
     public boolean isXop() {
         return xop;
     }
@@ -22,6 +22,7 @@ package org.apache.cxf.attachment;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.util.Arrays;
 
 public class MimeBodyPartInputStream extends InputStream {
 
@@ -31,6 +32,7 @@ public class MimeBodyPartInputStream extends InputStream {
     int pbAmount;
     byte[] boundary;
     byte[] boundaryBuffer;
+    int[] skip;
 
     private boolean closed;
 
@@ -41,167 +43,154 @@ public class MimeBodyPartInputStream extends InputStream {
         this.inStream = inStreamParam;
         this.boundary = boundaryParam;
         this.pbAmount = pbsize;
+        
+        int last = boundary.length - 1;
+        skip = new int[256];
+        Arrays.fill(skip, boundary.length);
+        for (int i = 0; i < last; i++) {
+            skip[boundary[i] & 0xFF] = last - i;
+        }
     }
 
     public int read(byte buf[], int origOff, int origLen) throws IOException {
-        byte b[] = buf;
-        int off = origOff;
-        int len = origLen;
         if (boundaryFound || closed) {
             return -1;
         }
-        if ((off < 0) || (off > b.length) || (len < 0) 
-            || ((off + len) > b.length) || ((off + len) < 0)) {
+        if ((origOff < 0) || (origOff > buf.length) || (origLen < 0) 
+            || ((origOff + origLen) > buf.length) || ((origOff + origLen) < 0)) {
 
             throw new IndexOutOfBoundsException();
         }
-        if (len == 0) {
+        if (origLen == 0) {
             return 0;
         }
-        boolean bufferCreated = false;
-        if (len < boundary.length * 2) {
+        byte b[] = buf;
+        int off = origOff;
+        int len = origLen;
+        //enough to hold a boundary split over two reads along with its CRLF
+        int min = boundary.length * 2 + 2;
+        if (len < min) {
             //buffer is too short to detect boundaries with it.  We'll need to create a larger buffer   
-            bufferCreated = true;
             if (boundaryBuffer == null) {
-                boundaryBuffer = new byte[boundary.length * 2];
+                boundaryBuffer = new byte[min];
             }
             b = boundaryBuffer;
             off = 0;
-            len = boundaryBuffer.length;
+            len = min;
         }
         if (len > pbAmount) {
             len = pbAmount;  //can only pushback that much so make sure we can
         }
         int read = 0;
         int idx = 0;
-        while (read >= 0 && idx < len && idx < (boundary.length * 2)) {
+        while (read >= 0 && idx < len && idx < min) {
             //make sure we read enough to detect the boundary
             read = inStream.read(b, off + idx, len - idx);
             if (read != -1) {
                 idx += read;
             }
         }
-        if (read == -1 && idx == 0) {
+        if (idx == 0) {
             return -1;
         }
-        len = idx;
+        int end = off + idx;
         
-        int i = processBuffer(b, off, len);
-        if (bufferCreated && i > 0) {
+        int found = indexOfBoundary(b, off, end);
+        int dataEnd;
+        int rest;
+        if (found != -1) {
+            //the CRLF before the boundary belongs to the boundary
+            dataEnd = isCRLF(b, found - 2, off) ? found - 2 : found;
+            rest = found + boundary.length;
+        } else {
+            //hold back whatever could be the start of a boundary
+            dataEnd = read == -1 ? end : safeEnd(b, off, end);
+            rest = dataEnd;
+        }
+        int count = dataEnd - off;
+        if (b != buf && count > origLen) {
             // read more than we need, push it back
-            if (origLen >= i) {
-                System.arraycopy(b, 0, buf, origOff, i);
-            } else {
-                System.arraycopy(b, 0, buf, origOff, origLen);
-                inStream.unread(b, origLen, i - origLen);
-                i = origLen;
-            }
-        } else if (i == 0 && boundaryFound) {
-            return -1;
+            inStream.unread(b, origLen, end - origLen);
+            System.arraycopy(b, 0, buf, origOff, origLen);
+            return origLen;
         }
-        
-        return i;
-    }
-
-    //Has Data after encountering CRLF
-    private boolean hasData(byte[] b, int initialPointer, int pointer, int off, int len)
-        throws IOException {
-        if (pointer < (off + len)) {
-            return true;
-        } else if (pointer >= 1000000000) {
-            inStream.unread(b, initialPointer, (off + len) - initialPointer);
-            return false;            
-        } else {
-            int x = inStream.read();
-            if (x != -1) {
-                inStream.unread(x);
-                inStream.unread(b, initialPointer, (off + len) - initialPointer);
-                return false;
+        if (rest < end) {
+            inStream.unread(b, rest, end - rest);
+        }
+        if (b != buf && count > 0) {
+            System.arraycopy(b, 0, buf, origOff, count);
+        }
+        if (found != -1) {
+            boundaryFound = true;
+            skipBoundaryEnd();
+            if (count == 0) {
+                return -1;
             }
-            return true;
         }
+        return count;
     }
-
-    protected int processBuffer(byte[] buffer, int off, int len) throws IOException {
-        for (int i = off; i < (off + len); i++) {
-            boolean needUnread0d0a = false;
-            int value = buffer[i];
-            int initialI = i;
-            if (value == 13) {
-                if (!hasData(buffer, initialI, initialI + 1, off, len)) {
-                    return initialI - off;
-                }
-                value = buffer[initialI + 1];
-                if (value != 10) {
-                    continue;
-                } else {  //if it comes here then 13, 10 are values and will try to match boundaries
-                    if (!hasData(buffer, initialI, initialI + 2, off, len)) {
-                        return initialI - off;
-                    }
-                    value = buffer[initialI + 2];
-                    if ((byte) value != boundary[0]) {
-                        i++;
-                        continue;
-                    } else { //13, 10, boundaries first value matched
-                        needUnread0d0a = true;
-                        i += 2; //i after this points to boundary[0] element
-                    }
-                }
-            } else if (value != boundary[0]) {
-                continue;
-            }
-
-            int boundaryIndex = 0;
-            while ((boundaryIndex < boundary.length) && (value == boundary[boundaryIndex])) {
-                if (!hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }                
-                value = buffer[++i];
-                boundaryIndex++;
-            }
-            if (boundaryIndex == boundary.length) {
-                // read the end of line character
-                if (initialI != off) {
-                    i = 1000000000;
-                }
-                if (initialI - off != 0 
-                    && !hasData(buffer, initialI, i + 1, off, len)) {
-                    return initialI - off;
-                }
-                boundaryFound = true;
-                int j = i + 1;
-                if (j < len && buffer[j] == 45 && value == 45) {
-                    // Last mime boundary should have a succeeding "--"
-                    // as we are on it, read the terminating CRLF
-                    i += 2;
-                    //last mime boundary
-                }
-
-                //boundary matched (may or may not be last mime boundary)
-                int processed = initialI - off;
-                if ((len - ((i - off) + 2)) > 0) {
-                    inStream.unread(buffer, i + 2, len - (i + 2) + off);
+    
+    /**
+     * Boyer-Moore-Horspool search for the boundary.
+     */
+    private int indexOfBoundary(byte[] b, int off, int end) {
+        int last = boundary.length - 1;
+        int i = off;
+        while (i + last < end) {
+            int j = last;
+            while (b[i + j] == boundary[j]) {
+                if (j == 0) {
+                    return i;
                 }
-                return processed;
+                j--;
             }
-
-            // Boundary not found. Restoring bytes skipped.
-            // write first skipped byte, push back the rest
-            if (value != -1) { //pushing back first byte of boundary
-                // Stream might have ended
-                i--;
+            i += skip[b[i + last] & 0xFF];
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the end of the data that cannot be part of a boundary (or the CRLF
+     * in front of it) continuing past the end of the buffer.
+     */
+    private int safeEnd(byte[] b, int off, int end) {
+        int keep = end;
+        for (int p = Math.max(off, end - boundary.length + 1); p < end; p++) {
+            if (isBoundaryStart(b, p, end)) {
+                keep = p;
+                break;
             }
-            if (needUnread0d0a) { //Pushing all,  returning 13
-                i = i - boundaryIndex;
-                i--; //for 10
-                value = 13;
-            } else {
-                i = i - boundaryIndex;
-                i++;
-                value = boundary[0];
+        }
+        if (isCRLF(b, keep - 2, off)) {
+            keep -= 2;
+        } else if (keep == end && b[end - 1] == 13) {
+            keep--;
+        }
+        return keep;
+    }
+    
+    private boolean isBoundaryStart(byte[] b, int p, int end) {
+        for (int i = 0; p + i < end; i++) {
+            if (b[p + i] != boundary[i]) {
+                return false;
             }
         }
-        return len;
+        return true;
+    }
+    
+    private static boolean isCRLF(byte[] b, int p, int off) {
+        return p >= off && b[p] == 13 && b[p + 1] == 10;
+    }
+    
+    private void skipBoundaryEnd() throws IOException {
+        // read the end of line characters, or the "--" after the
+        // last mime boundary and then its end of line
+        int value = inStream.read();
+        int dashNext = inStream.read();
+        if (dashNext == 45 && value == 45) {
+            inStream.read();
+            inStream.read();
+        }
     }
 
     public int read() throws IOException {
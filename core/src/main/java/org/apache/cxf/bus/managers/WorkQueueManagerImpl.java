@@ -33,10 +33,12 @@ import org.apache.cxf.buslifecycle.BusLifeCycleListener;
 import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.SystemPropertyAction;
 import org.apache.cxf.configuration.ConfiguredBeanLocator;
 import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.workqueue.AutomaticWorkQueue;
 import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
+import org.apache.cxf.workqueue.ThreadPerTaskWorkQueueImpl;
 import org.apache.cxf.workqueue.WorkQueueManager;
 
 @NoJSR250Annotations(unlessNull = "bus")
@@ -194,11 +196,24 @@ public class WorkQueueManagerImpl implements WorkQueueManager {
     }
     
     private AutomaticWorkQueue createAutomaticWorkQueue() {        
-        AutomaticWorkQueue q = new AutomaticWorkQueueImpl("default");
+        AutomaticWorkQueue q;
+        if (isThreadPerTask()) {
+            q = new ThreadPerTaskWorkQueueImpl("default");
+        } else {
+            q = new AutomaticWorkQueueImpl("default");
+        }
         addNamedWorkQueue("default", q);
         return q;
     }
     
+    private boolean isThreadPerTask() {
+        Object o = bus == null ? null : bus.getProperty(ThreadPerTaskWorkQueueImpl.ENABLE_PROPERTY);
+        if (o == null) {
+            o = SystemPropertyAction.getPropertyOrNull(ThreadPerTaskWorkQueueImpl.ENABLE_PROPERTY);
+        }
+        return o != null && Boolean.valueOf(o.toString());
+    }
+    
     
     class WQLifecycleListener implements BusLifeCycleListener {
         public void initComplete() {
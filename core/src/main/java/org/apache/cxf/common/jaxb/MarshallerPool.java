@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.jaxb;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.apache.cxf.common.util.StripedObjectPool;
+import org.apache.cxf.common.util.WeakIdentityHashMap;
+
+/**
+ * Keeps configured Marshallers and Unmarshallers of a single JAXBContext for reuse.
+ * 
+ * Creating and configuring a (un)marshaller for every message is costly, while
+ * a given endpoint or provider always applies the same listener, schema, properties
+ * and namespace mappings.  Callers describe such a setup with a configuration key
+ * (any object with a sensible equals/hashCode, usually a List of the configured values),
+ * poll a ready (un)marshaller for it and only create and configure a new one when the
+ * poll returns null.  Once done they offer it back under the same key.
+ * 
+ * The attachment (un)marshaller and the event handler are cleared when an object is
+ * offered, so they have to be set again on every use and are not part of the key.
+ * An object which failed while (un)marshalling should simply not be offered back.
+ * 
+ * The pool for a context is shared by everyone asking for it via getInstance, but only
+ * held weakly by this class: callers hold onto it for as long as they hold the context.
+ */
+public final class MarshallerPool {
+    static final int MAX_CONFIGURATIONS = 16;
+    static final int POOL_SIZE = 16;
+    
+    private static final Map<JAXBContext, WeakReference<MarshallerPool>> POOLS
+        = new WeakIdentityHashMap<JAXBContext, WeakReference<MarshallerPool>>();
+    
+    private final Map<Object, StripedObjectPool<Marshaller>> marshallers
+        = new ConcurrentHashMap<Object, StripedObjectPool<Marshaller>>();
+    private final Map<Object, StripedObjectPool<Unmarshaller>> unmarshallers
+        = new ConcurrentHashMap<Object, StripedObjectPool<Unmarshaller>>();
+    
+    MarshallerPool() {
+    }
+    
+    public static MarshallerPool getInstance(JAXBContext context) {
+        synchronized (POOLS) {
+            WeakReference<MarshallerPool> ref = POOLS.get(context);
+            MarshallerPool pool = ref == null ? null : ref.get();
+            if (pool == null) {
+                pool = new MarshallerPool();
+                POOLS.put(context, new WeakReference<MarshallerPool>(pool));
+            }
+            return pool;
+        }
+    }
+    
+    public Marshaller pollMarshaller(Object config) {
+        StripedObjectPool<Marshaller> pool = marshallers.get(config);
+        return pool == null ? null : pool.poll();
+    }
+    
+    public void offerMarshaller(Object config, Marshaller marshaller) {
+        StripedObjectPool<Marshaller> pool = getPool(marshallers, config);
+        if (pool != null) {
+            marshaller.setAttachmentMarshaller(null);
+            try {
+                marshaller.setEventHandler(null);
+            } catch (JAXBException ex) {
+                //cannot be reset, do not reuse it
+                return;
+            }
+            pool.offer(marshaller);
+        }
+    }
+    
+    public Unmarshaller pollUnmarshaller(Object config) {
+        StripedObjectPool<Unmarshaller> pool = unmarshallers.get(config);
+        return pool == null ? null : pool.poll();
+    }
+    
+    public void offerUnmarshaller(Object config, Unmarshaller unmarshaller) {
+        StripedObjectPool<Unmarshaller> pool = getPool(unmarshallers, config);
+        if (pool != null) {
+            unmarshaller.setAttachmentUnmarshaller(null);
+            try {
+                unmarshaller.setEventHandler(null);
+            } catch (JAXBException ex) {
+                //cannot be reset, do not reuse it
+                return;
+            }
+            pool.offer(unmarshaller);
+        }
+    }
+    
+    public void clear() {
+        marshallers.clear();
+        unmarshallers.clear();
+    }
+    
+    private static <T> StripedObjectPool<T> getPool(Map<Object, StripedObjectPool<T>> pools, 
+                                                    Object config) {
+        StripedObjectPool<T> pool = pools.get(config);
+        if (pool == null && pools.size() < MAX_CONFIGURATIONS) {
+            synchronized (pools) {
+                pool = pools.get(config);
+                if (pool == null) {
+                    pool = new StripedObjectPool<T>(POOL_SIZE);
+                    pools.put(config, pool);
+                }
+            }
+        }
+        return pool;
+    }
+}
@@ -152,6 +152,8 @@ public class ASMHelper {
         public static int FCONST_0;
         public static int DCONST_0;
         public static int IF_ICMPLT = 0;
+        public static int IF_ICMPGE = 0;
+        public static int IF_ICMPNE = 0;
         public static java.lang.Integer INTEGER;
         
         //CHECKSTYLE:ON
@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A small lock free pool of reusable objects (factories, marshallers and such).
+ * 
+ * Objects are kept in an array of slots and each thread starts looking at the 
+ * slot picked by its id, so a thread usually gets back the object it returned
+ * last and threads rarely compete for the same slot.  From there a thread moves
+ * on to the next slots until it has looked at all of them: if they are all empty
+ * poll() returns null and the caller should create a new object, if they are all
+ * full offer() drops the object.
+ */
+public class StripedObjectPool<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    
+    public StripedObjectPool(int size) {
+        int n = 1;
+        while (n < size) {
+            n <<= 1;
+        }
+        slots = new AtomicReferenceArray<T>(n);
+        mask = n - 1;
+    }
+    
+    public T poll() {
+        int start = startIndex();
+        for (int x = 0; x <= mask; x++) {
+            int idx = (start + x) & mask;
+            T t = slots.get(idx);
+            if (t != null && slots.compareAndSet(idx, t, null)) {
+                return t;
+            }
+        }
+        return null;
+    }
+    
+    public boolean offer(T t) {
+        int start = startIndex();
+        for (int x = 0; x <= mask; x++) {
+            int idx = (start + x) & mask;
+            if (slots.get(idx) == null && slots.compareAndSet(idx, null, t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public void clear() {
+        for (int x = 0; x < slots.length(); x++) {
+            slots.set(x, null);
+        }
+    }
+    
+    private int startIndex() {
+        long id = Thread.currentThread().getId();
+        // spread consecutive thread ids over the slots
+        return (int)(id * 0x9E3779B9L >>> 16) & mask;
+    }
+}
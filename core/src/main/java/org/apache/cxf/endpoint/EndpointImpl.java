@@ -43,6 +43,8 @@ import org.apache.cxf.interceptor.ClientFaultConverter;
 import org.apache.cxf.interceptor.InFaultChainInitiatorObserver;
 import org.apache.cxf.interceptor.MessageSenderInterceptor;
 import org.apache.cxf.interceptor.OutFaultChainInitiatorObserver;
+import org.apache.cxf.message.ContextualPropertiesVersion;
+import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.service.Service;
 import org.apache.cxf.service.model.BindingInfo;
 import org.apache.cxf.service.model.EndpointInfo;
@@ -62,6 +64,9 @@ public class EndpointImpl extends AbstractAttributedInterceptorProvider implemen
     private MessageObserver inFaultObserver;
     private MessageObserver outFaultObserver;
     private List<Feature> activeFeatures;
+    // the bus, service and endpoint properties merged for the contextual
+    // property lookups of the messages of this endpoint
+    private transient volatile ContextualProperties contextualProperties;
 
     public EndpointImpl(Bus bus, Service s, QName endpointName) throws EndpointException {
         this(bus, s, s.getEndpointInfo(endpointName));
@@ -141,6 +146,22 @@ public class EndpointImpl extends AbstractAttributedInterceptorProvider implemen
     }
     
 
+    /**
+     * Returns the bus, service, binding info, endpoint info and endpoint
+     * properties merged in the order used by Message.getContextualProperty.
+     * The merged map is shared until any of those properties change.
+     */
+    public Map<String, Object> getContextualProperties(Bus b, Service s) {
+        ContextualProperties cp = contextualProperties;
+        int version = ContextualPropertiesVersion.current();
+        if (cp == null || cp.version != version || cp.bus != b || cp.service != s) {
+            cp = new ContextualProperties(version, b, s, 
+                                          MessageImpl.mergeContextualProperties(b, s, this));
+            contextualProperties = cp;
+        }
+        return cp.properties;
+    }
+
     public MessageObserver getInFaultObserver() {
         return inFaultObserver;
     }
@@ -189,4 +210,18 @@ public class EndpointImpl extends AbstractAttributedInterceptorProvider implemen
     public int hashCode() {
         return endpointInfo.hashCode();
     }
+    
+    private static class ContextualProperties {
+        final int version;
+        final Bus bus;
+        final Service service;
+        final Map<String, Object> properties;
+        
+        ContextualProperties(int v, Bus b, Service s, Map<String, Object> p) {
+            version = v;
+            bus = b;
+            service = s;
+            properties = p;
+        }
+    }
 }
@@ -21,8 +21,10 @@ package org.apache.cxf.interceptor;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.message.ContextualPropertiesVersion;
 import org.apache.cxf.message.Message;
 
 public abstract class AbstractAttributedInterceptorProvider extends HashMap<String, Object>
@@ -71,6 +73,32 @@ public abstract class AbstractAttributedInterceptorProvider extends HashMap<Stri
         outFault = interceptors;
     }
 
+    @Override
+    public Object put(String key, Object value) {
+        Object old = super.put(key, value);
+        ContextualPropertiesVersion.changed();
+        return old;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Object> m) {
+        super.putAll(m);
+        ContextualPropertiesVersion.changed();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Object old = super.remove(key);
+        ContextualPropertiesVersion.changed();
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        ContextualPropertiesVersion.changed();
+    }
+
     @Override
     public boolean equals(Object o) {
         return o == this;
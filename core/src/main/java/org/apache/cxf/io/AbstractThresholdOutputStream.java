@@ -36,9 +36,17 @@ public abstract class AbstractThresholdOutputStream extends AbstractWrappedOutpu
     protected LoadingByteArrayOutputStream buffer;
     
     public AbstractThresholdOutputStream(int threshold) {
+        this(threshold, threshold + 1);
+    }
+    
+    /**
+     * @param threshold the number of bytes to buffer
+     * @param bufferSize the initial size of the buffer, it grows up to the threshold if needed
+     */
+    public AbstractThresholdOutputStream(int threshold, int bufferSize) {
         this.threshold = threshold;
         if (threshold >= 0) {
-            buffer = new LoadingByteArrayOutputStream(threshold + 1);
+            buffer = new LoadingByteArrayOutputStream(Math.max(1, Math.min(bufferSize, threshold + 1)));
         }
     }
     
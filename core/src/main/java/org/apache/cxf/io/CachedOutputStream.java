@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -33,6 +34,9 @@ import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -48,11 +52,23 @@ import org.apache.cxf.helpers.FileUtils;
 import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
 
+/**
+ * OutputStream that keeps its content in memory until a threshold is reached and
+ * then continues in a temporary file.
+ * <p>
+ * If a {@link CachedOutputStreamBufferPool} is configured, the in-memory content is
+ * held in recycled chunks from the pool and the content is moved to the file as soon
+ * as the memory budget of the pool is used up.  The chunks are given back when the
+ * content moves to the file, when the stream is reset, or when the stream has been
+ * closed and all the InputStreams obtained from it have been closed, in which case
+ * the content is discarded just like a temporary file would be.
+ */
 public class CachedOutputStream extends OutputStream {
     private static final File DEFAULT_TEMP_DIR;
     private static int defaultThreshold;
     private static long defaultMaxSize;
     private static String defaultCipherTransformation;
+    private static CachedOutputStreamBufferPool defaultBufferPool;
     static {
         
         String s = SystemPropertyAction.getPropertyOrNull("org.apache.cxf.io.CachedOutputStream.OutputDirectory");
@@ -70,6 +86,7 @@ public class CachedOutputStream extends OutputStream {
         setDefaultThreshold(-1);
         setDefaultMaxSize(-1);
         setDefaultCipherTransformation(null);
+        setDefaultMemoryBudget(-1);
     }
 
     protected boolean outputLocked;
@@ -88,6 +105,9 @@ public class CachedOutputStream extends OutputStream {
     private boolean allowDeleteOfFile = true;
     private String cipherTransformation = defaultCipherTransformation;
     private CipherPair ciphers;
+    private CachedOutputStreamBufferPool bufferPool = defaultBufferPool;
+    private int pooledReaders;
+    private boolean closed;
 
     private List<CachedOutputStreamCallback> callbacks;
     
@@ -105,9 +125,9 @@ public class CachedOutputStream extends OutputStream {
 
     public CachedOutputStream(long threshold) {
         this.threshold = threshold; 
-        currentStream = new LoadingByteArrayOutputStream(2048);
         inmem = true;
         readBusProperties();
+        currentStream = createMemoryStream(2048);
     }
 
     private void readBusProperties() {
@@ -125,6 +145,40 @@ public class CachedOutputStream extends OutputStream {
             if (v != null) {
                 cipherTransformation = v;
             }
+            CachedOutputStreamBufferPool pool = b.getExtension(CachedOutputStreamBufferPool.class);
+            if (pool != null) {
+                bufferPool = pool;
+            } else {
+                v = getBusProperty(b, "bus.io.CachedOutputStream.MemoryBudget", null);
+                if (v != null) {
+                    long budget = Long.parseLong(v);
+                    bufferPool = budget > 0 ? CachedOutputStreamBufferPool.getBufferPool(b, budget) : null;
+                }
+            }
+        }
+    }
+    
+    private ByteArrayOutputStream createMemoryStream(int size) {
+        if (bufferPool != null) {
+            return new PooledByteArrayOutputStream(bufferPool);
+        }
+        return new LoadingByteArrayOutputStream(size);
+    }
+    
+    private synchronized void releaseMemoryStream(OutputStream out) {
+        if (out instanceof PooledByteArrayOutputStream) {
+            ((PooledByteArrayOutputStream)out).release(pooledReaders == 0);
+        }
+    }
+    
+    /**
+     * Gives the pooled chunks back once the stream is closed and no InputStream
+     * reads them anymore, the content is discarded like a temporary file would be.
+     */
+    private synchronized void maybeReleaseMemoryStream() {
+        if (closed && pooledReaders == 0 && allowDeleteOfFile && inmem
+            && currentStream instanceof PooledByteArrayOutputStream) {
+            ((PooledByteArrayOutputStream)currentStream).release(true);
         }
     }
 
@@ -220,6 +274,10 @@ public class CachedOutputStream extends OutputStream {
         doClose();
         currentStream.close();
         maybeDeleteTempFile(currentStream);
+        synchronized (this) {
+            closed = true;
+        }
+        maybeReleaseMemoryStream();
         postClose();
     }
 
@@ -260,6 +318,7 @@ public class CachedOutputStream extends OutputStream {
                     if (copyOldContent && byteOut.size() > 0) {
                         byteOut.writeTo(out);
                     }
+                    releaseMemoryStream(byteOut);
                 } else if (currentStream instanceof PipedOutputStream) {
                     PipedOutputStream pipeOut = (PipedOutputStream) currentStream;
                     IOUtils.copyAndCloseInput(new PipedInputStream(pipeOut), out);
@@ -280,6 +339,9 @@ public class CachedOutputStream extends OutputStream {
         }
         currentStream = out;
         outputLocked = false;
+        synchronized (this) {
+            closed = false;
+        }
     }
 
     public static void copyStream(InputStream in, OutputStream out, int bufferSize) throws IOException {
@@ -313,6 +375,15 @@ public class CachedOutputStream extends OutputStream {
             } else {
                 throw new IOException("Unknown format of currentStream");
             }
+        } else if (cipherTransformation == null) {
+            // a file target gets the bytes moved by the file channels, other
+            // targets are still written through a heap buffer by the channel adapter
+            FileInputStream fin = new FileInputStream(tempFile);
+            try {
+                transferTo(fin, out);
+            } finally {
+                fin.close();
+            }
         } else {
             // read the file
             InputStream fin = createInputStream(tempFile);
@@ -320,6 +391,26 @@ public class CachedOutputStream extends OutputStream {
         }
     }
     
+    private static void transferTo(FileInputStream fin, OutputStream out) throws IOException {
+        FileChannel in = fin.getChannel();
+        WritableByteChannel target = out instanceof FileOutputStream 
+            ? ((FileOutputStream)out).getChannel() : Channels.newChannel(out);
+        long size = in.size();
+        long pos = 0;
+        while (pos < size) {
+            long n = in.transferTo(pos, size - pos, target);
+            if (n <= 0) {
+                //the file shrank or the target isn't taking any more, the rest is copied
+                break;
+            }
+            pos += n;
+        }
+        if (pos < size) {
+            in.position(pos);
+            IOUtils.copy(fin, out);
+        }
+    }
+    
     public void writeCacheTo(StringBuilder out, long limit) throws IOException {
         writeCacheTo(out, "UTF-8", limit);
     }
@@ -448,10 +539,16 @@ public class CachedOutputStream extends OutputStream {
         if (maxSize > 0 && totalLength > maxSize) {
             throw new CacheSizeExceededException();
         }
-        if (inmem && totalLength > threshold && currentStream instanceof ByteArrayOutputStream) {
+        if (inmem && currentStream instanceof ByteArrayOutputStream
+            && (totalLength > threshold || !reserveMemory())) {
             createFileOutputStream();
         }       
     }
+    
+    private boolean reserveMemory() {
+        return !(currentStream instanceof PooledByteArrayOutputStream)
+            || ((PooledByteArrayOutputStream)currentStream).reserve(totalLength);
+    }
 
     public void write(byte[] b, int off, int len) throws IOException {
         if (!outputLocked) {
@@ -496,6 +593,7 @@ public class CachedOutputStream extends OutputStream {
             bout.writeTo(currentStream);
             inmem = false;
             streamList.add(currentStream);
+            releaseMemoryStream(bout);
         } catch (Exception ex) {
             //Could be IOException or SecurityException or other issues.
             //Don't care what, just keep it in memory.
@@ -518,6 +616,8 @@ public class CachedOutputStream extends OutputStream {
         if (inmem) {
             if (currentStream instanceof LoadingByteArrayOutputStream) {
                 return ((LoadingByteArrayOutputStream) currentStream).createInputStream();
+            } else if (currentStream instanceof PooledByteArrayOutputStream) {
+                return createPooledInputStream();
             } else if (currentStream instanceof ByteArrayOutputStream) {
                 return new ByteArrayInputStream(((ByteArrayOutputStream) currentStream).toByteArray());
             } else if (currentStream instanceof PipedOutputStream) {
@@ -557,6 +657,26 @@ public class CachedOutputStream extends OutputStream {
         }
     }
     
+    private synchronized InputStream createPooledInputStream() {
+        final InputStream in = ((PooledByteArrayOutputStream)currentStream).createInputStream();
+        pooledReaders++;
+        return new FilterInputStream(in) {
+            boolean closed;
+            public void close() throws IOException {
+                if (!closed) {
+                    super.close();
+                    closed = true;
+                    pooledReaderClosed();
+                }
+            }
+        };
+    }
+    
+    private synchronized void pooledReaderClosed() {
+        pooledReaders--;
+        maybeReleaseMemoryStream();
+    }
+    
     private synchronized void deleteTempFile() {
         if (tempFile != null) {
             File file = tempFile;
@@ -576,7 +696,7 @@ public class CachedOutputStream extends OutputStream {
                 }
             }
             deleteTempFile();
-            currentStream = new LoadingByteArrayOutputStream(1024);
+            currentStream = createMemoryStream(1024);
             inmem = true;
         }
     }
@@ -616,6 +736,19 @@ public class CachedOutputStream extends OutputStream {
         defaultThreshold = i;
         
     }
+    /**
+     * Sets the memory budget of the buffer pool used by default by the streams.
+     * -1 reads the org.apache.cxf.io.CachedOutputStream.MemoryBudget system property,
+     * a budget of 0 turns the pooling off.
+     */
+    public static void setDefaultMemoryBudget(long l) {
+        if (l == -1) {
+            String s = SystemPropertyAction.getProperty("org.apache.cxf.io.CachedOutputStream.MemoryBudget",
+                "0");
+            l = Long.parseLong(s);
+        }
+        defaultBufferPool = l > 0 ? new CachedOutputStreamBufferPool(l) : null;
+    }
     public static void setDefaultCipherTransformation(String n) {
         if (n == null) {
             n = SystemPropertyAction.getPropertyOrNull("org.apache.cxf.io.CachedOutputStream.CipherTransformation");
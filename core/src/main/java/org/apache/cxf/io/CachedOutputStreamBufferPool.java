@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cxf.Bus;
+
+/**
+ * A pool of fixed size byte[] chunks used by {@link CachedOutputStream} to hold
+ * the in-memory part of its content.  The pool enforces a memory budget shared by
+ * all the streams using it: once the budget is used up, streams spill their content
+ * to a temporary file earlier than their threshold would require.  A stream keeps
+ * its chunks for as long as its content can be read again; they come back to the
+ * pool when the stream spills to its file or is reset, and the budget of a stream
+ * that is garbage collected without that is reclaimed.
+ * <p>
+ * A pool can be enabled JVM wide with the 
+ * <code>org.apache.cxf.io.CachedOutputStream.MemoryBudget</code> system property, per bus
+ * with the <code>bus.io.CachedOutputStream.MemoryBudget</code> bus property or by 
+ * registering an instance as a bus extension.
+ */
+public class CachedOutputStreamBufferPool {
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+    
+    private final int chunkSize;
+    private final long memoryBudget;
+    private final int maxPooledChunks;
+    
+    private final Queue<byte[]> pooled = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final AtomicLong usedMemory = new AtomicLong();
+    
+    // leases of streams that were garbage collected without releasing their chunks
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+    private final Set<Lease> leases 
+        = Collections.newSetFromMap(new ConcurrentHashMap<Lease, Boolean>(16, 0.75f, 4));
+    
+    public CachedOutputStreamBufferPool(long memoryBudget) {
+        this(memoryBudget, DEFAULT_CHUNK_SIZE);
+    }
+    
+    public CachedOutputStreamBufferPool(long memoryBudget, int chunkSize) {
+        if (memoryBudget <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("memoryBudget and chunkSize must be positive");
+        }
+        this.memoryBudget = memoryBudget;
+        this.chunkSize = chunkSize;
+        this.maxPooledChunks = (int)Math.min(Integer.MAX_VALUE, memoryBudget / chunkSize);
+    }
+    
+    /**
+     * Returns the pool registered on the bus, creating and registering one with 
+     * the given budget if needed.
+     */
+    public static CachedOutputStreamBufferPool getBufferPool(Bus bus, long memoryBudget) {
+        CachedOutputStreamBufferPool pool = bus.getExtension(CachedOutputStreamBufferPool.class);
+        if (pool == null) {
+            synchronized (bus) {
+                pool = bus.getExtension(CachedOutputStreamBufferPool.class);
+                if (pool == null) {
+                    pool = new CachedOutputStreamBufferPool(memoryBudget);
+                    bus.setExtension(pool, CachedOutputStreamBufferPool.class);
+                }
+            }
+        }
+        return pool;
+    }
+    
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+    
+    /**
+     * @return the number of bytes currently held by streams using this pool
+     */
+    public long getUsedMemory() {
+        expungeCollected();
+        return usedMemory.get();
+    }
+    
+    /**
+     * @return the number of idle chunks available for reuse
+     */
+    public int getPooledChunks() {
+        return pooledCount.get();
+    }
+    
+    Lease createLease(Object owner) {
+        return new Lease(owner, collected);
+    }
+    
+    /**
+     * Takes a chunk from the pool.  If the budget is used up, null is returned 
+     * unless force is set in which case the budget is exceeded.
+     */
+    byte[] acquire(Lease lease, boolean force) {
+        expungeCollected();
+        if (usedMemory.addAndGet(chunkSize) > memoryBudget && !force) {
+            usedMemory.addAndGet(-chunkSize);
+            return null;
+        }
+        if (lease.bytes == 0) {
+            leases.add(lease);
+        }
+        lease.bytes += chunkSize;
+        
+        byte[] chunk = pooled.poll();
+        if (chunk != null) {
+            pooledCount.decrementAndGet();
+            return chunk;
+        }
+        return new byte[chunkSize];
+    }
+    
+    /**
+     * Gives back the chunks held by the lease.  The chunks are only reused if
+     * recycle is set, that is if nothing can still read from them.
+     */
+    void release(Lease lease, List<byte[]> chunks, boolean recycle) {
+        if (lease.bytes == 0) {
+            return;
+        }
+        usedMemory.addAndGet(-lease.bytes);
+        lease.bytes = 0;
+        leases.remove(lease);
+        if (recycle) {
+            for (byte[] chunk : chunks) {
+                if (pooledCount.incrementAndGet() > maxPooledChunks) {
+                    pooledCount.decrementAndGet();
+                    break;
+                }
+                pooled.offer(chunk);
+            }
+        }
+    }
+    
+    private void expungeCollected() {
+        Reference<?> ref = collected.poll();
+        while (ref != null) {
+            Lease lease = (Lease)ref;
+            if (leases.remove(lease)) {
+                usedMemory.addAndGet(-lease.bytes);
+                lease.bytes = 0;
+            }
+            ref = collected.poll();
+        }
+    }
+    
+    static final class Lease extends WeakReference<Object> {
+        volatile long bytes;
+        
+        Lease(Object owner, ReferenceQueue<Object> queue) {
+            super(owner, queue);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ByteArrayOutputStream that stores its content in chunks taken from a 
+ * {@link CachedOutputStreamBufferPool} instead of a single growing byte[].
+ * The inherited buffer is not used.
+ */
+final class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+    private final CachedOutputStreamBufferPool pool;
+    private final CachedOutputStreamBufferPool.Lease lease;
+    private final int chunkSize;
+    private List<byte[]> chunks = new ArrayList<byte[]>();
+    
+    PooledByteArrayOutputStream(CachedOutputStreamBufferPool pool) {
+        super(0);
+        this.pool = pool;
+        this.lease = pool.createLease(this);
+        this.chunkSize = pool.getChunkSize();
+    }
+    
+    /**
+     * Makes sure enough chunks are held to store size bytes without
+     * going over the memory budget of the pool.
+     * @return false if the budget does not allow it
+     */
+    boolean reserve(long size) {
+        while ((long)chunks.size() * chunkSize < size) {
+            byte[] chunk = pool.acquire(lease, false);
+            if (chunk == null) {
+                return false;
+            }
+            chunks.add(chunk);
+        }
+        return true;
+    }
+    
+    /**
+     * Gives the chunks back to the pool and empties the stream. 
+     * @param recycle true if no stream created by createInputStream() is still in use 
+     */
+    void release(boolean recycle) {
+        pool.release(lease, chunks, recycle);
+        chunks = new ArrayList<byte[]>();
+        count = 0;
+    }
+    
+    InputStream createInputStream() {
+        return new ChunkInputStream(chunks, chunkSize, count);
+    }
+    
+    @Override
+    public void write(int b) {
+        int idx = count / chunkSize;
+        if (idx == chunks.size()) {
+            chunks.add(pool.acquire(lease, true));
+        }
+        byte[] chunk = chunks.get(idx);
+        chunk[count % chunkSize] = (byte)b;
+        count++;
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int idx = count / chunkSize;
+            int pos = count % chunkSize;
+            if (idx == chunks.size()) {
+                chunks.add(pool.acquire(lease, true));
+            }
+            int n = Math.min(len, chunkSize - pos);
+            System.arraycopy(b, off, chunks.get(idx), pos, n);
+            off += n;
+            len -= n;
+            count += n;
+        }
+    }
+    
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        int remaining = count;
+        for (int x = 0; remaining > 0; x++) {
+            int n = Math.min(remaining, chunkSize);
+            out.write(chunks.get(x), 0, n);
+            remaining -= n;
+        }
+    }
+    
+    @Override
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[count];
+        int remaining = count;
+        for (int x = 0; remaining > 0; x++) {
+            int n = Math.min(remaining, chunkSize);
+            System.arraycopy(chunks.get(x), 0, bytes, x * chunkSize, n);
+            remaining -= n;
+        }
+        return bytes;
+    }
+    
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    @Override
+    public void reset() {
+        count = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return new String(toByteArray());
+    }
+    
+    @Override
+    public String toString(String charsetName) throws UnsupportedEncodingException {
+        return new String(toByteArray(), charsetName);
+    }
+    
+    static class ChunkInputStream extends InputStream {
+        private List<byte[]> chunks;
+        private final int chunkSize;
+        private final int count;
+        private int pos;
+        private int mark;
+        
+        ChunkInputStream(List<byte[]> chunks, int chunkSize, int count) {
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+            this.count = count;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (pos >= count || chunks == null) {
+                return -1;
+            }
+            byte[] chunk = chunks.get(pos / chunkSize);
+            return chunk[pos++ % chunkSize] & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || off + len > b.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (pos >= count || chunks == null) {
+                return len == 0 ? 0 : -1;
+            }
+            int total = Math.min(len, count - pos);
+            int remaining = total;
+            while (remaining > 0) {
+                int p = pos % chunkSize;
+                int n = Math.min(remaining, chunkSize - p);
+                System.arraycopy(chunks.get(pos / chunkSize), p, b, off, n);
+                pos += n;
+                off += n;
+                remaining -= n;
+            }
+            return total;
+        }
+        
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, count - pos));
+            pos += skipped;
+            return skipped;
+        }
+        
+        @Override
+        public int available() {
+            return chunks == null ? 0 : count - pos;
+        }
+        
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+        
+        @Override
+        public void mark(int readlimit) {
+            mark = pos;
+        }
+        
+        @Override
+        public void reset() {
+            pos = mark;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            chunks = null;
+        }
+    }
+}
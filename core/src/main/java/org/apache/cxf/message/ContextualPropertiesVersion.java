@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the changes made to the bus, service, endpoint and endpoint info
+ * properties that back {@link Message#getContextualProperty(String)}.  Merged
+ * views of those properties stay valid for as long as the version does not
+ * change.
+ * <p>
+ * The version is counted for the whole JVM, so a property change on any bus,
+ * service or endpoint invalidates the merged views of every endpoint.  Property
+ * changes are expected to be rare once the endpoints are running, so the views
+ * are then only merged again once per endpoint.
+ * <p>
+ * Writers call {@link #changed()} after the change has been made.  A reader that
+ * reads the version before merging then either sees the change or records a
+ * version that the change has already superseded.
+ */
+public final class ContextualPropertiesVersion {
+    private static final AtomicInteger VERSION = new AtomicInteger();
+    
+    private ContextualPropertiesVersion() {
+        //utility class
+    }
+    
+    public static int current() {
+        return VERSION.get();
+    }
+    
+    public static void changed() {
+        VERSION.incrementAndGet();
+    }
+    
+    /**
+     * A ConcurrentHashMap that reports its modifications as contextual
+     * property changes.
+     */
+    public static class TrackingMap<K, V> extends ConcurrentHashMap<K, V> {
+        private static final long serialVersionUID = 2871393556218237418L;
+
+        public TrackingMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+            super(initialCapacity, loadFactor, concurrencyLevel);
+        }
+        
+        public V put(K key, V value) {
+            V r = super.put(key, value);
+            changed();
+            return r;
+        }
+        public void putAll(Map<? extends K, ? extends V> m) {
+            super.putAll(m);
+            changed();
+        }
+        public V putIfAbsent(K key, V value) {
+            V r = super.putIfAbsent(key, value);
+            changed();
+            return r;
+        }
+        public V remove(Object key) {
+            V r = super.remove(key);
+            changed();
+            return r;
+        }
+        public boolean remove(Object key, Object value) {
+            boolean r = super.remove(key, value);
+            changed();
+            return r;
+        }
+        public V replace(K key, V value) {
+            V r = super.replace(key, value);
+            changed();
+            return r;
+        }
+        public boolean replace(K key, V oldValue, V newValue) {
+            boolean r = super.replace(key, oldValue, newValue);
+            changed();
+            return r;
+        }
+        public void clear() {
+            super.clear();
+            changed();
+        }
+    }
+}
@@ -119,22 +119,10 @@ public class ExchangeImpl extends StringMapImpl implements Exchange {
             binding = (Binding)value;
         }
     }
+    
     public Object put(String key, Object value) {
-        if (inMessage != null) {
-            inMessage.setContextualProperty(key, value);
-        }
-        if (outMessage != null) {
-            outMessage.setContextualProperty(key, value);
-        }
-        if (inFaultMessage != null) {
-            inFaultMessage.setContextualProperty(key, value);
-        }
-        if (outFaultMessage != null) {
-            outFaultMessage.setContextualProperty(key, value);
-        }
         return super.put(key, value);
     }
-
     
     public Destination getDestination() {
         return destination;
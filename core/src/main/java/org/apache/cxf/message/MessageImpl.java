@@ -27,6 +27,7 @@ import java.util.Set;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.EndpointImpl;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.interceptor.InterceptorChain;
 import org.apache.cxf.service.Service;
@@ -45,6 +46,11 @@ public class MessageImpl extends StringMapImpl implements Message {
     private Object[] contents = new Object[20];
     private int index;
     
+    // contextual values that were pushed into the message without being
+    // stored in it, see setContextualProperty
+    private Map<String, Object> contextOverrides;
+    // merged endpoint level properties for endpoints that do not keep
+    // a shared snapshot of them
     private Map<String, Object> contextCache;
     
     
@@ -60,6 +66,7 @@ public class MessageImpl extends StringMapImpl implements Message {
             interceptorChain = impl.interceptorChain;
             contents = impl.contents;
             index = impl.index;
+            contextOverrides = impl.contextOverrides;
             contextCache = impl.contextCache;
         } else {
             throw new RuntimeException("Not a MessageImpl! " + m.getClass());
@@ -164,19 +171,52 @@ public class MessageImpl extends StringMapImpl implements Message {
         this.interceptorChain = ic;
     }
     public Object put(String key, Object value) {
-        if (contextCache != null) {
-            contextCache.put(key, value);
-        }
         return super.put(key, value);
     }
+    
+    /**
+     * Resolves the property against the message, the values set through
+     * setContextualProperty, the exchange and then the merged endpoint, endpoint
+     * and binding info, service and bus properties, in that order.  A layer that
+     * maps the key, even to null, hides the layers below it.  The merged endpoint
+     * level properties are shared by all the messages of an EndpointImpl, so they
+     * are not copied per message.
+     */
     public Object getContextualProperty(String key) {
+        Object o = get(key);
+        if (o != null || containsKey(key)) {
+            return o;
+        }
+        if (contextOverrides != null && contextOverrides.containsKey(key)) {
+            return contextOverrides.get(key);
+        }
+        Exchange ex = getExchange();
+        if (ex == null) {
+            return null;
+        }
+        o = ex.get(key);
+        if (o != null || ex.containsKey(key)) {
+            return o;
+        }
+        return getContextCache(ex).get(key);
+    }
+    
+    private Map<String, Object> getContextCache(Exchange ex) {
+        Endpoint ep = ex.getEndpoint();
+        if (ep instanceof EndpointImpl) {
+            return ((EndpointImpl)ep).getContextualProperties(ex.getBus(), ex.getService());
+        }
         if (contextCache == null) {
-            calcContextCache();
+            contextCache = mergeContextualProperties(ex.getBus(), ex.getService(), ep);
         }
-        return contextCache.get(key);
+        return contextCache;
     }
     
-    private void calcContextCache() {
+    /**
+     * Merges the bus, service, binding info, endpoint info and endpoint
+     * properties, the later ones overriding the earlier ones.
+     */
+    public static Map<String, Object> mergeContextualProperties(Bus b, Service sv, Endpoint ep) {
         Map<String, Object> o = new HashMap<String, Object>() {
             private static final long serialVersionUID = 7067290677790419348L;
 
@@ -186,30 +226,25 @@ public class MessageImpl extends StringMapImpl implements Message {
                 }
             }
         };
-        Exchange ex = getExchange();
-        if (ex != null) {
-            Bus b = ex.getBus();
-            if (b != null) {
-                o.putAll(b.getProperties());
-            }
-            Service sv = ex.getService(); 
-            if (sv != null) {
-                o.putAll(sv);
-            }
-            Endpoint ep = ex.getEndpoint(); 
-            if (ep != null) {
-                EndpointInfo ei = ep.getEndpointInfo();
-                if (ei != null) {
-                    o.putAll(ep.getEndpointInfo().getBinding().getProperties());
-                    o.putAll(ep.getEndpointInfo().getProperties());
+        if (b != null) {
+            o.putAll(b.getProperties());
+        }
+        if (sv != null) {
+            o.putAll(sv);
+        }
+        if (ep != null) {
+            EndpointInfo ei = ep.getEndpointInfo();
+            if (ei != null) {
+                if (ei.getBinding() != null) {
+                    o.putAll(ei.getBinding().getProperties());
                 }
-                o.putAll(ep);
+                o.putAll(ei.getProperties());
             }
+            o.putAll(ep);
         }
-        o.putAll(ex);
-        o.putAll(this);
-        contextCache = o;
+        return o;
     }
+    
     public static void copyContent(Message m1, Message m2) {
         for (Class<?> c : m1.getContentFormats()) {
             m2.setContent(c, m1.getContent(c));
@@ -217,14 +252,16 @@ public class MessageImpl extends StringMapImpl implements Message {
     }
 
     public void resetContextCache() {
-        if (contextCache != null) {
-            contextCache = null;
-        }
+        contextOverrides = null;
+        contextCache = null;
     }
 
     public void setContextualProperty(String key, Object v) {
-        if (contextCache != null && !containsKey(key)) {
-            contextCache.put(key, v);
+        if (!containsKey(key)) {
+            if (contextOverrides == null) {
+                contextOverrides = new HashMap<String, Object>();
+            }
+            contextOverrides.put(key, v);
         }
     }
 }
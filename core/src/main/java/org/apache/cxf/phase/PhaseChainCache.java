@@ -35,10 +35,28 @@ import org.apache.cxf.message.Message;
  * phases supplied in the get() methods of this class are defined by default
  * within org.apache.cxf.phase.PhaseManagerImpl.  For an example of this class 
  * in use, check the sourcecode of org.apache.cxf.endpoint.ClientImpl.
+ * <p>
+ * A small number of recently built chains are remembered so that callers which
+ * alternate between different provider lists (for example several endpoints
+ * or operations sharing one observer) do not rebuild the chain on every call.
+ * The chains handed out are clones that share the cached interceptor structure
+ * until they are modified.
  */
 public final class PhaseChainCache {
-    AtomicReference<ChainHolder> lastData = new AtomicReference<ChainHolder>();
+    static final int DEFAULT_MAX_ENTRIES = 8;
     
+    private static final ChainHolder[] EMPTY = new ChainHolder[0];
+    
+    AtomicReference<ChainHolder[]> lastData = new AtomicReference<ChainHolder[]>(EMPTY);
+    private final int maxEntries;
+    
+    public PhaseChainCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+    
+    public PhaseChainCache(int maxEntries) {
+        this.maxEntries = maxEntries < 1 ? 1 : maxEntries;
+    }
     
     @SuppressWarnings("unchecked")
     public PhaseInterceptorChain get(SortedSet<Phase> phaseList,
@@ -79,63 +97,76 @@ public final class PhaseChainCache {
     
     private PhaseInterceptorChain getChain(SortedSet<Phase> phaseList,
                                            List<Interceptor<? extends Message>> ... providers) {
-        ChainHolder last = lastData.get();
-        
-        if (last == null 
-            || !last.matches(providers)) {
-            
-            PhaseInterceptorChain chain = new PhaseInterceptorChain(phaseList);
-            List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> copy 
-                = new ArrayList<ModCountCopyOnWriteArrayList<
-                    Interceptor<? extends Message>>>(providers.length);
-            for (List<Interceptor<? extends Message>> p : providers) {
-                copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
-                chain.add(p);
+        ChainHolder[] entries = lastData.get();
+        for (ChainHolder h : entries) {
+            if (h.matches(phaseList, providers)) {
+                return h.chain.cloneChain();
             }
-            last = new ChainHolder(chain, copy);
-            lastData.set(last);
         }
         
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(phaseList);
+        List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> copy 
+            = new ArrayList<ModCountCopyOnWriteArrayList<
+                Interceptor<? extends Message>>>(providers.length);
+        for (List<Interceptor<? extends Message>> p : providers) {
+            copy.add(new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>(p));
+            chain.add(p);
+        }
+        ChainHolder last = new ChainHolder(chain, phaseList, providers, copy);
+        
+        //most recently built first, the oldest entry drops off the end
+        int size = Math.min(entries.length + 1, maxEntries);
+        ChainHolder[] newEntries = new ChainHolder[size];
+        newEntries[0] = last;
+        System.arraycopy(entries, 0, newEntries, 1, size - 1);
+        lastData.compareAndSet(entries, newEntries);
         
         return last.chain.cloneChain();
     }
     
-    private static class ChainHolder {
+    static class ChainHolder {
         List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> lists;
+        List<Interceptor<? extends Message>>[] sources;
+        SortedSet<Phase> phases;
         PhaseInterceptorChain chain;
         
-        ChainHolder(PhaseInterceptorChain c, 
+        ChainHolder(PhaseInterceptorChain c,
+                    SortedSet<Phase> ph,
+                    List<Interceptor<? extends Message>>[] s,
                     List<ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>> l) {
             lists = l;
+            sources = s.clone();
+            phases = ph;
             chain = c;
         }
         
-        boolean matches(List<Interceptor<? extends Message>> ... providers) {
-            if (lists.size() == providers.length) {
-                for (int x = 0; x < providers.length; x++) {
-                    if (lists.get(x).size() != providers[x].size()) {
+        boolean matches(SortedSet<Phase> ph, List<Interceptor<? extends Message>> ... providers) {
+            if (phases != ph || lists.size() != providers.length) {
+                return false;
+            }
+            for (int x = 0; x < providers.length; x++) {
+                if (lists.get(x).size() != providers[x].size()) {
+                    return false;
+                }
+                
+                if (providers[x] == sources[x]
+                    && providers[x].getClass() == ModCountCopyOnWriteArrayList.class) {
+                    if (((ModCountCopyOnWriteArrayList<?>)providers[x]).getModCount()
+                        != lists.get(x).getModCount()) {
                         return false;
                     }
+                } else {
+                    ListIterator<Interceptor<? extends Message>> i1 = lists.get(x).listIterator();
+                    ListIterator<Interceptor<? extends Message>> i2 = providers[x].listIterator();
                     
-                    if (providers[x].getClass() == ModCountCopyOnWriteArrayList.class) {
-                        if (((ModCountCopyOnWriteArrayList<?>)providers[x]).getModCount()
-                            != lists.get(x).getModCount()) {
+                    while (i1.hasNext()) {
+                        if (i1.next() != i2.next()) {
                             return false;
                         }
-                    } else {
-                        ListIterator<Interceptor<? extends Message>> i1 = lists.get(x).listIterator();
-                        ListIterator<Interceptor<? extends Message>> i2 = providers[x].listIterator();
-                        
-                        while (i1.hasNext()) {
-                            if (i1.next() != i2.next()) {
-                                return false;
-                            }
-                        }
                     }
                 }
-                return true;
             }
-            return false;
+            return true;
         }
     }
 }
@@ -26,13 +26,19 @@ import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.common.util.SystemPropertyAction;
 import org.apache.cxf.continuations.SuspendedInvocationException;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.interceptor.Interceptor;
@@ -59,12 +65,25 @@ import org.apache.cxf.transport.MessageObserver;
  * has an ID. PhaseInterceptors can supply a Collection of IDs which they 
  * should run before or after, supplying fine grained ordering.
  * <p>
+ * By default the execution methods synchronize on the chain.  If the chain
+ * is created in lock free mode (or the {@link #LOCK_FREE_PROPERTY} system 
+ * property is set to true) the state is instead moved along with atomic
+ * compare and set operations and the thread running the chain is tracked
+ * in an atomic owner reference, so the uncontended path takes no monitor.
+ * A thread resuming a paused or suspended chain still waits for the thread
+ * that paused it to leave doIntercept before continuing.
  *  
  */
 public class PhaseInterceptorChain implements InterceptorChain {
     public static final String PREVIOUS_MESSAGE = PhaseInterceptorChain.class.getName() + ".PREVIOUS_MESSAGE";
+    public static final String LOCK_FREE_PROPERTY = PhaseInterceptorChain.class.getName() + ".lockFree";
     
     private static final Logger LOG = LogUtils.getL7dLogger(PhaseInterceptorChain.class); 
+    
+    private static final boolean DEFAULT_LOCK_FREE 
+        = Boolean.valueOf(SystemPropertyAction.getProperty(LOCK_FREE_PROPERTY, "false"));
+    // number of times a contended owner acquisition yields before parking
+    private static final int OWNER_SPINS = 64;
 
     private static final ThreadLocal<Message> CURRENT_MESSAGE = new ThreadLocal<Message>();
     
@@ -84,7 +103,14 @@ public class PhaseInterceptorChain implements InterceptorChain {
     private boolean hasAfters[];
 
     
-    private State state;
+    private final AtomicReference<State> state = new AtomicReference<State>(State.EXECUTING);
+    private final boolean lockFree;
+    // only used in lock free mode, the thread currently running the chain
+    private final AtomicReference<Thread> owner;
+    // only used in lock free mode, the threads parked waiting for the owner
+    // to leave the chain or for the chain to be released
+    private final Queue<Thread> waiters;
+    private int ownerHoldCount;
     private Message pausedMessage;
     private MessageObserver faultObserver;
     private PhaseInterceptorIterator iterator;
@@ -94,48 +120,47 @@ public class PhaseInterceptorChain implements InterceptorChain {
     // to avoid duplicate fault processing on nested calling of
     // doIntercept(), which will throw same fault multi-times
     private boolean faultOccurred;
-    private boolean chainReleased;
+    private final AtomicBoolean chainReleased = new AtomicBoolean();
+    
+    
+    // shared indicates that heads/tails/hasAfters still point at the
+    // holder structure of the chain this one was cloned from.  The structure
+    // is copied on the first modification so that chains which are only
+    // executed (the common case) do not need to duplicate every holder.
+    // Volatile as cached template chains are marked by every cloning thread.
+    private volatile boolean shared;
     
     
     private PhaseInterceptorChain(PhaseInterceptorChain src) {
         isFineLogging = LOG.isLoggable(Level.FINE);
         
         //only used for clone
-        state = State.EXECUTING;
+        lockFree = src.lockFree;
+        owner = lockFree ? new AtomicReference<Thread>() : null;
+        waiters = lockFree ? new ConcurrentLinkedQueue<Thread>() : null;
         
         //immutable, just repoint
         nameMap = src.nameMap;
         phases = src.phases;
         
-        int length = phases.length;
-        hasAfters = new boolean[length];
-        System.arraycopy(src.hasAfters, 0, hasAfters, 0, length);
-        
-        heads = new InterceptorHolder[length];
-        tails = new InterceptorHolder[length];
-        
-        InterceptorHolder last = null;
-        for (int x = 0; x < length; x++) {
-            InterceptorHolder ih = src.heads[x];
-            while (ih != null
-                && ih.phaseIdx == x) {
-                InterceptorHolder ih2 = new InterceptorHolder(ih);
-                ih2.prev = last;
-                if (last != null) {
-                    last.next = ih2;
-                }
-                if (heads[x] == null) {
-                    heads[x] = ih2;
-                }
-                tails[x] = ih2;
-                last = ih2;
-                ih = ih.next;
-            }
+        //copied lazily on first modification of either chain
+        hasAfters = src.hasAfters;
+        heads = src.heads;
+        tails = src.tails;
+        shared = true;
+        if (!src.shared) {
+            src.shared = true;
         }
     }
     
     public PhaseInterceptorChain(SortedSet<Phase> ps) {
-        state = State.EXECUTING;
+        this(ps, DEFAULT_LOCK_FREE);
+    }
+    
+    public PhaseInterceptorChain(SortedSet<Phase> ps, boolean lockFree) {
+        this.lockFree = lockFree;
+        owner = lockFree ? new AtomicReference<Thread>() : null;
+        waiters = lockFree ? new ConcurrentLinkedQueue<Thread>() : null;
         isFineLogging = LOG.isLoggable(Level.FINE);
 
         int numPhases = ps.size();
@@ -177,30 +202,109 @@ public class PhaseInterceptorChain implements InterceptorChain {
         
     }
     
-    public synchronized State getState() {
-        return state;
+    public boolean isLockFree() {
+        return lockFree;
     }
     
-    public synchronized void releaseAndAcquireChain() {
-        while (!chainReleased) {
-            try {
-                this.wait();
-            } catch (InterruptedException ex) {
-                // ignore
+    public State getState() {
+        if (lockFree) {
+            return state.get();
+        }
+        synchronized (this) {
+            return state.get();
+        }
+    }
+    
+    public void releaseAndAcquireChain() {
+        if (lockFree) {
+            Thread current = Thread.currentThread();
+            while (!chainReleased.compareAndSet(true, false)) {
+                waiters.add(current);
+                try {
+                    if (!chainReleased.get()) {
+                        LockSupport.park(this);
+                    }
+                } finally {
+                    waiters.remove(current);
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            while (!chainReleased.get()) {
+                try {
+                    this.wait();
+                } catch (InterruptedException ex) {
+                    // ignore
+                }
             }
+            chainReleased.set(false);
         }
-        chainReleased = false;
     }
     
-    public synchronized void releaseChain() {
-        this.chainReleased = true;
-        this.notifyAll();
+    public void releaseChain() {
+        if (lockFree) {
+            chainReleased.set(true);
+            unparkWaiters();
+            return;
+        }
+        synchronized (this) {
+            chainReleased.set(true);
+            this.notifyAll();
+        }
     }
     
     public PhaseInterceptorChain cloneChain() {
         return new PhaseInterceptorChain(this);
     }
     
+    private void copyOnWrite() {
+        if (!shared) {
+            return;
+        }
+        int length = phases.length;
+        boolean newHasAfters[] = new boolean[length];
+        System.arraycopy(hasAfters, 0, newHasAfters, 0, length);
+        
+        InterceptorHolder newHeads[] = new InterceptorHolder[length];
+        InterceptorHolder newTails[] = new InterceptorHolder[length];
+        
+        InterceptorHolder last = null;
+        for (int x = 0; x < length; x++) {
+            InterceptorHolder ih = heads[x];
+            while (ih != null
+                && ih.phaseIdx == x) {
+                InterceptorHolder ih2 = new InterceptorHolder(ih);
+                ih2.prev = last;
+                if (last != null) {
+                    last.next = ih2;
+                }
+                if (newHeads[x] == null) {
+                    newHeads[x] = ih2;
+                }
+                newTails[x] = ih2;
+                last = ih2;
+                if (iterator != null) {
+                    //keep the current position of the running iterator
+                    if (iterator.prev == ih) {
+                        iterator.prev = ih2;
+                    }
+                    if (iterator.first == ih) {
+                        iterator.first = ih2;
+                    }
+                }
+                ih = ih.next;
+            }
+        }
+        hasAfters = newHasAfters;
+        heads = newHeads;
+        tails = newTails;
+        if (iterator != null) {
+            iterator.heads = newHeads;
+        }
+        shared = false;
+    }
+    
     private void updateIterator() {
         if (iterator == null) {
             iterator = new PhaseInterceptorIterator(heads);
@@ -254,28 +358,117 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
 
-    public synchronized void pause() {
-        state = State.PAUSED;
-        pausedMessage = CURRENT_MESSAGE.get();
+    public void pause() {
+        if (lockFree) {
+            doPause(State.PAUSED);
+        } else {
+            synchronized (this) {
+                doPause(State.PAUSED);
+            }
+        }
     }
-    public synchronized void unpause() {
-        if (state == State.PAUSED || state == State.SUSPENDED) {
-            state = State.EXECUTING;
-            pausedMessage = null;
+    public void unpause() {
+        if (lockFree) {
+            doUnpause();
+        } else {
+            synchronized (this) {
+                doUnpause();
+            }
         }
     }
     
-    public synchronized void suspend() {
-        state = State.SUSPENDED;
-        pausedMessage = CURRENT_MESSAGE.get();
+    public void suspend() {
+        if (lockFree) {
+            doPause(State.SUSPENDED);
+        } else {
+            synchronized (this) {
+                doPause(State.SUSPENDED);
+            }
+        }
     }
 
-    public synchronized void resume() {
-        if (state == State.PAUSED || state == State.SUSPENDED) {
-            state = State.EXECUTING;
+    public void resume() {
+        if (lockFree) {
+            acquireOwner();
+            try {
+                doResume();
+            } finally {
+                releaseOwner();
+            }
+        } else {
+            synchronized (this) {
+                doResume();
+            }
+        }
+    }
+    
+    private void doPause(State st) {
+        pausedMessage = CURRENT_MESSAGE.get();
+        state.set(st);
+    }
+    
+    private void doUnpause() {
+        if (moveToExecuting()) {
+            pausedMessage = null;
+        }
+    }
+    
+    private void doResume() {
+        if (moveToExecuting()) {
             Message m = pausedMessage;
             pausedMessage = null;
-            doIntercept(m);
+            doInterceptInternal(m);
+        }
+    }
+    
+    private boolean moveToExecuting() {
+        return state.compareAndSet(State.PAUSED, State.EXECUTING)
+            || state.compareAndSet(State.SUSPENDED, State.EXECUTING);
+    }
+    
+    /**
+     * Makes the current thread the owner of a lock free chain, waiting for
+     * any other thread still running the chain to leave it.  Acquisition
+     * is reentrant.
+     */
+    private void acquireOwner() {
+        Thread current = Thread.currentThread();
+        if (owner.get() == current) {
+            ++ownerHoldCount;
+            return;
+        }
+        int spins = 0;
+        while (!owner.compareAndSet(null, current)) {
+            if (++spins < OWNER_SPINS) {
+                Thread.yield();
+                continue;
+            }
+            //the owner is checked again once queued, releaseOwner clears it
+            //before unparking so either the check or the unpark sees the other
+            waiters.add(current);
+            try {
+                if (owner.get() != null) {
+                    LockSupport.park(this);
+                }
+            } finally {
+                waiters.remove(current);
+            }
+        }
+        ownerHoldCount = 1;
+    }
+    
+    private void releaseOwner() {
+        if (--ownerHoldCount == 0) {
+            owner.set(null);
+            unparkWaiters();
+        }
+    }
+    
+    private void unparkWaiters() {
+        if (!waiters.isEmpty()) {
+            for (Thread t : waiters) {
+                LockSupport.unpark(t);
+            }
         }
     }
 
@@ -285,8 +478,22 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @param message the message 
      * @throws Exception
      */
+    public boolean doIntercept(Message message) {
+        if (lockFree) {
+            acquireOwner();
+            try {
+                return doInterceptInternal(message);
+            } finally {
+                releaseOwner();
+            }
+        }
+        synchronized (this) {
+            return doInterceptInternal(message);
+        }
+    }
+    
     @SuppressWarnings("unchecked")
-    public synchronized boolean doIntercept(Message message) {
+    private boolean doInterceptInternal(Message message) {
         updateIterator();
 
         Message oldMessage = CURRENT_MESSAGE.get();
@@ -298,7 +505,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
                 && message.getExchange() != oldMessage.getExchange()) {
                 message.put(PREVIOUS_MESSAGE, new WeakReference<Message>(oldMessage));
             }
-            while (state == State.EXECUTING && iterator.hasNext()) {
+            while (state.get() == State.EXECUTING && iterator.hasNext()) {
                 try {
                     Interceptor<Message> currentInterceptor = (Interceptor<Message>)iterator.next();
                     if (isFineLogging) {
@@ -306,7 +513,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
                     }
                     //System.out.println("-----------" + currentInterceptor);
                     currentInterceptor.handleMessage(message);
-                    if (state == State.SUSPENDED) {
+                    if (state.get() == State.SUSPENDED) {
                          // throw the exception to make sure thread exit without interrupt
                         throw new SuspendedInvocationException();
                     }
@@ -316,7 +523,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
                     if (iterator.hasPrevious()) {
                         iterator.previous();
                     }
-                    pause();
+                    doPause(State.PAUSED);
                     throw ex;
                 } catch (RuntimeException ex) {
                     
@@ -369,13 +576,11 @@ public class PhaseInterceptorChain implements InterceptorChain {
                             faultObserver.onMessage(message);
                         }
                     }
-                    state = State.ABORTED;
+                    state.set(State.ABORTED);
                 } 
             }
-            if (state == State.EXECUTING) {
-                state = State.COMPLETE;
-            }
-            return state == State.COMPLETE;
+            state.compareAndSet(State.EXECUTING, State.COMPLETE);
+            return state.get() == State.COMPLETE;
         } finally {
             CURRENT_MESSAGE.set(oldMessage);
         }
@@ -422,17 +627,19 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @param startingAfterInterceptorID the id of the interceptor 
      * @throws Exception
      */
-    public synchronized boolean doInterceptStartingAfter(Message message,
-                                                         String startingAfterInterceptorID) {
-        updateIterator();
-        while (state == State.EXECUTING && iterator.hasNext()) {
-            PhaseInterceptor<? extends Message> currentInterceptor 
-                = (PhaseInterceptor<? extends Message>)iterator.next();
-            if (currentInterceptor.getId().equals(startingAfterInterceptorID)) {
-                break;
+    public boolean doInterceptStartingAfter(Message message,
+                                            String startingAfterInterceptorID) {
+        if (lockFree) {
+            acquireOwner();
+            try {
+                return doInterceptStarting(message, startingAfterInterceptorID, false);
+            } finally {
+                releaseOwner();
             }
         }
-        return doIntercept(message);
+        synchronized (this) {
+            return doInterceptStarting(message, startingAfterInterceptorID, false);
+        }
     }
 
     /**
@@ -443,30 +650,57 @@ public class PhaseInterceptorChain implements InterceptorChain {
      * @param startingAtInterceptorID the id of the interceptor 
      * @throws Exception
      */
-    public synchronized boolean doInterceptStartingAt(Message message,
-                                                         String startingAtInterceptorID) {
+    public boolean doInterceptStartingAt(Message message,
+                                         String startingAtInterceptorID) {
+        if (lockFree) {
+            acquireOwner();
+            try {
+                return doInterceptStarting(message, startingAtInterceptorID, true);
+            } finally {
+                releaseOwner();
+            }
+        }
+        synchronized (this) {
+            return doInterceptStarting(message, startingAtInterceptorID, true);
+        }
+    }
+    
+    private boolean doInterceptStarting(Message message, String interceptorID, boolean inclusive) {
         updateIterator();
-        while (state == State.EXECUTING && iterator.hasNext()) {
+        while (state.get() == State.EXECUTING && iterator.hasNext()) {
             PhaseInterceptor<? extends Message> currentInterceptor 
                 = (PhaseInterceptor<? extends Message>)iterator.next();
-            if (currentInterceptor.getId().equals(startingAtInterceptorID)) {
-                iterator.previous();
+            if (currentInterceptor.getId().equals(interceptorID)) {
+                if (inclusive) {
+                    iterator.previous();
+                }
                 break;
             }
         }
-        return doIntercept(message);
+        return doInterceptInternal(message);
     }
 
-    public synchronized void reset() {
-        updateIterator();
-        if (state == State.COMPLETE) {
-            state = State.EXECUTING;
-            iterator.reset();
+    public void reset() {
+        if (lockFree) {
+            acquireOwner();
+            try {
+                doReset();
+            } finally {
+                releaseOwner();
+            }
         } else {
-            iterator.reset();
+            synchronized (this) {
+                doReset();
+            }
         }
     }
     
+    private void doReset() {
+        updateIterator();
+        state.compareAndSet(State.COMPLETE, State.EXECUTING);
+        iterator.reset();
+    }
+    
     @SuppressWarnings("unchecked")
     public void unwind(Message message) {
         while (iterator.hasPrevious()) {
@@ -487,6 +721,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
 
     public void remove(Interceptor<? extends Message> i) {
+        copyOnWrite();
         PhaseInterceptorIterator it = new PhaseInterceptorIterator(heads);
         while (it.hasNext()) {
             InterceptorHolder holder = it.nextInterceptorHolder();
@@ -497,8 +732,14 @@ public class PhaseInterceptorChain implements InterceptorChain {
         }
     }
 
-    public synchronized void abort() {
-        this.state = InterceptorChain.State.ABORTED;
+    public void abort() {
+        if (lockFree) {
+            state.set(State.ABORTED);
+        } else {
+            synchronized (this) {
+                state.set(State.ABORTED);
+            }
+        }
     }
 
     public Iterator<Interceptor<? extends Message>> iterator() {
@@ -537,6 +778,7 @@ public class PhaseInterceptorChain implements InterceptorChain {
     }
     
     private void insertInterceptor(int phase, PhaseInterceptor<? extends Message> interc, boolean force) {
+        copyOnWrite();
         InterceptorHolder ih = new InterceptorHolder(interc, phase);
         if (heads[phase] == null) {
             // no interceptors yet in this phase
@@ -30,14 +30,12 @@ import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -56,6 +54,12 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
     private static final Logger LOG =
         LogUtils.getL7dLogger(AutomaticWorkQueueImpl.class);
     
+    /**
+     * Single timer thread shared by all the work queues, it only hands the
+     * scheduled work over to the queue it was scheduled on.
+     */
+    private static ScheduledThreadPoolExecutor scheduler;
+    
 
     String name = "default";
     int maxQueueSize;
@@ -73,9 +77,6 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
     ReentrantLock mainLock;
     final ReentrantLock addThreadLock = new ReentrantLock();
     
-    DelayQueue<DelayedTaskWrapper> delayQueue;
-    WatchDog watchDog;
-    
     boolean shared;
     int sharedCount;
     
@@ -165,9 +166,6 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
                     if (f instanceof AWQThreadFactory) {
                         ((AWQThreadFactory)f).shutdown();
                     }
-                    if (watchDog != null) {
-                        watchDog.shutdown();
-                    }
                 }
             };
             
@@ -230,7 +228,7 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         }
         return executor;
     }
-    private AWQThreadFactory createThreadFactory(final String nm) {
+    AWQThreadFactory createThreadFactory(final String nm) {
         ThreadGroup group;
         try { 
             //Try and find the highest level ThreadGroup that we're allowed to use.
@@ -260,75 +258,6 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         return new AWQThreadFactory(group, nm);
     }
     
-    static class DelayedTaskWrapper implements Delayed, Runnable {
-        long trigger;
-        Runnable work;
-        
-        DelayedTaskWrapper(Runnable work, long delay) {
-            this.work = work;
-            trigger = System.currentTimeMillis() + delay;
-        }
-        
-        public long getDelay(TimeUnit unit) {
-            long n = trigger - System.currentTimeMillis();
-            return unit.convert(n, TimeUnit.MILLISECONDS);
-        }
-
-        public int compareTo(Delayed delayed) {
-            long other = ((DelayedTaskWrapper)delayed).trigger;
-            int returnValue;
-            if (this.trigger < other) {
-                returnValue = -1;
-            } else if (this.trigger > other) {
-                returnValue = 1;
-            } else {
-                returnValue = 0;
-            }
-            return returnValue;
-        }
-
-        public void run() {
-            work.run();
-        }
-        
-    }
-    
-    class WatchDog extends Thread {
-        DelayQueue<DelayedTaskWrapper> delayQueue;
-        AtomicBoolean shutdown = new AtomicBoolean(false);
-        
-        WatchDog(DelayQueue<DelayedTaskWrapper> queue) {
-            delayQueue = queue;
-        }
-        
-        public void shutdown() {
-            shutdown.set(true);
-            // to exit the waiting thread
-            interrupt();
-        }
-        
-        public void run() {
-            DelayedTaskWrapper task;
-            try {
-                while (!shutdown.get()) {
-                    task = delayQueue.take();
-                    if (task != null) {
-                        try {
-                            execute(task);
-                        } catch (Exception ex) {
-                            LOG.warning("Executing the task from DelayQueue with exception: " + ex);
-                        }
-                    }
-                }
-            } catch (InterruptedException e) {
-                if (LOG.isLoggable(Level.FINE)) {
-                    LOG.finer("The DelayQueue watchdog Task is stopping");
-                }
-            }
-
-        }
-        
-    }
     class AWQThreadFactory implements ThreadFactory {
         final AtomicInteger threadNumber = new AtomicInteger(1);
         ThreadGroup group;
@@ -416,12 +345,15 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         return buf.toString();
     }
     
-    public void execute(final Runnable command) {
+    /**
+     * Wraps the work so that it runs with the context classloader of the calling thread. 
+     */
+    Runnable wrap(final Runnable command) {
         //Grab the context classloader of this thread.   We'll make sure we use that 
         //on the thread the runnable actually runs on.
         
         final ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        Runnable r = new Runnable() {
+        return new Runnable() {
             public void run() {
                 ClassLoaderHolder orig = ClassLoaderUtils.setThreadContextClassloader(loader);
                 try {
@@ -433,6 +365,10 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
                 }
             }
         };
+    }
+    
+    public void execute(final Runnable command) {
+        Runnable r = wrap(command);
         //The ThreadPoolExecutor in the JDK doesn't expand the number
         //of threads until the queue is full.   However, we would 
         //prefer the number of threads to expand immediately and 
@@ -480,14 +416,42 @@ public class AutomaticWorkQueueImpl implements AutomaticWorkQueue {
         }    
     }
 
-    public synchronized void schedule(final Runnable work, final long delay) {
-        if (delayQueue == null) {
-            delayQueue = new DelayQueue<DelayedTaskWrapper>();
-            watchDog = new WatchDog(delayQueue);
-            watchDog.setDaemon(true);
-            watchDog.start();
+    public void schedule(Runnable work, final long delay) {
+        final Runnable r = wrap(work);
+        getScheduler().schedule(new Runnable() {
+            public void run() {
+                if (isShutdown()) {
+                    return;
+                }
+                try {
+                    execute(r);
+                } catch (Exception ex) {
+                    LOG.warning("Executing the scheduled task with exception: " + ex);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+    
+    private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    final Thread t = new Thread(r, "cxf-workqueue-scheduler");
+                    AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+                        public Boolean run() {
+                            t.setContextClassLoader(AutomaticWorkQueueImpl.class.getClassLoader());
+                            return true;
+                        }
+                    });
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            // don't keep the timer thread around while nothing is scheduled
+            scheduler.setKeepAliveTime(60, TimeUnit.SECONDS);
+            scheduler.allowCoreThreadTimeOut(true);
         }
-        delayQueue.put(new DelayedTaskWrapper(work, delay));
+        return scheduler;
     }
     
     // AutomaticWorkQueue interface
@@ -0,0 +1,270 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * AutomaticWorkQueue that starts a thread for the work instead of keeping a pool 
+ * of threads around.  On runtimes that support them, virtual threads are used so 
+ * that work blocking on I/O does not tie up platform threads.
+ * <p>
+ * The high water mark limits the number of work items running at the same time,
+ * additional work waits in a queue of at most maxQueueSize items and is picked up 
+ * by the threads as they finish their current work.  The low water mark and
+ * the dequeue timeout are not used.
+ * <p>
+ * WorkQueueManagerImpl creates its default queue with this implementation if the
+ * <code>org.apache.cxf.workqueue.ThreadPerTask</code> bus or system property is set
+ * to true.
+ */
+@NoJSR250Annotations
+public class ThreadPerTaskWorkQueueImpl extends AutomaticWorkQueueImpl {
+    public static final String ENABLE_PROPERTY = "org.apache.cxf.workqueue.ThreadPerTask";
+    static final int DEFAULT_CONCURRENCY = 256;
+    
+    private static final Logger LOG =
+        LogUtils.getL7dLogger(ThreadPerTaskWorkQueueImpl.class);
+    
+    private final AtomicInteger threads = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile int largestPoolSize;
+    private volatile BlockingQueue<Runnable> queue;
+    private volatile boolean shutdown;
+    
+    private ThreadFactory factory;
+    private boolean useVirtualThreads = true;
+
+    public ThreadPerTaskWorkQueueImpl() {
+        this("default");
+    }
+    public ThreadPerTaskWorkQueueImpl(String name) {
+        this(DEFAULT_MAX_QUEUE_SIZE, DEFAULT_CONCURRENCY, name);
+    }
+    public ThreadPerTaskWorkQueueImpl(int mqs, int concurrency, String name) {
+        super(mqs, 0, concurrency, 0, 0L, name);
+    }
+    
+    public void setUseVirtualThreads(boolean b) {
+        useVirtualThreads = b;
+    }
+    public boolean isUseVirtualThreads() {
+        return useVirtualThreads;
+    }
+    
+    /**
+     * @return true if the work runs on virtual threads 
+     */
+    public boolean isVirtual() {
+        return !(getThreadFactory() instanceof AWQThreadFactory);
+    }
+    
+    private synchronized ThreadFactory getThreadFactory() {
+        if (factory == null) {
+            if (useVirtualThreads) {
+                factory = createVirtualThreadFactory(name);
+            }
+            if (factory == null) {
+                threadFactory = createThreadFactory(name);
+                factory = threadFactory;
+            }
+        }
+        return factory;
+    }
+    
+    static ThreadFactory createVirtualThreadFactory(String nm) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, Long.TYPE)
+                .invoke(builder, nm + "-workqueue-", 0L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (Throwable t) {
+            //runtime without virtual threads
+            return null;
+        }
+    }
+    
+    private BlockingQueue<Runnable> getQueue() {
+        BlockingQueue<Runnable> q = queue;
+        if (q == null) {
+            synchronized (this) {
+                if (queue == null) {
+                    queue = new LinkedBlockingQueue<Runnable>(maxQueueSize);
+                }
+                q = queue;
+            }
+        }
+        return q;
+    }
+    
+    public void execute(Runnable command) {
+        Runnable r = submit(command);
+        if (r != null && !getQueue().offer(r)) {
+            throw new RejectedExecutionException("Work queue " + name + " is full");
+        }
+        startQueuedWork();
+    }
+
+    public void execute(Runnable work, long timeout) {
+        Runnable r = submit(work);
+        try {
+            if (r != null && !getQueue().offer(r, timeout, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Work queue " + name + " is full");
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(ie);
+        }
+        startQueuedWork();
+    }
+    
+    /**
+     * Starts a thread for the work if the concurrency limit allows it.
+     * @return the wrapped work if it still needs to be queued
+     */
+    private Runnable submit(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("Work queue " + name + " has been shut down");
+        }
+        Runnable r = wrap(command);
+        if (reserveThread()) {
+            startThread(r);
+            return null;
+        }
+        return r;
+    }
+    
+    private void startQueuedWork() {
+        // the running threads may all have finished before the work was queued
+        if (!getQueue().isEmpty() && reserveThread()) {
+            startThread(null);
+        }
+    }
+    
+    private boolean reserveThread() {
+        for (;;) {
+            int n = threads.get();
+            if (n >= highWaterMark) {
+                return false;
+            }
+            if (threads.compareAndSet(n, n + 1)) {
+                if (n + 1 > largestPoolSize) {
+                    largestPoolSize = n + 1;
+                }
+                return true;
+            }
+        }
+    }
+    
+    private void startThread(Runnable first) {
+        try {
+            getThreadFactory().newThread(new Worker(first)).start();
+        } catch (Throwable t) {
+            threads.decrementAndGet();
+            throw new RejectedExecutionException(t);
+        }
+    }
+    
+    class Worker implements Runnable {
+        Runnable first;
+        
+        Worker(Runnable r) {
+            first = r;
+        }
+        
+        public void run() {
+            Runnable task = first;
+            first = null;
+            BlockingQueue<Runnable> q = getQueue();
+            for (;;) {
+                while (task != null) {
+                    runTask(task);
+                    task = q.poll();
+                }
+                threads.decrementAndGet();
+                // work queued after the last poll would otherwise wait for the next submission
+                if (q.isEmpty() || !reserveThread()) {
+                    return;
+                }
+                task = q.poll();
+            }
+        }
+        
+        private void runTask(Runnable task) {
+            active.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.log(Level.WARNING, "Work item failed with exception: " + t, t);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+    }
+    
+    public void shutdown(boolean processRemainingWorkItems) {
+        shutdown = true;
+        if (!processRemainingWorkItems && queue != null) {
+            queue.clear();
+        }
+    }
+    
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    public long getSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    public boolean isEmpty() {
+        return queue == null || queue.isEmpty();
+    }
+
+    public boolean isFull() {
+        return queue != null && queue.remainingCapacity() == 0;
+    }
+    
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+    
+    public int getPoolSize() {
+        return threads.get();
+    }
+    
+    public int getActiveCount() {
+        return active.get();
+    }
+}
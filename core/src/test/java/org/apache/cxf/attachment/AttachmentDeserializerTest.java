@@ -357,6 +357,36 @@ public class AttachmentDeserializerTest extends Assert {
         m.close();
     }
     
+    @Test
+    public void testBoundaryLikeContentAcrossReads() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int x = 0; x < 2000; x++) {
+            content.append("data ").append(x).append("\r\n------=_Part_2\r\r\n------=_Par\n-")
+                .append("\r\n------=_Part".substring(0, x % 14));
+        }
+        byte[] contentBytes = content.toString().getBytes("ISO-8859-1");
+        byte[] messageBytes = (content + "\r\n------=_Part_1\r\nnext").getBytes("ISO-8859-1");
+        
+        for (int size : new int[] {1, 7, 33, 600, 4096, 100000}) {
+            PushbackInputStream pushbackStream 
+                = new PushbackInputStream(new ByteArrayInputStream(messageBytes), 16 * 1024);
+            MimeBodyPartInputStream m = new MimeBodyPartInputStream(pushbackStream, 
+                                                                    "------=_Part_1".getBytes(),
+                                                                    16 * 1024);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[size];
+            int i = m.read(buf);
+            while (i != -1) {
+                assertTrue(i > 0);
+                out.write(buf, 0, i);
+                i = m.read(buf);
+            }
+            assertArrayEquals("read size " + size, contentBytes, out.toByteArray());
+            assertEquals("next", IOUtils.toString(pushbackStream));
+            m.close();
+        }
+    }
+    
     @Test
     public void testCXF2542() throws Exception {
         StringBuffer buf = new StringBuffer();
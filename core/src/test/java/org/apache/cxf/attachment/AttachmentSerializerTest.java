@@ -20,14 +20,19 @@ package org.apache.cxf.attachment;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Properties;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
+import javax.activation.FileDataSource;
 import javax.mail.Session;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
@@ -127,6 +132,66 @@ public class AttachmentSerializerTest extends Assert {
 
     }
     
+    @Test
+    public void testFileAttachment() throws Exception {
+        doTestFileAttachment(new ByteArrayOutputStream());
+    }
+    
+    @Test
+    public void testFileAttachmentToChannel() throws Exception {
+        doTestFileAttachment(new ChannelOutputStream());
+    }
+    
+    private void doTestFileAttachment(ByteArrayOutputStream out) throws Exception {
+        byte[] data = new byte[300000];
+        for (int x = 0; x < data.length; x++) {
+            data[x] = (byte)x;
+        }
+        File file = File.createTempFile("cxf-att", ".bin");
+        try {
+            FileOutputStream fout = new FileOutputStream(file);
+            fout.write(data);
+            fout.close();
+            
+            MessageImpl msg = new MessageImpl();
+            AttachmentImpl a = new AttachmentImpl("test.bin");
+            a.setDataHandler(new DataHandler(new FileDataSource(file)));
+            Collection<Attachment> atts = new ArrayList<Attachment>();
+            atts.add(a);
+            msg.setAttachments(atts);
+            msg.put(Message.CONTENT_TYPE, "application/soap+xml");
+            msg.setContent(OutputStream.class, out);
+            
+            AttachmentSerializer serializer = new AttachmentSerializer(msg);
+            serializer.writeProlog();
+            String ct = (String) msg.get(Message.CONTENT_TYPE);
+            out.write("<soap:Body/>".getBytes());
+            serializer.writeAttachments();
+            
+            DataSource source = new ByteArrayDataSource(new ByteArrayInputStream(out.toByteArray()), ct);
+            MimeMultipart multipart = new MimeMultipart(source);
+            MimeBodyPart part = (MimeBodyPart) multipart.getBodyPart(1);
+            assertEquals("<test.bin>", part.getHeader("Content-ID")[0]);
+            assertArrayEquals(data, IOUtils.readBytesFromStream(part.getInputStream()));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    private static class ChannelOutputStream extends ByteArrayOutputStream implements WritableByteChannel {
+        public boolean isOpen() {
+            return true;
+        }
+        public int write(ByteBuffer src) {
+            //take only part of it like a socket would
+            int len = Math.min(src.remaining(), 8192);
+            byte[] bytes = new byte[len];
+            src.get(bytes);
+            write(bytes, 0, len);
+            return len;
+        }
+    }
+    
     @Test
     public void testMessageMTOM() throws Exception {
         MessageImpl msg = new MessageImpl();
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.jaxb;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MarshallerPoolTest extends Assert {
+    
+    @Test
+    public void testSharedPerContext() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Item.class);
+        MarshallerPool pool = MarshallerPool.getInstance(context);
+        assertSame(pool, MarshallerPool.getInstance(context));
+        assertNotSame(pool, MarshallerPool.getInstance(JAXBContext.newInstance(Item.class)));
+    }
+    
+    @Test
+    public void testReuseByConfiguration() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Item.class);
+        MarshallerPool pool = MarshallerPool.getInstance(context);
+        Object formatted = Arrays.asList(Boolean.TRUE);
+        Object plain = Arrays.asList(Boolean.FALSE);
+        
+        assertNull(pool.pollMarshaller(formatted));
+        Marshaller m = context.createMarshaller();
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        ValidationEventHandler handler = new ValidationEventHandler() {
+            public boolean handleEvent(ValidationEvent event) {
+                return true;
+            }
+        };
+        m.setEventHandler(handler);
+        pool.offerMarshaller(formatted, m);
+        
+        assertNull(pool.pollMarshaller(plain));
+        Marshaller m2 = pool.pollMarshaller(Arrays.asList(Boolean.TRUE));
+        assertSame(m, m2);
+        assertNull(pool.pollMarshaller(formatted));
+        assertEquals(Boolean.TRUE, m2.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+        assertNotSame(handler, m2.getEventHandler());
+        
+        StringWriter w = new StringWriter();
+        m2.marshal(new Item(), w);
+        
+        Unmarshaller u = context.createUnmarshaller();
+        pool.offerUnmarshaller(plain, u);
+        Unmarshaller u2 = pool.pollUnmarshaller(plain);
+        assertSame(u, u2);
+        assertNull(u2.getAttachmentUnmarshaller());
+        assertTrue(u2.unmarshal(new StringReader(w.toString())) instanceof Item);
+    }
+    
+    @Test
+    public void testBoundedConfigurations() throws Exception {
+        JAXBContext context = JAXBContext.newInstance(Item.class);
+        MarshallerPool pool = MarshallerPool.getInstance(context);
+        for (int x = 0; x < MarshallerPool.MAX_CONFIGURATIONS * 2; x++) {
+            pool.offerUnmarshaller(x, context.createUnmarshaller());
+        }
+        assertNotNull(pool.pollUnmarshaller(0));
+        assertNull(pool.pollUnmarshaller(MarshallerPool.MAX_CONFIGURATIONS + 1));
+        pool.clear();
+        assertNull(pool.pollUnmarshaller(1));
+    }
+    
+    @XmlRootElement
+    public static class Item {
+        private String name = "item";
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
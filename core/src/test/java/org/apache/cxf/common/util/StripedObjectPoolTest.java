@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.common.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StripedObjectPoolTest extends Assert {
+    
+    @Test
+    public void testSameThreadGetsObjectBack() throws Exception {
+        StripedObjectPool<Object> pool = new StripedObjectPool<Object>(20);
+        assertNull(pool.poll());
+        Object o = new Object();
+        assertTrue(pool.offer(o));
+        assertSame(o, pool.poll());
+        assertNull(pool.poll());
+    }
+    
+    @Test
+    public void testBounded() throws Exception {
+        StripedObjectPool<Object> pool = new StripedObjectPool<Object>(2);
+        int offered = 0;
+        for (int x = 0; x < 10; x++) {
+            if (pool.offer(new Object())) {
+                offered++;
+            }
+        }
+        assertEquals(2, offered);
+        pool.clear();
+        assertNull(pool.poll());
+    }
+    
+    @Test
+    public void testAllSlotsUsed() throws Exception {
+        StripedObjectPool<Object> pool = new StripedObjectPool<Object>(16);
+        for (int x = 0; x < 16; x++) {
+            assertTrue(pool.offer(new Object()));
+        }
+        assertFalse(pool.offer(new Object()));
+        for (int x = 0; x < 16; x++) {
+            assertNotNull(pool.poll());
+        }
+        assertNull(pool.poll());
+    }
+    
+    @Test
+    public void testConcurrentUse() throws Exception {
+        final StripedObjectPool<Object> pool = new StripedObjectPool<Object>(8);
+        final Set<Object> created = new HashSet<Object>();
+        final Set<Object> inUse = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(8);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread() {
+                public void run() {
+                    for (int x = 0; x < 10000; x++) {
+                        Object o = pool.poll();
+                        if (o == null) {
+                            o = new Object();
+                            synchronized (created) {
+                                created.add(o);
+                            }
+                        }
+                        // no other thread may have been handed the same object
+                        if (!inUse.add(o)) {
+                            failures.incrementAndGet();
+                        }
+                        inUse.remove(o);
+                        pool.offer(o);
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        done.await();
+        assertEquals(0, failures.get());
+        assertTrue(created.size() < 10000);
+    }
+}
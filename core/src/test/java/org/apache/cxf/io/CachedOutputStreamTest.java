@@ -20,9 +20,16 @@ package org.apache.cxf.io;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.helpers.FileUtils;
+import org.junit.Test;
+
 public class CachedOutputStreamTest extends CachedStreamTestBase {
     
     @Override
@@ -76,6 +83,100 @@ public class CachedOutputStreamTest extends CachedStreamTestBase {
     protected String readFromStreamObject(Object obj) throws IOException {
         return readFromStream((InputStream)obj);
     }
-}
+
+    @Test
+    public void testPooledMemoryBudget() throws Exception {
+        Bus oldbus = BusFactory.getThreadDefaultBus(false);
+        try {
+            Bus bus = new ExtensionManagerBus();
+            CachedOutputStreamBufferPool pool = new CachedOutputStreamBufferPool(16 * 1024, 4 * 1024);
+            bus.setExtension(pool, CachedOutputStreamBufferPool.class);
+            BusFactory.setThreadDefaultBus(bus);
+            
+            String first = createString(12 * 1024);
+            CachedOutputStream cos1 = new CachedOutputStream();
+            cos1.write(first.getBytes());
+            assertNull("expects no tmp file", cos1.getTempFile());
+            assertEquals(12 * 1024, pool.getUsedMemory());
+            
+            // the second stream does not fit in the budget so goes to a file
+            String second = createString(8 * 1024);
+            CachedOutputStream cos2 = new CachedOutputStream();
+            cos2.write(second.getBytes());
+            File tmpfile = cos2.getTempFile();
+            assertNotNull("expects a tmp file", tmpfile);
+            assertEquals(12 * 1024, pool.getUsedMemory());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            cos2.writeCacheTo(out);
+            assertEquals(second, out.toString());
+            cos2.close();
+            assertFalse("expects no tmp file", tmpfile.exists());
+            
+            // the chunks are kept while a reader is open after the close
+            InputStream in1 = cos1.getInputStream();
+            InputStream in2 = cos1.getInputStream();
+            cos1.close();
+            assertEquals(first, readFromStream(in1));
+            assertEquals(12 * 1024, pool.getUsedMemory());
+            // and given back once the last reader is closed
+            assertEquals(first, readFromStream(in2));
+            assertEquals(0, pool.getUsedMemory());
+            assertEquals(4, pool.getPooledChunks());
+            
+            // closing a stream without readers gives the chunks back at once
+            CachedOutputStream cos3 = new CachedOutputStream();
+            cos3.write(second.getBytes());
+            assertNull("expects no tmp file", cos3.getTempFile());
+            assertEquals(2, pool.getPooledChunks());
+            assertEquals(second, new String(cos3.getBytes()));
+            cos3.close();
+            assertEquals(0, pool.getUsedMemory());
+            assertEquals(4, pool.getPooledChunks());
+            
+            // a held stream keeps its content after the close
+            CachedOutputStream cos4 = new CachedOutputStream();
+            cos4.holdTempFile();
+            cos4.write(second.getBytes());
+            cos4.close();
+            assertEquals(second, readFromStream(cos4.getInputStream()));
+            assertEquals(8 * 1024, pool.getUsedMemory());
+            cos4.resetOut(null, false);
+            assertEquals(0, pool.getUsedMemory());
+        } finally {
+            BusFactory.setThreadDefaultBus(oldbus);
+        }
+    }
     
-   
+    @Test
+    public void testWriteCacheToFromFile() throws Exception {
+        String result = createString(10 * 1024);
+        CachedOutputStream cos = new CachedOutputStream();
+        cos.setThreshold(1024);
+        cos.write(result.getBytes());
+        File tmpfile = cos.getTempFile();
+        assertNotNull("expects a tmp file", tmpfile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cos.writeCacheTo(out);
+        assertEquals(result, out.toString());
+        
+        File target = FileUtils.createTempFile("cos", "test");
+        FileOutputStream fout = new FileOutputStream(target);
+        try {
+            cos.writeCacheTo(fout);
+        } finally {
+            fout.close();
+        }
+        assertEquals(result.length(), target.length());
+        FileUtils.delete(target);
+        cos.close();
+        assertFalse("expects no tmp file", tmpfile.exists());
+    }
+    
+    private static String createString(int size) {
+        StringBuilder b = new StringBuilder(size);
+        for (int x = 0; x < size; x++) {
+            b.append((char)('a' + x % 26));
+        }
+        return b.toString();
+    }
+}
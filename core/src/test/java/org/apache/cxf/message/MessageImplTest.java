@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.message;
+
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.EndpointImpl;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.ServiceImpl;
+import org.apache.cxf.service.model.BindingInfo;
+import org.apache.cxf.service.model.EndpointInfo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageImplTest extends Assert {
+    
+    @Test
+    public void testContextualPropertyPrecedence() throws Exception {
+        Bus bus = new ExtensionManagerBus();
+        Service service = new ServiceImpl();
+        EndpointInfo ei = new EndpointInfo();
+        Endpoint endpoint = new EndpointImpl(bus, service, ei);
+        BindingInfo bi = new BindingInfo(null, null);
+        ei.setBinding(bi);
+        
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(message);
+        exchange.put(Bus.class, bus);
+        exchange.put(Service.class, service);
+        exchange.put(Endpoint.class, endpoint);
+        
+        bus.setProperty("bus", "bus");
+        bus.setProperty("service", "bus");
+        service.put("service", "service");
+        service.put("endpoint", "service");
+        bi.setProperty("binding", "binding");
+        bi.setProperty("endpointInfo", "binding");
+        ei.setProperty("endpointInfo", "endpointInfo");
+        endpoint.put("endpoint", "endpoint");
+        
+        assertEquals("bus", message.getContextualProperty("bus"));
+        assertEquals("service", message.getContextualProperty("service"));
+        assertEquals("binding", message.getContextualProperty("binding"));
+        assertEquals("endpointInfo", message.getContextualProperty("endpointInfo"));
+        assertEquals("endpoint", message.getContextualProperty("endpoint"));
+        assertNull(message.getContextualProperty("missing"));
+        
+        // later changes are picked up without resetting anything
+        bus.setProperty("missing", "bus");
+        assertEquals("bus", message.getContextualProperty("missing"));
+        exchange.put("bus", "exchange");
+        assertEquals("exchange", message.getContextualProperty("bus"));
+        message.put("bus", "message");
+        assertEquals("message", message.getContextualProperty("bus"));
+        message.remove("bus");
+        assertEquals("exchange", message.getContextualProperty("bus"));
+    }
+    
+    @Test
+    public void testNullHidesLowerLayers() throws Exception {
+        Bus bus = new ExtensionManagerBus();
+        Service service = new ServiceImpl();
+        Endpoint endpoint = new EndpointImpl(bus, service, new EndpointInfo());
+        
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(message);
+        exchange.put(Bus.class, bus);
+        exchange.put(Service.class, service);
+        exchange.put(Endpoint.class, endpoint);
+        
+        bus.setProperty("key", "bus");
+        assertEquals("bus", message.getContextualProperty("key"));
+        endpoint.put("key", null);
+        assertNull(message.getContextualProperty("key"));
+        endpoint.remove("key");
+        exchange.put("key", null);
+        assertNull(message.getContextualProperty("key"));
+        exchange.remove("key");
+        message.put("key", null);
+        assertNull(message.getContextualProperty("key"));
+        message.remove("key");
+        assertEquals("bus", message.getContextualProperty("key"));
+    }
+    
+    @Test
+    public void testEndpointPropertiesShared() throws Exception {
+        Bus bus = new ExtensionManagerBus();
+        Service service = new ServiceImpl();
+        EndpointImpl endpoint = new EndpointImpl(bus, service, new EndpointInfo());
+        endpoint.put("key", "endpoint");
+        
+        Map<String, Object> props = endpoint.getContextualProperties(bus, service);
+        assertEquals("endpoint", props.get("key"));
+        assertSame(props, endpoint.getContextualProperties(bus, service));
+        
+        service.put("other", "service");
+        Map<String, Object> props2 = endpoint.getContextualProperties(bus, service);
+        assertNotSame(props, props2);
+        assertEquals("service", props2.get("other"));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes" })
+    public void testMergeDuringPropertyChange() throws Exception {
+        final Bus bus = new ExtensionManagerBus();
+        final Service service = new ServiceImpl();
+        final EndpointImpl endpoint = new EndpointImpl(bus, service, new EndpointInfo());
+        final Map<String, Object>[] merged = new Map[1];
+        // the map asks the key for its hash code before the key is stored,
+        // so the endpoint properties are merged in the middle of the put
+        Object key = new Object() {
+            public int hashCode() {
+                if (merged[0] == null) {
+                    merged[0] = endpoint.getContextualProperties(bus, service);
+                }
+                return super.hashCode();
+            }
+        };
+        ((Map)bus.getProperties()).put(key, "bus");
+        assertNotNull(merged[0]);
+        assertFalse(merged[0].containsKey(key));
+        // the merge made during the change must not be kept
+        assertEquals("bus", endpoint.getContextualProperties(bus, service).get(key));
+    }
+
+    @Test
+    public void testSetContextualProperty() {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(message);
+        exchange.put("key", "exchange");
+        
+        message.setContextualProperty("key", "context");
+        assertEquals("context", message.getContextualProperty("key"));
+        assertFalse(message.containsKey("key"));
+        
+        message.put("key", "message");
+        message.setContextualProperty("key", "context2");
+        assertEquals("message", message.getContextualProperty("key"));
+        
+        message.remove("key");
+        message.resetContextCache();
+        assertEquals("exchange", message.getContextualProperty("key"));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.phase;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.cxf.common.util.ModCountCopyOnWriteArrayList;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Message;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PhaseChainCacheTest extends Assert {
+    
+    private SortedSet<Phase> phases;
+    
+    @Before
+    public void setUp() {
+        phases = new TreeSet<Phase>();
+        phases.add(new Phase("phase1", 1));
+        phases.add(new Phase("phase2", 2));
+    }
+    
+    @Test
+    public void testAlternatingProviders() {
+        PhaseChainCache cache = new PhaseChainCache();
+        List<Interceptor<? extends Message>> l1 
+            = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        List<Interceptor<? extends Message>> l2 
+            = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        TestInterceptor i1 = new TestInterceptor("phase1");
+        TestInterceptor i2 = new TestInterceptor("phase2");
+        l1.add(i1);
+        l2.add(i2);
+        
+        PhaseInterceptorChain c1 = cache.get(phases, l1);
+        PhaseInterceptorChain c2 = cache.get(phases, l2);
+        assertEquals(2, cache.lastData.get().length);
+        
+        assertSame(i1, c1.iterator().next());
+        assertSame(i2, c2.iterator().next());
+        
+        //both should now come from the cache
+        assertSame(i1, cache.get(phases, l1).iterator().next());
+        assertSame(i2, cache.get(phases, l2).iterator().next());
+        assertEquals(2, cache.lastData.get().length);
+    }
+    
+    @Test
+    public void testModifiedProviderRebuildsChain() {
+        PhaseChainCache cache = new PhaseChainCache();
+        List<Interceptor<? extends Message>> l1 
+            = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+        TestInterceptor i1 = new TestInterceptor("phase1");
+        TestInterceptor i2 = new TestInterceptor("phase2");
+        l1.add(i1);
+        cache.get(phases, l1);
+        l1.add(i2);
+        
+        Iterator<Interceptor<? extends Message>> it = cache.get(phases, l1).iterator();
+        assertSame(i1, it.next());
+        assertSame(i2, it.next());
+        assertFalse(it.hasNext());
+    }
+    
+    @Test
+    public void testBoundedEntries() {
+        PhaseChainCache cache = new PhaseChainCache(2);
+        for (int x = 0; x < 5; x++) {
+            List<Interceptor<? extends Message>> l 
+                = new ModCountCopyOnWriteArrayList<Interceptor<? extends Message>>();
+            l.add(new TestInterceptor("phase1"));
+            cache.get(phases, l);
+        }
+        assertEquals(2, cache.lastData.get().length);
+    }
+    
+    static class TestInterceptor extends AbstractPhaseInterceptor<Message> {
+        TestInterceptor(String phase) {
+            super(phase);
+        }
+        public void handleMessage(Message message) {
+        }
+    }
+}
@@ -46,6 +46,8 @@ public class PhaseInterceptorChainTest extends Assert {
 
     private IMocksControl control;
 
+    private SortedSet<Phase> phases;
+
     private PhaseInterceptorChain chain;
 
     private Message message;
@@ -59,7 +61,7 @@ public class PhaseInterceptorChainTest extends Assert {
         Phase phase1 = new Phase("phase1", 1);
         Phase phase2 = new Phase("phase2", 2);
         Phase phase3 = new Phase("phase3", 3);
-        SortedSet<Phase> phases = new TreeSet<Phase>();
+        phases = new TreeSet<Phase>();
         phases.add(phase1);
         phases.add(phase2);
         phases.add(phase3);
@@ -92,6 +94,52 @@ public class PhaseInterceptorChainTest extends Assert {
                    InterceptorChain.State.ABORTED, chain.getState());
     }
     
+    @Test
+    public void testStateLockFree() throws Exception {
+        chain = new PhaseInterceptorChain(phases, true);
+        testState();
+    }
+    
+    @Test
+    public void testLockFreeResumeWaitsForPausingThread() throws Exception {
+        chain = new PhaseInterceptorChain(phases, true);
+        final PausingPhaseInterceptor p1 = new PausingPhaseInterceptor("phase1", "p1");
+        final CheckingPhaseInterceptor p2 = new CheckingPhaseInterceptor("phase2", "p2", p1);
+        
+        control.replay();
+        chain.add(p1);
+        chain.add(p2);
+        
+        assertFalse(chain.doIntercept(message));
+        p1.resumer.join(10000);
+        assertEquals(1, p2.invoked);
+        assertTrue("Chain resumed before the pausing thread left it", p2.pausingThreadDone);
+        assertSame(InterceptorChain.State.COMPLETE, chain.getState());
+    }
+    
+    @Test
+    public void testLockFreeReleaseAndAcquireChain() throws Exception {
+        chain = new PhaseInterceptorChain(phases, true);
+        control.replay();
+        
+        final PhaseInterceptorChain c = chain;
+        Thread acquirer = new Thread() {
+            public void run() {
+                c.releaseAndAcquireChain();
+            }
+        };
+        acquirer.start();
+        Thread.sleep(100);
+        assertTrue("Chain acquired before it was released", acquirer.isAlive());
+        chain.releaseChain();
+        acquirer.join(10000);
+        assertFalse("Waiting thread was not woken up by the release", acquirer.isAlive());
+        
+        // a release that happens first is not lost
+        chain.releaseChain();
+        chain.releaseAndAcquireChain();
+    }
+    
     @Test
     public void testSuspendedException() throws Exception {
         CountingPhaseInterceptor p1 = 
@@ -392,6 +440,61 @@ public class PhaseInterceptorChainTest extends Assert {
         assertEquals(1, p3.invoked);
     }
     
+    @Test
+    public void testClonedChainIsolation() throws Exception {
+        CountingPhaseInterceptor p1 = new CountingPhaseInterceptor("phase1", "p1");
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        control.replay();
+        chain.add(p1);
+        chain.add(p3);
+        
+        PhaseInterceptorChain clone1 = chain.cloneChain();
+        PhaseInterceptorChain clone2 = chain.cloneChain();
+        clone1.add(p2);
+        clone2.remove(p1);
+        
+        Iterator<Interceptor<? extends Message>> it = clone1.iterator();
+        assertSame(p1, it.next());
+        assertSame(p2, it.next());
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+        
+        it = clone2.iterator();
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+        
+        it = chain.iterator();
+        assertSame(p1, it.next());
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+    }
+    
+    @Test
+    public void testInsertionInClonedChainPass() throws Exception {
+        CountingPhaseInterceptor p2 = new CountingPhaseInterceptor("phase2", "p2");
+        CountingPhaseInterceptor p3 = new CountingPhaseInterceptor("phase3", "p3");
+        control.replay();
+        chain.add(p3);
+        
+        PhaseInterceptorChain clone = chain.cloneChain();
+        InsertingPhaseInterceptor p1 = new InsertingPhaseInterceptor(clone, p2,
+                "phase1", "p1");
+        clone.add(p1);
+        PhaseInterceptorChain clone2 = clone.cloneChain();
+        
+        clone.doIntercept(message);
+        assertEquals(1, p1.invoked);
+        assertEquals(1, p2.invoked);
+        assertEquals(1, p3.invoked);
+        
+        // the insertion while executing must not leak into the second clone
+        Iterator<Interceptor<? extends Message>> it = clone2.iterator();
+        assertSame(p1, it.next());
+        assertSame(p3, it.next());
+        assertFalse(it.hasNext());
+    }
+
     AbstractPhaseInterceptor<Message> setUpPhaseInterceptor(String phase, String id) throws Exception {
         return setUpPhaseInterceptor(phase, id, null, null);
     }
@@ -538,4 +641,45 @@ public class PhaseInterceptorChainTest extends Assert {
         }
     }
 
+    public class PausingPhaseInterceptor extends AbstractPhaseInterceptor<Message> {
+        volatile boolean done;
+        Thread resumer;
+        
+        public PausingPhaseInterceptor(String phase, String id) {
+            super(id, phase);
+        }
+        
+        public void handleMessage(Message m) {
+            final PhaseInterceptorChain c = chain;
+            c.pause();
+            resumer = new Thread() {
+                public void run() {
+                    c.resume();
+                }
+            };
+            resumer.start();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            done = true;
+        }
+    }
+    
+    public class CheckingPhaseInterceptor extends CountingPhaseInterceptor {
+        volatile boolean pausingThreadDone;
+        private final PausingPhaseInterceptor pausing;
+        
+        public CheckingPhaseInterceptor(String phase, String id, PausingPhaseInterceptor p) {
+            super(phase, id);
+            pausing = p;
+        }
+        
+        public void handleMessage(Message m) {
+            super.handleMessage(m);
+            pausingThreadDone = pausing.done;
+        }
+    }
+
 }
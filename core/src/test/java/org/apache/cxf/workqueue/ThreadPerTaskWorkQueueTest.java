@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.workqueue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ThreadPerTaskWorkQueueTest extends Assert {
+    ThreadPerTaskWorkQueueImpl workqueue;
+    
+    @After
+    public void tearDown() throws Exception {
+        if (workqueue != null) {
+            workqueue.shutdown(true);
+            workqueue = null;
+        }
+    }
+    
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        workqueue = new ThreadPerTaskWorkQueueImpl(100, 4, "test");
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(20);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        for (int x = 0; x < 20; x++) {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                    int n = running.incrementAndGet();
+                    while (n > maxRunning.get()) {
+                        maxRunning.compareAndSet(maxRunning.get(), n);
+                    }
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        //ignore
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        assertEquals(4, workqueue.getPoolSize());
+        assertEquals(16, workqueue.getSize());
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 4);
+        assertEquals(4, workqueue.getLargestPoolSize());
+        
+        for (int i = 0; i < 50 && workqueue.getPoolSize() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, workqueue.getPoolSize());
+        assertTrue(workqueue.isEmpty());
+    }
+    
+    @Test
+    public void testQueueFull() throws Exception {
+        workqueue = new ThreadPerTaskWorkQueueImpl(2, 1, "test");
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable r = new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    //ignore
+                }
+            }
+        };
+        int x = 0;
+        try {
+            for (; x < 5; x++) {
+                workqueue.execute(r, 50);
+            }
+            fail("Should have failed with a RejectedExecutionException as the queue is full");
+        } catch (RejectedExecutionException rex) {
+            assertEquals(3, x);
+            assertTrue(workqueue.isFull());
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test
+    public void testSchedule() throws Exception {
+        workqueue = new ThreadPerTaskWorkQueueImpl("test");
+        final CountDownLatch done = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        workqueue.schedule(new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        }, 500);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue("expected delay", System.currentTimeMillis() - start >= 450);
+    }
+    
+    @Test
+    public void testShutdown() throws Exception {
+        workqueue = new ThreadPerTaskWorkQueueImpl("test");
+        workqueue.shutdown(true);
+        assertTrue(workqueue.isShutdown());
+        try {
+            workqueue.execute(new Runnable() {
+                public void run() {
+                }
+            });
+            fail("Should have failed with a RejectedExecutionException after shutdown");
+        } catch (RejectedExecutionException rex) {
+            //expected
+        }
+        workqueue = null;
+    }
+}
@@ -19,13 +19,26 @@
 package org.apache.cxf.binding.soap;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import org.apache.cxf.databinding.DataBinding;
 import org.apache.cxf.headers.Header;
+import org.apache.cxf.helpers.DOMUtils;
+import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.apache.cxf.staxutils.W3CDOMStreamReader;
 
 public class SoapHeader extends Header {
+    private static final String BUFFERED_HEADER = SoapHeader.class.getName() + ".BUFFERED";
+    
     private boolean mustUnderstand;
     private String actor;
+    private LoadingByteArrayOutputStream content;
 
     public SoapHeader(QName q, Object o) {
         super(q, o);
@@ -34,6 +47,96 @@ public class SoapHeader extends Header {
         super(q, o, b);
     }
     
+    /**
+     * Creates an inbound header whose Element only holds the start tag of the header block
+     * so far.  The complete header block is kept in the buffer and the children of the 
+     * Element are read from it when getObject() is called for the first time.
+     * @param q the name of the header
+     * @param element the Element with the name, namespaces and attributes of the header block
+     * @param buffer the serialized header block, declaring all the namespaces in scope
+     */
+    public SoapHeader(QName q, Element element, LoadingByteArrayOutputStream buffer) {
+        super(q, element);
+        content = buffer;
+        element.setUserData(BUFFERED_HEADER, this, null);
+    }
+    
+    /**
+     * Builds the Elements of the buffered header blocks in a SOAP envelope, so that the 
+     * document holds the complete soap:Header, including the headers which have been 
+     * removed from the message since.
+     */
+    public static void buildElements(Document doc) {
+        Element child = doc.getDocumentElement() == null 
+            ? null : DOMUtils.getFirstElement(doc.getDocumentElement());
+        while (child != null) {
+            Element hel = DOMUtils.getFirstElement(child);
+            while (hel != null) {
+                Object header = hel.getUserData(BUFFERED_HEADER);
+                if (header instanceof SoapHeader) {
+                    ((SoapHeader)header).getObject();
+                }
+                hel = DOMUtils.getNextElement(hel);
+            }
+            child = DOMUtils.getNextElement(child);
+        }
+    }
+    
+    /**
+     * Returns true if the header block has not been read into its Element yet.
+     */
+    public boolean isBuffered() {
+        return content != null;
+    }
+    
+    /**
+     * Returns a reader positioned on the start tag of the header block.  The buffered header
+     * is read without building its Element, otherwise the reader walks the Element.
+     * @return the reader or null if the header does not hold an Element
+     */
+    public XMLStreamReader getXMLStreamReader() {
+        if (content == null) {
+            Object o = super.getObject();
+            return o instanceof Element ? new W3CDOMStreamReader((Element)o) : null;
+        }
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(content.createInputStream(), "UTF-8");
+        try {
+            reader.nextTag();
+        } catch (XMLStreamException e) {
+            throw new Fault(e);
+        }
+        return reader;
+    }
+    
+    @Override
+    public Object getObject() {
+        if (content != null) {
+            readElement();
+        }
+        return super.getObject();
+    }
+    
+    @Override
+    public void setObject(Object object) {
+        content = null;
+        super.setObject(object);
+    }
+    
+    private void readElement() {
+        Element element = (Element)super.getObject();
+        XMLStreamReader reader = getXMLStreamReader();
+        content = null;
+        element.setUserData(BUFFERED_HEADER, null, null);
+        try {
+            // the start tag is already in the Element
+            reader.next();
+            StaxUtils.readDocElements(element.getOwnerDocument(), element, reader, true, false);
+            StaxUtils.close(reader);
+        } catch (XMLStreamException e) {
+            throw new Fault(e);
+        }
+    }
+    
     public String getActor() {
         return actor;
     }
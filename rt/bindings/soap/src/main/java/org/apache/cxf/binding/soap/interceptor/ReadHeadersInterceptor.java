@@ -20,13 +20,16 @@
 package org.apache.cxf.binding.soap.interceptor;
 
 import java.io.InputStream;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.logging.Logger;
 
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -51,6 +54,7 @@ import org.apache.cxf.databinding.DataBinding;
 import org.apache.cxf.headers.HeaderManager;
 import org.apache.cxf.headers.HeaderProcessor;
 import org.apache.cxf.helpers.DOMUtils;
+import org.apache.cxf.helpers.LoadingByteArrayOutputStream;
 import org.apache.cxf.helpers.ServiceUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.phase.Phase;
@@ -160,89 +164,34 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                                         version.getVersionMismatch());                    
                 }
 
-                XMLStreamReader filteredReader = new PartialXMLStreamReader(xmlReader, message.getVersion()
-                    .getBody());
-
-                Node nd = message.getContent(Node.class);
+                HeaderManager headerManager = bus == null ? null : bus.getExtension(HeaderManager.class);
                 W3CDOMStreamWriter writer = message.get(W3CDOMStreamWriter.class);
-                Document doc = null;
                 if (writer != null) {
+                    XMLStreamReader filteredReader = 
+                        new PartialXMLStreamReader(xmlReader, message.getVersion().getBody());
                     StaxUtils.copy(filteredReader, writer);
-                    doc = writer.getDocument();
-                } else if (nd instanceof Document) {
-                    doc = (Document)nd;
-                    StaxUtils.readDocElements(doc, doc, filteredReader, false, false);
-                } else {
-                    doc = StaxUtils.read(filteredReader);
-                    message.setContent(Node.class, doc);
-                }
-
-                // Find header
-                // TODO - we could stream read the "known" headers and just DOM read the 
-                // unknown ones
-                Element element = doc.getDocumentElement();
-                QName header = soapVersion.getHeader();                
-                List<Element> elemList = 
-                    DOMUtils.findAllElementsByTagNameNS(element, 
-                                                        header.getNamespaceURI(), 
-                                                        header.getLocalPart());
-                for (Element elem : elemList) {
-                    Element hel = DOMUtils.getFirstElement(elem);
-                    while (hel != null) {
-                        // Need to add any attributes that are present on the parent element
-                        // which otherwise would be lost.
-                        if (elem.hasAttributes()) {
-                            NamedNodeMap nnp = elem.getAttributes();
-                            for (int ct = 0; ct < nnp.getLength(); ct++) {
-                                Node attr = nnp.item(ct);
-                                Node headerAttrNode = hel.hasAttributes() 
-                                        ?  hel.getAttributes().getNamedItemNS(
-                                                        attr.getNamespaceURI(), attr.getLocalName()) 
-                                        : null;
-                                
-                                if (headerAttrNode == null) {
-                                    Attr attribute = hel.getOwnerDocument().createAttributeNS(
-                                            attr.getNamespaceURI(), 
-                                            attr.getNodeName());
-                                    attribute.setNodeValue(attr.getNodeValue());
-                                    hel.setAttributeNodeNS(attribute);
-                                }
-                            }
+                    Element envelope = writer.getDocument().getDocumentElement();
+                    // The header blocks are the children of the soap:Header, which itself
+                    // is a direct child of the envelope
+                    QName header = soapVersion.getHeader();
+                    Element elem = DOMUtils.getFirstElement(envelope);
+                    while (elem != null) {
+                        if (header.getNamespaceURI().equals(elem.getNamespaceURI())
+                            && header.getLocalPart().equals(elem.getLocalName())) {
+                            addHeaders(message, soapVersion, headerManager, elem);
                         }
-                        
-                        HeaderProcessor p = bus == null ? null : bus.getExtension(HeaderManager.class)
-                            .getHeaderProcessor(hel.getNamespaceURI());
-
-                        Object obj;
-                        DataBinding dataBinding = null;
-                        if (p == null || p.getDataBinding() == null) {
-                            obj = hel;
-                        } else {
-                            dataBinding = p.getDataBinding();
-                            obj = dataBinding.createReader(Node.class).read(hel);
-                        }
-                        //TODO - add the interceptors
-                        
-                        SoapHeader shead = new SoapHeader(new QName(hel.getNamespaceURI(),
-                                                                    hel.getLocalName()),
-                                                           obj,
-                                                           dataBinding);
-                        String mu = hel.getAttributeNS(soapVersion.getNamespace(),
-                                                      soapVersion.getAttrNameMustUnderstand());
-                        String act = hel.getAttributeNS(soapVersion.getNamespace(),
-                                                        soapVersion.getAttrNameRole());
-
-                        if (!StringUtils.isEmpty(act)) {
-                            shead.setActor(act);
-                        }
-                        shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
-                        //mark header as inbound header.(for distinguishing between the  direction to 
-                        //avoid piggybacking of headers from request->server->response.
-                        shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
-                        message.getHeaders().add(shead);
-                        
-                        hel = DOMUtils.getNextElement(hel);
+                        elem = DOMUtils.getNextElement(elem);
+                    }
+                } else {
+                    Node nd = message.getContent(Node.class);
+                    Document doc;
+                    if (nd instanceof Document) {
+                        doc = (Document)nd;
+                    } else {
+                        doc = DOMUtils.createDocument();
+                        message.setContent(Node.class, doc);
                     }
+                    readEnvelope(message, soapVersion, headerManager, doc, xmlReader);
                 }
 
                 if (ServiceUtils.isSchemaValidationEnabled(SchemaValidationType.IN, message)) {
@@ -263,4 +212,207 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             }
         }
     }
+
+    /**
+     * Reads the envelope start tag, the soap:Header and the soap:Body start tag
+     * straight from the reader into the document.  The reader is left on the
+     * soap:Body start tag so the body can continue to be streamed.  Only the start
+     * tags of the header blocks are added to the document, the header blocks are
+     * buffered and their Elements are built once something asks for them.
+     */
+    private void readEnvelope(SoapMessage message, SoapVersion soapVersion, 
+                              HeaderManager headerManager, Document doc, XMLStreamReader reader)
+        throws XMLStreamException {
+        Element envelope = readStartElement(doc, doc, reader);
+        int event = reader.nextTag();
+        while (event == XMLStreamConstants.START_ELEMENT
+            && soapVersion.getHeader().equals(reader.getName())) {
+            Element header = readStartElement(doc, envelope, reader);
+            event = reader.nextTag();
+            while (event == XMLStreamConstants.START_ELEMENT) {
+                Element hel = readStartElement(doc, header, reader);
+                addParentAttributes(hel);
+                HeaderProcessor p = headerManager == null ? null 
+                    : headerManager.getHeaderProcessor(hel.getNamespaceURI());
+                if (p == null || p.getDataBinding() == null) {
+                    QName name = new QName(hel.getNamespaceURI(), hel.getLocalName());
+                    addHeader(message, soapVersion, hel, new SoapHeader(name, hel, bufferHeader(hel, reader)));
+                } else {
+                    reader.next();
+                    StaxUtils.readDocElements(doc, hel, reader, true, false);
+                    addHeader(message, soapVersion, hel, createHeader(hel, p.getDataBinding()));
+                }
+                event = reader.nextTag();
+            }
+            event = reader.nextTag();
+        }
+        if (event == XMLStreamConstants.START_ELEMENT
+            && soapVersion.getBody().equals(reader.getName())) {
+            readStartElement(doc, envelope, reader);
+        }
+    }
+
+    /**
+     * Writes the header block the reader is on to a buffer.  The start tag is written 
+     * from the Element, declaring the namespaces of the enclosing elements as well, so 
+     * the buffer can be read on its own.  The reader is left on the end tag.
+     */
+    private static LoadingByteArrayOutputStream bufferHeader(Element hel, XMLStreamReader reader) 
+        throws XMLStreamException {
+        LoadingByteArrayOutputStream out = new LoadingByteArrayOutputStream(256);
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(out);
+        writeStartTag(hel, writer);
+        int event = reader.next();
+        while (event != XMLStreamConstants.END_ELEMENT) {
+            switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                StaxUtils.copy(reader, writer);
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                writer.writeCharacters(reader.getText());
+                break;
+            case XMLStreamConstants.CDATA:
+                writer.writeCData(reader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                writer.writeComment(reader.getText());
+                break;
+            default:
+                break;
+            }
+            event = reader.next();
+        }
+        writer.writeEndElement();
+        writer.close();
+        return out;
+    }
+    
+    private static void writeStartTag(Element hel, XMLStreamWriter writer) throws XMLStreamException {
+        String ns = hel.getNamespaceURI();
+        if (StringUtils.isEmpty(ns)) {
+            writer.writeStartElement(hel.getLocalName());
+        } else {
+            String prefix = hel.getPrefix();
+            writer.writeStartElement(prefix == null ? "" : prefix, hel.getLocalName(), ns);
+        }
+        Set<String> declared = new HashSet<String>();
+        Node node = hel;
+        while (node instanceof Element) {
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                Attr attr = (Attr)attributes.item(i);
+                if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+                    String prefix = XMLConstants.XMLNS_ATTRIBUTE.equals(attr.getPrefix()) 
+                        ? attr.getLocalName() : "";
+                    if (declared.add(prefix)) {
+                        if (prefix.length() == 0) {
+                            writer.writeDefaultNamespace(attr.getValue());
+                            writer.setDefaultNamespace(attr.getValue());
+                        } else {
+                            writer.writeNamespace(prefix, attr.getValue());
+                            writer.setPrefix(prefix, attr.getValue());
+                        }
+                    }
+                } else if (node == hel) {
+                    if (StringUtils.isEmpty(attr.getNamespaceURI())) {
+                        writer.writeAttribute(attr.getLocalName() == null 
+                                              ? attr.getName() : attr.getLocalName(), attr.getValue());
+                    } else {
+                        writer.writeAttribute(attr.getPrefix() == null ? "" : attr.getPrefix(), 
+                                              attr.getNamespaceURI(), attr.getLocalName(), attr.getValue());
+                    }
+                }
+            }
+            node = node.getParentNode();
+        }
+    }
+
+    private static Element readStartElement(Document doc, Node parent, XMLStreamReader reader) {
+        Element e;
+        if (!StringUtils.isEmpty(reader.getPrefix())) {
+            e = doc.createElementNS(reader.getNamespaceURI(), 
+                                    reader.getPrefix() + ":" + reader.getLocalName());
+        } else {
+            e = doc.createElementNS(reader.getNamespaceURI(), reader.getLocalName());
+        }
+        for (int ns = 0; ns < reader.getNamespaceCount(); ns++) {
+            String prefix = reader.getNamespacePrefix(ns);
+            String qualname = StringUtils.isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix;
+            e.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, qualname, reader.getNamespaceURI(ns));
+        }
+        for (int att = 0; att < reader.getAttributeCount(); att++) {
+            String name = reader.getAttributeLocalName(att);
+            String prefix = reader.getAttributePrefix(att);
+            if (!StringUtils.isEmpty(prefix)) {
+                name = prefix + ":" + name;
+            }
+            e.setAttributeNS(reader.getAttributeNamespace(att), name, reader.getAttributeValue(att));
+        }
+        return (Element)parent.appendChild(e);
+    }
+
+    private void addHeaders(SoapMessage message, SoapVersion soapVersion, 
+                            HeaderManager headerManager, Element elem) {
+        Element hel = DOMUtils.getFirstElement(elem);
+        while (hel != null) {
+            addParentAttributes(hel);
+            
+            HeaderProcessor p = headerManager == null ? null 
+                : headerManager.getHeaderProcessor(hel.getNamespaceURI());
+            addHeader(message, soapVersion, hel, 
+                      createHeader(hel, p == null ? null : p.getDataBinding()));
+            
+            hel = DOMUtils.getNextElement(hel);
+        }
+    }
+
+    /**
+     * Need to add any attributes that are present on the parent element
+     * which otherwise would be lost.
+     */
+    private static void addParentAttributes(Element hel) {
+        Element elem = (Element)hel.getParentNode();
+        if (elem.hasAttributes()) {
+            NamedNodeMap nnp = elem.getAttributes();
+            for (int ct = 0; ct < nnp.getLength(); ct++) {
+                Node attr = nnp.item(ct);
+                Node headerAttrNode = hel.hasAttributes() 
+                        ?  hel.getAttributes().getNamedItemNS(
+                                        attr.getNamespaceURI(), attr.getLocalName()) 
+                        : null;
+                
+                if (headerAttrNode == null) {
+                    Attr attribute = hel.getOwnerDocument().createAttributeNS(
+                            attr.getNamespaceURI(), 
+                            attr.getNodeName());
+                    attribute.setNodeValue(attr.getNodeValue());
+                    hel.setAttributeNodeNS(attribute);
+                }
+            }
+        }
+    }
+    
+    private static SoapHeader createHeader(Element hel, DataBinding dataBinding) {
+        Object obj = dataBinding == null ? hel : dataBinding.createReader(Node.class).read(hel);
+        //TODO - add the interceptors
+        return new SoapHeader(new QName(hel.getNamespaceURI(), hel.getLocalName()), obj, dataBinding);
+    }
+    
+    private static void addHeader(SoapMessage message, SoapVersion soapVersion, 
+                                  Element hel, SoapHeader shead) {
+        String mu = hel.getAttributeNS(soapVersion.getNamespace(),
+                                      soapVersion.getAttrNameMustUnderstand());
+        String act = hel.getAttributeNS(soapVersion.getNamespace(),
+                                        soapVersion.getAttrNameRole());
+
+        if (!StringUtils.isEmpty(act)) {
+            shead.setActor(act);
+        }
+        shead.setMustUnderstand(Boolean.valueOf(mu) || "1".equals(mu));
+        //mark header as inbound header.(for distinguishing between the  direction to 
+        //avoid piggybacking of headers from request->server->response.
+        shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
+        message.getHeaders().add(shead);
+    }
 }
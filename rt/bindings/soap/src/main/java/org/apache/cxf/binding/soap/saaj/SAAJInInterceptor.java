@@ -183,6 +183,7 @@ public class SAAJInInterceptor extends AbstractSoapInterceptor {
             final SOAPPart part = soapMessage.getSOAPPart();
             Document node = (Document) message.getContent(Node.class);
             if (node != part && node != null) {
+                SoapHeader.buildElements(node);
                 StaxUtils.copy(node, new SAAJStreamWriter(part));
             }
             message.setContent(Node.class, soapMessage.getSOAPPart());
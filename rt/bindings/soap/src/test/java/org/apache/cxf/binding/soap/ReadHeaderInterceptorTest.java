@@ -29,7 +29,9 @@ import javax.activation.DataHandler;
 import javax.mail.util.ByteArrayDataSource;
 import javax.xml.stream.XMLStreamReader;
 
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 import org.apache.cxf.BusFactory;
 import org.apache.cxf.annotations.SchemaValidation.SchemaValidationType;
@@ -195,6 +197,74 @@ public class ReadHeaderInterceptorTest extends TestBase {
         }
     }
 
+    @Test
+    public void testHeaderDocument() throws Exception {
+        prepareSoapMessage("test-soap-header.xml");
+
+        staxIntc.handleMessage(soapMessage);
+        rhi.handleMessage(soapMessage);
+        XMLStreamReader xmlReader = soapMessage.getContent(XMLStreamReader.class);
+        assertEquals("Body", xmlReader.getLocalName());
+
+        // the envelope, the header blocks and an empty body end up in the message document
+        Document doc = (Document)soapMessage.getContent(Node.class);
+        Element envelope = doc.getDocumentElement();
+        assertEquals("Envelope", envelope.getLocalName());
+        Element header = DOMUtils.getFirstElement(envelope);
+        assertEquals("Header", header.getLocalName());
+        Element body = DOMUtils.getNextElement(header);
+        assertEquals("Body", body.getLocalName());
+        assertNull(DOMUtils.getFirstElement(body));
+
+        List<Header> headers = soapMessage.getHeaders();
+        assertEquals(2, headers.size());
+        for (Header h : headers) {
+            SoapHeader sh = (SoapHeader)h;
+            assertSame(header, ((Element)sh.getObject()).getParentNode());
+            assertTrue(sh.isMustUnderstand());
+            assertEquals("http://schemas.xmlsoap.org/soap/actor/next", sh.getActor());
+        }
+    }
+
+    @Test
+    public void testHeaderBuffered() throws Exception {
+        prepareSoapMessage("test-soap-header.xml");
+
+        staxIntc.handleMessage(soapMessage);
+        rhi.handleMessage(soapMessage);
+
+        SoapHeader sh = (SoapHeader)soapMessage.getHeaders().get(0);
+        assertTrue(sh.isBuffered());
+        assertEquals("reservation", sh.getName().getLocalPart());
+        Document doc = (Document)soapMessage.getContent(Node.class);
+        Element header = DOMUtils.getFirstElement(doc.getDocumentElement());
+        Element reservation = DOMUtils.getFirstElement(header);
+        assertNull(DOMUtils.getFirstElement(reservation));
+        
+        // the buffer can be read on its own, the namespaces of the envelope are declared
+        XMLStreamReader reader = sh.getXMLStreamReader();
+        assertEquals("reservation", reader.getLocalName());
+        assertEquals("1", reader.getAttributeValue("http://schemas.xmlsoap.org/soap/envelope/",
+                                                   "mustUnderstand"));
+        Element copy = StaxUtils.read(reader).getDocumentElement();
+        assertEquals("http://schemas.xmlsoap.org/soap/envelope/", copy.lookupNamespaceURI("env"));
+        assertEquals("reference", DOMUtils.getFirstElement(copy).getLocalName());
+        assertTrue(sh.isBuffered());
+        
+        assertSame(reservation, sh.getObject());
+        assertFalse(sh.isBuffered());
+        Element reference = DOMUtils.getFirstElement(reservation);
+        assertEquals("uuid:093a2da1-q345-739r-ba5d-pqff98fe8j7d", reference.getTextContent());
+        assertEquals("dateAndTime", DOMUtils.getNextElement(reference).getLocalName());
+        
+        // the other header is read into the document when the whole envelope is needed
+        Element passenger = DOMUtils.getNextElement(reservation);
+        assertTrue(((SoapHeader)soapMessage.getHeaders().get(1)).isBuffered());
+        SoapHeader.buildElements(doc);
+        assertFalse(((SoapHeader)soapMessage.getHeaders().get(1)).isBuffered());
+        assertEquals("Bob", DOMUtils.getFirstElement(passenger).getTextContent());
+    }
+
     private void prepareSoapMessage(String message) throws IOException {
 
         soapMessage = TestUtil.createEmptySoapMessage(Soap12.getInstance(), chain);
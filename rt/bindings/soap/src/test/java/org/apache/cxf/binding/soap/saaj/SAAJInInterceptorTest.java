@@ -43,6 +43,7 @@ import org.apache.cxf.binding.soap.interceptor.CheckFaultInterceptor;
 import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.binding.soap.interceptor.StartBodyInterceptor;
 import org.apache.cxf.headers.Header;
+import org.apache.cxf.helpers.DOMUtils;
 import org.apache.cxf.interceptor.StaxInInterceptor;
 import org.junit.Before;
 import org.junit.Test;
@@ -103,6 +104,24 @@ public class SAAJInInterceptorTest extends TestBase {
         assertEquals(2, headerChilds.size());
     }
     
+    @Test
+    public void testRemovedHeaderCopied() throws Exception {
+        prepareSoapMessage("../test-soap-header.xml");
+
+        staxIntc.handleMessage(soapMessage);
+        rhi.handleMessage(soapMessage);
+        sbi.handleMessage(soapMessage);
+        // a header removed before it was read still ends up in the SOAPMessage
+        soapMessage.getHeaders().remove(0);
+        saajIntc.handleMessage(soapMessage);
+
+        SOAPMessage saaj = soapMessage.getContent(SOAPMessage.class);
+        Element reservation = DOMUtils.getFirstElement(saaj.getSOAPHeader());
+        assertEquals("reservation", reservation.getLocalName());
+        Element reference = DOMUtils.getFirstElement(reservation);
+        assertEquals("uuid:093a2da1-q345-739r-ba5d-pqff98fe8j7d", reference.getTextContent());
+    }
+    
     @Test
     public void testFaultDetail() throws Exception {
         try {
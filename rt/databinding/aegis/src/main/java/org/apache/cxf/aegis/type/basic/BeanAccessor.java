@@ -0,0 +1,40 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.aegis.type.basic;
+
+/**
+ * Reads and writes the properties of a bean by their index in
+ * {@link BeanTypeInfo#getPropertyIndex(javax.xml.namespace.QName)} without going
+ * through reflection.  Implementations are generated by BeanAccessorCompiler.
+ */
+public interface BeanAccessor {
+    
+    /**
+     * Calls the read method of the property, primitives are returned wrapped.
+     */
+    Object getProperty(Object bean, int index);
+    
+    /**
+     * Calls the write method of the property.  A null value for a primitive
+     * property is ignored.
+     * @return false if the property has no write method
+     */
+    boolean setProperty(Object bean, int index, Object value);
+}
@@ -0,0 +1,293 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.aegis.type.basic;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.cxf.common.util.ASMHelper;
+
+/**
+ * Generates a {@link BeanAccessor} for a bean class.  The accessor finds the
+ * property by a binary search over the index and then calls its read or write
+ * method directly.
+ */
+final class BeanAccessorCompiler extends ASMHelper {
+    private static final int LINEAR_RANGE = 4;
+    
+    final Class<?> beanClass;
+    final Method getMethods[];
+    final Method setMethods[];
+    final ClassWriter cw;
+    
+    private BeanAccessorCompiler(Class<?> beanClass, PropertyDescriptor descriptors[]) {
+        this.beanClass = beanClass;
+        getMethods = new Method[descriptors.length];
+        setMethods = new Method[descriptors.length];
+        for (int x = 0; x < descriptors.length; x++) {
+            getMethods[x] = descriptors[x].getReadMethod();
+            setMethods[x] = descriptors[x].getWriteMethod();
+        }
+        cw = createClassWriter();
+    }
+    
+    static BeanAccessor compileBeanAccessor(Class<?> beanClass, PropertyDescriptor descriptors[]) {
+        if (!isAccessible(beanClass) || !arePropertyTypesPublic(descriptors)) {
+            return null;
+        }
+        try {
+            return new BeanAccessorCompiler(beanClass, descriptors).compile();
+        } catch (Throwable t) {
+            // Some error - probably a bad version of ASM or similar
+        }
+        return null;
+    }
+    
+    private static boolean isAccessible(Class<?> cls) {
+        // the accessor lives in another class loader and can only call public classes
+        if (cls.isInterface() || cls.isPrimitive() || cls.isArray()) {
+            return false;
+        }
+        return isPublic(cls);
+    }
+    
+    private static boolean arePropertyTypesPublic(PropertyDescriptor descriptors[]) {
+        // the generated code casts the values to the property types, 
+        // which fails with an IllegalAccessError for non public types
+        for (PropertyDescriptor desc : descriptors) {
+            Method m = desc.getReadMethod();
+            if (m != null && !isPublic(m.getReturnType())) {
+                return false;
+            }
+            m = desc.getWriteMethod();
+            if (m != null && !isPublic(m.getParameterTypes()[0])) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isPublic(Class<?> cls) {
+        Class<?> c = cls;
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        if (c.isPrimitive()) {
+            return true;
+        }
+        for (; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public BeanAccessor compile() throws Exception {
+        if (cw == null) {
+            return null;
+        }
+        String newClassName = beanClass.getName() + "_AegisBeanAccessor";
+        newClassName = newClassName.replaceAll("\\$", ".");
+        newClassName = periodToSlashes(newClassName);
+        
+        Class<?> cls = super.findClass(newClassName.replace('/', '.'), beanClass);
+        if (cls == null) {
+            cw.visit(Opcodes.V1_5,
+                     Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER,
+                     newClassName,
+                     null,
+                     "java/lang/Object",
+                     new String[] {periodToSlashes(BeanAccessor.class.getName())});
+            addConstructor(newClassName);
+            addGetProperty(newClassName);
+            addSetProperty(newClassName);
+            cw.visitEnd();
+            cls = loadClass(newClassName.replace('/', '.'), beanClass, cw.toByteArray());
+        }
+        return BeanAccessor.class.cast(cls.newInstance());
+    }
+    
+    private void addConstructor(String newClassName) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        Label l0 = createLabel();
+        mv.visitLabel(l0);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL,
+                           "java/lang/Object",
+                           "<init>",
+                           "()V");
+        mv.visitInsn(Opcodes.RETURN);
+        Label l1 = createLabel();
+        mv.visitLabel(l1);
+        mv.visitLocalVariable("this", "L" + newClassName + ";", null, l0, l1, 0);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    private void addGetProperty(String newClassName) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "getProperty",
+                                          "(Ljava/lang/Object;I)Ljava/lang/Object;",
+                                          null, null);
+        mv.visitCode();
+        Label lBegin = createLabel();
+        mv.visitLabel(lBegin);
+        
+        // the bean is cast once and kept in local 3
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, periodToSlashes(beanClass.getName()));
+        mv.visitVarInsn(Opcodes.ASTORE, 3);
+        
+        Label notFound = createLabel();
+        addDispatch(mv, 0, getMethods.length, true, notFound);
+        
+        mv.visitLabel(notFound);
+        mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitLdcInsn("No read method for the property in " + beanClass.getName());
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL,
+                           "java/lang/IllegalArgumentException",
+                           "<init>", "(Ljava/lang/String;)V");
+        mv.visitInsn(Opcodes.ATHROW);
+        
+        Label lEnd = createLabel();
+        mv.visitLabel(lEnd);
+        mv.visitLocalVariable("this", "L" + newClassName + ";", null, lBegin, lEnd, 0);
+        mv.visitLocalVariable("o", "Ljava/lang/Object;", null, lBegin, lEnd, 1);
+        mv.visitLocalVariable("index", "I", null, lBegin, lEnd, 2);
+        mv.visitLocalVariable("bean", "L" + periodToSlashes(beanClass.getName()) + ";",
+                              null, lBegin, lEnd, 3);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    private void addSetProperty(String newClassName) {
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC,
+                                          "setProperty",
+                                          "(Ljava/lang/Object;ILjava/lang/Object;)Z",
+                                          null, null);
+        mv.visitCode();
+        Label lBegin = createLabel();
+        mv.visitLabel(lBegin);
+        
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, periodToSlashes(beanClass.getName()));
+        mv.visitVarInsn(Opcodes.ASTORE, 4);
+        
+        Label notFound = createLabel();
+        addDispatch(mv, 0, setMethods.length, false, notFound);
+        
+        mv.visitLabel(notFound);
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitInsn(Opcodes.IRETURN);
+        
+        Label lEnd = createLabel();
+        mv.visitLabel(lEnd);
+        mv.visitLocalVariable("this", "L" + newClassName + ";", null, lBegin, lEnd, 0);
+        mv.visitLocalVariable("o", "Ljava/lang/Object;", null, lBegin, lEnd, 1);
+        mv.visitLocalVariable("index", "I", null, lBegin, lEnd, 2);
+        mv.visitLocalVariable("value", "Ljava/lang/Object;", null, lBegin, lEnd, 3);
+        mv.visitLocalVariable("bean", "L" + periodToSlashes(beanClass.getName()) + ";",
+                              null, lBegin, lEnd, 4);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+    
+    /**
+     * Emits the code for the properties in [from, to): halves the range until
+     * only a few properties are left and compares those one by one.
+     */
+    private void addDispatch(MethodVisitor mv, int from, int to, boolean get, Label notFound) {
+        if (to - from <= LINEAR_RANGE) {
+            for (int x = from; x < to; x++) {
+                Method m = get ? getMethods[x] : setMethods[x];
+                if (m == null) {
+                    continue;
+                }
+                Label next = createLabel();
+                mv.visitVarInsn(Opcodes.ILOAD, 2);
+                mv.visitIntInsn(Opcodes.SIPUSH, x);
+                mv.visitJumpInsn(Opcodes.IF_ICMPNE, next);
+                if (get) {
+                    addGet(mv, m);
+                } else {
+                    addSet(mv, m);
+                }
+                mv.visitLabel(next);
+            }
+            mv.visitJumpInsn(Opcodes.GOTO, notFound);
+        } else {
+            int mid = (from + to) >>> 1;
+            Label upper = createLabel();
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitIntInsn(Opcodes.SIPUSH, mid);
+            mv.visitJumpInsn(Opcodes.IF_ICMPGE, upper);
+            addDispatch(mv, from, mid, get, notFound);
+            mv.visitLabel(upper);
+            addDispatch(mv, mid, to, get, notFound);
+        }
+    }
+    
+    private void addGet(MethodVisitor mv, Method m) {
+        Class<?> tp = m.getReturnType();
+        mv.visitVarInsn(Opcodes.ALOAD, 3);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                           periodToSlashes(beanClass.getName()),
+                           m.getName(),
+                           getMethodSignature(m));
+        if (tp.isPrimitive()) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, NONPRIMITIVE_MAP.get(tp),
+                               "valueOf", "(" + PRIMITIVE_MAP.get(tp) + ")L" 
+                               + NONPRIMITIVE_MAP.get(tp) + ";");
+        }
+        mv.visitInsn(Opcodes.ARETURN);
+    }
+    
+    private void addSet(MethodVisitor mv, Method m) {
+        Class<?> tp = m.getParameterTypes()[0];
+        Label done = createLabel();
+        if (tp.isPrimitive()) {
+            // null is not written to primitive properties
+            mv.visitVarInsn(Opcodes.ALOAD, 3);
+            mv.visitJumpInsn(Opcodes.IFNULL, done);
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 4);
+        mv.visitVarInsn(Opcodes.ALOAD, 3);
+        if (tp.isPrimitive()) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, NONPRIMITIVE_MAP.get(tp));
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, NONPRIMITIVE_MAP.get(tp), 
+                               tp.getName() + "Value", "()" + PRIMITIVE_MAP.get(tp));
+        } else if (tp.isArray()) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, getClassCode(tp));
+        } else {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, periodToSlashes(tp.getName()));
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                           periodToSlashes(beanClass.getName()),
+                           m.getName(),
+                           getMethodSignature(m));
+        mv.visitLabel(done);
+        mv.visitInsn(Opcodes.ICONST_1);
+        mv.visitInsn(Opcodes.IRETURN);
+    }
+}
@@ -295,6 +295,12 @@ public class BeanType extends AegisType {
                 }
             }
 
+            BeanAccessor accessor = inf.getBeanAccessor();
+            if (accessor != null
+                && accessor.setProperty(object, inf.getPropertyIndex(name), property)) {
+                return;
+            }
+
             Class<?> propertyType = desc.getPropertyType();
             if ((property == null && !propertyType.isPrimitive()) || (property != null)) {
                 m.invoke(object, new Object[] {
@@ -448,7 +454,8 @@ public class BeanType extends AegisType {
 
     protected Object readProperty(Object object, QName name) {
         try {
-            PropertyDescriptor desc = getTypeInfo().getPropertyDescriptorFromMappedName(name);
+            BeanTypeInfo inf = getTypeInfo();
+            PropertyDescriptor desc = inf.getPropertyDescriptorFromMappedName(name);
 
             Method m = desc.getReadMethod();
 
@@ -457,6 +464,10 @@ public class BeanType extends AegisType {
                                                + object.getClass().getName());
             }
 
+            BeanAccessor accessor = inf.getBeanAccessor();
+            if (accessor != null) {
+                return accessor.getProperty(object, inf.getPropertyIndex(name));
+            }
             return m.invoke(object, new Object[0]);
         } catch (Exception e) {
             throw new DatabindingException("Couldn't get property " + name + " from bean " + object, e);
@@ -43,6 +43,7 @@ import org.apache.cxf.common.util.ReflectionUtil;
 public class BeanTypeInfo {
     private Map<QName, QName> mappedName2typeName = new HashMap<QName, QName>();
     private Map<QName, String> mappedName2pdName = new HashMap<QName, String>();
+    private Map<QName, Integer> mappedName2index = new HashMap<QName, Integer>();
     private Map<QName, AegisType> mappedName2type = new HashMap<QName, AegisType>();
     private Class<?> beanClass;
     private List<QName> attributes = new ArrayList<QName>();
@@ -56,6 +57,8 @@ public class BeanTypeInfo {
     private boolean isExtension;
     private boolean qualifyAttributes;
     private boolean qualifyElements = true;
+    private volatile BeanAccessor beanAccessor;
+    private volatile boolean beanAccessorCompiled;
 
     /**
      * extensibleElements means adding xs:any to WSDL Complex AegisType Definition
@@ -248,14 +251,26 @@ public class BeanTypeInfo {
 
     public void mapAttribute(String property, QName mappedName) {
         mappedName2pdName.put(mappedName, property);
+        mapIndex(property, mappedName);
         attributes.add(mappedName);
     }
 
     public void mapElement(String property, QName mappedName) {
         mappedName2pdName.put(mappedName, property);
+        mapIndex(property, mappedName);
         elements.add(mappedName);
     }
 
+    private void mapIndex(String property, QName mappedName) {
+        for (int i = 0; i < descriptors.length; i++) {
+            if (descriptors[i].getName().equals(property)) {
+                mappedName2index.put(mappedName, i);
+                return;
+            }
+        }
+        mappedName2index.remove(mappedName);
+    }
+
     /**
      * Specifies the SchemaType for a particular class.
      * 
@@ -361,9 +376,43 @@ public class BeanTypeInfo {
     }
 
     public PropertyDescriptor getPropertyDescriptorFromMappedName(QName name) {
+        Integer index = mappedName2index.get(name);
+        if (index != null) {
+            return descriptors[index];
+        }
         return getPropertyDescriptor(getPropertyNameFromMappedName(name));
     }
 
+    /**
+     * Get the index of the property mapped to the given name, as used by the
+     * {@link BeanAccessor}.
+     * @return the index or -1 if no property is mapped to the name
+     */
+    public int getPropertyIndex(QName name) {
+        Integer index = mappedName2index.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Get the generated accessor for the properties of the bean class. It is only
+     * generated for public bean classes whose property types are all public as well.
+     * Note that the AegisBeanBenchmark showed no measurable gain over reflection,
+     * reading and writing the XML dominates the cost of a bean.
+     * @return the accessor or null if none could be generated and the properties
+     * have to be accessed through reflection.
+     */
+    public BeanAccessor getBeanAccessor() {
+        if (!beanAccessorCompiled) {
+            synchronized (this) {
+                if (!beanAccessorCompiled) {
+                    beanAccessor = BeanAccessorCompiler.compileBeanAccessor(beanClass, descriptors);
+                    beanAccessorCompiled = true;
+                }
+            }
+        }
+        return beanAccessor;
+    }
+
     protected boolean isAttribute(PropertyDescriptor desc) {
         return false;
     }
@@ -583,6 +583,54 @@ public class BeanTest extends AbstractAegisTest {
         assertNotNull(bean);
         assertNull(bean.getData());
     }
+    @Test
+    public void testBeanAccessor() throws Exception {
+        BeanTypeInfo info = new BeanTypeInfo(SimpleBean.class, "urn:Bean");
+        info.initialize();
+        BeanAccessor accessor = info.getBeanAccessor();
+        assertNotNull(accessor);
+        assertSame(accessor.getClass(), 
+                   new BeanTypeInfo(SimpleBean.class, "urn:Bean").getBeanAccessor().getClass());
+        
+        int howdy = info.getPropertyIndex(new QName("urn:Bean", "howdy"));
+        int littleByte = info.getPropertyIndex(new QName("urn:Bean", "littleByte"));
+        int numbers = info.getPropertyIndex(new QName("urn:Bean", "numbers"));
+        assertEquals(-1, info.getPropertyIndex(new QName("urn:Bean", "unknown")));
+        
+        SimpleBean bean = new SimpleBean();
+        assertTrue(accessor.setProperty(bean, howdy, "hi"));
+        assertEquals("hi", bean.getHowdy());
+        assertEquals("hi", accessor.getProperty(bean, howdy));
+        
+        assertTrue(accessor.setProperty(bean, littleByte, Byte.valueOf((byte)3)));
+        assertTrue(accessor.setProperty(bean, littleByte, null));
+        assertEquals(Byte.valueOf((byte)3), accessor.getProperty(bean, littleByte));
+        
+        int[] n = new int[] {1, 2};
+        assertTrue(accessor.setProperty(bean, numbers, n));
+        assertSame(n, accessor.getProperty(bean, numbers));
+        
+        // the accessor is generated in another class loader, so only public beans work
+        assertNull(new BeanTypeInfo(HiddenBean.class, "urn:Bean").getBeanAccessor());
+        assertNull(new BeanTypeInfo(SimpleInterface.class, "urn:Bean").getBeanAccessor());
+    }
+    
+    @Test
+    public void testBeanAccessorWithHiddenPropertyType() throws Exception {
+        BeanTypeInfo info = new BeanTypeInfo(HiddenPropertyBean.class, "urn:Bean");
+        info.initialize();
+        // casting to the package private property type would fail in the accessor
+        assertNull(info.getBeanAccessor());
+        
+        BeanType type = new BeanType(info);
+        QName name = new QName("urn:Bean", "hidden");
+        HiddenPropertyBean bean = new HiddenPropertyBean();
+        HiddenBean hidden = new HiddenBean();
+        type.writeProperty(name, bean, hidden, HiddenPropertyBean.class, info);
+        assertSame(hidden, bean.getHidden());
+        assertSame(hidden, type.readProperty(bean, name));
+    }
+
     @Test
     public void testGetSetRequired() throws Exception {
         defaultContext();
@@ -746,6 +794,27 @@ public class BeanTest extends AbstractAegisTest {
         }
     }
 
+    static class HiddenBean {
+        public String getString() {
+            return null;
+        }
+        
+        public void setString(String s) {
+        }
+    }
+
+    public static class HiddenPropertyBean {
+        private HiddenBean hidden;
+        
+        public HiddenBean getHidden() {
+            return hidden;
+        }
+        
+        public void setHidden(HiddenBean hidden) {
+            this.hidden = hidden;
+        }
+    }
+
     public static class ExtendedBean extends SimpleBean {
         private String howdy;
 
@@ -67,6 +67,7 @@ import org.apache.cxf.common.jaxb.JAXBContextCache;
 import org.apache.cxf.common.jaxb.JAXBContextCache.CachedContextAndSchemas;
 import org.apache.cxf.common.jaxb.JAXBContextProxy;
 import org.apache.cxf.common.jaxb.JAXBUtils;
+import org.apache.cxf.common.jaxb.MarshallerPool;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.PackageUtils;
 import org.apache.cxf.common.util.PropertyUtils;
@@ -186,6 +187,7 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
     Class<?>[] extraClass;
 
     JAXBContext context;
+    MarshallerPool marshallerPool;
     Set<Class<?>> contextClasses;
     Collection<Object> typeRefs = new ArrayList<Object>();
 
@@ -242,6 +244,15 @@ public class JAXBDataBinding extends AbstractInterceptorProvidingDataBinding
 
     public final void setContext(JAXBContext ctx) {
         context = ctx;
+        marshallerPool = ctx == null ? null : MarshallerPool.getInstance(ctx);
+    }
+
+    /**
+     * The pool of configured Marshallers and Unmarshallers the readers and writers
+     * of this databinding reuse, shared with anyone else using the same context.
+     */
+    public MarshallerPool getMarshallerPool() {
+        return marshallerPool;
     }
 
     @SuppressWarnings("unchecked")
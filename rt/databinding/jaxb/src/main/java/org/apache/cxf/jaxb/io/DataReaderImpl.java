@@ -20,6 +20,7 @@
 package org.apache.cxf.jaxb.io;
 
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,6 +33,7 @@ import javax.xml.bind.ValidationEventHandler;
 import javax.xml.namespace.QName;
 
 import org.apache.cxf.common.i18n.Message;
+import org.apache.cxf.common.jaxb.MarshallerPool;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.databinding.DataReader;
 import org.apache.cxf.interceptor.Fault;
@@ -106,24 +108,30 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
     private Unmarshaller createUnmarshaller() {
         try {
             Unmarshaller um = null;
-            um = context.createUnmarshaller();
-            if (databinding.getUnmarshallerListener() != null) {
-                um.setListener(databinding.getUnmarshallerListener());
+            MarshallerPool pool = getMarshallerPool();
+            if (pool != null) {
+                um = pool.pollUnmarshaller(getUnmarshallerConfig());
             }
-            if (setEventHandler) {
-                um.setEventHandler(new WSUIDValidationHandler(veventHandler));
-            }
-            if (databinding.getUnmarshallerProperties() != null) {
-                for (Map.Entry<String, Object> propEntry 
-                    : databinding.getUnmarshallerProperties().entrySet()) {
-                    try {
-                        um.setProperty(propEntry.getKey(), propEntry.getValue());
-                    } catch (PropertyException pe) {
-                        LOG.log(Level.INFO, "PropertyException setting Marshaller properties", pe);
+            if (um == null) {
+                um = context.createUnmarshaller();
+                if (databinding.getUnmarshallerListener() != null) {
+                    um.setListener(databinding.getUnmarshallerListener());
+                }
+                if (databinding.getUnmarshallerProperties() != null) {
+                    for (Map.Entry<String, Object> propEntry 
+                        : databinding.getUnmarshallerProperties().entrySet()) {
+                        try {
+                            um.setProperty(propEntry.getKey(), propEntry.getValue());
+                        } catch (PropertyException pe) {
+                            LOG.log(Level.INFO, "PropertyException setting Marshaller properties", pe);
+                        }
                     }
                 }
+                um.setSchema(schema);
+            }
+            if (setEventHandler) {
+                um.setEventHandler(new WSUIDValidationHandler(veventHandler));
             }
-            um.setSchema(schema);
             um.setAttachmentUnmarshaller(getAttachmentUnmarshaller());
             return um;
         } catch (JAXBException ex) {
@@ -137,6 +145,25 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
         }
     }
 
+    private MarshallerPool getMarshallerPool() {
+        //only the context of the databinding is pooled
+        return context == databinding.getContext() ? databinding.getMarshallerPool() : null;
+    }
+    
+    private Object getUnmarshallerConfig() {
+        return Arrays.asList(databinding.getUnmarshallerListener(), 
+                             databinding.getUnmarshallerProperties(),
+                             schema);
+    }
+    
+    private Object releaseUnmarshaller(Unmarshaller um, Object result) {
+        MarshallerPool pool = getMarshallerPool();
+        if (pool != null) {
+            pool.offerUnmarshaller(getUnmarshallerConfig(), um);
+        }
+        return result;
+    }
+
     public Object read(MessagePartInfo part, T reader) {
         boolean honorJaxbAnnotation = honorJAXBAnnotations(part);
         Annotation[] anns = null;
@@ -157,14 +184,16 @@ public class DataReaderImpl<T> extends JAXBDataBase implements DataReader<T> {
             }
         }
         
-        return JAXBEncoderDecoder.unmarshall(createUnmarshaller(), reader, part, 
-                                             unwrapJAXBElement);
+        Unmarshaller um = createUnmarshaller();
+        return releaseUnmarshaller(um, JAXBEncoderDecoder.unmarshall(um, reader, part, 
+                                                                     unwrapJAXBElement));
     }
 
     public Object read(QName name, T input, Class<?> type) {
-        return JAXBEncoderDecoder.unmarshall(createUnmarshaller(), input,
-                                             name, type, 
-                                             unwrapJAXBElement);
+        Unmarshaller um = createUnmarshaller();
+        return releaseUnmarshaller(um, JAXBEncoderDecoder.unmarshall(um, input,
+                                                                     name, type, 
+                                                                     unwrapJAXBElement));
     }
 
 }
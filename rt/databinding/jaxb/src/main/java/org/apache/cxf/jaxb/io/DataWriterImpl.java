@@ -23,6 +23,7 @@ package org.apache.cxf.jaxb.io;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -38,6 +39,7 @@ import javax.xml.bind.attachment.AttachmentMarshaller;
 
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.jaxb.JAXBUtils;
+import org.apache.cxf.common.jaxb.MarshallerPool;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.ReflectionUtil;
 import org.apache.cxf.databinding.DataWriter;
@@ -121,11 +123,37 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
         Marshaller marshaller;
         try {
             
-            marshaller = context.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
-            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
-            marshaller.setListener(databinding.getMarshallerListener());
+            MarshallerPool pool = getMarshallerPool();
+            marshaller = pool == null ? null : pool.pollMarshaller(getMarshallerConfig());
+            if (marshaller == null) {
+                marshaller = context.createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+                marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+                marshaller.setListener(databinding.getMarshallerListener());
+                
+                final Map<String, String> nspref = databinding.getDeclaredNamespaceMappings();
+                final Map<String, String> nsctxt = databinding.getContextualNamespaceMap();
+                // set the prefix mapper if either of the prefix map is configured
+                if (nspref != null || nsctxt != null) {
+                    Object mapper = JAXBUtils.setNamespaceMapper(nspref != null ? nspref : nsctxt, 
+                                                                 marshaller);
+                    if (nsctxt != null) {
+                        setContextualNamespaceDecls(mapper, nsctxt);
+                    }
+                }
+                if (databinding.getMarshallerProperties() != null) {
+                    for (Map.Entry<String, Object> propEntry 
+                        : databinding.getMarshallerProperties().entrySet()) {
+                        try {
+                            marshaller.setProperty(propEntry.getKey(), propEntry.getValue());
+                        } catch (PropertyException pe) {
+                            LOG.log(Level.INFO, "PropertyException setting Marshaller properties", pe);
+                        }
+                    }
+                }
+                marshaller.setSchema(schema);
+            }
             if (setEventHandler) {
                 ValidationEventHandler h = veventHandler;
                 if (veventHandler == null) {
@@ -139,27 +167,6 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 marshaller.setEventHandler(h);
             }
             
-            final Map<String, String> nspref = databinding.getDeclaredNamespaceMappings();
-            final Map<String, String> nsctxt = databinding.getContextualNamespaceMap();
-            // set the prefix mapper if either of the prefix map is configured
-            if (nspref != null || nsctxt != null) {
-                Object mapper = JAXBUtils.setNamespaceMapper(nspref != null ? nspref : nsctxt, marshaller);
-                if (nsctxt != null) {
-                    setContextualNamespaceDecls(mapper, nsctxt);
-                }
-            }
-            if (databinding.getMarshallerProperties() != null) {
-                for (Map.Entry<String, Object> propEntry 
-                    : databinding.getMarshallerProperties().entrySet()) {
-                    try {
-                        marshaller.setProperty(propEntry.getKey(), propEntry.getValue());
-                    } catch (PropertyException pe) {
-                        LOG.log(Level.INFO, "PropertyException setting Marshaller properties", pe);
-                    }
-                }
-            }
-            
-            marshaller.setSchema(schema);
             AttachmentMarshaller atmarsh = getAttachmentMarshaller();
             marshaller.setAttachmentMarshaller(atmarsh);
             
@@ -182,6 +189,26 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
         return marshaller;
     }
     
+    private MarshallerPool getMarshallerPool() {
+        //only the context of the databinding is pooled
+        return context == databinding.getContext() ? databinding.getMarshallerPool() : null;
+    }
+    
+    private Object getMarshallerConfig() {
+        return Arrays.asList(databinding.getMarshallerListener(),
+                             databinding.getDeclaredNamespaceMappings(),
+                             databinding.getContextualNamespaceMap(),
+                             databinding.getMarshallerProperties(),
+                             schema);
+    }
+    
+    private void releaseMarshaller(Marshaller marshaller) {
+        MarshallerPool pool = getMarshallerPool();
+        if (pool != null) {
+            pool.offerMarshaller(getMarshallerConfig(), marshaller);
+        }
+    }
+    
     //REVISIT should this go into JAXBUtils?
     private static void setContextualNamespaceDecls(Object mapper, Map<String, String> nsctxt) {
         try {
@@ -215,14 +242,18 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 && part != null
                 && Boolean.TRUE.equals(part.getProperty(JAXBDataBinding.class.getName() 
                                                         + ".CUSTOM_EXCEPTION"))) {
-                JAXBEncoderDecoder.marshallException(createMarshaller(obj, part),
+                Marshaller marshaller = createMarshaller(obj, part);
+                JAXBEncoderDecoder.marshallException(marshaller,
                                                      (Exception)obj,
                                                      part, 
-                                                     output);                
+                                                     output);
+                releaseMarshaller(marshaller);
             } else {
                 Annotation[] anns = getJAXBAnnotation(part);
                 if (!honorJaxbAnnotation || anns.length == 0) {
-                    JAXBEncoderDecoder.marshall(createMarshaller(obj, part), obj, part, output);
+                    Marshaller marshaller = createMarshaller(obj, part);
+                    JAXBEncoderDecoder.marshall(marshaller, obj, part, output);
+                    releaseMarshaller(marshaller);
                 } else if (honorJaxbAnnotation && anns.length > 0) {
                     //RpcLit will use the JAXB Bridge to marshall part message when it is 
                     //annotated with @XmlList,@XmlAttachmentRef,@XmlJavaTypeAdapter
@@ -238,8 +269,9 @@ public class DataWriterImpl<T> extends JAXBDataBase implements DataWriter<T> {
                 }
             }
         } else if (needToRender(part)) {
-            JAXBEncoderDecoder.marshallNullElement(createMarshaller(null, part),
-                                                   output, part);
+            Marshaller marshaller = createMarshaller(null, part);
+            JAXBEncoderDecoder.marshallNullElement(marshaller, output, part);
+            releaseMarshaller(marshaller);
         }
     }
 
@@ -26,12 +26,16 @@ import java.util.HashMap;
 import java.util.Map;
 
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.apache.cxf.common.jaxb.MarshallerPool;
 import org.apache.cxf.databinding.DataWriter;
 import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.service.model.MessagePartInfo;
@@ -96,6 +100,26 @@ public class XMLStreamDataWriterTest extends Assert {
         assertTrue(((MyCustomHandler)dw.veventHandler).getUsed());       
     }
 
+    @Test
+    public void testMarshallerReused() throws Exception {
+        CountingContext ctx = new CountingContext(JAXBContext.newInstance(GreetMe.class));
+        JAXBDataBinding db = new JAXBDataBinding(ctx);
+        assertSame(db.getMarshallerPool(), MarshallerPool.getInstance(ctx));
+        
+        streamWriter.writeStartElement("root");
+        for (int x = 0; x < 3; x++) {
+            DataWriter<XMLStreamWriter> dw = db.createWriter(XMLStreamWriter.class);
+            GreetMe val = new GreetMe();
+            val.setRequestType("Hello" + x);
+            dw.write(val, streamWriter);
+        }
+        streamWriter.writeEndElement();
+        streamWriter.flush();
+        assertEquals(1, ctx.marshallers);
+        String s = new String(baos.toByteArray());
+        assertTrue(s, s.contains("Hello0") && s.contains("Hello2"));
+    }
+
     @Test
     public void testWriteRPCLit1() throws Exception {
         JAXBDataBinding db = getTestWriterFactory();
@@ -322,6 +346,29 @@ public class XMLStreamDataWriterTest extends Assert {
         }
     }
 
+    private static class CountingContext extends JAXBContext {
+        private final JAXBContext delegate;
+        private int marshallers;
+        
+        CountingContext(JAXBContext delegate) {
+            this.delegate = delegate;
+        }
+        
+        public Marshaller createMarshaller() throws JAXBException {
+            marshallers++;
+            return delegate.createMarshaller();
+        }
+        
+        public Unmarshaller createUnmarshaller() throws JAXBException {
+            return delegate.createUnmarshaller();
+        }
+        
+        @SuppressWarnings("deprecation")
+        public javax.xml.bind.Validator createValidator() throws JAXBException {
+            return delegate.createValidator();
+        }
+    }
+    
     private JAXBDataBinding getTestWriterFactory(Class<?>... clz) throws Exception {
         JAXBContext ctx = JAXBContext.newInstance(clz);
         return new JAXBDataBinding(ctx);
@@ -37,6 +37,7 @@ import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.endpoint.EndpointException;
 import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.endpoint.ServerImpl;
+import org.apache.cxf.endpoint.ServerLifeCycleManager;
 import org.apache.cxf.feature.Feature;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.jaxrs.ext.ResourceComparator;
@@ -45,10 +46,12 @@ import org.apache.cxf.jaxrs.lifecycle.PerRequestResourceProvider;
 import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
+import org.apache.cxf.jaxrs.provider.ManagedProviderSelectionCache;
 import org.apache.cxf.jaxrs.provider.ServerProviderFactory;
 import org.apache.cxf.jaxrs.utils.AnnotationUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.service.factory.FactoryBeanListener;
 import org.apache.cxf.service.factory.ServiceConstructionException;
 import org.apache.cxf.service.invoker.Invoker;
@@ -184,6 +187,7 @@ public class JAXRSServerFactoryBean extends AbstractJAXRSFactoryBean {
             
             factory.applyDynamicFeatures(getServiceFactory().getClassResourceInfo());
             applyFeatures();
+            manageProviderSelectionCache(ep, factory);
 
             getServiceFactory().sendEvent(FactoryBeanListener.Event.SERVER_CREATED,
                                           server, 
@@ -224,6 +228,13 @@ public class JAXRSServerFactoryBean extends AbstractJAXRSFactoryBean {
         return factory;
     }
 
+    private void manageProviderSelectionCache(Endpoint ep, ServerProviderFactory factory) {
+        ServerLifeCycleManager slcMgr = getBus().getExtension(ServerLifeCycleManager.class);
+        if (slcMgr != null && getBus().getExtension(InstrumentationManager.class) != null) {
+            slcMgr.registerListener(new ManagedProviderSelectionCache(getBus(), ep, server, factory));
+        }
+    }
+    
     protected void setBeanInfo(ServerProviderFactory factory) {
         List<ClassResourceInfo> cris = serviceFactory.getClassResourceInfo();
         for (ClassResourceInfo cri : cris) {
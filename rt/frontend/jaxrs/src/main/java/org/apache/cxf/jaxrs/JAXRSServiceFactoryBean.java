@@ -147,6 +147,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
             classResourceInfos.clear();
             boolean isRoot = AnnotationUtils.getClassAnnotation(cls, Path.class) != null;
             createResourceInfo(cls, isRoot);
+            resourcesChanged();
         }
     }
     
@@ -165,6 +166,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
             
             createResourceInfo(resourceClass, true);
         }
+        resourcesChanged();
     }
     
     public void setUserResources(List<UserResource> resources) {
@@ -178,6 +180,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
                 }
             }
         }
+        resourcesChanged();
     }
     
     public void setUserResourcesWithServiceClass(List<UserResource> resources, Class<?> ...sClasses) {
@@ -189,6 +192,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
                 classResourceInfos.add(cri);
             }
         }
+        resourcesChanged();
     }
     
     private Map<String, UserResource> userResourcesAsMap(List<UserResource> resources) {
@@ -204,6 +208,7 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
             ResourceUtils.createClassResourceInfo(cls, cls, isRoot, enableStatic, getBus());
         if (classResourceInfo != null) {
             classResourceInfos.add(classResourceInfo);
+            resourcesChanged();
         }
         return classResourceInfo;
     }
@@ -236,6 +241,17 @@ public class JAXRSServiceFactoryBean extends AbstractServiceFactoryBean {
                                    new SingletonResourceProvider(bean));
             }
         }
+        resourcesChanged();
+    }
+    
+    /**
+     * The service shares the list of the root resources
+     */
+    void resourcesChanged() {
+        Service service = getService();
+        if (service instanceof JAXRSServiceImpl) {
+            ((JAXRSServiceImpl)service).resetClassResourceInfoIndex();
+        }
     }
     
     private ClassResourceInfo getCreatedFromModel(Class<?> realClass) {
@@ -40,6 +40,7 @@ import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.Parameter;
 import org.apache.cxf.jaxrs.model.ParameterType;
+import org.apache.cxf.jaxrs.model.URITemplateIndex;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
 import org.apache.cxf.service.Service;
@@ -58,6 +59,7 @@ import org.apache.cxf.service.model.ServiceInfo;
 public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider implements Service, Configurable {
     private static final long serialVersionUID = 6765400202555126993L;
     private List<ClassResourceInfo> classResourceInfos;
+    private transient volatile URITemplateIndex<ClassResourceInfo> classResourceInfoIndex;
     private DataBinding dataBinding;
     private Executor executor;
     private Invoker invoker;
@@ -110,6 +112,26 @@ public class JAXRSServiceImpl extends AbstractAttributedInterceptorProvider impl
         return classResourceInfos;
     }
     
+    /**
+     * @return the root resources indexed by the first literal segment of their path
+     */
+    public URITemplateIndex<ClassResourceInfo> getClassResourceInfoIndex() {
+        URITemplateIndex<ClassResourceInfo> index = classResourceInfoIndex;
+        if (index == null) {
+            index = URITemplateIndex.createClassResourceInfoIndex(classResourceInfos);
+            classResourceInfoIndex = index;
+        }
+        return index;
+    }
+    
+    /**
+     * Drops the index of the root resources, it has to be called after the list
+     * returned by getClassResourceInfos() has been changed.
+     */
+    public void resetClassResourceInfoIndex() {
+        classResourceInfoIndex = null;
+    }
+    
     public List<ServiceInfo> getServiceInfos() {
         if (!createServiceModel) {
             return Collections.emptyList();
@@ -31,6 +31,7 @@ public class MethodDispatcher {
     private Map<Method, OperationResourceInfo> methodToOri = 
         new LinkedHashMap<Method, OperationResourceInfo>();
     private ConcurrentHashMap<Method, Method> proxyMethodMap = new ConcurrentHashMap<Method, Method>();
+    private volatile URITemplateIndex<OperationResourceInfo> oriIndex;
     
     public MethodDispatcher() {
         
@@ -52,6 +53,7 @@ public class MethodDispatcher {
         }
 
         oriToMethod.put(o, primary);
+        oriIndex = null;
     }
 
     public OperationResourceInfo getOperationResourceInfo(Method method) {
@@ -62,6 +64,18 @@ public class MethodDispatcher {
         return oriToMethod.keySet();
     }
 
+    /**
+     * @return the operations indexed by the first literal segment of their path
+     */
+    public URITemplateIndex<OperationResourceInfo> getOperationResourceInfoIndex() {
+        URITemplateIndex<OperationResourceInfo> index = oriIndex;
+        if (index == null) {
+            index = URITemplateIndex.createOperationResourceInfoIndex(oriToMethod.keySet());
+            oriIndex = index;
+        }
+        return index;
+    }
+
     public Method getMethod(OperationResourceInfo op) {
         return oriToMethod.get(op);
     }
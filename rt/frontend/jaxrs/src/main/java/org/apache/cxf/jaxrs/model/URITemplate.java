@@ -44,6 +44,7 @@ public final class URITemplate {
     private static final String CHARACTERS_TO_ESCAPE = ".*+$()";
     private static final String SLASH = "/";
     private static final String SLASH_QUOTE = "/;";
+    private static final String NON_LITERAL_CHARACTERS = "?[]{}|^\\";
     
     private final String template;
     private final List<String> variables = new ArrayList<String>();
@@ -51,6 +52,7 @@ public final class URITemplate {
     private final Pattern templateRegexPattern;
     private final String literals;
     private final List<UriChunk> uriChunks;
+    private final String firstSegment;
 
     public URITemplate(String theTemplate) {
         template = theTemplate;
@@ -81,6 +83,7 @@ public final class URITemplate {
             }
         }
         literals = literalChars.toString();
+        firstSegment = findFirstLiteralSegment();
 
         int endPos = patternBuilder.length() - 1;
         boolean endsWithSlash = (endPos >= 0) ? patternBuilder.charAt(endPos) == '/' : false;
@@ -92,6 +95,41 @@ public final class URITemplate {
         templateRegexPattern = Pattern.compile(patternBuilder.toString());
     }
 
+    /**
+     * Returns the first path segment if it is a literal, for example "foo" for 
+     * "/foo/{bar}" but null for "/{bar}" or "/foo{bar}".  A request path can only 
+     * match the template if it starts with this segment (matrix parameters aside).
+     */
+    String getFirstLiteralSegment() {
+        return firstSegment;
+    }
+    
+    private String findFirstLiteralSegment() {
+        if (uriChunks.isEmpty() || !(uriChunks.get(0) instanceof Literal)) {
+            return null;
+        }
+        String literal = HttpUtils.encodePartiallyEncoded(uriChunks.get(0).getValue(), false);
+        if (!literal.startsWith(SLASH)) {
+            return null;
+        }
+        int end = literal.indexOf('/', 1);
+        if (end == -1) {
+            if (uriChunks.size() > 1) {
+                // the segment continues with a variable
+                return null;
+            }
+            end = literal.length();
+        }
+        String segment = literal.substring(1, end);
+        for (int i = 0; i < segment.length(); i++) {
+            // the pattern would not match these literally
+            if (NON_LITERAL_CHARACTERS.indexOf(segment.charAt(i)) != -1) {
+                return null;
+            }
+        }
+        return segment.length() == 0 ? null : segment;
+    }
+
     public String getLiteralChars() {
         return literals;
     }
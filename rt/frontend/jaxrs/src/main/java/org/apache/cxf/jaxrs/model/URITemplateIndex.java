@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups resource classes or methods by the first literal segment of their 
+ * URITemplate so that only the ones which can possibly match a request path 
+ * need to have their template matched against it.  Templates which do not 
+ * start with a literal segment are candidates for every path.  
+ * The candidates are always returned in the order the items were indexed in.
+ */
+public final class URITemplateIndex<T> {
+    private final List<T> all;
+    private final List<T> unindexed;
+    private final Map<String, List<T>> bySegment;
+    
+    private URITemplateIndex(List<T> items, List<URITemplate> templates) {
+        all = Collections.unmodifiableList(new ArrayList<T>(items));
+        
+        List<T> noSegment = new ArrayList<T>();
+        Map<String, List<T>> segments = new HashMap<String, List<T>>();
+        for (int i = 0; i < items.size(); i++) {
+            String segment = templates.get(i) == null ? null : templates.get(i).getFirstLiteralSegment();
+            if (segment == null) {
+                noSegment.add(items.get(i));
+            } else if (!segments.containsKey(segment)) {
+                segments.put(segment, new ArrayList<T>());
+            }
+        }
+        for (Map.Entry<String, List<T>> entry : segments.entrySet()) {
+            // keep the original order, the unindexed items are part of every group
+            for (int i = 0; i < items.size(); i++) {
+                String segment = templates.get(i) == null ? null : templates.get(i).getFirstLiteralSegment();
+                if (segment == null || segment.equals(entry.getKey())) {
+                    entry.getValue().add(items.get(i));
+                }
+            }
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        unindexed = Collections.unmodifiableList(noSegment);
+        bySegment = segments;
+    }
+    
+    public static URITemplateIndex<ClassResourceInfo> createClassResourceInfoIndex(
+        Collection<ClassResourceInfo> cris) {
+        List<ClassResourceInfo> items = new ArrayList<ClassResourceInfo>(cris);
+        List<URITemplate> templates = new ArrayList<URITemplate>(items.size());
+        for (ClassResourceInfo cri : items) {
+            templates.add(cri.getURITemplate());
+        }
+        return new URITemplateIndex<ClassResourceInfo>(items, templates);
+    }
+    
+    public static URITemplateIndex<OperationResourceInfo> createOperationResourceInfoIndex(
+        Collection<OperationResourceInfo> oris) {
+        List<OperationResourceInfo> items = new ArrayList<OperationResourceInfo>(oris);
+        List<URITemplate> templates = new ArrayList<URITemplate>(items.size());
+        for (OperationResourceInfo ori : items) {
+            templates.add(ori.getURITemplate());
+        }
+        return new URITemplateIndex<OperationResourceInfo>(items, templates);
+    }
+    
+    /**
+     * @return all the indexed items
+     */
+    public List<T> getAll() {
+        return all;
+    }
+    
+    /**
+     * @param path the request path, relative to the parent resource if any
+     * @return the items whose template may match the path
+     */
+    public List<T> getCandidates(String path) {
+        String segment = getFirstSegment(path);
+        if (segment == null) {
+            return all;
+        }
+        List<T> candidates = bySegment.get(segment);
+        return candidates == null ? unindexed : candidates;
+    }
+    
+    private static String getFirstSegment(String path) {
+        // paths with matrix parameters are matched segment by segment, see URITemplate.match
+        if (path == null || !path.startsWith("/") || path.indexOf(';') != -1) {
+            return null;
+        }
+        int end = path.indexOf('/', 1);
+        return path.substring(1, end == -1 ? path.length() : end);
+    }
+}
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.ws.rs.BadRequestException;
@@ -71,6 +72,7 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.jaxb.JAXBUtils;
+import org.apache.cxf.common.jaxb.MarshallerPool;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.PackageUtils;
 import org.apache.cxf.jaxrs.ext.MessageContext;
@@ -113,6 +115,8 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
     protected Map<String, String> inAppendMap;
     protected Map<String, JAXBContext> packageContexts = new HashMap<String, JAXBContext>();
     protected Map<Class<?>, JAXBContext> classContexts = new HashMap<Class<?>, JAXBContext>();
+    private Map<JAXBContext, MarshallerPool> marshallerPools 
+        = new ConcurrentHashMap<JAXBContext, MarshallerPool>();
     private boolean attributesToElements;
     
     private MessageContext mc;
@@ -575,25 +579,55 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
     
     protected Unmarshaller createUnmarshaller(Class<?> cls, Type genericType, boolean isCollection) 
         throws JAXBException {
+        return createPooledUnmarshaller(cls, genericType, isCollection).getUnmarshaller();
+    }
+    
+    /**
+     * Gets a configured Unmarshaller from the pool of the JAXBContext or creates a new one.
+     * The caller owns the returned object and should call release() on it once the read 
+     * has completed successfully, an Unmarshaller which failed is simply not released.
+     */
+    protected PooledUnmarshaller createPooledUnmarshaller(Class<?> cls, Type genericType, 
+                                                          boolean isCollection) 
+        throws JAXBException {
         JAXBContext context = isCollection ? getCollectionContext(cls) 
                                            : getJAXBContext(cls, genericType);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
         Schema theSchema = getSchema(cls);
-        if (theSchema != null) {
-            unmarshaller.setSchema(theSchema);
+        MarshallerPool pool = getMarshallerPool(context);
+        Object config = getUnmarshallerConfig(theSchema);
+        Unmarshaller unmarshaller = pool.pollUnmarshaller(config);
+        if (unmarshaller == null) {
+            unmarshaller = context.createUnmarshaller();
+            if (theSchema != null) {
+                unmarshaller.setSchema(theSchema);
+            }
+            if (unmarshallerListener != null) {
+                unmarshaller.setListener(unmarshallerListener);
+            }
+            if (uProperties != null) {
+                for (Map.Entry<String, Object> entry : uProperties.entrySet()) {
+                    unmarshaller.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
         }
         if (eventHandler != null) {
             unmarshaller.setEventHandler(eventHandler);
         }
-        if (unmarshallerListener != null) {
-            unmarshaller.setListener(unmarshallerListener);
-        }
-        if (uProperties != null) {
-            for (Map.Entry<String, Object> entry : uProperties.entrySet()) {
-                unmarshaller.setProperty(entry.getKey(), entry.getValue());
-            }
+        return new PooledUnmarshaller(unmarshaller, pool, config);
+    }
+    
+    private Object getUnmarshallerConfig(Schema theSchema) {
+        return Arrays.asList(theSchema, unmarshallerListener, uProperties);
+    }
+    
+    private MarshallerPool getMarshallerPool(JAXBContext context) {
+        MarshallerPool pool = marshallerPools.get(context);
+        if (pool == null) {
+            // getInstance returns the same pool for a given context 
+            pool = MarshallerPool.getInstance(context);
+            marshallerPools.put(context, pool);
         }
-        return unmarshaller;        
+        return pool;
     }
     
     protected Marshaller createMarshaller(Object obj, Class<?> cls, Type genericType, String enc)
@@ -669,6 +703,7 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
     public void clearContexts() {
         classContexts.clear();
         packageContexts.clear();
+        marshallerPools.clear();
     }
     
     protected static String getStackTrace(Exception ex) { 
@@ -829,6 +864,33 @@ public abstract class AbstractJAXBProvider<T> extends AbstractConfigurableProvid
         this.namespaceMapperPropertyName = namespaceMapperProperty;
     }
 
+    protected static class PooledUnmarshaller {
+        private final Unmarshaller unmarshaller;
+        private final MarshallerPool pool;
+        private final Object config;
+        private boolean released;
+        
+        PooledUnmarshaller(Unmarshaller unmarshaller, MarshallerPool pool, Object config) {
+            this.unmarshaller = unmarshaller;
+            this.pool = pool;
+            this.config = config;
+        }
+        
+        public Unmarshaller getUnmarshaller() {
+            return unmarshaller;
+        }
+        
+        /**
+         * Makes the Unmarshaller available for the next read, only the first call has an effect.
+         */
+        public void release() {
+            if (!released) {
+                released = true;
+                pool.offerUnmarshaller(config, unmarshaller);
+            }
+        }
+    }
+    
     @XmlRootElement
     protected static class CollectionWrapper {
         
@@ -46,11 +46,13 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.helpers.FileUtils;
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.ext.CacheableProvider;
 import org.apache.cxf.jaxrs.impl.HttpHeadersImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 
+@CacheableProvider
 public class BinaryDataProvider<T> extends AbstractConfigurableProvider 
     implements MessageBodyReader<T>, MessageBodyWriter<T> {
     
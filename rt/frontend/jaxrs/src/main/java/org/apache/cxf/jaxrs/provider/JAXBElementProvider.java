@@ -167,7 +167,8 @@ public class JAXBElementProvider<T> extends AbstractJAXBProvider<T>  {
             Class<?> theGenericType = isCollection ? InjectionUtils.getActualType(genericType) : type;
             Class<?> theType = getActualType(theGenericType, genericType, anns);
 
-            Unmarshaller unmarshaller = createUnmarshaller(theType, genericType, isCollection);
+            PooledUnmarshaller pooled = createPooledUnmarshaller(theType, genericType, isCollection);
+            Unmarshaller unmarshaller = pooled.getUnmarshaller();
             addAttachmentUnmarshaller(unmarshaller);
             Object response = null;
             if (JAXBElement.class.isAssignableFrom(type) 
@@ -193,6 +194,7 @@ public class JAXBElementProvider<T> extends AbstractJAXBProvider<T>  {
             } else {
                 response = checkAdapter(response, type, anns, false);
             }
+            pooled.release();
             return type.cast(response);
             
         } catch (JAXBException e) {
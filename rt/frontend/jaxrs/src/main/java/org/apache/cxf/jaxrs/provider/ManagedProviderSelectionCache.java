@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.ManagedEndpoint;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.endpoint.ServerLifeCycleListener;
+import org.apache.cxf.endpoint.ServerLifeCycleManager;
+import org.apache.cxf.management.InstrumentationManager;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedOperation;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+/**
+ * Exposes the hit and miss statistics of the message body reader and writer 
+ * selection caches of the endpoint's provider factory. The component is registered 
+ * with the InstrumentationManager while the server is started.
+ */
+@ManagedResource(componentName = "ProviderSelectionCache", 
+                 description = "The JAX-RS message body reader and writer selection cache")
+public class ManagedProviderSelectionCache implements ManagedComponent, ServerLifeCycleListener {
+    private static final Logger LOG = LogUtils.getL7dLogger(ManagedProviderSelectionCache.class);
+    private static final String TYPE_VALUE = "Bus.Service.Endpoint.ProviderSelectionCache";
+    
+    private Bus bus;
+    private Endpoint endpoint;
+    private Server server;
+    private ProviderFactory factory;
+    private boolean registered;
+    
+    public ManagedProviderSelectionCache(Bus bus, Endpoint endpoint, Server server,
+                                         ProviderFactory factory) {
+        this.bus = bus;
+        this.endpoint = endpoint;
+        this.server = server;
+        this.factory = factory;
+    }
+    
+    @ManagedAttribute(description = "The number of reader selections found in the cache")
+    public long getReaderCacheHits() {
+        return factory.getReaderSelectionCache().getHits();
+    }
+    
+    @ManagedAttribute(description = "The number of reader selections not found in the cache")
+    public long getReaderCacheMisses() {
+        return factory.getReaderSelectionCache().getMisses();
+    }
+    
+    @ManagedAttribute(description = "The number of cached reader selections")
+    public int getReaderCacheSize() {
+        return factory.getReaderSelectionCache().size();
+    }
+    
+    @ManagedAttribute(description = "The number of writer selections found in the cache")
+    public long getWriterCacheHits() {
+        return factory.getWriterSelectionCache().getHits();
+    }
+    
+    @ManagedAttribute(description = "The number of writer selections not found in the cache")
+    public long getWriterCacheMisses() {
+        return factory.getWriterSelectionCache().getMisses();
+    }
+    
+    @ManagedAttribute(description = "The number of cached writer selections")
+    public int getWriterCacheSize() {
+        return factory.getWriterSelectionCache().size();
+    }
+    
+    @ManagedOperation(description = "Removes all the cached selections")
+    public void clear() {
+        factory.clearSelectionCaches();
+    }
+    
+    @ManagedOperation(description = "Resets the hit and miss counters")
+    public void resetStatistics() {
+        factory.getReaderSelectionCache().resetStatistics();
+        factory.getWriterSelectionCache().resetStatistics();
+    }
+    
+    public ObjectName getObjectName() throws JMException {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(ManagementConstants.DEFAULT_DOMAIN_NAME).append(':');
+        buffer.append(ManagementConstants.BUS_ID_PROP).append('=').append(bus.getId()).append(',');
+        buffer.append(ManagementConstants.TYPE_PROP).append('=').append(TYPE_VALUE).append(',');
+        
+        String serviceName = (String)endpoint.get(ManagedEndpoint.SERVICE_NAME);
+        if (StringUtils.isEmpty(serviceName)) {
+            serviceName = endpoint.getService().getName().toString();
+        }
+        buffer.append(ManagementConstants.SERVICE_NAME_PROP).append('=')
+            .append(ObjectName.quote(serviceName)).append(',');
+        
+        String endpointName = (String)endpoint.get(ManagedEndpoint.ENDPOINT_NAME);
+        if (StringUtils.isEmpty(endpointName)) {
+            endpointName = endpoint.getEndpointInfo().getName().getLocalPart();
+        }
+        buffer.append(ManagementConstants.PORT_NAME_PROP).append('=')
+            .append(ObjectName.quote(endpointName)).append(',');
+        buffer.append(ManagementConstants.INSTANCE_ID_PROP).append('=').append(endpoint.hashCode());
+        return new ObjectName(buffer.toString());
+    }
+
+    public synchronized void startServer(Server s) {
+        if (server != s || registered) {
+            return;
+        }
+        InstrumentationManager iMgr = bus.getExtension(InstrumentationManager.class);
+        if (iMgr != null) {
+            try {
+                iMgr.register(this);
+                registered = true;
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING, "Registering ManagedProviderSelectionCache failed.", jmex);
+            }
+        }
+    }
+
+    public synchronized void stopServer(Server s) {
+        if (server != s) {
+            return;
+        }
+        if (registered) {
+            InstrumentationManager iMgr = bus.getExtension(InstrumentationManager.class);
+            try {
+                if (iMgr != null) {
+                    iMgr.unregister(this);
+                }
+            } catch (JMException jmex) {
+                LOG.log(Level.WARNING, "Unregistering ManagedProviderSelectionCache failed.", jmex);
+            }
+            registered = false;
+        }
+        // the server may be gone for good, do not keep it reachable from the bus 
+        ServerLifeCycleManager mgr = bus.getExtension(ServerLifeCycleManager.class);
+        if (mgr != null) {
+            mgr.unRegisterListener(this);
+        }
+    }
+}
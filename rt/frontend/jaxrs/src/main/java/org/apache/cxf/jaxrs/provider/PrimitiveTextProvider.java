@@ -31,10 +31,12 @@ import javax.ws.rs.ext.MessageBodyWriter;
 
 import org.apache.cxf.common.util.StringUtils;
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.ext.CacheableProvider;
 import org.apache.cxf.jaxrs.model.ParameterType;
 import org.apache.cxf.jaxrs.utils.HttpUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 
+@CacheableProvider
 public class PrimitiveTextProvider<T> 
     implements MessageBodyReader<T>, MessageBodyWriter<T> {
 
@@ -117,6 +117,11 @@ public abstract class ProviderFactory {
     
     private ProviderFactory baseFactory;
     
+    private ProviderSelectionCache<MessageBodyReader<?>> readerSelectionCache = 
+        new ProviderSelectionCache<MessageBodyReader<?>>();
+    private ProviderSelectionCache<MessageBodyWriter<?>> writerSelectionCache = 
+        new ProviderSelectionCache<MessageBodyWriter<?>>();
+    
     protected ProviderFactory(ProviderFactory baseFactory, Bus bus) {
         this.baseFactory = baseFactory;
         this.bus = bus;
@@ -548,6 +553,7 @@ public abstract class ProviderFactory {
         sortReaders();
         sortWriters();
         sortContextResolvers();
+        clearSelectionCaches();
         
         mapInterceptorFilters(readerInterceptors, readInts, ReaderInterceptor.class, true);
         mapInterceptorFilters(writerInterceptors, writeInts, WriterInterceptor.class, true);
@@ -630,23 +636,34 @@ public abstract class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        boolean useCache = isSelectionCacheable(m);
+        if (useCache) {
+            Object selection = readerSelectionCache.get(type, genericType, annotations, mediaType);
+            if (selection != null) {
+                return (MessageBodyReader<T>)getCachedSelection(selection, m);
+            }
+        }
+        boolean cacheable = useCache;
+        ProviderInfo<MessageBodyReader<?>> selected = null;
         List<MessageBodyReader<?>> candidates = new LinkedList<MessageBodyReader<?>>();
         for (ProviderInfo<MessageBodyReader<?>> ep : readers) {
+            cacheable = cacheable && ProviderSelectionCache.isCacheable(ep);
             if (matchesReaderCriterias(ep, type, genericType, annotations, mediaType, m)) {
                 if (isBaseFactory()) {
-                    return (MessageBodyReader<T>) ep.getProvider();
+                    selected = ep;
+                    break;
                 }
                 handleMapper(candidates, ep, type, m, MessageBodyReader.class, false);
                 if (!candidates.isEmpty()) {
+                    selected = ep;
                     break;
                 }
             }
         }     
-        
-        if (candidates.isEmpty()) {
-            return null;
+        if (cacheable) {
+            readerSelectionCache.put(type, genericType, annotations, mediaType, selected);
         }
-        return (MessageBodyReader<T>) candidates.get(0);
+        return selected == null ? null : (MessageBodyReader<T>) selected.getProvider();
         
     }
     
@@ -694,22 +711,50 @@ public abstract class ProviderFactory {
                                                          Annotation[] annotations,
                                                          MediaType mediaType,
                                                          Message m) {
+        boolean useCache = isSelectionCacheable(m);
+        if (useCache) {
+            Object selection = writerSelectionCache.get(type, genericType, annotations, mediaType);
+            if (selection != null) {
+                return (MessageBodyWriter<T>)getCachedSelection(selection, m);
+            }
+        }
+        boolean cacheable = useCache;
+        ProviderInfo<MessageBodyWriter<?>> selected = null;
         List<MessageBodyWriter<?>> candidates = new LinkedList<MessageBodyWriter<?>>();
         for (ProviderInfo<MessageBodyWriter<?>> ep : writers) {
+            cacheable = cacheable && ProviderSelectionCache.isCacheable(ep);
             if (matchesWriterCriterias(ep, type, genericType, annotations, mediaType, m)) {
                 if (isBaseFactory()) {
-                    return (MessageBodyWriter<T>) ep.getProvider();
+                    selected = ep;
+                    break;
                 }
                 handleMapper(candidates, ep, type, m, MessageBodyWriter.class, false);
                 if (!candidates.isEmpty()) {
+                    selected = ep;
                     break;
                 }
             }
         }     
-        if (candidates.isEmpty()) {
+        if (cacheable) {
+            writerSelectionCache.put(type, genericType, annotations, mediaType, selected);
+        }
+        return selected == null ? null : (MessageBodyWriter<T>) selected.getProvider();
+    }
+    
+    private boolean isSelectionCacheable(Message m) {
+        // the generic type checks done by handleMapper are affected by this property  
+        return isBaseFactory() || !MessageUtils.isTrue(m.getContextualProperty(IGNORE_TYPE_VARIABLES));
+    }
+    
+    private Object getCachedSelection(Object selection, Message m) {
+        if (ProviderSelectionCache.isNoMatch(selection)) {
             return null;
         }
-        return (MessageBodyWriter<T>) candidates.get(0);
+        ProviderInfo<?> pi = (ProviderInfo<?>)selection;
+        if (m.get(ACTIVE_JAXRS_PROVIDER_KEY) != pi.getProvider()) {
+            injectContextValues(pi, m);
+        }
+        return pi.getProvider();
     }
     
     private <T> boolean matchesWriterCriterias(ProviderInfo<MessageBodyWriter<?>> pi,
@@ -748,6 +793,19 @@ public abstract class ProviderFactory {
         return Collections.unmodifiableList(messageWriters);
     }
     
+    ProviderSelectionCache<MessageBodyReader<?>> getReaderSelectionCache() {
+        return readerSelectionCache;
+    }
+    
+    ProviderSelectionCache<MessageBodyWriter<?>> getWriterSelectionCache() {
+        return writerSelectionCache;
+    }
+    
+    void clearSelectionCaches() {
+        readerSelectionCache.clear();
+        writerSelectionCache.clear();
+    }
+    
     List<ProviderInfo<ContextResolver<?>>> getContextResolvers() {
         return Collections.unmodifiableList(contextResolvers);
     }
@@ -845,6 +903,7 @@ public abstract class ProviderFactory {
     public void clearProviders() {
         messageReaders.clear();
         messageWriters.clear();
+        clearSelectionCaches();
         contextResolvers.clear();
         contextProviders.clear();
         readerInterceptors.clear();
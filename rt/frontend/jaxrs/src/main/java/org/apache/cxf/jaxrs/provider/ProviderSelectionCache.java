@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.cxf.common.util.ClassHelper;
+import org.apache.cxf.jaxrs.ext.CacheableProvider;
+import org.apache.cxf.jaxrs.model.ProviderInfo;
+
+/**
+ * Remembers which message body reader or writer has been selected for a given 
+ * combination of the Java type, generic type, annotations and media type.
+ * Only the selections made by looking at the providers annotated with 
+ * {@link CacheableProvider} are remembered. The cache is bounded, once it is full
+ * it is emptied and starts again.
+ */
+final class ProviderSelectionCache<T> {
+    static final int DEFAULT_MAX_ENTRIES = 512;
+    
+    private static final Object NO_MATCH = new Object();
+    
+    private final ConcurrentMap<Key, Object> selections = new ConcurrentHashMap<Key, Object>();
+    private final int maxEntries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    ProviderSelectionCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+    
+    ProviderSelectionCache(int maxEntries) {
+        this.maxEntries = maxEntries < 1 ? 1 : maxEntries;
+    }
+    
+    static boolean isCacheable(ProviderInfo<?> pi) {
+        return ClassHelper.getRealClass(pi.getProvider()).isAnnotationPresent(CacheableProvider.class);
+    }
+    
+    static boolean isNoMatch(Object selection) {
+        return selection == NO_MATCH;
+    }
+    
+    /**
+     * Returns the remembered ProviderInfo, a marker checked with {@link #isNoMatch(Object)}
+     * if it is known that no provider matches or null if nothing is known yet
+     */
+    Object get(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+        Object selection = selections.get(new Key(type, genericType, anns, mt));
+        if (selection == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return selection;
+    }
+    
+    void put(Class<?> type, Type genericType, Annotation[] anns, MediaType mt, ProviderInfo<T> pi) {
+        if (selections.size() >= maxEntries) {
+            selections.clear();
+        }
+        selections.put(new Key(type, genericType, anns, mt), pi == null ? NO_MATCH : pi);
+    }
+    
+    void clear() {
+        selections.clear();
+    }
+    
+    int size() {
+        return selections.size();
+    }
+    
+    long getHits() {
+        return hits.get();
+    }
+    
+    long getMisses() {
+        return misses.get();
+    }
+    
+    void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+    
+    /**
+     * Annotations are compared by identity, the reflection API hands out 
+     * the same annotation instances for a given class, method or parameter
+     * even if the arrays holding them are copied. 
+     */
+    private static final class Key {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] anns;
+        private final MediaType mt;
+        private final int hash;
+        
+        Key(Class<?> type, Type genericType, Annotation[] anns, MediaType mt) {
+            this.type = type;
+            this.genericType = genericType;
+            this.anns = anns;
+            this.mt = mt;
+            int h = type.hashCode();
+            h = 31 * h + (genericType == null ? 0 : genericType.hashCode());
+            if (anns != null) {
+                for (Annotation a : anns) {
+                    h = 31 * h + System.identityHashCode(a);
+                }
+            }
+            this.hash = 31 * h + (mt == null ? 0 : mt.hashCode());
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return hash == other.hash
+                && type == other.type
+                && (genericType == null ? other.genericType == null : genericType.equals(other.genericType))
+                && (mt == null ? other.mt == null : mt.equals(other.mt))
+                && sameAnnotations(anns, other.anns);
+        }
+        
+        private static boolean sameAnnotations(Annotation[] a1, Annotation[] a2) {
+            if (a1 == a2) {
+                return true;
+            }
+            int len1 = a1 == null ? 0 : a1.length;
+            int len2 = a2 == null ? 0 : a2.length;
+            if (len1 != len2) {
+                return false;
+            }
+            for (int i = 0; i < len1; i++) {
+                if (a1[i] != a2[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
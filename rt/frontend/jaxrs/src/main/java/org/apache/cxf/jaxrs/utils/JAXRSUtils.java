@@ -29,6 +29,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -336,7 +337,7 @@ public final class JAXRSUtils {
             new TreeMap<ClassResourceInfo, MultivaluedMap<String, String>>(
                 new ClassResourceInfoComparator(message));
         
-        for (ClassResourceInfo cri : resources) {
+        for (ClassResourceInfo cri : getCandidateResources(resources, path, message, isFineLevelLoggable)) {
             MultivaluedMap<String, String> map = new MetadataMap<String, String>();
             if (cri.getURITemplate().match(path, map)) {
                 candidateList.put(cri, map);
@@ -381,6 +382,21 @@ public final class JAXRSUtils {
         
         return null;
     }
+    
+    private static List<ClassResourceInfo> getCandidateResources(List<ClassResourceInfo> resources, 
+                                                                 String path,
+                                                                 Message message,
+                                                                 boolean isFineLevelLoggable) {
+        Exchange exchange = message == null ? null : message.getExchange();
+        Service service = exchange == null ? null : exchange.get(Service.class);
+        if (isFineLevelLoggable || !(service instanceof JAXRSServiceImpl)
+            || ((JAXRSServiceImpl)service).getClassResourceInfos() != resources) {
+            return resources;
+        }
+        // only the resources starting with the first path segment can match  
+        return ((JAXRSServiceImpl)service).getClassResourceInfoIndex().getCandidates(path);
+    }
+    
     public static OperationResourceInfo findTargetMethod(
         Map<ClassResourceInfo, MultivaluedMap<String, String>> matchedResources,
         Message message,
@@ -410,10 +426,12 @@ public final class JAXRSUtils {
             throw new NotSupportedException(ex);
         }
         
-        SortedMap<OperationResourceInfo, MultivaluedMap<String, String>> candidateList = 
-            new TreeMap<OperationResourceInfo, MultivaluedMap<String, String>>(
-                new OperationResourceInfoComparator(message, httpMethod, 
-                                                    getMethod, requestType, acceptContentTypes));
+        // only the best candidate is needed so there is no need to sort them all
+        OperationResourceInfoComparator comparator = 
+            new OperationResourceInfoComparator(message, httpMethod, 
+                                                getMethod, requestType, acceptContentTypes);
+        OperationResourceInfo bestOri = null;
+        MultivaluedMap<String, String> bestValues = null;
 
         int pathMatched = 0;
         int methodMatched = 0;
@@ -433,14 +451,16 @@ public final class JAXRSUtils {
                 
             }
             
-            for (OperationResourceInfo ori : resource.getMethodDispatcher().getOperationResourceInfos()) {
+            Collection<OperationResourceInfo> oris = isFineLevelLoggable 
+                ? resource.getMethodDispatcher().getOperationResourceInfos()
+                : resource.getMethodDispatcher().getOperationResourceInfoIndex().getCandidates(path);
+            for (OperationResourceInfo ori : oris) {
                 boolean added = false;
                 
                 URITemplate uriTemplate = ori.getURITemplate();
                 MultivaluedMap<String, String> map = new MetadataMap<String, String>(values);
                 if (uriTemplate != null && uriTemplate.match(path, map)) {
                     if (ori.isSubResourceLocator()) {
-                        candidateList.put(ori, map);
                         added = true;
                     } else {
                         String finalGroup = map.getFirst(URITemplate.FINAL_MATCH_GROUP);
@@ -453,7 +473,6 @@ public final class JAXRSUtils {
                                     consumeMatched++;
                                     for (MediaType acceptType : acceptContentTypes) {
                                         if (matchProduceTypes(acceptType, ori)) {
-                                            candidateList.put(ori, map);
                                             added = true;
                                             break;
                                         }
@@ -464,6 +483,16 @@ public final class JAXRSUtils {
                         }
                     }
                 } 
+                if (added) {
+                    // same outcome as adding all the candidates to a sorted map and taking the first entry
+                    int result = bestOri == null ? -1 : comparator.compare(ori, bestOri);
+                    if (result < 0) {
+                        bestOri = ori;
+                    }
+                    if (result <= 0) {
+                        bestValues = map;
+                    }
+                }
                 if (isFineLevelLoggable) {
                     if (added) {
                         LOG.fine(new org.apache.cxf.common.i18n.Message("OPER_SELECTED_POSSIBLY", 
@@ -476,12 +505,10 @@ public final class JAXRSUtils {
             }
         }
         
-        if (!candidateList.isEmpty()) {
-            Map.Entry<OperationResourceInfo, MultivaluedMap<String, String>> firstEntry = 
-                candidateList.entrySet().iterator().next();
+        if (bestOri != null) {
             matchedValues.clear();
-            matchedValues.putAll(firstEntry.getValue());
-            OperationResourceInfo ori = firstEntry.getKey();
+            matchedValues.putAll(bestValues);
+            OperationResourceInfo ori = bestOri;
             if (headMethodPossible(ori.getHttpMethod(), httpMethod)) {
                 LOG.info(new org.apache.cxf.common.i18n.Message("GET_INSTEAD_OF_HEAD", 
                          BUNDLE, ori.getClassResourceInfo().getServiceClass().getName(), 
@@ -69,6 +69,19 @@ public class JAXRSServiceFactoryBeanTest extends Assert {
         
     }
 
+    @Test
+    public void testResourceIndexFollowsNewResourceClasses() throws Exception {
+        JAXRSServiceFactoryBean sf = new JAXRSServiceFactoryBean();
+        sf.setResourceClasses(org.apache.cxf.jaxrs.resources.BookStoreNoSubResource.class);
+        JAXRSServiceImpl service = (JAXRSServiceImpl)sf.create();
+        assertEquals(service.getClassResourceInfos(),
+                     service.getClassResourceInfoIndex().getAll());
+        
+        sf.setResourceClasses(org.apache.cxf.jaxrs.resources.BookStoreSubresourcesOnly.class);
+        assertEquals(service.getClassResourceInfos(),
+                     service.getClassResourceInfoIndex().getAll());
+    }
+
     @Test
     public void testSubresourcesOnlyDynamicResolution() throws Exception {
         JAXRSServiceFactoryBean sf = new JAXRSServiceFactoryBean();
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.jaxrs.JAXRSServiceImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class URITemplateIndexTest extends Assert {
+
+    @Test
+    public void testFirstLiteralSegment() {
+        assertEquals("books", new URITemplate("/books").getFirstLiteralSegment());
+        assertEquals("books", new URITemplate("/books/").getFirstLiteralSegment());
+        assertEquals("books", new URITemplate("/books/{id}").getFirstLiteralSegment());
+        assertNull(new URITemplate("/books{id}").getFirstLiteralSegment());
+        assertNull(new URITemplate("/{id}/books").getFirstLiteralSegment());
+        assertNull(new URITemplate("/").getFirstLiteralSegment());
+        assertEquals("books%3F", new URITemplate("/books?").getFirstLiteralSegment());
+    }
+    
+    @Test
+    public void testCandidates() {
+        ClassResourceInfo books = createResource("/books");
+        ClassResourceInfo any = createResource("/{id}");
+        ClassResourceInfo stores = createResource("/stores/{id}");
+        ClassResourceInfo root = createResource("/");
+        ClassResourceInfo books2 = createResource("/books/{id}/chapters");
+        URITemplateIndex<ClassResourceInfo> index = URITemplateIndex.createClassResourceInfoIndex(
+            Arrays.asList(books, any, stores, root, books2));
+        
+        assertEquals(Arrays.asList(books, any, root, books2), index.getCandidates("/books/1"));
+        assertEquals(Arrays.asList(books, any, root, books2), index.getCandidates("/books"));
+        assertEquals(Arrays.asList(any, stores, root), index.getCandidates("/stores"));
+        assertEquals(Arrays.asList(any, root), index.getCandidates("/bookstore"));
+        assertEquals(Arrays.asList(any, root), index.getCandidates("/"));
+        // matrix parameters may be dropped when matching so every resource is a candidate
+        assertEquals(index.getAll(), index.getCandidates("/books;a=b/1"));
+        assertEquals(5, index.getAll().size());
+    }
+    
+    @Test
+    public void testCandidatesMatchTemplates() {
+        List<ClassResourceInfo> resources = new ArrayList<ClassResourceInfo>();
+        String[] templates = {"/books", "/books/{id}", "/{a}/{b}", "/book", "/stores/{id: \\d+}",
+                              "/a.b", "/"};
+        for (String t : templates) {
+            resources.add(createResource(t));
+        }
+        URITemplateIndex<ClassResourceInfo> index = URITemplateIndex.createClassResourceInfoIndex(resources);
+        String[] paths = {"/books", "/books/1", "/book", "/books1", "/stores/1", "/stores/a", "/a.b",
+                          "/axb", "/", "/x/y"};
+        for (String path : paths) {
+            List<ClassResourceInfo> candidates = index.getCandidates(path);
+            for (ClassResourceInfo cri : resources) {
+                if (cri.getURITemplate().match(path, new org.apache.cxf.jaxrs.impl.MetadataMap<String, String>())) {
+                    assertTrue(cri.getURITemplate().getValue() + " should be a candidate for " + path,
+                               candidates.contains(cri));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testServiceIndexReset() {
+        List<ClassResourceInfo> resources = new ArrayList<ClassResourceInfo>();
+        resources.add(createResource("/books"));
+        JAXRSServiceImpl service = new JAXRSServiceImpl(resources);
+        URITemplateIndex<ClassResourceInfo> index = service.getClassResourceInfoIndex();
+        assertSame(index, service.getClassResourceInfoIndex());
+        
+        // a list of the same size with a different resource
+        ClassResourceInfo stores = createResource("/stores");
+        resources.set(0, stores);
+        assertSame(index, service.getClassResourceInfoIndex());
+        service.resetClassResourceInfoIndex();
+        index = service.getClassResourceInfoIndex();
+        assertEquals(Arrays.asList(stores), index.getCandidates("/stores"));
+        assertTrue(index.getCandidates("/books").isEmpty());
+    }
+    
+    private static ClassResourceInfo createResource(String template) {
+        ClassResourceInfo cri = new ClassResourceInfo(Object.class);
+        cri.setURITemplate(new URITemplate(template));
+        return cri;
+    }
+}
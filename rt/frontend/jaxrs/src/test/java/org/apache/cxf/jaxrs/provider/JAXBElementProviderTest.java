@@ -50,6 +50,7 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.PropertyException;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.ValidationEventHandler;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
@@ -133,6 +134,65 @@ public class JAXBElementProviderTest extends Assert {
         assertEquals(book.getName(), nameStringUTF16);
     }
     
+    @Test
+    public void testUnmarshallerReused() throws Exception {
+        JAXBElementProvider<Book> p = new JAXBElementProvider<Book>();
+        AbstractJAXBProvider.PooledUnmarshaller pooled = 
+            p.createPooledUnmarshaller(Book.class, Book.class, false);
+        Unmarshaller um = pooled.getUnmarshaller();
+        assertNotSame(um, p.createUnmarshaller(Book.class, Book.class));
+        pooled.release();
+        pooled.release();
+        assertSame(um, p.createUnmarshaller(Book.class, Book.class));
+        // released once only
+        assertNotSame(um, p.createUnmarshaller(Book.class, Book.class));
+        
+        for (int x = 0; x < 2; x++) {
+            Book book = p.readFrom(Book.class, null, new Annotation[]{}, 
+                                   MediaType.APPLICATION_XML_TYPE, new MetadataMap<String, String>(), 
+                                   new ByteArrayInputStream(("<Book><name>" + x 
+                                                             + "</name></Book>").getBytes()));
+            assertEquals(Integer.toString(x), book.getName());
+        }
+        pooled = p.createPooledUnmarshaller(Book.class, Book.class, false);
+        um = pooled.getUnmarshaller();
+        assertNull(um.getAttachmentUnmarshaller());
+        pooled.release();
+        p.setUnmarshallerListener(new Unmarshaller.Listener() { });
+        assertNotSame(um, p.createUnmarshaller(Book.class, Book.class));
+    }
+    
+    @Test
+    public void testFailedUnmarshallerNotReused() throws Exception {
+        final List<Unmarshaller> used = new ArrayList<Unmarshaller>();
+        JAXBElementProvider<Book> p = new JAXBElementProvider<Book>() {
+            protected PooledUnmarshaller createPooledUnmarshaller(Class<?> cls, Type genericType, 
+                                                                  boolean isCollection) 
+                throws JAXBException {
+                PooledUnmarshaller pooled = super.createPooledUnmarshaller(cls, genericType, isCollection);
+                used.add(pooled.getUnmarshaller());
+                return pooled;
+            }
+        };
+        try {
+            p.readFrom(Book.class, null, new Annotation[]{}, 
+                       MediaType.APPLICATION_XML_TYPE, new MetadataMap<String, String>(), 
+                       new ByteArrayInputStream("<Book><name>".getBytes()));
+            fail("The read is expected to fail");
+        } catch (WebApplicationException ex) {
+            assertEquals(400, ex.getResponse().getStatus());
+        }
+        p.readFrom(Book.class, null, new Annotation[]{}, 
+                   MediaType.APPLICATION_XML_TYPE, new MetadataMap<String, String>(), 
+                   new ByteArrayInputStream("<Book><name>1</name></Book>".getBytes()));
+        p.readFrom(Book.class, null, new Annotation[]{}, 
+                   MediaType.APPLICATION_XML_TYPE, new MetadataMap<String, String>(), 
+                   new ByteArrayInputStream("<Book><name>2</name></Book>".getBytes()));
+        assertEquals(3, used.size());
+        assertNotSame(used.get(0), used.get(1));
+        assertSame(used.get(1), used.get(2));
+    }
+    
     @Test
     public void testSingleJAXBContext() throws Exception {
         ClassResourceInfo cri = 
@@ -126,6 +126,50 @@ public class ProviderFactoryTest extends Assert {
         assertSame(writer, writer2);
     }
     
+    @Test
+    public void testReaderSelectionCache() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        pf.registerUserProvider(new DataSourceProvider<Object>());
+        ProviderSelectionCache<MessageBodyReader<?>> cache = pf.getReaderSelectionCache();
+        MessageBodyReader<DataSource> reader = pf.createMessageBodyReader(
+              DataSource.class, null, null, MediaType.valueOf("image/png"), new MessageImpl());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+        MessageBodyReader<DataSource> reader2 = pf.createMessageBodyReader(
+              DataSource.class, null, null, MediaType.valueOf("image/png"), new MessageImpl());
+        assertSame(reader, reader2);
+        assertEquals(1, cache.getHits());
+        
+        // the user provider can not read it, the base factory is checked next  
+        MessageBodyReader<byte[]> reader3 = pf.createMessageBodyReader(
+              byte[].class, null, null, MediaType.valueOf("image/png"), new MessageImpl());
+        assertTrue(reader3 instanceof BinaryDataProvider);
+        assertEquals(2, cache.size());
+        reader3 = pf.createMessageBodyReader(
+              byte[].class, null, null, MediaType.valueOf("image/png"), new MessageImpl());
+        assertTrue(reader3 instanceof BinaryDataProvider);
+        assertEquals(2, cache.getHits());
+        
+        pf.registerUserProvider(new ComplexMessageBodyReader());
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void testWriterSelectionCacheNotUsedForUncacheableProviders() {
+        ProviderFactory pf = ServerProviderFactory.getInstance();
+        pf.registerUserProvider(new JAXBElementProvider<Book>());
+        ProviderSelectionCache<MessageBodyWriter<?>> cache = pf.getWriterSelectionCache();
+        MessageBodyWriter<Book> writer = pf.createMessageBodyWriter(
+              Book.class, null, null, MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertTrue(writer instanceof JAXBElementProvider);
+        writer = pf.createMessageBodyWriter(
+              Book.class, null, null, MediaType.TEXT_XML_TYPE, new MessageImpl());
+        assertTrue(writer instanceof JAXBElementProvider);
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.size());
+    }
+    
     @Test
     public void testSchemaLocations() {
         ProviderFactory pf = ServerProviderFactory.getInstance();
@@ -43,11 +43,19 @@ import org.apache.cxf.management.interceptor.ResponseTimeMessageOutInterceptor;
  * it is not need to qurey the counter object from JMX 
  * */
 public class CounterRepository {
+    /**
+     * The endpoint property holding the length in milliseconds of the window the recent
+     * response time percentiles of that endpoint's counters are calculated for. 
+     */
+    public static final String RESPONSE_TIME_WINDOW = 
+        "org.apache.cxf.management.counters.responseTimeWindow";
+    
     private static final Logger LOG = LogUtils.getL7dLogger(CounterRepository.class);
     
     private Map<ObjectName, Counter> counters;
     private Bus bus;
     private Lock counterCreationLock = new ReentrantLock();
+    private long responseTimeWindow = WindowedResponseTimeHistogram.DEFAULT_WINDOW;
     
     public CounterRepository() {
         counters = new ConcurrentHashMap<ObjectName, Counter>();
@@ -64,6 +72,19 @@ public class CounterRepository {
         return bus;
     }
         
+    /**
+     * Sets the length in milliseconds of the window the recent response time 
+     * percentiles are calculated for. It is the bus wide default, it applies to the 
+     * counters created afterwards which have no window of their own.
+     */
+    public void setResponseTimeWindow(long window) {
+        responseTimeWindow = window;
+    }
+    
+    public long getResponseTimeWindow() {
+        return responseTimeWindow;
+    }
+        
     public Map<ObjectName, Counter> getCounters() {
         return counters;
     }
@@ -84,6 +105,15 @@ public class CounterRepository {
     }
     
     public void increaseCounter(ObjectName on, MessageHandlingTimeRecorder mhtr) {
+        increaseCounter(on, mhtr, 0);
+    }
+    
+    /**
+     * Increases the counter, creating it with the given recent response time window
+     * if it does not exist yet. A window which is not positive stands for the 
+     * repository default.
+     */
+    public void increaseCounter(ObjectName on, MessageHandlingTimeRecorder mhtr, long window) {
         Counter counter = getCounter(on);
         if (null == counter) {
             counterCreationLock.lock();
@@ -91,7 +121,7 @@ public class CounterRepository {
                 // check if the counter has been created during the locked time
                 counter = getCounter(on);
                 if (counter == null) {
-                    counter = createCounter(on, mhtr);
+                    counter = createCounter(on, mhtr, window);
                     counters.put(on, counter);
                 }
             } finally {
@@ -110,8 +140,12 @@ public class CounterRepository {
     }
     
     public Counter createCounter(ObjectName on, MessageHandlingTimeRecorder mhtr) {
+        return createCounter(on, mhtr, 0);
+    }
+    
+    public Counter createCounter(ObjectName on, MessageHandlingTimeRecorder mhtr, long window) {
         Counter counter = null;
-        counter = new ResponseTimeCounter(on);
+        counter = new ResponseTimeCounter(on, window > 0 ? window : responseTimeWindow);
         InstrumentationManager im = bus.getExtension(InstrumentationManager.class);
         if (null != im) {
             try {
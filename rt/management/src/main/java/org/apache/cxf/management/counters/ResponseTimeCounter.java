@@ -20,6 +20,7 @@ package org.apache.cxf.management.counters;
 
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.ObjectName;
 
@@ -33,12 +34,24 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
     private AtomicInteger unCheckedApplicationFaults = new AtomicInteger();
     private AtomicInteger runtimeFaults = new AtomicInteger();
     private AtomicInteger logicalRuntimeFaults = new AtomicInteger();
-    private long totalHandlingTime;    
-    private long maxHandlingTime;
-    private long minHandlingTime = Integer.MAX_VALUE;
+    private AtomicLong totalHandlingTime = new AtomicLong();    
+    private AtomicLong maxHandlingTime = new AtomicLong();
+    private AtomicLong minHandlingTime = new AtomicLong(Integer.MAX_VALUE);
+    private ResponseTimeHistogram histogram = new ResponseTimeHistogram();
+    private WindowedResponseTimeHistogram recentHistogram;
     
     public ResponseTimeCounter(ObjectName on) {
-        objectName = on;     
+        this(on, WindowedResponseTimeHistogram.DEFAULT_WINDOW);
+    }
+    
+    /**
+     * @param on the counter name
+     * @param window the length in milliseconds of the window the recent percentiles
+     *        are calculated for
+     */
+    public ResponseTimeCounter(ObjectName on, long window) {
+        objectName = on;
+        recentHistogram = new WindowedResponseTimeHistogram(window);
     }
     
     public void  increase(MessageHandlingTimeRecorder mhtr) {
@@ -67,21 +80,30 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
         }
         
         long handlingTime = 0;
+        boolean measured = true;
         if (mhtr.isOneWay()) {
             // We can count the response time 
             if (mhtr.getEndTime() > 0) {
                 handlingTime = mhtr.getHandlingTime(); 
-            }    
+            } else {
+                measured = false;
+            }
         } else {
             handlingTime = mhtr.getHandlingTime(); 
         }
             
-        totalHandlingTime = totalHandlingTime + handlingTime;
-        if (maxHandlingTime < handlingTime) {
-            maxHandlingTime = handlingTime;
+        totalHandlingTime.addAndGet(handlingTime);
+        long max = maxHandlingTime.get();
+        while (max < handlingTime && !maxHandlingTime.compareAndSet(max, handlingTime)) {
+            max = maxHandlingTime.get();
         }
-        if (minHandlingTime > handlingTime) {
-            minHandlingTime = handlingTime;
+        long min = minHandlingTime.get();
+        while (min > handlingTime && !minHandlingTime.compareAndSet(min, handlingTime)) {
+            min = minHandlingTime.get();
+        }
+        if (measured) {
+            histogram.record(handlingTime);
+            recentHistogram.record(handlingTime);
         }
     }
 
@@ -92,9 +114,11 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
         runtimeFaults.set(0);
         logicalRuntimeFaults.set(0);
         
-        totalHandlingTime = 0;    
-        maxHandlingTime = 0;
-        minHandlingTime = Integer.MAX_VALUE;   
+        totalHandlingTime.set(0);    
+        maxHandlingTime.set(0);
+        minHandlingTime.set(Integer.MAX_VALUE);
+        histogram.reset();
+        recentHistogram.reset();
     }
     
     public ObjectName getObjectName() {
@@ -105,15 +129,55 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
         if (invocations.get() == 0) {
             return -1; //return -1 if invocation number is 0;
         }
-        return (int)(totalHandlingTime / invocations.get());
+        return (int)(totalHandlingTime.get() / invocations.get());
     }
     
     public Number getMaxResponseTime() {        
-        return maxHandlingTime;
+        return maxHandlingTime.get();
     }
 
     public Number getMinResponseTime() {        
-        return minHandlingTime;
+        return minHandlingTime.get();
+    }
+    
+    public Number getResponseTimeP50() {
+        return histogram.getValueAtPercentile(50);
+    }
+    
+    public Number getResponseTimeP90() {
+        return histogram.getValueAtPercentile(90);
+    }
+    
+    public Number getResponseTimeP99() {
+        return histogram.getValueAtPercentile(99);
+    }
+    
+    public Number getResponseTimeP999() {
+        return histogram.getValueAtPercentile(99.9);
+    }
+    
+    public Number getRecentNumInvocations() {
+        return recentHistogram.getCount();
+    }
+    
+    public Number getRecentResponseTimeP50() {
+        return recentHistogram.getValueAtPercentile(50);
+    }
+    
+    public Number getRecentResponseTimeP90() {
+        return recentHistogram.getValueAtPercentile(90);
+    }
+    
+    public Number getRecentResponseTimeP99() {
+        return recentHistogram.getValueAtPercentile(99);
+    }
+    
+    public Number getRecentResponseTimeP999() {
+        return recentHistogram.getValueAtPercentile(99.9);
+    }
+    
+    public Number getRecentWindow() {
+        return recentHistogram.getWindow();
     }
 
     public Number getNumInvocations() {        
@@ -137,7 +201,7 @@ public class ResponseTimeCounter implements ResponseTimeCounterMBean, Counter {
     }
     
     public Number getTotalHandlingTime() {        
-        return totalHandlingTime;
+        return totalHandlingTime.get();
     }  
 
 }
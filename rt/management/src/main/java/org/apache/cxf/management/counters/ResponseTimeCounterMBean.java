@@ -34,5 +34,26 @@ public interface ResponseTimeCounterMBean {
     Number getMaxResponseTime();
     Number getMinResponseTime();   
     Number getTotalHandlingTime();
+    
+    /**
+     * Get the response time percentiles since the counter was created or reset,
+     * the values are within about 6% of the recorded ones.
+     * NOTE: if the invocation number is 0, these methods will return -1
+     */
+    Number getResponseTimeP50();
+    Number getResponseTimeP90();
+    Number getResponseTimeP99();
+    Number getResponseTimeP999();
+    
+    /**
+     * Get the number of invocations and the response time percentiles 
+     * for the last {@link #getRecentWindow()} milliseconds only
+     */
+    Number getRecentNumInvocations();
+    Number getRecentResponseTimeP50();
+    Number getRecentResponseTimeP90();
+    Number getRecentResponseTimeP99();
+    Number getRecentResponseTimeP999();
+    Number getRecentWindow();
     void reset();
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.management.counters;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the response times recorded during the last window, for example the last 
+ * minute. The window is split into a number of slices, each one backed by its own
+ * {@link ResponseTimeHistogram}; the oldest slice is reused once its time is over.
+ * Values recorded by a thread racing with the rotation of a slice may be lost or 
+ * counted in the next slice, which is fine for monitoring purposes.
+ */
+public class WindowedResponseTimeHistogram {
+    public static final long DEFAULT_WINDOW = 60000L;
+    static final int DEFAULT_SLICES = 6;
+    
+    private final ResponseTimeHistogram[] slices;
+    private final AtomicLongArray sliceEpochs;
+    private final long sliceLength;
+    
+    public WindowedResponseTimeHistogram() {
+        this(DEFAULT_WINDOW);
+    }
+    
+    public WindowedResponseTimeHistogram(long window) {
+        this(window, DEFAULT_SLICES);
+    }
+    
+    public WindowedResponseTimeHistogram(long window, int numberOfSlices) {
+        int n = Math.max(1, numberOfSlices);
+        sliceLength = Math.max(1, window / n);
+        slices = new ResponseTimeHistogram[n];
+        sliceEpochs = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) {
+            slices[i] = new ResponseTimeHistogram();
+            sliceEpochs.set(i, -1);
+        }
+    }
+    
+    public long getWindow() {
+        return sliceLength * slices.length;
+    }
+    
+    public void record(long value) {
+        long epoch = currentTimeMillis() / sliceLength;
+        int i = (int)(epoch % slices.length);
+        long sliceEpoch = sliceEpochs.get(i);
+        if (sliceEpoch != epoch && sliceEpochs.compareAndSet(i, sliceEpoch, epoch)) {
+            slices[i].reset();
+        }
+        slices[i].record(value);
+    }
+    
+    public long getCount() {
+        long total = 0;
+        long oldest = getOldestEpoch();
+        for (int i = 0; i < slices.length; i++) {
+            if (sliceEpochs.get(i) >= oldest) {
+                total += slices[i].getCount();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Returns the value found at the given percentile among the values recorded
+     * during the window or -1 if nothing has been recorded
+     * @param percentile the percentile, between 0 and 100
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[ResponseTimeHistogram.BUCKETS];
+        long total = 0;
+        long max = 0;
+        long oldest = getOldestEpoch();
+        for (int i = 0; i < slices.length; i++) {
+            if (sliceEpochs.get(i) >= oldest) {
+                total += slices[i].addTo(snapshot);
+                max = Math.max(max, slices[i].getMaxValue());
+            }
+        }
+        return ResponseTimeHistogram.getValueAtPercentile(snapshot, total, max, percentile);
+    }
+    
+    public void reset() {
+        for (int i = 0; i < slices.length; i++) {
+            sliceEpochs.set(i, -1);
+            slices[i].reset();
+        }
+    }
+    
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+    
+    private long getOldestEpoch() {
+        return currentTimeMillis() / sliceLength - slices.length + 1;
+    }
+}
@@ -132,16 +132,17 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
            
             buffer.append(ManagementConstants.PORT_NAME_PROP + "=" + portName);
             String serviceCounterName = buffer.toString();
+            long window = getResponseTimeWindow(endpoint);
             
             try {           
                 ObjectName serviceCounter = 
                     new ObjectName(serviceCounterName);                
-                cr.increaseCounter(serviceCounter, mhtr);
+                cr.increaseCounter(serviceCounter, mhtr, window);
                 if (operationName != null) {
                     buffer.append("," + ManagementConstants.OPERATION_NAME_PROP + "=" + operationName);
                     String operationCounterName = buffer.toString();
                     ObjectName operationCounter = new ObjectName(operationCounterName);
-                    cr.increaseCounter(operationCounter, mhtr);                
+                    cr.increaseCounter(operationCounter, mhtr, window);                
                 }
             } catch (Exception exception) {
                 LOG.log(Level.WARNING, "CREATE_COUNTER_OBJECTNAME_FAILED", exception);
@@ -149,6 +150,20 @@ public abstract class AbstractMessageResponseTimeInterceptor extends AbstractPha
         }
     }
         
+    private static long getResponseTimeWindow(Endpoint endpoint) {
+        Object window = endpoint.get(CounterRepository.RESPONSE_TIME_WINDOW);
+        if (window instanceof Number) {
+            return ((Number)window).longValue();
+        } else if (window != null) {
+            try {
+                return Long.parseLong(window.toString().trim());
+            } catch (NumberFormatException ex) {
+                LOG.log(Level.WARNING, "INVALID_RESPONSE_TIME_WINDOW", window);
+            }
+        }
+        return 0;
+    }
+    
     protected String escapePatternChars(String value) {  
         // This can be replaced if really needed with pattern-based matching
         if (value.lastIndexOf(QUESTION_MARK) != -1) {
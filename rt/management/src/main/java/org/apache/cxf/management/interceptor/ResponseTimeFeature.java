@@ -20,8 +20,11 @@ package org.apache.cxf.management.interceptor;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.feature.AbstractFeature;
 import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.management.counters.CounterRepository;
 
 @NoJSR250Annotations
 public class ResponseTimeFeature extends AbstractFeature {
@@ -32,6 +35,8 @@ public class ResponseTimeFeature extends AbstractFeature {
     private static final ResponseTimeMessageOutInterceptor OUT = 
         new ResponseTimeMessageOutInterceptor();
     
+    private long responseTimeWindow;
+    
     @Override
     protected void initializeProvider(InterceptorProvider provider, Bus bus) {
         provider.getInInterceptors().add(IN);
@@ -39,6 +44,32 @@ public class ResponseTimeFeature extends AbstractFeature {
         provider.getInInterceptors().add(INVOKER);
         provider.getOutInterceptors().add(OUT);
         
+        if (responseTimeWindow > 0) {
+            if (provider instanceof Endpoint) {
+                ((Endpoint)provider).put(CounterRepository.RESPONSE_TIME_WINDOW, responseTimeWindow);
+            } else if (provider instanceof Client) {
+                ((Client)provider).getEndpoint().put(CounterRepository.RESPONSE_TIME_WINDOW,
+                                                     responseTimeWindow);
+            } else if (provider == bus) {
+                CounterRepository cr = bus.getExtension(CounterRepository.class);
+                if (cr != null) {
+                    cr.setResponseTimeWindow(responseTimeWindow);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sets the length in milliseconds of the window the recent response time 
+     * percentiles are calculated for. On a server or client it only applies to the
+     * counters of that endpoint, on the bus it becomes the default of the CounterRepository.
+     */
+    public void setResponseTimeWindow(long window) {
+        responseTimeWindow = window;
+    }
+    
+    public long getResponseTimeWindow() {
+        return responseTimeWindow;
     }
 
 }
@@ -143,6 +143,11 @@ public class CounterRepositoryTest extends Assert {
         assertEquals("The operation counter's MinResponseTime is wrong ",
                      opCounter.getMinResponseTime(), (long)1000);
         assertEquals("The Service counter isn't increased", sCounter.getNumInvocations(), 2);
+        // 1000 is in the [992, 1023] bucket 
+        assertEquals(1023L, opCounter.getResponseTimeP50());
+        assertEquals(2000L, opCounter.getResponseTimeP99());
+        assertEquals(2L, opCounter.getRecentNumInvocations());
+        assertEquals(2000L, opCounter.getRecentResponseTimeP999());
         
         opCounter.reset();
         assertTrue(opCounter.getNumCheckedApplicationFaults().intValue() == 0);
@@ -153,11 +158,39 @@ public class CounterRepositoryTest extends Assert {
         assertTrue(opCounter.getTotalHandlingTime().intValue() == 0);
         assertTrue(opCounter.getMinResponseTime().longValue() == Integer.MAX_VALUE);
         assertTrue(opCounter.getMaxResponseTime().intValue() == 0);
+        assertTrue(opCounter.getResponseTimeP50().intValue() == -1);
+        assertTrue(opCounter.getRecentNumInvocations().intValue() == 0);
         
         verifyBus();
         EasyMock.verify(mhtr1);
         EasyMock.verify(mhtr2);
     }
+    
+    @Test
+    public void testResponseTimeWindowPerCounter() throws Exception {
+        MessageHandlingTimeRecorder mhtr = EasyMock.createMock(MessageHandlingTimeRecorder.class);
+        EasyMock.expect(mhtr.isOneWay()).andReturn(false).anyTimes();
+        EasyMock.expect(mhtr.getHandlingTime()).andReturn((long)1000).anyTimes();
+        EasyMock.expect(mhtr.getFaultMode()).andReturn(null).anyTimes();
+        EasyMock.replay(mhtr);
+        
+        cr.setResponseTimeWindow(12000L);
+        cr.increaseCounter(serviceCounter, mhtr);
+        cr.increaseCounter(operationCounter, mhtr, 6000L);
+        ResponseTimeCounter opCounter = (ResponseTimeCounter) cr.getCounter(operationCounter);
+        ResponseTimeCounter sCounter = (ResponseTimeCounter) cr.getCounter(serviceCounter);
+        assertEquals(6000L, opCounter.getRecentWindow());
+        assertEquals(12000L, sCounter.getRecentWindow());
+        
+        // an existing counter keeps its window
+        cr.setResponseTimeWindow(30000L);
+        cr.increaseCounter(operationCounter, mhtr);
+        assertEquals(6000L, opCounter.getRecentWindow());
+        assertEquals(2, opCounter.getNumInvocations());
+        
+        verifyBus();
+        EasyMock.verify(mhtr);
+    }
    
     
     private void verifyBus() {
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.management.counters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResponseTimeHistogramTest extends Assert {
+    
+    @Test
+    public void testBucketIndex() {
+        for (long v = 0; v < 100000; v++) {
+            int index = ResponseTimeHistogram.getBucketIndex(v);
+            long highest = ResponseTimeHistogram.getHighestEquivalentValue(index);
+            assertTrue(v <= highest);
+            assertTrue(highest - v <= v / ResponseTimeHistogram.SUB_BUCKETS);
+        }
+        assertEquals(ResponseTimeHistogram.BUCKETS - 1, 
+                     ResponseTimeHistogram.getBucketIndex(ResponseTimeHistogram.MAX_VALUE));
+    }
+    
+    @Test
+    public void testPercentiles() {
+        ResponseTimeHistogram h = new ResponseTimeHistogram();
+        assertEquals(-1, h.getValueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i);
+        }
+        assertEquals(1000, h.getCount());
+        assertEquals(1000, h.getMaxValue());
+        assertEquals(1000, h.getValueAtPercentile(100));
+        assertEquals(1, h.getValueAtPercentile(0));
+        assertValue(500, h.getValueAtPercentile(50));
+        assertValue(900, h.getValueAtPercentile(90));
+        assertValue(990, h.getValueAtPercentile(99));
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(-1, h.getValueAtPercentile(99.9));
+    }
+    
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final ResponseTimeHistogram h = new ResponseTimeHistogram();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        h.record(i % 2000);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, h.getCount());
+        assertEquals(1999, h.getMaxValue());
+    }
+    
+    @Test
+    public void testWindow() {
+        final long[] now = new long[] {1000};
+        WindowedResponseTimeHistogram h = new WindowedResponseTimeHistogram(6000, 6) {
+            protected long currentTimeMillis() {
+                return now[0];
+            }
+        };
+        assertEquals(6000, h.getWindow());
+        h.record(100);
+        now[0] += 1000;
+        h.record(200);
+        assertEquals(2, h.getCount());
+        assertEquals(200, h.getValueAtPercentile(99));
+        
+        now[0] += 5000;
+        assertEquals(1, h.getCount());
+        assertEquals(200, h.getValueAtPercentile(50));
+        h.record(300);
+        assertEquals(2, h.getCount());
+        
+        now[0] += 6000;
+        assertEquals(0, h.getCount());
+        assertEquals(-1, h.getValueAtPercentile(50));
+    }
+    
+    private static void assertValue(long expected, long actual) {
+        assertTrue(actual + " is not close to " + expected, 
+                   actual >= expected && actual <= expected + expected / ResponseTimeHistogram.SUB_BUCKETS);
+    }
+}
@@ -92,10 +92,10 @@ public class AbstractMessageResponseTestBase extends Assert {
         if (increase) {
             EasyMock.expect(bus.getId()).andReturn(Bus.DEFAULT_BUS_ID);
             cRepository.increaseCounter(EasyMock.eq(serviceCounterOName),
-                EasyMock.isA(MessageHandlingTimeRecorder.class));
+                EasyMock.isA(MessageHandlingTimeRecorder.class), EasyMock.eq(0L));
             EasyMock.expectLastCall();
             cRepository.increaseCounter(EasyMock.eq(operationCounterOName), 
-                EasyMock.isA(MessageHandlingTimeRecorder.class));
+                EasyMock.isA(MessageHandlingTimeRecorder.class), EasyMock.eq(0L));
             EasyMock.expectLastCall(); 
             EasyMock.replay(cRepository);
         }
@@ -116,6 +116,7 @@ public class AbstractMessageResponseTestBase extends Assert {
         EndpointInfo endpointInfo = EasyMock.createMock(EndpointInfo.class);
         EasyMock.expect(endpointInfo.getName()).andReturn(PORT_NAME);
         EasyMock.expect(endpoint.getEndpointInfo()).andReturn(endpointInfo);
+        EasyMock.expect(endpoint.get(CounterRepository.RESPONSE_TIME_WINDOW)).andReturn(null);
         EasyMock.expect(exchange.get(Endpoint.class)).andReturn(endpoint);
         EasyMock.replay(endpointInfo);
         EasyMock.replay(endpoint);
@@ -226,7 +226,8 @@ public class JSONProvider<T> extends AbstractJAXBProvider<T>  {
             Class<?> theGenericType = isCollection ? InjectionUtils.getActualType(genericType) : type;
             Class<?> theType = getActualType(theGenericType, genericType, anns);
             
-            Unmarshaller unmarshaller = createUnmarshaller(theType, genericType, isCollection);
+            PooledUnmarshaller pooled = createPooledUnmarshaller(theType, genericType, isCollection);
+            Unmarshaller unmarshaller = pooled.getUnmarshaller();
             XMLStreamReader xsr = createReader(type, realStream, isCollection);
             
             Object response = null;
@@ -247,6 +248,7 @@ public class JSONProvider<T> extends AbstractJAXBProvider<T>  {
             } else {
                 response = checkAdapter(response, type, anns, false);
             }
+            pooled.release();
             return type.cast(response);
             
         } catch (JAXBException e) {
@@ -0,0 +1,291 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HPACK (RFC 7541) header compression.  The encoder never adds entries to
+ * the peer's dynamic table, it only refers to the static table and Huffman
+ * codes the literals, so it is stateless and can be shared by all streams of
+ * a connection.  The decoder keeps the dynamic table of a connection and must
+ * only be used by its reader thread.
+ */
+final class Hpack {
+    static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    
+    static final String[][] STATIC_TABLE = {
+        {":authority", ""},
+        {":method", "GET"},
+        {":method", "POST"},
+        {":path", "/"},
+        {":path", "/index.html"},
+        {":scheme", "http"},
+        {":scheme", "https"},
+        {":status", "200"},
+        {":status", "204"},
+        {":status", "206"},
+        {":status", "304"},
+        {":status", "400"},
+        {":status", "404"},
+        {":status", "500"},
+        {"accept-charset", ""},
+        {"accept-encoding", "gzip, deflate"},
+        {"accept-language", ""},
+        {"accept-ranges", ""},
+        {"accept", ""},
+        {"access-control-allow-origin", ""},
+        {"age", ""},
+        {"allow", ""},
+        {"authorization", ""},
+        {"cache-control", ""},
+        {"content-disposition", ""},
+        {"content-encoding", ""},
+        {"content-language", ""},
+        {"content-length", ""},
+        {"content-location", ""},
+        {"content-range", ""},
+        {"content-type", ""},
+        {"cookie", ""},
+        {"date", ""},
+        {"etag", ""},
+        {"expect", ""},
+        {"expires", ""},
+        {"from", ""},
+        {"host", ""},
+        {"if-match", ""},
+        {"if-modified-since", ""},
+        {"if-none-match", ""},
+        {"if-range", ""},
+        {"if-unmodified-since", ""},
+        {"last-modified", ""},
+        {"link", ""},
+        {"location", ""},
+        {"max-forwards", ""},
+        {"proxy-authenticate", ""},
+        {"proxy-authorization", ""},
+        {"range", ""},
+        {"referer", ""},
+        {"refresh", ""},
+        {"retry-after", ""},
+        {"server", ""},
+        {"set-cookie", ""},
+        {"strict-transport-security", ""},
+        {"transfer-encoding", ""},
+        {"user-agent", ""},
+        {"vary", ""},
+        {"via", ""},
+        {"www-authenticate", ""}
+    };
+    
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<String, Integer>();
+    private static final Map<String, Integer> STATIC_FIELDS = new HashMap<String, Integer>();
+    static {
+        for (int x = STATIC_TABLE.length - 1; x >= 0; x--) {
+            STATIC_NAMES.put(STATIC_TABLE[x][0], x + 1);
+            if (STATIC_TABLE[x][1].length() > 0) {
+                STATIC_FIELDS.put(STATIC_TABLE[x][0] + ':' + STATIC_TABLE[x][1], x + 1);
+            }
+        }
+    }
+    
+    private Hpack() {
+        //utility class
+    }
+    
+    /**
+     * Encodes the name/value pairs, the names must already be lower case.
+     */
+    static byte[] encode(List<String[]> headers) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(headers.size() * 16);
+        for (String[] h : headers) {
+            Integer idx = STATIC_FIELDS.get(h[0] + ':' + h[1]);
+            if (idx != null) {
+                //indexed header field
+                writeInt(out, 0x80, 7, idx);
+                continue;
+            }
+            //literal header field without indexing
+            idx = STATIC_NAMES.get(h[0]);
+            if (idx != null) {
+                writeInt(out, 0x00, 4, idx);
+            } else {
+                out.write(0x00);
+                writeString(out, h[0]);
+            }
+            writeString(out, h[1]);
+        }
+        return out.toByteArray();
+    }
+    
+    static void writeInt(ByteArrayOutputStream out, int flags, int prefixBits, int value) {
+        int max = (1 << prefixBits) - 1;
+        if (value < max) {
+            out.write(flags | value);
+            return;
+        }
+        out.write(flags | max);
+        value -= max;
+        while (value >= 0x80) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(ISO_8859_1);
+        int huffmanLength = HpackHuffman.encodedLength(bytes);
+        if (huffmanLength < bytes.length) {
+            writeInt(out, 0x80, 7, huffmanLength);
+            HpackHuffman.encode(bytes, out);
+        } else {
+            writeInt(out, 0x00, 7, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+    
+    
+    static final class Decoder {
+        private final List<String[]> dynamicTable = new LinkedList<String[]>();
+        private final int maxTableSizeLimit;
+        private int maxTableSize;
+        private int tableSize;
+        
+        private byte[] block;
+        private int pos;
+        private int end;
+        
+        Decoder(int maxTableSize) {
+            this.maxTableSizeLimit = maxTableSize;
+            this.maxTableSize = maxTableSize;
+        }
+        
+        List<String[]> decode(byte[] data, int off, int len) throws IOException {
+            block = data;
+            pos = off;
+            end = off + len;
+            List<String[]> headers = new ArrayList<String[]>();
+            try {
+                while (pos < end) {
+                    int b = block[pos] & 0xff;
+                    if ((b & 0x80) != 0) {
+                        headers.add(get(readInt(7)));
+                    } else if ((b & 0x40) != 0) {
+                        String[] field = readLiteral(6);
+                        headers.add(field);
+                        add(field);
+                    } else if ((b & 0x20) != 0) {
+                        int size = readInt(5);
+                        if (size > maxTableSizeLimit) {
+                            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR,
+                                                     "Table size update exceeds the limit");
+                        }
+                        maxTableSize = size;
+                        evict();
+                    } else {
+                        headers.add(readLiteral(4));
+                    }
+                }
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Truncated header block");
+            } finally {
+                block = null;
+            }
+            return headers;
+        }
+        
+        private String[] readLiteral(int prefixBits) throws IOException {
+            int idx = readInt(prefixBits);
+            String name = idx == 0 ? readString() : get(idx)[0];
+            return new String[] {name, readString()};
+        }
+        
+        private String[] get(int idx) throws IOException {
+            if (idx > 0 && idx <= STATIC_TABLE.length) {
+                return STATIC_TABLE[idx - 1];
+            }
+            idx -= STATIC_TABLE.length + 1;
+            if (idx < 0 || idx >= dynamicTable.size()) {
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid header index");
+            }
+            return dynamicTable.get(idx);
+        }
+        
+        private void add(String[] field) {
+            tableSize += size(field);
+            dynamicTable.add(0, field);
+            evict();
+        }
+        
+        private void evict() {
+            while (tableSize > maxTableSize) {
+                tableSize -= size(dynamicTable.remove(dynamicTable.size() - 1));
+            }
+        }
+        
+        private static int size(String[] field) {
+            //RFC 7541 4.1, the overhead accounts for the entry structure  
+            return field[0].length() + field[1].length() + 32;
+        }
+        
+        private int readInt(int prefixBits) throws IOException {
+            int max = (1 << prefixBits) - 1;
+            int value = block[pos++] & max;
+            if (value < max) {
+                return value;
+            }
+            int shift = 0;
+            int b;
+            do {
+                if (shift > 21) {
+                    throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Integer overflow");
+                }
+                b = block[pos++] & 0xff;
+                value += (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+        
+        private String readString() throws IOException {
+            boolean huffman = (block[pos] & 0x80) != 0;
+            int len = readInt(7);
+            if (len > end - pos) {
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Truncated header string");
+            }
+            String s;
+            if (huffman) {
+                s = new String(HpackHuffman.decode(block, pos, len), ISO_8859_1);
+            } else {
+                s = new String(block, pos, len, ISO_8859_1);
+            }
+            pos += len;
+            return s;
+        }
+    }
+}
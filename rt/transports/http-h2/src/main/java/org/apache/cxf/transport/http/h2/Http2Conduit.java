@@ -0,0 +1,447 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.net.ssl.SSLSession;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.io.CacheAndWriteOutputStream;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.http.Headers;
+import org.apache.cxf.transport.http.URLConnectionHTTPConduit;
+import org.apache.cxf.transport.http.h2.Http2ConduitFactory.UseHttp2Policy;
+import org.apache.cxf.transport.https.HttpsURLConnectionInfo;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.apache.cxf.version.Version;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+
+/**
+ * An HTTPConduit that sends its requests as streams of shared HTTP/2
+ * connections.  Requests that cannot use HTTP/2 (a proxy is configured, the
+ * policy does not allow it or the server did not negotiate h2) go through
+ * the HttpURLConnection based parent.
+ */
+public class Http2Conduit extends URLConnectionHTTPConduit {
+    public static final String USE_HTTP2 = "use.http2.conduit";
+    
+    //connection specific fields are not allowed in HTTP/2, RFC 7540 8.1.2.2,
+    //the content ones are added separately
+    private static final Set<String> EXCLUDED_HEADERS = new HashSet<String>(Arrays.asList(
+        "content-type", "content-length", "host", "connection", "keep-alive", 
+        "proxy-connection", "transfer-encoding", "upgrade"));
+    
+    final Http2ConduitFactory factory;
+    
+    public Http2Conduit(Bus b,
+                        EndpointInfo ei, 
+                        EndpointReferenceType t,
+                        Http2ConduitFactory factory) throws IOException {
+        super(b, ei, t);
+        this.factory = factory;
+    }
+    
+    public Http2ConduitFactory getHttp2ConduitFactory() {
+        return factory;
+    }
+    
+    protected void setupConnection(Message message, URI uri, HTTPClientPolicy csPolicy) throws IOException {
+        if (!isHttp2(message, uri, csPolicy)) {
+            message.put(USE_HTTP2, Boolean.FALSE);
+            super.setupConnection(message, uri, csPolicy);
+            return;
+        }
+        message.put(USE_HTTP2, Boolean.TRUE);
+        message.put(URI.class, uri);
+        message.put("http.scheme", uri.getScheme());
+        String httpRequestMethod = 
+            (String)message.get(Message.HTTP_REQUEST_METHOD);
+        if (httpRequestMethod == null) {
+            httpRequestMethod = "POST";
+            message.put(Message.HTTP_REQUEST_METHOD, httpRequestMethod);
+        }
+    }
+    
+    private boolean isHttp2(Message message, URI uri, HTTPClientPolicy csPolicy) throws IOException {
+        if (factory.isShutdown()) {
+            return false;
+        }
+        boolean https = "https".equals(uri.getScheme());
+        if (!https && !"http".equals(uri.getScheme())) {
+            return false;
+        }
+        Object o = message.getContextualProperty(USE_HTTP2);
+        if (o == null) {
+            o = factory.getUseHttp2Policy();
+        }
+        boolean use;
+        if (o instanceof UseHttp2Policy) {
+            use = o == UseHttp2Policy.ALWAYS || o == UseHttp2Policy.TLS_ONLY && https;
+        } else {
+            use = MessageUtils.isTrue(o);
+        }
+        if (!use || https && !Http2ConnectionPool.isAlpnSupported()
+            || proxyFactory.createProxy(csPolicy, uri) != null) {
+            //no CONNECT tunnelling, proxied requests stay on HTTP/1.1
+            return false;
+        }
+        if (https) {
+            //make sure the server agreed to h2 before committing to it
+            Http2Connection c = factory.getConnectionPool().acquire(uri, getTlsClientParameters(message), 
+                                                                    csPolicy);
+            if (c == null) {
+                return false;
+            }
+            c.unreserve();
+        }
+        return true;
+    }
+    
+    private TLSClientParameters getTlsClientParameters(Message message) {
+        TLSClientParameters clientParameters = message.get(TLSClientParameters.class);
+        if (clientParameters == null) {
+            clientParameters = tlsClientParameters;
+        }
+        return clientParameters;
+    }
+    
+    protected OutputStream createOutputStream(Message message, 
+                                              boolean needToCacheRequest, 
+                                              boolean isChunking,
+                                              int chunkThreshold) throws IOException {
+        if (Boolean.TRUE.equals(message.get(USE_HTTP2))) {
+            return new Http2WrappedOutputStream(message,
+                                                needToCacheRequest, 
+                                                isChunking,
+                                                chunkThreshold,
+                                                getConduitName(),
+                                                message.get(URI.class));
+        }
+        return super.createOutputStream(message, needToCacheRequest, isChunking, chunkThreshold);
+    }
+    
+    
+    public class Http2WrappedOutputStream extends WrappedOutputStream {
+        final HTTPClientPolicy csPolicy;
+        
+        final List<String[]> requestHeaders = new ArrayList<String[]>();
+        long contentLength = -1;
+        
+        Http2Connection connection;
+        Http2Stream stream;
+        
+        public Http2WrappedOutputStream(Message message,
+                                        boolean needToCacheRequest, 
+                                        boolean isChunking,
+                                        int chunkThreshold, 
+                                        String conduitName,
+                                        URI uri) {
+            super(message, 
+                  needToCacheRequest,
+                  isChunking,
+                  chunkThreshold, 
+                  conduitName,
+                  uri);
+            csPolicy = getClient(message);
+        }
+        
+        protected void setProtocolHeaders() throws IOException {
+            Headers h = new Headers(outMessage);
+            requestHeaders.clear();
+            String ct = h.determineContentType();
+            if (ct != null) {
+                requestHeaders.add(new String[] {"content-type", ct});
+            }
+            boolean userAgent = false;
+            for (Map.Entry<String, List<String>> header : h.headerMap().entrySet()) {
+                String name = header.getKey().toLowerCase(Locale.ENGLISH);
+                if (EXCLUDED_HEADERS.contains(name)) {
+                    continue;
+                }
+                userAgent |= "user-agent".equals(name);
+                if ("cookie".equals(name)) {
+                    //HTTP/2 allows the cookie crumbs as separate fields 
+                    for (String s : header.getValue()) {
+                        requestHeaders.add(new String[] {name, s});
+                    }
+                } else {
+                    StringBuilder b = new StringBuilder();
+                    for (int i = 0; i < header.getValue().size(); i++) {
+                        if (i > 0) {
+                            b.append(',');
+                        }
+                        b.append(header.getValue().get(i));
+                    }
+                    requestHeaders.add(new String[] {name, b.toString()});
+                }
+            }
+            if (!userAgent) {
+                requestHeaders.add(new String[] {"user-agent", Version.getCompleteVersionString()});
+            }
+        }
+        
+        protected void setFixedLengthStreamingMode(int i) {
+            contentLength = i;
+        }
+        
+        public void thresholdReached() throws IOException {
+            //DATA frames are always delimited, there is no chunking to switch
+        }
+        
+        @Override
+        protected void handleHeadersTrustCaching() throws IOException {
+            boolean ok = false;
+            try {
+                super.handleHeadersTrustCaching();
+                ok = true;
+            } finally {
+                if (!ok && stream == null) {
+                    releaseConnection();
+                }
+            }
+        }
+        
+        protected void handleNoOutput() throws IOException {
+            contentLength = -1;
+            openStream(true);
+        }
+        
+        protected void setupWrappedStream() throws IOException {
+            openStream(false);
+            final Http2Stream s = stream;
+            OutputStream data = new OutputStream() {
+                public void write(byte b[], int off, int len) throws IOException {
+                    s.getConnection().writeData(s, b, off, len, false);
+                }
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte)b}, 0, 1);
+                }
+                public void close() throws IOException {
+                    s.getConnection().writeData(s, Http2Frames.EMPTY, 0, 0, true);
+                }
+            };
+            //collect the small writes of the interceptors into full frames
+            wrappedStream = new BufferedOutputStream(data, Http2Frames.DEFAULT_MAX_FRAME_SIZE);
+            
+            // If we need to cache for retransmission, store data in a
+            // CacheAndWriteOutputStream. Otherwise write directly to the output stream.
+            if (cachingForRetransmission) {
+                cachedStream = new CacheAndWriteOutputStream(wrappedStream);
+                wrappedStream = cachedStream;
+            }
+        }
+        
+        private Http2Connection getConnection() throws IOException {
+            if (connection == null) {
+                connection = factory.getConnectionPool().acquire(url, getTlsClientParameters(outMessage), 
+                                                                 csPolicy);
+                if (connection == null) {
+                    throw new IOException("No HTTP/2 connection available for " + url);
+                }
+            }
+            return connection;
+        }
+        
+        private void releaseConnection() {
+            if (connection != null && stream == null) {
+                connection.unreserve();
+            }
+            connection = null;
+        }
+        
+        private void openStream(boolean endStream) throws IOException {
+            String path = url.getRawPath();
+            if (StringUtils.isEmpty(path)) {
+                path = "/";
+            }
+            if (url.getRawQuery() != null) {
+                path += "?" + url.getRawQuery();
+            }
+            String authority = url.getPort() == -1 ? url.getHost() : url.getHost() + ":" + url.getPort();
+            
+            List<String[]> fields = new ArrayList<String[]>(requestHeaders.size() + 5);
+            fields.add(new String[] {":method", getMethod()});
+            fields.add(new String[] {":scheme", url.getScheme()});
+            fields.add(new String[] {":authority", authority});
+            fields.add(new String[] {":path", path});
+            fields.addAll(requestHeaders);
+            if (contentLength >= 0) {
+                fields.add(new String[] {"content-length", Long.toString(contentLength)});
+            }
+            Http2Connection c = getConnection();
+            try {
+                stream = c.newStream(fields, endStream);
+            } finally {
+                if (stream == null) {
+                    //the slot was given back by the failed connection 
+                    connection = null;
+                }
+            }
+        }
+        
+        protected HttpsURLConnectionInfo getHttpsURLConnectionInfo() throws IOException {
+            if ("http".equals(outMessage.get("http.scheme"))) {
+                return null;
+            }
+            SSLSession session = getConnection().getSSLSession();
+            String method = getMethod();
+            return new HttpsURLConnectionInfo(url, method, session.getCipherSuite(), 
+                                              session.getLocalCertificates(), session.getLocalPrincipal(), 
+                                              session.getPeerCertificates(), session.getPeerPrincipal());
+        }
+        
+        private Http2Stream getStream() throws IOException {
+            if (stream == null) {
+                throw new IOException("No HTTP/2 stream for " + url);
+            }
+            return stream;
+        }
+        
+        protected int getResponseCode() throws IOException {
+            return getStream().getStatus(csPolicy.getReceiveTimeout());
+        }
+        
+        protected String getResponseMessage() throws IOException {
+            //HTTP/2 carries no reason phrase
+            getResponseCode();
+            return "";
+        }
+        
+        private String readHeaders(Headers h) throws IOException {
+            h.headerMap().clear();
+            String ct = null;
+            for (String[] field : getStream().getHeaders(csPolicy.getReceiveTimeout())) {
+                if (field[0].startsWith(":")) {
+                    continue;
+                }
+                List<String> s = h.headerMap().get(field[0]);
+                if (s == null) {
+                    s = new ArrayList<String>(1);
+                    h.headerMap().put(field[0], s);
+                }
+                s.add(field[1]);
+                if ("content-type".equals(field[0])) {
+                    ct = field[1];
+                }
+            }
+            return ct;
+        }
+        
+        protected void updateResponseHeaders(Message inMessage) throws IOException {
+            Headers h = new Headers(inMessage);
+            inMessage.put(Message.CONTENT_TYPE, readHeaders(h));
+            cookies.readFromHeaders(h);
+        }
+        
+        protected void handleResponseAsync() throws IOException {
+            getStream().setResponseListener(new Runnable() {
+                public void run() {
+                    try {
+                        handleResponseOnWorkqueue(false, true);
+                    } catch (IOException ex) {
+                        //the work queue ran it on this thread and it failed, 
+                        //which already went to the fault observer
+                    }
+                }
+            });
+        }
+        
+        protected void closeInputStream() throws IOException {
+            //resets the stream if the body was not read, the connection stays usable
+            if (stream != null) {
+                stream.close();
+            }
+        }
+        
+        protected boolean usingProxy() {
+            return false;
+        }
+        
+        protected InputStream getInputStream() throws IOException {
+            return getStream().getInputStream(csPolicy.getReceiveTimeout());
+        }
+        
+        protected InputStream getPartialResponse() throws IOException {
+            int responseCode = getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_ACCEPTED
+                && responseCode != HttpURLConnection.HTTP_OK) {
+                return null;
+            }
+            // the response is delimited by END_STREAM, make sure it is non-empty
+            PushbackInputStream pin = new PushbackInputStream(getInputStream());
+            int c = pin.read();
+            if (c == -1) {
+                return null;
+            }
+            pin.unread(c);
+            return pin;
+        }
+        
+        protected void updateCookiesBeforeRetransmit() throws IOException {
+            Headers h = new Headers();
+            readHeaders(h);
+            cookies.readFromHeaders(h);
+        }
+        
+        protected void retransmitStream() throws IOException {
+            cachingForRetransmission = false; //already cached
+            setupWrappedStream();
+            cachedStream.writeCacheTo(wrappedStream);
+            wrappedStream.flush();
+            wrappedStream.close();
+        }
+        
+        protected void setupNewConnection(String newURL) throws IOException {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+            releaseConnection();
+            try {
+                this.url = new URI(newURL);
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+            setupConnection(outMessage, this.url, csPolicy);
+            if (!Boolean.TRUE.equals(outMessage.get(USE_HTTP2))) {
+                throw new IOException("Cannot retransmit to " + newURL + " which does not use HTTP/2");
+            }
+        }
+    }
+}
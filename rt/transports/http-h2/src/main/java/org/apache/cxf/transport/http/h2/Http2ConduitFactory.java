@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.util.SystemPropertyAction;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPConduitFactory;
+import org.apache.cxf.transport.http.HTTPTransportFactory;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+
+/**
+ * Creates {@link Http2Conduit}s that share a pool of multiplexed HTTP/2
+ * connections.
+ */
+@NoJSR250Annotations(unlessNull = "bus")
+public class Http2ConduitFactory implements BusLifeCycleListener, HTTPConduitFactory {
+    
+    public static final String USE_POLICY = "org.apache.cxf.transport.http2.usePolicy";
+    public static final String MAX_PER_HOST_CONNECTIONS 
+        = "org.apache.cxf.transport.http2.MAX_PER_HOST_CONNECTIONS";
+    public static final String INITIAL_WINDOW_SIZE = "org.apache.cxf.transport.http2.INITIAL_WINDOW_SIZE";
+    
+    /**
+     * ALWAYS uses HTTP/2 with prior knowledge (h2c) for http and ALPN for https,
+     * TLS_ONLY only tries HTTP/2 for https where ALPN lets the server decline.
+     */
+    public static enum UseHttp2Policy {
+        ALWAYS, TLS_ONLY, NEVER
+    };
+    
+    volatile Http2ConnectionPool pool;
+    
+    boolean isShutdown;
+    UseHttp2Policy policy;
+    int maxPerHost = 4;
+    int initialWindowSize = 1024 * 1024;
+    
+    Http2ConduitFactory() {
+        super();
+    }
+    
+    public Http2ConduitFactory(Map<String, Object> conf) {
+        this();
+        setProperties(conf);
+    }
+    
+    public Http2ConduitFactory(Bus b) {
+        this();
+        addListener(b);
+        setProperties(b.getProperties());
+    }
+    
+    public UseHttp2Policy getUseHttp2Policy() {
+        return policy;
+    }
+    
+    public void update(Map<String, Object> props) {
+        if (setProperties(props)) {
+            Http2ConnectionPool p = pool;
+            pool = null;
+            if (p != null) {
+                p.close();
+            }
+        }
+    }
+    
+    private boolean setProperties(Map<String, Object> s) {
+        Object st = s.get(USE_POLICY);
+        if (st == null) {
+            st = SystemPropertyAction.getPropertyOrNull(USE_POLICY);
+        }
+        if (st instanceof UseHttp2Policy) {
+            policy = (UseHttp2Policy)st;
+        } else if (st instanceof String) {
+            policy = UseHttp2Policy.valueOf((String)st);
+        } else {
+            policy = UseHttp2Policy.TLS_ONLY;
+        }
+        
+        //properties that need new connections
+        boolean changed = false;
+        int i = maxPerHost;
+        maxPerHost = getInt(s.get(MAX_PER_HOST_CONNECTIONS), maxPerHost);
+        changed |= i != maxPerHost;
+        
+        i = initialWindowSize;
+        initialWindowSize = getInt(s.get(INITIAL_WINDOW_SIZE), initialWindowSize);
+        if (initialWindowSize < Http2Frames.DEFAULT_WINDOW_SIZE) {
+            initialWindowSize = Http2Frames.DEFAULT_WINDOW_SIZE;
+        }
+        changed |= i != initialWindowSize;
+        return changed;
+    }
+    
+    private int getInt(Object s, int defaultv) {
+        int i = defaultv;
+        if (s instanceof String) {
+            i = Integer.parseInt((String)s);
+        } else if (s instanceof Number) {
+            i = ((Number)s).intValue();
+        }
+        if (i == -1) {
+            i = defaultv;
+        }
+        return i;
+    }
+    
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+    
+    Http2ConnectionPool getConnectionPool() {
+        Http2ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (this) {
+                if (pool == null) {
+                    pool = new Http2ConnectionPool(maxPerHost, initialWindowSize);
+                }
+                p = pool;
+            }
+        }
+        return p;
+    }
+    
+    @Override
+    public HTTPConduit createConduit(HTTPTransportFactory f,
+                                     Bus bus,
+                                     EndpointInfo localInfo,
+                                     EndpointReferenceType target) throws IOException {
+        return createConduit(bus, localInfo, target);
+    }
+    
+    public HTTPConduit createConduit(Bus bus,
+                                     EndpointInfo localInfo,
+                                     EndpointReferenceType target) throws IOException {
+        if (isShutdown) {
+            return null;
+        }
+        return new Http2Conduit(bus, localInfo, target, this);
+    }
+    
+    @Resource 
+    public void setBus(Bus b) {
+        addListener(b);
+    }
+    
+    public void initComplete() {
+    }
+    
+    public synchronized void preShutdown() {
+        shutdown();
+    }
+    
+    public void postShutdown() {
+    }
+    
+    public void shutdown() {
+        Http2ConnectionPool p = pool;
+        pool = null;
+        if (p != null) {
+            p.close();
+        }
+        isShutdown = true;
+    }
+    
+    private void addListener(Bus b) {
+        b.getExtension(BusLifeCycleManager.class).registerLifeCycleListener(this);
+    }
+}
@@ -0,0 +1,555 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.transport.http.h2.Http2Frames.Frame;
+
+/**
+ * One HTTP/2 connection shared by many concurrent exchanges.  A daemon reader
+ * thread demultiplexes the incoming frames to the {@link Http2Stream}s, the
+ * writers serialize their frames on the output stream.  Outgoing DATA respects
+ * both the connection and the stream send windows, incoming DATA is credited
+ * back as it is consumed so a slow reader only stalls its own stream.
+ */
+final class Http2Connection implements Runnable {
+    private static final Logger LOG = LogUtils.getL7dLogger(Http2Connection.class);
+    
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final Object writeLock = new Object();
+    private final Http2ConnectionPool pool;
+    private final String origin;
+    private final Map<Integer, Http2Stream> streams = new ConcurrentHashMap<Integer, Http2Stream>();
+    private final Hpack.Decoder decoder = new Hpack.Decoder(4096);
+    private final int receiveWindow;
+    
+    //guarded by this
+    private int nextStreamId = 1;
+    private int reserved;
+    private int maxConcurrentStreams = Integer.MAX_VALUE;
+    private int initialSendWindow = Http2Frames.DEFAULT_WINDOW_SIZE;
+    private int connectionSendWindow = Http2Frames.DEFAULT_WINDOW_SIZE;
+    private int maxFrameSize = Http2Frames.DEFAULT_MAX_FRAME_SIZE;
+    private boolean goAway;
+    private IOException closed;
+    private boolean settingsReceived;
+    
+    //reader thread only
+    private int connectionConsumed;
+    
+    Http2Connection(Socket socket, String origin, int receiveWindow, Http2ConnectionPool pool) 
+        throws IOException {
+        this.socket = socket;
+        this.origin = origin;
+        this.pool = pool;
+        this.receiveWindow = receiveWindow;
+        in = new BufferedInputStream(socket.getInputStream(), Http2Frames.DEFAULT_MAX_FRAME_SIZE + 9);
+        out = new BufferedOutputStream(socket.getOutputStream(), Http2Frames.DEFAULT_MAX_FRAME_SIZE + 9);
+    }
+    
+    void start() throws IOException {
+        synchronized (writeLock) {
+            out.write(Http2Frames.PREFACE);
+            Http2Frames.writeSettings(out,
+                                      Http2Frames.SETTINGS_ENABLE_PUSH, 0,
+                                      Http2Frames.SETTINGS_INITIAL_WINDOW_SIZE, receiveWindow);
+            if (receiveWindow > Http2Frames.DEFAULT_WINDOW_SIZE) {
+                //the connection window can only be raised with an update
+                Http2Frames.writeWindowUpdate(out, 0, receiveWindow - Http2Frames.DEFAULT_WINDOW_SIZE);
+            }
+            out.flush();
+        }
+        Thread t = new Thread(this, "cxf-h2-" + origin);
+        t.setDaemon(true);
+        t.start();
+    }
+    
+    /**
+     * Waits for the server preface so that its concurrency and window settings
+     * are known before the first stream is opened.
+     */
+    synchronized void awaitSettings(long timeout) throws IOException {
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        while (!settingsReceived && closed == null) {
+            long wait = 0;
+            if (deadline > 0) {
+                wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    throw new SocketTimeoutException("No HTTP/2 SETTINGS received from " + origin);
+                }
+            }
+            try {
+                wait(wait);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(e.getMessage());
+            }
+        }
+        if (closed != null) {
+            throw closed;
+        }
+    }
+    
+    String getOrigin() {
+        return origin;
+    }
+    
+    SSLSession getSSLSession() {
+        return socket instanceof SSLSocket ? ((SSLSocket)socket).getSession() : null;
+    }
+    
+    int getStreamWindowUpdateThreshold() {
+        return receiveWindow / 2;
+    }
+    
+    void dispatch(Runnable r) {
+        pool.execute(r);
+    }
+    
+    /**
+     * Claims a stream slot if the server allows another concurrent stream.
+     */
+    synchronized boolean reserve() {
+        if (closed != null || goAway || reserved >= maxConcurrentStreams) {
+            return false;
+        }
+        reserved++;
+        return true;
+    }
+    
+    void unreserve() {
+        synchronized (this) {
+            reserved--;
+        }
+        pool.released(this);
+    }
+    
+    synchronized int getReserved() {
+        return reserved;
+    }
+    
+    synchronized boolean isUsable() {
+        return closed == null && !goAway;
+    }
+    
+    /**
+     * Opens a stream on a previously reserved slot by sending its header block.
+     */
+    Http2Stream newStream(List<String[]> headers, boolean endStream) throws IOException {
+        byte[] block = Hpack.encode(headers);
+        synchronized (writeLock) {
+            Http2Stream stream;
+            int frameSize;
+            synchronized (this) {
+                if (closed != null || goAway) {
+                    reserved--;
+                    throw closed != null ? closed 
+                        : new Http2Exception(Http2Frames.REFUSED_STREAM, "Connection is shutting down");
+                }
+                stream = new Http2Stream(this, nextStreamId, initialSendWindow);
+                nextStreamId += 2;
+                frameSize = maxFrameSize;
+            }
+            streams.put(stream.id, stream);
+            try {
+                Http2Frames.writeHeaders(out, stream.id, block, endStream, frameSize);
+                if (endStream) {
+                    out.flush();
+                }
+            } catch (IOException ex) {
+                close(ex);
+                throw ex;
+            }
+            return stream;
+        }
+    }
+    
+    /**
+     * Sends the data as DATA frames, blocking while the send windows are exhausted.
+     */
+    void writeData(Http2Stream stream, byte[] b, int off, int len, boolean endStream) 
+        throws IOException {
+        do {
+            int n;
+            synchronized (this) {
+                while (len > 0 && closed == null && !stream.isFailed()
+                    && Math.min(connectionSendWindow, stream.sendWindow) <= 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException(e.getMessage());
+                    }
+                }
+                if (closed != null) {
+                    throw closed;
+                }
+                if (stream.isFailed()) {
+                    //the server does not want the rest of the body (it may have
+                    //answered already), the response tells the rest
+                    return;
+                }
+                n = Math.min(len, Math.min(maxFrameSize, Math.min(connectionSendWindow, stream.sendWindow)));
+                connectionSendWindow -= n;
+                stream.sendWindow -= n;
+            }
+            boolean last = endStream && n == len;
+            synchronized (writeLock) {
+                try {
+                    Http2Frames.writeHeader(out, n, Http2Frames.DATA, 
+                                            last ? Http2Frames.FLAG_END_STREAM : 0, stream.id);
+                    out.write(b, off, n);
+                    if (n == len) {
+                        out.flush();
+                    }
+                } catch (IOException ex) {
+                    close(ex);
+                    throw ex;
+                }
+            }
+            off += n;
+            len -= n;
+        } while (len > 0);
+    }
+    
+    void sendWindowUpdate(int streamId, int increment) {
+        synchronized (writeLock) {
+            try {
+                Http2Frames.writeWindowUpdate(out, streamId, increment);
+                out.flush();
+            } catch (IOException ex) {
+                close(ex);
+            }
+        }
+    }
+    
+    void resetStream(Http2Stream stream, int errorCode) {
+        if (streams.remove(stream.id) == null) {
+            return;
+        }
+        unreserve();
+        synchronized (writeLock) {
+            try {
+                Http2Frames.writeRstStream(out, stream.id, errorCode);
+                out.flush();
+            } catch (IOException ex) {
+                close(ex);
+            }
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+    
+    private void streamDone(Http2Stream stream) {
+        if (streams.remove(stream.id) != null) {
+            unreserve();
+        }
+        boolean drained;
+        synchronized (this) {
+            drained = goAway && streams.isEmpty();
+        }
+        if (drained) {
+            close(new IOException("Connection closed by GOAWAY"));
+        }
+    }
+    
+    /**
+     * Sends GOAWAY and closes the connection, failing the open streams.
+     */
+    void shutdown() {
+        synchronized (writeLock) {
+            try {
+                Http2Frames.writeGoAway(out, 0, Http2Frames.NO_ERROR);
+                out.flush();
+            } catch (IOException ex) {
+                //ignore, closing anyway
+            }
+        }
+        close(new IOException("Connection shut down"));
+    }
+    
+    void close(IOException cause) {
+        synchronized (this) {
+            if (closed != null) {
+                return;
+            }
+            closed = cause;
+            notifyAll();
+        }
+        pool.remove(this);
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            //ignore
+        }
+        for (Http2Stream s : new ArrayList<Http2Stream>(streams.values())) {
+            s.fail(cause);
+        }
+        streams.clear();
+    }
+    
+    public void run() {
+        IOException cause = null;
+        Frame headersFrame = null;
+        ByteArrayOutputStream headerBlock = null;
+        try {
+            while (true) {
+                Frame f = Http2Frames.read(in, Http2Frames.DEFAULT_MAX_FRAME_SIZE);
+                if (f == null) {
+                    throw new EOFException("Connection closed by the server");
+                }
+                if (headerBlock != null) {
+                    if (f.type != Http2Frames.CONTINUATION || f.streamId != headersFrame.streamId) {
+                        throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Expected CONTINUATION");
+                    }
+                    headerBlock.write(f.payload, 0, f.payload.length);
+                    if (f.hasFlag(Http2Frames.FLAG_END_HEADERS)) {
+                        byte[] block = headerBlock.toByteArray();
+                        headerBlock = null;
+                        onHeaderBlock(headersFrame, block, 0, block.length);
+                    }
+                    continue;
+                }
+                switch (f.type) {
+                case Http2Frames.DATA:
+                    onData(f);
+                    break;
+                case Http2Frames.HEADERS: {
+                    int[] range = Http2Frames.unpad(f);
+                    if (f.hasFlag(Http2Frames.FLAG_END_HEADERS)) {
+                        onHeaderBlock(f, f.payload, range[0], range[1]);
+                    } else {
+                        headersFrame = f;
+                        headerBlock = new ByteArrayOutputStream();
+                        headerBlock.write(f.payload, range[0], range[1]);
+                    }
+                    break;
+                }
+                case Http2Frames.RST_STREAM:
+                    onRstStream(f);
+                    break;
+                case Http2Frames.SETTINGS:
+                    onSettings(f);
+                    break;
+                case Http2Frames.PING:
+                    onPing(f);
+                    break;
+                case Http2Frames.GOAWAY:
+                    onGoAway(f);
+                    break;
+                case Http2Frames.WINDOW_UPDATE:
+                    onWindowUpdate(f);
+                    break;
+                case Http2Frames.PUSH_PROMISE:
+                case Http2Frames.CONTINUATION:
+                    throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Unexpected frame type " + f.type);
+                default:
+                    //PRIORITY and unknown frame types are ignored
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            cause = ex;
+        } catch (RuntimeException ex) {
+            cause = new IOException(ex);
+        }
+        if (cause instanceof Http2Exception) {
+            synchronized (writeLock) {
+                try {
+                    Http2Frames.writeGoAway(out, 0, ((Http2Exception)cause).getErrorCode());
+                    out.flush();
+                } catch (IOException ex) {
+                    //ignore
+                }
+            }
+        }
+        boolean alreadyClosed;
+        synchronized (this) {
+            alreadyClosed = closed != null;
+        }
+        if (!alreadyClosed && LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "HTTP/2 connection to " + origin + " closed", cause);
+        }
+        close(cause);
+    }
+    
+    private void onData(Frame f) throws IOException {
+        int[] range = Http2Frames.unpad(f);
+        //the whole frame, padding included, counts against the connection window
+        connectionConsumed += f.payload.length;
+        if (connectionConsumed >= receiveWindow / 2) {
+            sendWindowUpdate(0, connectionConsumed);
+            connectionConsumed = 0;
+        }
+        Http2Stream stream = streams.get(f.streamId);
+        if (stream == null) {
+            return;
+        }
+        boolean end = f.hasFlag(Http2Frames.FLAG_END_STREAM);
+        stream.onData(f.payload, range[0], range[1], end);
+        if (end) {
+            streamDone(stream);
+        }
+    }
+    
+    private void onHeaderBlock(Frame f, byte[] block, int off, int len) throws IOException {
+        //always decode to keep the dynamic table in sync
+        List<String[]> fields = decoder.decode(block, off, len);
+        Http2Stream stream = streams.get(f.streamId);
+        if (stream == null) {
+            return;
+        }
+        boolean end = f.hasFlag(Http2Frames.FLAG_END_STREAM);
+        try {
+            stream.onHeaders(fields, end);
+        } catch (Http2Exception ex) {
+            stream.fail(ex);
+            resetStream(stream, ex.getErrorCode());
+            return;
+        }
+        if (end) {
+            stream.onData(Http2Frames.EMPTY, 0, 0, true);
+            streamDone(stream);
+        }
+    }
+    
+    private void onRstStream(Frame f) {
+        Http2Stream stream = streams.remove(f.streamId);
+        if (stream != null) {
+            int code = Http2Frames.getInt(f.payload, 0);
+            stream.fail(new Http2Exception(code, "Stream reset by the server, error code " + code));
+            unreserve();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+    
+    private void onSettings(Frame f) throws IOException {
+        if (f.hasFlag(Http2Frames.FLAG_ACK)) {
+            return;
+        }
+        synchronized (this) {
+            for (int x = 0; x + 6 <= f.payload.length; x += 6) {
+                int id = ((f.payload[x] & 0xff) << 8) | (f.payload[x + 1] & 0xff);
+                int value = Http2Frames.getInt(f.payload, x + 2);
+                switch (id) {
+                case Http2Frames.SETTINGS_MAX_CONCURRENT_STREAMS:
+                    maxConcurrentStreams = value;
+                    break;
+                case Http2Frames.SETTINGS_INITIAL_WINDOW_SIZE:
+                    if (value < 0) {
+                        throw new Http2Exception(Http2Frames.FLOW_CONTROL_ERROR, "Invalid initial window size");
+                    }
+                    //RFC 7540 6.9.2, the delta applies to all open streams
+                    int delta = value - initialSendWindow;
+                    initialSendWindow = value;
+                    for (Http2Stream s : streams.values()) {
+                        s.sendWindow += delta;
+                    }
+                    break;
+                case Http2Frames.SETTINGS_MAX_FRAME_SIZE:
+                    maxFrameSize = value;
+                    break;
+                default:
+                    //header table size only matters for an indexing encoder
+                    break;
+                }
+            }
+            settingsReceived = true;
+            notifyAll();
+        }
+        synchronized (writeLock) {
+            Http2Frames.writeHeader(out, 0, Http2Frames.SETTINGS, Http2Frames.FLAG_ACK, 0);
+            out.flush();
+        }
+        pool.released(this);
+    }
+    
+    private void onPing(Frame f) throws IOException {
+        if (f.hasFlag(Http2Frames.FLAG_ACK)) {
+            return;
+        }
+        synchronized (writeLock) {
+            Http2Frames.writeHeader(out, f.payload.length, Http2Frames.PING, Http2Frames.FLAG_ACK, 0);
+            out.write(f.payload);
+            out.flush();
+        }
+    }
+    
+    private void onGoAway(Frame f) {
+        int lastStreamId = Http2Frames.getInt(f.payload, 0) & 0x7fffffff;
+        synchronized (this) {
+            goAway = true;
+        }
+        //no new streams on this connection, the ones the server did not
+        //process can safely be sent again on another connection 
+        pool.remove(this);
+        for (Http2Stream s : new ArrayList<Http2Stream>(streams.values())) {
+            if (s.id > lastStreamId) {
+                streams.remove(s.id);
+                s.fail(new Http2Exception(Http2Frames.REFUSED_STREAM, "Stream refused by GOAWAY"));
+                unreserve();
+            }
+        }
+        if (streams.isEmpty()) {
+            close(new IOException("Connection closed by GOAWAY"));
+        }
+    }
+    
+    private void onWindowUpdate(Frame f) throws IOException {
+        int increment = Http2Frames.getInt(f.payload, 0) & 0x7fffffff;
+        synchronized (this) {
+            if (f.streamId == 0) {
+                if ((long)connectionSendWindow + increment > Http2Frames.MAX_WINDOW_SIZE) {
+                    throw new Http2Exception(Http2Frames.FLOW_CONTROL_ERROR, "Connection window overflow");
+                }
+                connectionSendWindow += increment;
+            } else {
+                Http2Stream stream = streams.get(f.streamId);
+                if (stream != null) {
+                    stream.sendWindow += increment;
+                }
+            }
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.configuration.jsse.SSLUtils;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+
+/**
+ * Keeps the HTTP/2 connections per origin.  Streams are spread over the open
+ * connections of an origin and a new connection is only opened once all of
+ * them reached the server's SETTINGS_MAX_CONCURRENT_STREAMS, up to the 
+ * configured number of connections per origin.
+ * <p>
+ * For https the protocol is negotiated with ALPN.  Origins that do not agree
+ * to "h2", or a JDK without the ALPN API, are remembered so the conduit uses
+ * HTTP/1.1 for them without trying again.
+ */
+final class Http2ConnectionPool {
+    private static final Logger LOG = LogUtils.getL7dLogger(Http2ConnectionPool.class);
+    private static final String[] ALPN_PROTOCOLS = {"h2", "http/1.1"};
+    private static final Method SET_APPLICATION_PROTOCOLS;
+    private static final Method GET_APPLICATION_PROTOCOL;
+    static {
+        Method set = null;
+        Method get = null;
+        try {
+            //JDK 9+ and 8u252+ 
+            set = SSLParameters.class.getMethod("setApplicationProtocols", String[].class);
+            get = SSLSocket.class.getMethod("getApplicationProtocol");
+        } catch (Exception ex) {
+            set = null;
+            get = null;
+        }
+        SET_APPLICATION_PROTOCOLS = set;
+        GET_APPLICATION_PROTOCOL = get;
+    }
+    
+    private final Map<String, List<Http2Connection>> connections 
+        = new HashMap<String, List<Http2Connection>>();
+    private final Map<String, Integer> pending = new HashMap<String, Integer>();
+    private final Set<String> http11Origins 
+        = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final int maxConnectionsPerOrigin;
+    private final int receiveWindow;
+    private boolean closed;
+    private ExecutorService callbackExecutor;
+    
+    Http2ConnectionPool(int maxConnectionsPerOrigin, int receiveWindow) {
+        this.maxConnectionsPerOrigin = maxConnectionsPerOrigin;
+        this.receiveWindow = receiveWindow;
+    }
+    
+    static boolean isAlpnSupported() {
+        return SET_APPLICATION_PROTOCOLS != null;
+    }
+    
+    static String getOrigin(URI uri, TLSClientParameters tls) {
+        boolean https = "https".equals(uri.getScheme());
+        int port = uri.getPort();
+        if (port == -1) {
+            port = https ? 443 : 80;
+        }
+        String origin = uri.getScheme() + "://" + uri.getHost() + ":" + port;
+        if (https && tls != null) {
+            //connections are only shared between users of the same TLS setup
+            origin += "#" + System.identityHashCode(tls);
+        }
+        return origin;
+    }
+    
+    boolean isHttp11Origin(String origin) {
+        return http11Origins.contains(origin);
+    }
+    
+    /**
+     * Returns a connection with a reserved stream slot, or null if the origin
+     * only speaks HTTP/1.1.  The caller must open a stream on the connection
+     * or give the slot back. 
+     */
+    Http2Connection acquire(URI uri, TLSClientParameters tls, HTTPClientPolicy policy) 
+        throws IOException {
+        String origin = getOrigin(uri, tls);
+        long timeout = policy.getConnectionTimeout();
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new IOException("HTTP/2 connection pool is closed");
+                }
+                if (http11Origins.contains(origin)) {
+                    return null;
+                }
+                Http2Connection c = reserveLeastLoaded(connections.get(origin));
+                if (c != null) {
+                    return c;
+                }
+                //while a connection is being opened, wait for it rather than
+                //opening more: its streams are likely enough for everyone
+                if (getPending(origin) == 0 && getCount(origin) < maxConnectionsPerOrigin) {
+                    pending.put(origin, getPending(origin) + 1);
+                    break;
+                }
+                long wait = 0;
+                if (deadline > 0) {
+                    wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        throw new SocketTimeoutException("Timed out waiting for a stream to " + origin);
+                    }
+                }
+                try {
+                    wait(wait);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException(e.getMessage());
+                }
+            }
+        }
+        Http2Connection c = null;
+        boolean added = false;
+        try {
+            c = connect(uri, origin, tls == null ? new TLSClientParameters() : tls, policy);
+        } finally {
+            synchronized (this) {
+                pending.put(origin, getPending(origin) - 1);
+                if (c != null && !closed) {
+                    List<Http2Connection> list = connections.get(origin);
+                    if (list == null) {
+                        list = new ArrayList<Http2Connection>();
+                        connections.put(origin, list);
+                    }
+                    list.add(c);
+                    added = true;
+                }
+                notifyAll();
+            }
+        }
+        if (c == null) {
+            return null;
+        }
+        if (!added) {
+            c.shutdown();
+            throw new IOException("HTTP/2 connection pool is closed");
+        }
+        //a server allowing no streams at all is waited upon like a busy one
+        return c.reserve() ? c : acquire(uri, tls, policy);
+    }
+    
+    private static Http2Connection reserveLeastLoaded(List<Http2Connection> list) {
+        if (list == null) {
+            return null;
+        }
+        Http2Connection best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (Http2Connection c : list) {
+            int load = c.getReserved();
+            if (load < bestLoad && c.isUsable()) {
+                best = c;
+                bestLoad = load;
+            }
+        }
+        if (best != null && best.reserve()) {
+            return best;
+        }
+        for (Http2Connection c : list) {
+            if (c != best && c.reserve()) {
+                return c;
+            }
+        }
+        return null;
+    }
+    
+    private int getPending(String origin) {
+        Integer i = pending.get(origin);
+        return i == null ? 0 : i;
+    }
+    
+    private int getCount(String origin) {
+        List<Http2Connection> list = connections.get(origin);
+        return getPending(origin) + (list == null ? 0 : list.size());
+    }
+    
+    synchronized int getConnectionCount() {
+        int count = 0;
+        for (List<Http2Connection> list : connections.values()) {
+            count += list.size();
+        }
+        return count;
+    }
+    
+    /**
+     * Runs the response callbacks of async exchanges, the reader threads must
+     * not block on the work queue or process a response themselves.
+     */
+    void execute(Runnable r) {
+        ExecutorService ex;
+        synchronized (this) {
+            if (callbackExecutor == null) {
+                callbackExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    public Thread newThread(Runnable task) {
+                        Thread t = new Thread(task, "cxf-h2-callback-" + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+            ex = callbackExecutor;
+        }
+        try {
+            ex.execute(r);
+        } catch (RejectedExecutionException e) {
+            //shut down, the callback only reports the failure
+            r.run();
+        }
+    }
+    
+    synchronized void released(Http2Connection c) {
+        notifyAll();
+    }
+    
+    synchronized void remove(Http2Connection c) {
+        List<Http2Connection> list = connections.get(c.getOrigin());
+        if (list != null) {
+            list.remove(c);
+            if (list.isEmpty()) {
+                connections.remove(c.getOrigin());
+            }
+        }
+        notifyAll();
+    }
+    
+    void close() {
+        List<Http2Connection> all = new ArrayList<Http2Connection>();
+        synchronized (this) {
+            closed = true;
+            for (List<Http2Connection> list : connections.values()) {
+                all.addAll(list);
+            }
+            connections.clear();
+            notifyAll();
+        }
+        for (Http2Connection c : all) {
+            c.shutdown();
+        }
+        synchronized (this) {
+            if (callbackExecutor != null) {
+                callbackExecutor.shutdown();
+            }
+        }
+    }
+    
+    private Http2Connection connect(URI uri, String origin, TLSClientParameters tls, 
+                                    HTTPClientPolicy policy) throws IOException {
+        boolean https = "https".equals(uri.getScheme());
+        String host = uri.getHost();
+        int port = uri.getPort() == -1 ? (https ? 443 : 80) : uri.getPort();
+        int connectTimeout = (int)policy.getConnectionTimeout();
+        
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        try {
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            if (https) {
+                SSLSocket ssl = (SSLSocket)getSocketFactory(tls).createSocket(socket, host, port, true);
+                socket = ssl;
+                if (!handshake(ssl, host, tls, connectTimeout)) {
+                    LOG.fine(origin + " did not negotiate h2, using HTTP/1.1");
+                    http11Origins.add(origin);
+                    socket.close();
+                    return null;
+                }
+            }
+            Http2Connection c = new Http2Connection(socket, origin, receiveWindow, this);
+            c.start();
+            c.awaitSettings(connectTimeout);
+            return c;
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+    
+    private static SSLSocketFactory getSocketFactory(TLSClientParameters tls) throws IOException {
+        if (tls.getSSLSocketFactory() != null) {
+            return tls.getSSLSocketFactory();
+        }
+        try {
+            return org.apache.cxf.transport.https.SSLUtils.getSSLContext(tls).getSocketFactory();
+        } catch (IOException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    private static boolean handshake(SSLSocket ssl, String host, TLSClientParameters tls, 
+                                     int connectTimeout) throws IOException {
+        if (tls.getSSLSocketFactory() == null) {
+            ssl.setEnabledCipherSuites(SSLUtils.getCiphersuites(tls.getCipherSuites(),
+                                                                ssl.getSupportedCipherSuites(),
+                                                                tls.getCipherSuitesFilter(),
+                                                                LOG, false));
+        }
+        boolean alpn = false;
+        if (SET_APPLICATION_PROTOCOLS != null) {
+            SSLParameters params = ssl.getSSLParameters();
+            try {
+                SET_APPLICATION_PROTOCOLS.invoke(params, (Object)ALPN_PROTOCOLS);
+                ssl.setSSLParameters(params);
+                alpn = true;
+            } catch (Exception ex) {
+                //no ALPN with this provider, fall back to HTTP/1.1
+            }
+        }
+        ssl.setSoTimeout(connectTimeout);
+        ssl.startHandshake();
+        ssl.setSoTimeout(0);
+        
+        HostnameVerifier verifier = org.apache.cxf.transport.https.SSLUtils.getHostnameVerifier(tls);
+        if (!verifier.verify(host, ssl.getSession())) {
+            throw new IOException("Could not verify host " + host);
+        }
+        if (!alpn) {
+            return false;
+        }
+        try {
+            return "h2".equals(GET_APPLICATION_PROTOCOL.invoke(ssl));
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+}
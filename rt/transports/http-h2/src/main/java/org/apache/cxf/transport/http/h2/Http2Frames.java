@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Frame level constants and codec of RFC 7540.  Frames are read as a whole,
+ * the payload length being limited by the SETTINGS_MAX_FRAME_SIZE we advertise.
+ */
+final class Http2Frames {
+    static final byte[] PREFACE = {
+        'P', 'R', 'I', ' ', '*', ' ', 'H', 'T', 'T', 'P', '/', '2', '.', '0', '\r', '\n',
+        '\r', '\n', 'S', 'M', '\r', '\n', '\r', '\n'
+    };
+    
+    static final int DATA = 0x0;
+    static final int HEADERS = 0x1;
+    static final int PRIORITY = 0x2;
+    static final int RST_STREAM = 0x3;
+    static final int SETTINGS = 0x4;
+    static final int PUSH_PROMISE = 0x5;
+    static final int PING = 0x6;
+    static final int GOAWAY = 0x7;
+    static final int WINDOW_UPDATE = 0x8;
+    static final int CONTINUATION = 0x9;
+    
+    static final int FLAG_END_STREAM = 0x1;
+    static final int FLAG_ACK = 0x1;
+    static final int FLAG_END_HEADERS = 0x4;
+    static final int FLAG_PADDED = 0x8;
+    static final int FLAG_PRIORITY = 0x20;
+    
+    static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    static final int SETTINGS_ENABLE_PUSH = 0x2;
+    static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+    
+    static final int NO_ERROR = 0x0;
+    static final int PROTOCOL_ERROR = 0x1;
+    static final int FLOW_CONTROL_ERROR = 0x3;
+    static final int FRAME_SIZE_ERROR = 0x6;
+    static final int REFUSED_STREAM = 0x7;
+    static final int CANCEL = 0x8;
+    
+    static final int DEFAULT_WINDOW_SIZE = 65535;
+    static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+    static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+    
+    static final byte[] EMPTY = new byte[0];
+    
+    private Http2Frames() {
+        //utility class
+    }
+    
+    static final class Frame {
+        final int type;
+        final int flags;
+        final int streamId;
+        final byte[] payload;
+        
+        Frame(int type, int flags, int streamId, byte[] payload) {
+            this.type = type;
+            this.flags = flags;
+            this.streamId = streamId;
+            this.payload = payload;
+        }
+        
+        boolean hasFlag(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+    
+    /**
+     * Reads the next frame, returns null if the peer closed the connection 
+     * on a frame boundary.
+     */
+    static Frame read(InputStream in, int maxFrameSize) throws IOException {
+        byte[] header = new byte[9];
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        header[0] = (byte)first;
+        readFully(in, header, 1, 8);
+        int length = ((header[0] & 0xff) << 16) | ((header[1] & 0xff) << 8) | (header[2] & 0xff);
+        if (length > maxFrameSize) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Frame of " + length + " bytes exceeds "
+                                     + maxFrameSize);
+        }
+        int type = header[3] & 0xff;
+        int flags = header[4] & 0xff;
+        int streamId = getInt(header, 5) & 0x7fffffff;
+        byte[] payload = length == 0 ? EMPTY : new byte[length];
+        readFully(in, payload, 0, length);
+        return new Frame(type, flags, streamId, payload);
+    }
+    
+    static void writeHeader(OutputStream out, int length, int type, int flags, int streamId) 
+        throws IOException {
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(type);
+        out.write(flags);
+        writeInt(out, streamId);
+    }
+    
+    static void writeSettings(OutputStream out, int ... settings) throws IOException {
+        writeHeader(out, settings.length * 3, SETTINGS, 0, 0);
+        for (int x = 0; x < settings.length; x += 2) {
+            out.write(settings[x] >>> 8);
+            out.write(settings[x]);
+            writeInt(out, settings[x + 1]);
+        }
+    }
+    
+    static void writeWindowUpdate(OutputStream out, int streamId, int increment) throws IOException {
+        writeHeader(out, 4, WINDOW_UPDATE, 0, streamId);
+        writeInt(out, increment);
+    }
+    
+    static void writeRstStream(OutputStream out, int streamId, int errorCode) throws IOException {
+        writeHeader(out, 4, RST_STREAM, 0, streamId);
+        writeInt(out, errorCode);
+    }
+    
+    static void writeGoAway(OutputStream out, int lastStreamId, int errorCode) throws IOException {
+        writeHeader(out, 8, GOAWAY, 0, 0);
+        writeInt(out, lastStreamId);
+        writeInt(out, errorCode);
+    }
+    
+    /**
+     * Writes a header block as a HEADERS frame followed by as many CONTINUATION
+     * frames as needed, the caller has to hold the write lock for the whole block. 
+     */
+    static void writeHeaders(OutputStream out, int streamId, byte[] block, 
+                             boolean endStream, int maxFrameSize) throws IOException {
+        int off = 0;
+        int type = HEADERS;
+        int flags = endStream ? FLAG_END_STREAM : 0;
+        do {
+            int len = Math.min(maxFrameSize, block.length - off);
+            if (off + len == block.length) {
+                flags |= FLAG_END_HEADERS;
+            }
+            writeHeader(out, len, type, flags, streamId);
+            out.write(block, off, len);
+            off += len;
+            type = CONTINUATION;
+            flags = 0;
+        } while (off < block.length);
+    }
+    
+    /**
+     * Returns the offset/length pair of the data in a padded DATA or HEADERS
+     * payload, skipping the priority fields of the latter.
+     */
+    static int[] unpad(Frame f) throws IOException {
+        int off = 0;
+        int len = f.payload.length;
+        if (f.hasFlag(FLAG_PADDED)) {
+            if (len == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "Missing pad length");
+            }
+            int pad = f.payload[0] & 0xff;
+            off++;
+            len -= pad + 1;
+        }
+        if (f.type == HEADERS && f.hasFlag(FLAG_PRIORITY)) {
+            off += 5;
+            len -= 5;
+        }
+        if (len < 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "Padding exceeds the frame payload");
+        }
+        return new int[] {off, len};
+    }
+    
+    static int getInt(byte[] b, int off) {
+        int i = 0;
+        for (int x = off; x < off + 4; x++) {
+            i = (i << 8) | (b[x] & 0xff);
+        }
+        return i;
+    }
+    
+    static void writeInt(OutputStream out, int i) throws IOException {
+        out.write(i >>> 24);
+        out.write(i >>> 16);
+        out.write(i >>> 8);
+        out.write(i);
+    }
+    
+    private static void readFully(InputStream in, byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = in.read(b, off, len);
+            if (n == -1) {
+                throw new EOFException("Connection closed in the middle of a frame");
+            }
+            off += n;
+            len -= n;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The client side of one request/response exchange multiplexed over an
+ * {@link Http2Connection}.  Response frames are queued by the connection's
+ * reader thread and consumed through {@link #getInputStream(long)}; flow 
+ * control credit is handed back to the server as the body is read.
+ */
+final class Http2Stream {
+    final int id;
+    
+    /** guarded by the connection */
+    int sendWindow;
+    
+    private final Http2Connection connection;
+    private final Deque<byte[]> chunks = new ArrayDeque<byte[]>();
+    private int chunkPos;
+    private int consumed;
+    
+    private List<String[]> headers;
+    private int status = -1;
+    private boolean endStream;
+    private volatile IOException failure;
+    private Runnable responseListener;
+    
+    Http2Stream(Http2Connection connection, int id, int sendWindow) {
+        this.connection = connection;
+        this.id = id;
+        this.sendWindow = sendWindow;
+    }
+    
+    Http2Connection getConnection() {
+        return connection;
+    }
+    
+    void onHeaders(List<String[]> fields, boolean end) throws IOException {
+        Runnable listener = null;
+        synchronized (this) {
+            if (status == -1) {
+                int st = parseStatus(fields);
+                if (st < 200) {
+                    //interim response, the final one follows 
+                    return;
+                }
+                status = st;
+                headers = fields;
+                listener = responseListener;
+                responseListener = null;
+            }
+            //anything after the response headers is a trailer, ignored
+            endStream |= end;
+            notifyAll();
+        }
+        if (listener != null) {
+            connection.dispatch(listener);
+        }
+    }
+    
+    synchronized void onData(byte[] data, int off, int len, boolean end) {
+        if (len > 0 && failure == null) {
+            byte[] chunk = new byte[len];
+            System.arraycopy(data, off, chunk, 0, len);
+            chunks.add(chunk);
+        }
+        endStream |= end;
+        notifyAll();
+    }
+    
+    void fail(IOException ex) {
+        Runnable listener;
+        synchronized (this) {
+            if (failure != null || endStream && status != -1) {
+                return;
+            }
+            failure = ex;
+            listener = responseListener;
+            responseListener = null;
+            notifyAll();
+        }
+        if (listener != null) {
+            connection.dispatch(listener);
+        }
+    }
+    
+    boolean isFailed() {
+        return failure != null;
+    }
+    
+    synchronized boolean isComplete() {
+        return failure != null || endStream && status != -1;
+    }
+    
+    /**
+     * Registers a callback that runs once when the response headers arrived or
+     * the stream failed, off the reader thread so it may block.  Runs right
+     * away if that already happened.
+     */
+    void setResponseListener(Runnable listener) {
+        synchronized (this) {
+            if (status == -1 && failure == null) {
+                responseListener = listener;
+                return;
+            }
+        }
+        listener.run();
+    }
+    
+    synchronized int getStatus(long timeout) throws IOException {
+        awaitResponse(timeout);
+        return status;
+    }
+    
+    synchronized List<String[]> getHeaders(long timeout) throws IOException {
+        awaitResponse(timeout);
+        return headers;
+    }
+    
+    private void awaitResponse(long timeout) throws IOException {
+        long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+        while (status == -1 && failure == null) {
+            await(deadline);
+        }
+        if (status == -1) {
+            throw failure;
+        }
+    }
+    
+    private void await(long deadline) throws IOException {
+        long wait = 0;
+        if (deadline > 0) {
+            wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                connection.resetStream(this, Http2Frames.CANCEL);
+                throw new SocketTimeoutException("Read timed out");
+            }
+        }
+        try {
+            wait(wait);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+    
+    int read(byte[] b, int off, int len, long timeout) throws IOException {
+        int n;
+        int credit = 0;
+        synchronized (this) {
+            long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : 0;
+            while (chunks.isEmpty() && !endStream && failure == null) {
+                await(deadline);
+            }
+            if (chunks.isEmpty()) {
+                if (failure != null) {
+                    throw failure;
+                }
+                return -1;
+            }
+            byte[] chunk = chunks.getFirst();
+            n = Math.min(len, chunk.length - chunkPos);
+            System.arraycopy(chunk, chunkPos, b, off, n);
+            chunkPos += n;
+            if (chunkPos == chunk.length) {
+                chunks.removeFirst();
+                chunkPos = 0;
+            }
+            consumed += n;
+            if (!endStream && consumed >= connection.getStreamWindowUpdateThreshold()) {
+                credit = consumed;
+                consumed = 0;
+            }
+        }
+        if (credit > 0) {
+            connection.sendWindowUpdate(id, credit);
+        }
+        return n;
+    }
+    
+    synchronized int available() {
+        int n = 0;
+        for (byte[] chunk : chunks) {
+            n += chunk.length;
+        }
+        return n - chunkPos;
+    }
+    
+    /**
+     * Cancels the exchange if the response was not completely received.
+     */
+    void close() {
+        boolean cancel;
+        synchronized (this) {
+            cancel = !endStream && failure == null;
+            chunks.clear();
+            chunkPos = 0;
+            if (cancel) {
+                failure = new IOException("Stream closed");
+            }
+        }
+        if (cancel) {
+            connection.resetStream(this, Http2Frames.CANCEL);
+        }
+    }
+    
+    InputStream getInputStream(final long timeout) {
+        return new InputStream() {
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+            }
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                return Http2Stream.this.read(b, off, len, timeout);
+            }
+            public int available() {
+                return Http2Stream.this.available();
+            }
+            public void close() {
+                Http2Stream.this.close();
+            }
+        };
+    }
+    
+    private static int parseStatus(List<String[]> fields) throws IOException {
+        for (String[] f : fields) {
+            if (":status".equals(f[0])) {
+                try {
+                    return Integer.parseInt(f[1]);
+                } catch (NumberFormatException ex) {
+                    break;
+                }
+            }
+        }
+        throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Missing or invalid :status");
+    }
+}
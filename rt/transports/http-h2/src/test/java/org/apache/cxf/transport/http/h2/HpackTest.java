@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HpackTest extends Assert {
+    
+    private static byte[] hex(String s) {
+        s = s.replace(" ", "");
+        byte[] b = new byte[s.length() / 2];
+        for (int x = 0; x < b.length; x++) {
+            b[x] = (byte)Integer.parseInt(s.substring(x * 2, x * 2 + 2), 16);
+        }
+        return b;
+    }
+    
+    @Test
+    public void testDecodeRequestExamples() throws Exception {
+        //RFC 7541 C.4.1 and C.4.2, Huffman coded and using the dynamic table 
+        Hpack.Decoder decoder = new Hpack.Decoder(4096);
+        byte[] block = hex("8286 8441 8cf1 e3c2 e5f2 3a6b a0ab 90f4 ff");
+        List<String[]> headers = decoder.decode(block, 0, block.length);
+        assertEquals(4, headers.size());
+        assertArrayEquals(new String[] {":method", "GET"}, headers.get(0));
+        assertArrayEquals(new String[] {":scheme", "http"}, headers.get(1));
+        assertArrayEquals(new String[] {":path", "/"}, headers.get(2));
+        assertArrayEquals(new String[] {":authority", "www.example.com"}, headers.get(3));
+        
+        block = hex("8286 84be 5886 a8eb 1064 9cbf");
+        headers = decoder.decode(block, 0, block.length);
+        assertEquals(5, headers.size());
+        assertArrayEquals(new String[] {":authority", "www.example.com"}, headers.get(3));
+        assertArrayEquals(new String[] {"cache-control", "no-cache"}, headers.get(4));
+    }
+    
+    @Test
+    public void testHuffmanEncoding() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HpackHuffman.encode("www.example.com".getBytes("ISO-8859-1"), out);
+        assertArrayEquals(hex("f1e3 c2e5 f23a 6ba0 ab90 f4ff"), out.toByteArray());
+        
+        byte[] all = new byte[256];
+        for (int x = 0; x < all.length; x++) {
+            all[x] = (byte)x;
+        }
+        out.reset();
+        HpackHuffman.encode(all, out);
+        assertEquals(HpackHuffman.encodedLength(all), out.size());
+        assertArrayEquals(all, HpackHuffman.decode(out.toByteArray(), 0, out.size()));
+    }
+    
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<String[]> headers = new ArrayList<String[]>();
+        headers.add(new String[] {":method", "POST"});
+        headers.add(new String[] {":path", "/SoapContext/SoapPort?wsdl"});
+        headers.add(new String[] {"content-type", "text/xml; charset=UTF-8"});
+        headers.add(new String[] {"soapaction", "\"\""});
+        headers.add(new String[] {"x-long", new String(new char[300]).replace('\0', 'x')});
+        byte[] block = Hpack.encode(headers);
+        List<String[]> decoded = new Hpack.Decoder(4096).decode(block, 0, block.length);
+        assertEquals(headers.size(), decoded.size());
+        for (int x = 0; x < headers.size(); x++) {
+            assertArrayEquals(headers.get(x), decoded.get(x));
+        }
+        //fully indexed static entry
+        assertEquals((byte)0x83, block[0]);
+    }
+}
@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.h2.Http2ConduitFactory.UseHttp2Policy;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class Http2ConduitTest extends Assert {
+    private static Bus bus;
+    
+    private Http2TestServer server;
+    private Http2ConduitFactory factory;
+    
+    @BeforeClass
+    public static void createBus() {
+        bus = BusFactory.newInstance().createBus();
+    }
+    
+    @AfterClass
+    public static void shutdownBus() {
+        bus.shutdown(true);
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        if (factory != null) {
+            factory.shutdown();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+    
+    private HTTPConduit createConduit(UseHttp2Policy policy, int maxPerHost) throws Exception {
+        Map<String, Object> props = new HashMap<String, Object>();
+        props.put(Http2ConduitFactory.USE_POLICY, policy);
+        props.put(Http2ConduitFactory.MAX_PER_HOST_CONNECTIONS, maxPerHost);
+        factory = new Http2ConduitFactory(props);
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://localhost:" + (server == null ? 9 : server.getPort()) + "/echo");
+        HTTPConduit conduit = factory.createConduit(bus, ei, null);
+        conduit.finalizeConfig();
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                Exchange ex = message.getExchange();
+                synchronized (ex) {
+                    ex.setInMessage(message);
+                    ex.notifyAll();
+                }
+            }
+        });
+        return conduit;
+    }
+    
+    private static Message createMessage(String method) {
+        Message m = new MessageImpl();
+        Exchange ex = new ExchangeImpl();
+        m.setExchange(ex);
+        ex.setOutMessage(m);
+        ex.put(Bus.class, bus);
+        m.put(Message.CONTENT_TYPE, "text/plain");
+        m.put(Message.HTTP_REQUEST_METHOD, method);
+        return m;
+    }
+    
+    private static Message invoke(HTTPConduit conduit, Message m, String body) throws Exception {
+        conduit.prepare(m);
+        OutputStream os = m.getContent(OutputStream.class);
+        if (body != null) {
+            os.write(body.getBytes("UTF-8"));
+        }
+        os.close();
+        Exchange ex = m.getExchange();
+        synchronized (ex) {
+            long end = System.currentTimeMillis() + 30000;
+            while (ex.getInMessage() == null && System.currentTimeMillis() < end) {
+                ex.wait(1000);
+            }
+        }
+        assertNotNull("No response", ex.getInMessage());
+        return ex.getInMessage();
+    }
+    
+    private static String invoke(HTTPConduit conduit, String body) throws Exception {
+        Message in = invoke(conduit, createMessage("POST"), body);
+        return IOUtils.toString(in.getContent(InputStream.class), "UTF-8");
+    }
+    
+    @Test
+    public void testPost() throws Exception {
+        server = new Http2TestServer(100, 0);
+        HTTPConduit conduit = createConduit(UseHttp2Policy.ALWAYS, 4);
+        Message m = createMessage("POST");
+        Message in = invoke(conduit, m, "<hello/>");
+        assertEquals(Boolean.TRUE, m.get(Http2Conduit.USE_HTTP2));
+        assertEquals(200, in.get(Message.RESPONSE_CODE));
+        assertEquals("text/plain", in.get(Message.CONTENT_TYPE));
+        assertEquals("<hello/>", IOUtils.toString(in.getContent(InputStream.class), "UTF-8"));
+    }
+    
+    @Test
+    public void testGet() throws Exception {
+        server = new Http2TestServer(100, 0);
+        HTTPConduit conduit = createConduit(UseHttp2Policy.ALWAYS, 4);
+        Message in = invoke(conduit, createMessage("GET"), null);
+        assertEquals(200, in.get(Message.RESPONSE_CODE));
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> headers = (Map<String, List<String>>)in.get(Message.PROTOCOL_HEADERS);
+        assertEquals(Arrays.asList("GET"), headers.get("x-method"));
+    }
+    
+    @Test
+    public void testLargeBodyIsFlowControlled() throws Exception {
+        //four times the default window the server advertises
+        server = new Http2TestServer(100, 0);
+        HTTPConduit conduit = createConduit(UseHttp2Policy.ALWAYS, 4);
+        StringBuilder b = new StringBuilder();
+        while (b.length() < 4 * 65535) {
+            b.append("0123456789abcdef");
+        }
+        assertEquals(b.toString(), invoke(conduit, b.toString()));
+        assertEquals(b.toString(), invoke(conduit, b.toString()));
+        assertEquals(1, server.getConnectionCount());
+    }
+    
+    @Test
+    public void testConcurrentRequestsShareConnection() throws Exception {
+        server = new Http2TestServer(1000, 20);
+        List<String> results = invokeConcurrently(createConduit(UseHttp2Policy.ALWAYS, 4), 200);
+        for (int x = 0; x < results.size(); x++) {
+            assertEquals("request " + x, results.get(x));
+        }
+        assertEquals(1, server.getConnectionCount());
+    }
+    
+    @Test
+    public void testMaxConcurrentStreams() throws Exception {
+        //5 streams per connection, 2 connections, the rest has to wait for a slot
+        server = new Http2TestServer(5, 50);
+        List<String> results = invokeConcurrently(createConduit(UseHttp2Policy.ALWAYS, 2), 40);
+        for (int x = 0; x < results.size(); x++) {
+            assertEquals("request " + x, results.get(x));
+        }
+        assertEquals(2, server.getConnectionCount());
+    }
+    
+    private static List<String> invokeConcurrently(final HTTPConduit conduit, int count) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int x = 0; x < count; x++) {
+                final String body = "request " + x;
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        start.await();
+                        return invoke(conduit, body);
+                    }
+                }));
+            }
+            start.countDown();
+            List<String> results = new ArrayList<String>();
+            for (Future<String> f : futures) {
+                results.add(f.get(60, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testAsync() throws Exception {
+        server = new Http2TestServer(100, 100);
+        HTTPConduit conduit = createConduit(UseHttp2Policy.ALWAYS, 4);
+        Message m = createMessage("POST");
+        m.getExchange().setSynchronous(false);
+        Message in = invoke(conduit, m, "async");
+        assertEquals("async", IOUtils.toString(in.getContent(InputStream.class), "UTF-8"));
+    }
+    
+    @Test
+    public void testPolicyFallsBackToHttp11() throws Exception {
+        HTTPConduit conduit = createConduit(UseHttp2Policy.TLS_ONLY, 4);
+        Message m = createMessage("POST");
+        conduit.prepare(m);
+        assertEquals(Boolean.FALSE, m.get(Http2Conduit.USE_HTTP2));
+        
+        conduit = createConduit(UseHttp2Policy.NEVER, 4);
+        m = createMessage("POST");
+        conduit.prepare(m);
+        assertEquals(Boolean.FALSE, m.get(Http2Conduit.USE_HTTP2));
+        
+        //the message can override the factory
+        conduit = createConduit(UseHttp2Policy.ALWAYS, 4);
+        m = createMessage("POST");
+        m.put(Http2Conduit.USE_HTTP2, Boolean.FALSE);
+        conduit.prepare(m);
+        assertEquals(Boolean.FALSE, m.get(Http2Conduit.USE_HTTP2));
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.h2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.transport.http.h2.Http2Frames.Frame;
+
+/**
+ * A minimal h2c (prior knowledge) server echoing the request body and its
+ * content type, built on the codec of the conduit.
+ */
+public class Http2TestServer implements Runnable {
+    private final ServerSocket serverSocket;
+    private final int maxConcurrentStreams;
+    private final long delay;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Socket> sockets = new ArrayList<Socket>();
+    
+    public Http2TestServer(int maxConcurrentStreams, long delay) throws IOException {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.delay = delay;
+        serverSocket = new ServerSocket(0, 1000, InetAddress.getByName("localhost"));
+        Thread t = new Thread(this, "h2-test-server");
+        t.setDaemon(true);
+        t.start();
+    }
+    
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public int getConnectionCount() {
+        return connections.get();
+    }
+    
+    public void stop() throws IOException {
+        serverSocket.close();
+        synchronized (sockets) {
+            for (Socket s : sockets) {
+                s.close();
+            }
+        }
+        executor.shutdownNow();
+    }
+    
+    public void run() {
+        try {
+            while (true) {
+                final Socket s = serverSocket.accept();
+                connections.incrementAndGet();
+                synchronized (sockets) {
+                    sockets.add(s);
+                }
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            new ServerConnection(s).serve();
+                        } catch (IOException ex) {
+                            //connection closed
+                        }
+                    }
+                });
+            }
+        } catch (IOException ex) {
+            //stopped
+        }
+    }
+    
+    private final class ServerConnection {
+        final Socket socket;
+        final InputStream in;
+        final OutputStream out;
+        final Hpack.Decoder decoder = new Hpack.Decoder(4096);
+        final Map<Integer, List<String[]>> headers = new HashMap<Integer, List<String[]>>();
+        final Map<Integer, ByteArrayOutputStream> bodies = new HashMap<Integer, ByteArrayOutputStream>();
+        
+        ServerConnection(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+        
+        void serve() throws IOException {
+            byte[] preface = new byte[Http2Frames.PREFACE.length];
+            for (int x = 0; x < preface.length; x++) {
+                preface[x] = (byte)in.read();
+            }
+            synchronized (out) {
+                Http2Frames.writeSettings(out, Http2Frames.SETTINGS_MAX_CONCURRENT_STREAMS, 
+                                          maxConcurrentStreams);
+                out.flush();
+            }
+            ByteArrayOutputStream block = null;
+            int blockStream = 0;
+            boolean blockEnd = false;
+            while (true) {
+                Frame f = Http2Frames.read(in, Http2Frames.DEFAULT_MAX_FRAME_SIZE);
+                if (f == null) {
+                    socket.close();
+                    return;
+                }
+                switch (f.type) {
+                case Http2Frames.SETTINGS:
+                    if (!f.hasFlag(Http2Frames.FLAG_ACK)) {
+                        synchronized (out) {
+                            Http2Frames.writeHeader(out, 0, Http2Frames.SETTINGS, Http2Frames.FLAG_ACK, 0);
+                            out.flush();
+                        }
+                    }
+                    break;
+                case Http2Frames.HEADERS: {
+                    int[] range = Http2Frames.unpad(f);
+                    block = new ByteArrayOutputStream();
+                    block.write(f.payload, range[0], range[1]);
+                    blockStream = f.streamId;
+                    blockEnd = f.hasFlag(Http2Frames.FLAG_END_STREAM);
+                    if (f.hasFlag(Http2Frames.FLAG_END_HEADERS)) {
+                        onHeaders(blockStream, block.toByteArray(), blockEnd);
+                    }
+                    break;
+                }
+                case Http2Frames.CONTINUATION:
+                    block.write(f.payload, 0, f.payload.length);
+                    if (f.hasFlag(Http2Frames.FLAG_END_HEADERS)) {
+                        onHeaders(blockStream, block.toByteArray(), blockEnd);
+                    }
+                    break;
+                case Http2Frames.DATA: {
+                    int[] range = Http2Frames.unpad(f);
+                    ByteArrayOutputStream body = bodies.get(f.streamId);
+                    body.write(f.payload, range[0], range[1]);
+                    if (f.payload.length > 0) {
+                        synchronized (out) {
+                            Http2Frames.writeWindowUpdate(out, 0, f.payload.length);
+                            Http2Frames.writeWindowUpdate(out, f.streamId, f.payload.length);
+                            out.flush();
+                        }
+                    }
+                    if (f.hasFlag(Http2Frames.FLAG_END_STREAM)) {
+                        respond(f.streamId);
+                    }
+                    break;
+                }
+                case Http2Frames.RST_STREAM:
+                    headers.remove(f.streamId);
+                    bodies.remove(f.streamId);
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+        
+        void onHeaders(int streamId, byte[] block, boolean end) throws IOException {
+            headers.put(streamId, decoder.decode(block, 0, block.length));
+            bodies.put(streamId, new ByteArrayOutputStream());
+            if (end) {
+                respond(streamId);
+            }
+        }
+        
+        void respond(final int streamId) {
+            final List<String[]> request = headers.remove(streamId);
+            final byte[] body = bodies.remove(streamId).toByteArray();
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (delay > 0) {
+                            Thread.sleep(delay);
+                        }
+                        List<String[]> response = new ArrayList<String[]>();
+                        response.add(new String[] {":status", "200"});
+                        for (String[] h : request) {
+                            if ("content-type".equals(h[0])) {
+                                response.add(h);
+                            } else if (":method".equals(h[0])) {
+                                response.add(new String[] {"x-method", h[1]});
+                            }
+                        }
+                        response.add(new String[] {"content-length", Integer.toString(body.length)});
+                        byte[] block = Hpack.encode(response);
+                        synchronized (out) {
+                            Http2Frames.writeHeaders(out, streamId, block, body.length == 0, 
+                                                     Http2Frames.DEFAULT_MAX_FRAME_SIZE);
+                            //the client advertises a larger window than our test bodies
+                            for (int off = 0; off < body.length; off += Http2Frames.DEFAULT_MAX_FRAME_SIZE) {
+                                int len = Math.min(Http2Frames.DEFAULT_MAX_FRAME_SIZE, body.length - off);
+                                Http2Frames.writeHeader(out, len, Http2Frames.DATA, 
+                                                        off + len == body.length ? Http2Frames.FLAG_END_STREAM : 0,
+                                                        streamId);
+                                out.write(body, off, len);
+                            }
+                            out.flush();
+                        }
+                    } catch (Exception ex) {
+                        //connection gone
+                    }
+                }
+            });
+        }
+    }
+}
@@ -351,10 +351,26 @@ public class AsyncHTTPConduit extends URLConnectionHTTPConduit {
                     thresholdReached();
                     unBuffer();
                 }
+                if (!src.hasRemaining()) {
+                    //all buffered, nothing is connected yet
+                    return total;
+                }
             }
             if (cachingForRetransmission) {
-                wrappedStream.write(src.array(), src.position(), src.remaining());
-                return src.remaining() + total;
+                int len = src.remaining();
+                if (src.hasArray()) {
+                    wrappedStream.write(src.array(), src.arrayOffset() + src.position(), len);
+                    src.position(src.limit());
+                } else {
+                    //direct buffers, FileChannel.transferTo hands those over
+                    byte[] bytes = new byte[Math.min(len, 8192)];
+                    while (src.hasRemaining()) {
+                        int n = Math.min(src.remaining(), bytes.length);
+                        src.get(bytes, 0, n);
+                        wrappedStream.write(bytes, 0, n);
+                    }
+                }
+                return len + total;
             }
             return outbuf.write(src) + total;
         }
@@ -19,7 +19,11 @@
 
 package org.apache.cxf.transport.http.asyncclient;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -33,9 +37,17 @@ import org.apache.cxf.BusFactory;
 import org.apache.cxf.continuations.Continuation;
 import org.apache.cxf.continuations.ContinuationProvider;
 import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.testutil.common.AbstractBusClientServerTestBase;
+import org.apache.cxf.transport.MessageObserver;
 import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPConduitFactory;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.apache.hello_world_soap_http.Greeter;
 import org.apache.hello_world_soap_http.SOAPService;
@@ -167,6 +179,80 @@ public class AsyncHTTPConduitTest extends AbstractBusClientServerTestBase {
         c.setClient(cp);
         assertEquals("Hello " + request, g.greetMe(request));
     }
+    @Test
+    public void testWriteDirectBufferWhileCaching() throws Exception {
+        // larger than the chunking threshold so a part goes past the threshold buffer
+        StringBuilder builder = new StringBuilder();
+        for (int x = 0; x < 1000; x++) {
+            builder.append("direct ");
+        }
+        String text = builder.toString().trim();
+        assertEquals("Hello " + text, writeRequest(text, true));
+        // fits into the threshold buffer
+        assertEquals("Hello direct", writeRequest("direct", true));
+        assertEquals("Hello heap", writeRequest("heap", false));
+    }
+
+    private String writeRequest(String text, boolean direct) throws Exception {
+        EndpointInfo ei = new EndpointInfo();
+        ei.setAddress("http://localhost:" + PORT + "/SoapContext/SoapPort");
+        AsyncHTTPConduitFactory factory =
+            (AsyncHTTPConduitFactory)getStaticBus().getExtension(HTTPConduitFactory.class);
+        HTTPConduit conduit = factory.createConduit(getStaticBus(), ei, null);
+        conduit.finalizeConfig();
+        // the request is cached for retransmission when redirects are followed
+        HTTPClientPolicy cp = new HTTPClientPolicy();
+        cp.setAutoRedirect(true);
+        conduit.setClient(cp);
+        conduit.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                Exchange ex = message.getExchange();
+                synchronized (ex) {
+                    ex.setInMessage(message);
+                    ex.notifyAll();
+                }
+            }
+        });
+
+        Message m = new MessageImpl();
+        Exchange ex = new ExchangeImpl();
+        m.setExchange(ex);
+        ex.setOutMessage(m);
+        ex.put(Bus.class, getStaticBus());
+        m.put(Message.CONTENT_TYPE, "text/xml");
+        conduit.prepare(m);
+        OutputStream os = m.getContent(OutputStream.class);
+        assertTrue(os instanceof AsyncHTTPConduit.AsyncWrappedOutputStream);
+
+        byte[] bytes = ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<greetMe xmlns=\"http://apache.org/hello_world_soap_http/types\"><requestType>" + text
+            + "</requestType></greetMe></soap:Body></soap:Envelope>").getBytes("UTF-8");
+        ByteBuffer src = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        src.put(bytes);
+        src.flip();
+        assertEquals(bytes.length, ((WritableByteChannel)os).write(src));
+        assertFalse(src.hasRemaining());
+        if (bytes.length > cp.getChunkingThreshold()) {
+            // past the threshold the request goes through the retransmission cache, it is
+            // checked before the close as the cache is dropped once the response is handled
+            assertTrue(((AsyncHTTPConduit.AsyncWrappedOutputStream)os).retransmitable());
+        }
+        os.close();
+
+        synchronized (ex) {
+            long end = System.currentTimeMillis() + 30000;
+            while (ex.getInMessage() == null && System.currentTimeMillis() < end) {
+                ex.wait(1000);
+            }
+        }
+        assertNotNull("No response", ex.getInMessage());
+        String response = IOUtils.toString(ex.getInMessage().getContent(InputStream.class), "UTF-8");
+        conduit.close();
+        int start = response.indexOf("<responseType>");
+        assertTrue(response, start != -1);
+        return response.substring(start + 14, response.indexOf("</responseType>"));
+    }
+
     @Test
     public void testCallAsync() throws Exception {
         updateAddressPort(g, PORT);
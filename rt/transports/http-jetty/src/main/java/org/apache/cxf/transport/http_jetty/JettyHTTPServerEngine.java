@@ -36,6 +36,7 @@ import org.apache.cxf.configuration.jsse.TLSServerParameters;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.transport.HttpUriMapper;
 import org.apache.cxf.transport.https_jetty.JettySslConnectorFactory;
+import org.eclipse.jetty.io.nio.SelectorManager;
 import org.eclipse.jetty.security.SecurityHandler;
 import org.eclipse.jetty.server.AbstractConnector;
 import org.eclipse.jetty.server.Connector;
@@ -52,7 +53,9 @@ import org.eclipse.jetty.server.session.HashSessionIdManager;
 import org.eclipse.jetty.server.session.HashSessionManager;
 import org.eclipse.jetty.server.session.SessionHandler;
 import org.eclipse.jetty.server.ssl.SslConnector;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.Container;
+import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
 
@@ -449,6 +452,18 @@ public class JettyHTTPServerEngine
         ++servantCount;
     }
     
+    private static void setupSelectors(SelectChannelConnector scc, final int selectors) {
+        //Jetty sizes the select sets from the acceptors when the connector
+        //starts, so override that once the selector manager itself starts
+        final SelectorManager manager = scc.getSelectorManager();
+        manager.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener() {
+            @Override
+            public void lifeCycleStarting(LifeCycle event) {
+                manager.setSelectSets(selectors);
+            }
+        });
+    }
+    
     protected void setupThreadPool() {
         AbstractConnector aconn = (AbstractConnector) connector;
         if (isSetThreadingParameters()) {
@@ -461,9 +476,19 @@ public class JettyHTTPServerEngine
                 aconn.getServer().setThreadPool(pool);
                 aconn.setThreadPool(pool);
             }
+            int selectors = aconn.getAcceptors();
+            if (getThreadingParameters().isSetAcceptorThreads()) {
+                aconn.setAcceptors(getThreadingParameters().getAcceptorThreads());
+                selectors = aconn.getAcceptors();
+            }
+            if (getThreadingParameters().isSetSelectorThreads()
+                && aconn instanceof SelectChannelConnector) {
+                selectors = getThreadingParameters().getSelectorThreads();
+                setupSelectors((SelectChannelConnector)aconn, selectors);
+            }
             //threads for the acceptors and selectors are taken from 
             //the pool so we need to have room for those
-            int acc = aconn.getAcceptors() * 2;
+            int acc = aconn.getAcceptors() + selectors;
             if (getThreadingParameters().isSetMaxThreads()
                 && getThreadingParameters().getMaxThreads() <= acc) {
                 throw new Fault(new Message("NOT_ENOUGH_THREADS", LOG,
@@ -26,8 +26,12 @@ public class ThreadingParameters {
 
     private int minThreads;
     private int maxThreads;
+    private int acceptorThreads;
+    private int selectorThreads;
     private boolean minThreadsSet;
     private boolean maxThreadsSet;
+    private boolean acceptorThreadsSet;
+    private boolean selectorThreadsSet;
     
     public void setMinThreads(int number) {
         minThreadsSet = true;
@@ -39,6 +43,23 @@ public class ThreadingParameters {
         maxThreads = number;
     }
     
+    /**
+     * The number of threads accepting connections, taken from the pool.
+     */
+    public void setAcceptorThreads(int number) {
+        acceptorThreadsSet = true;
+        acceptorThreads = number;
+    }
+    
+    /**
+     * The number of threads selecting on the open connections, taken from
+     * the pool.  Jetty otherwise uses as many selectors as acceptors.
+     */
+    public void setSelectorThreads(int number) {
+        selectorThreadsSet = true;
+        selectorThreads = number;
+    }
+    
     public int getMinThreads() {
         return minThreads;
     }
@@ -47,6 +68,14 @@ public class ThreadingParameters {
         return maxThreads;
     }
     
+    public int getAcceptorThreads() {
+        return acceptorThreads;
+    }
+    
+    public int getSelectorThreads() {
+        return selectorThreads;
+    }
+    
     public boolean isSetMaxThreads() {
         return maxThreadsSet;
     }
@@ -54,4 +83,12 @@ public class ThreadingParameters {
     public boolean isSetMinThreads() {
         return minThreadsSet;
     }
+    
+    public boolean isSetAcceptorThreads() {
+        return acceptorThreadsSet;
+    }
+    
+    public boolean isSetSelectorThreads() {
+        return selectorThreadsSet;
+    }
 }
@@ -85,6 +85,12 @@ public class JettyHTTPServerEngineFactoryHolder {
                     String id = threads.getId();
                     rThreads.setMaxThreads(threads.getThreadingParameters().getMaxThreads());
                     rThreads.setMinThreads(threads.getThreadingParameters().getMinThreads());
+                    if (threads.getThreadingParameters().getAcceptorThreads() != null) {
+                        rThreads.setAcceptorThreads(threads.getThreadingParameters().getAcceptorThreads());
+                    }
+                    if (threads.getThreadingParameters().getSelectorThreads() != null) {
+                        rThreads.setSelectorThreads(threads.getThreadingParameters().getSelectorThreads());
+                    }
                     threadingParametersMap.put(id, rThreads);
                 }
 
@@ -138,6 +144,12 @@ public class JettyHTTPServerEngineFactoryHolder {
                     ThreadingParameters rThreads = new ThreadingParameters();
                     rThreads.setMaxThreads(threads.getMaxThreads());
                     rThreads.setMinThreads(threads.getMinThreads());
+                    if (threads.getAcceptorThreads() != null) {
+                        rThreads.setAcceptorThreads(threads.getAcceptorThreads());
+                    }
+                    if (threads.getSelectorThreads() != null) {
+                        rThreads.setSelectorThreads(threads.getSelectorThreads());
+                    }
 
                     eng.setThreadingParameters(rThreads);
                 }
@@ -161,6 +161,10 @@ public class HTTPJettyTransportActivator
                     p.setMinThreads(Integer.parseInt(v));
                 } else if ("maxThreads".equals(k)) {
                     p.setMaxThreads(Integer.parseInt(v));
+                } else if ("acceptorThreads".equals(k)) {
+                    p.setAcceptorThreads(Integer.parseInt(v));
+                } else if ("selectorThreads".equals(k)) {
+                    p.setSelectorThreads(Integer.parseInt(v));
                 }
             }
         }
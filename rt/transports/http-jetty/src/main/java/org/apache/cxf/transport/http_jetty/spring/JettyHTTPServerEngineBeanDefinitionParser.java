@@ -226,6 +226,12 @@ public class JettyHTTPServerEngineBeanDefinitionParser extends AbstractBeanDefin
         if (paramtype.getMinThreads() != null) {
             params.setMinThreads(paramtype.getMinThreads());
         }
+        if (paramtype.getAcceptorThreads() != null) {
+            params.setAcceptorThreads(paramtype.getAcceptorThreads());
+        }
+        if (paramtype.getSelectorThreads() != null) {
+            params.setSelectorThreads(paramtype.getSelectorThreads());
+        }
         return params;
     }
     
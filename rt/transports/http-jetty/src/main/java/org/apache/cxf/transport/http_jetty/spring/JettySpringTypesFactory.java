@@ -62,6 +62,12 @@ public final class JettySpringTypesFactory {
         ThreadingParameters params = new ThreadingParameters();
         params.setMaxThreads(paramtype.getMaxThreads());
         params.setMinThreads(paramtype.getMinThreads());
+        if (paramtype.getAcceptorThreads() != null) {
+            params.setAcceptorThreads(paramtype.getAcceptorThreads());
+        }
+        if (paramtype.getSelectorThreads() != null) {
+            params.setSelectorThreads(paramtype.getSelectorThreads());
+        }
         return params;
     }
         
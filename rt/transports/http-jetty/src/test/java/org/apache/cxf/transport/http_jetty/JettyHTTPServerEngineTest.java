@@ -211,6 +211,28 @@ public class JettyHTTPServerEngineTest extends Assert {
 
     }
     
+    @Test
+    public void testAcceptorAndSelectorThreads() throws Exception {
+        String urlStr = "http://localhost:" + PORT1 + "/hello/test";
+        JettyHTTPServerEngine engine =
+            factory.createJettyHTTPServerEngine(PORT1, "http");
+        ThreadingParameters tp = new ThreadingParameters();
+        tp.setMaxThreads(20);
+        tp.setAcceptorThreads(1);
+        tp.setSelectorThreads(3);
+        engine.setThreadingParameters(tp);
+        JettyHTTPTestHandler handler = new JettyHTTPTestHandler("string1", true);
+        engine.addServant(new URL(urlStr), handler);
+        
+        SelectChannelConnector conn = (SelectChannelConnector)engine.getConnector();
+        assertEquals(1, conn.getAcceptors());
+        assertEquals(3, conn.getSelectorManager().getSelectSets());
+        assertEquals("The jetty http handler did not take effect", "string1", getResponse(urlStr));
+        
+        engine.removeServant(new URL(urlStr));
+        JettyHTTPServerEngineFactory.destroyForPort(PORT1);
+    }
+    
     /**
      * Test that multiple JettyHTTPServerEngine instances can be used simultaneously
      * without having name collisions.
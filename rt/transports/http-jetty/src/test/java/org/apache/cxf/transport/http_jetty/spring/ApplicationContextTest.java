@@ -135,6 +135,8 @@ public class ApplicationContextTest extends Assert {
         assertFalse(engine.getSendServerVersion());
         assertEquals(99, engine.getThreadingParameters().getMinThreads());
         assertEquals(777, engine.getThreadingParameters().getMaxThreads());
+        assertEquals(2, engine.getThreadingParameters().getAcceptorThreads());
+        assertEquals(4, engine.getThreadingParameters().getSelectorThreads());
         assertTrue("The engine should support session manager", engine.isSessionSupport());
         assertNotNull("The handlers should not be null", engine.getHandlers());
         assertEquals(1, engine.getHandlers().size());
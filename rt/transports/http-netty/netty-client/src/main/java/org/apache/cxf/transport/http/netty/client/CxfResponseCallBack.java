@@ -24,4 +24,9 @@ import io.netty.handler.codec.http.HttpResponse;
 public interface CxfResponseCallBack {
 
     void responseReceived(HttpResponse response);
+    
+    /**
+     * Called if the connection is closed before the response is received
+     */
+    void error(Throwable ex);
 }
@@ -0,0 +1,422 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * Keeps the connections opened by the Netty HTTP conduits alive so they can be 
+ * reused by the next requests sent to the same host, port and TLS client parameters. 
+ * The number of connections per host is limited, the requests wait for a connection 
+ * to be released once the limit is reached. The idle connections are closed after 
+ * the idle timeout, the connections closed by the peer are dropped from the pool.
+ */
+public class NettyHttpClientChannelPool {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 100;
+    public static final long DEFAULT_IDLE_TIMEOUT = 60000L;
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(NettyHttpClientChannelPool.class);
+    
+    /**
+     * Receives the channel once it is available
+     */
+    public interface AcquireListener {
+        /**
+         * @return false if the channel is not needed anymore, it is released then
+         */
+        boolean channelAcquired(Channel channel);
+        
+        void acquireFailed(Throwable cause);
+    }
+    
+    private final EventLoopGroup group;
+    private final int maxConnectionsPerHost;
+    private final long idleTimeout;
+    private final ConcurrentMap<Key, HostPool> pools = new ConcurrentHashMap<Key, HostPool>();
+    private final ConcurrentMap<Channel, HostPool> owners = new ConcurrentHashMap<Channel, HostPool>();
+    private final ScheduledFuture<?> evictor;
+    private volatile boolean closed;
+    
+    public NettyHttpClientChannelPool(EventLoopGroup group) {
+        this(group, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT);
+    }
+    
+    public NettyHttpClientChannelPool(EventLoopGroup group, int maxConnectionsPerHost, long idleTimeout) {
+        this.group = group;
+        this.maxConnectionsPerHost = maxConnectionsPerHost > 0 ? maxConnectionsPerHost : Integer.MAX_VALUE;
+        this.idleTimeout = idleTimeout;
+        if (idleTimeout > 0) {
+            long period = Math.max(1000L, idleTimeout / 2);
+            evictor = group.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    evictIdleChannels();
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+    
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+    
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    /**
+     * Hands an idle connection to the listener or opens a new one if the limit 
+     * for the host has not been reached yet, otherwise the listener is called once
+     * one of the connections to the host is released.
+     */
+    public void acquire(String host, int port, TLSClientParameters tlsClientParameters, 
+                        int connectionTimeout, AcquireListener listener) {
+        if (closed) {
+            listener.acquireFailed(new IOException("The connection pool has been closed"));
+            return;
+        }
+        HostPool pool = getHostPool(new Key(host, port, tlsClientParameters));
+        Channel channel = null;
+        boolean connect = false;
+        List<Channel> broken = null;
+        synchronized (pool) {
+            while (channel == null && !pool.idle.isEmpty()) {
+                Channel ch = pool.idle.pollFirst().channel;
+                if (ch.isActive()) {
+                    channel = ch;
+                } else {
+                    if (broken == null) {
+                        broken = new ArrayList<Channel>(1);
+                    }
+                    broken.add(ch);
+                }
+            }
+            if (channel == null) {
+                if (pool.open < maxConnectionsPerHost) {
+                    pool.open++;
+                    connect = true;
+                } else {
+                    pool.waiters.add(new Waiter(listener, connectionTimeout));
+                }
+            }
+        }
+        closeAll(broken);
+        if (channel != null) {
+            deliver(channel, listener);
+        } else if (connect) {
+            connect(pool, connectionTimeout, listener);
+        }
+    }
+    
+    /**
+     * Removes the listener from the requests waiting for a connection, it is called 
+     * once the request has given up, e.g. after the connection timeout elapsed.
+     * @return true if the listener was still waiting for a connection
+     */
+    public boolean cancel(AcquireListener listener) {
+        for (HostPool pool : pools.values()) {
+            synchronized (pool) {
+                for (Iterator<Waiter> it = pool.waiters.iterator(); it.hasNext();) {
+                    if (it.next().listener == listener) {
+                        it.remove();
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the channel to the pool, it is closed instead if it can not be reused
+     */
+    public void release(Channel channel, boolean reusable) {
+        HostPool pool = owners.get(channel);
+        if (pool == null || !reusable || closed || !channel.isActive()) {
+            channel.close();
+            return;
+        }
+        Waiter waiter;
+        synchronized (pool) {
+            waiter = pool.waiters.poll();
+            if (waiter == null) {
+                pool.idle.addFirst(new IdleChannel(channel));
+            }
+        }
+        if (waiter != null) {
+            deliver(channel, waiter.listener);
+        }
+    }
+    
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.cancel(false);
+        }
+        List<Waiter> waiters = new ArrayList<Waiter>();
+        for (HostPool pool : pools.values()) {
+            synchronized (pool) {
+                waiters.addAll(pool.waiters);
+                pool.waiters.clear();
+                pool.idle.clear();
+            }
+        }
+        for (Channel ch : owners.keySet()) {
+            ch.close();
+        }
+        for (Waiter w : waiters) {
+            w.listener.acquireFailed(new IOException("The connection pool has been closed"));
+        }
+    }
+    
+    int getOpenConnections(String host, int port, TLSClientParameters tlsClientParameters) {
+        HostPool pool = pools.get(new Key(host, port, tlsClientParameters));
+        if (pool == null) {
+            return 0;
+        }
+        synchronized (pool) {
+            return pool.open;
+        }
+    }
+    
+    int getIdleConnections(String host, int port, TLSClientParameters tlsClientParameters) {
+        HostPool pool = pools.get(new Key(host, port, tlsClientParameters));
+        if (pool == null) {
+            return 0;
+        }
+        synchronized (pool) {
+            return pool.idle.size();
+        }
+    }
+    
+    int getWaiters(String host, int port, TLSClientParameters tlsClientParameters) {
+        HostPool pool = pools.get(new Key(host, port, tlsClientParameters));
+        if (pool == null) {
+            return 0;
+        }
+        synchronized (pool) {
+            return pool.waiters.size();
+        }
+    }
+    
+    private HostPool getHostPool(Key key) {
+        HostPool pool = pools.get(key);
+        if (pool == null) {
+            Bootstrap bootstrap = new Bootstrap();
+            bootstrap.group(group);
+            bootstrap.channel(NioSocketChannel.class);
+            bootstrap.handler(new NettyHttpClientPipelineFactory(key.tlsClientParameters));
+            pool = new HostPool(key, bootstrap);
+            HostPool existing = pools.putIfAbsent(key, pool);
+            if (existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
+    }
+    
+    private void connect(final HostPool pool, int connectionTimeout, final AcquireListener listener) {
+        Bootstrap bootstrap = pool.bootstrap.clone();
+        if (connectionTimeout > 0) {
+            bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeout);
+        }
+        ChannelFuture connFuture = 
+            bootstrap.connect(new InetSocketAddress(pool.key.host, pool.key.port));
+        connFuture.addListener(new ChannelFutureListener() {
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (future.isSuccess()) {
+                    final Channel channel = future.channel();
+                    owners.put(channel, pool);
+                    channel.closeFuture().addListener(new ChannelFutureListener() {
+                        public void operationComplete(ChannelFuture f) throws Exception {
+                            channelClosed(pool, channel);
+                        }
+                    });
+                    deliver(channel, listener);
+                } else {
+                    synchronized (pool) {
+                        pool.open--;
+                    }
+                    listener.acquireFailed(future.cause());
+                    connectWaiter(pool);
+                }
+            }
+        });
+    }
+    
+    private void channelClosed(HostPool pool, Channel channel) {
+        owners.remove(channel);
+        synchronized (pool) {
+            pool.open--;
+            for (Iterator<IdleChannel> it = pool.idle.iterator(); it.hasNext();) {
+                if (it.next().channel == channel) {
+                    it.remove();
+                    break;
+                }
+            }
+        }
+        connectWaiter(pool);
+    }
+    
+    private void connectWaiter(HostPool pool) {
+        Waiter waiter = null;
+        synchronized (pool) {
+            if (!closed && pool.open < maxConnectionsPerHost) {
+                waiter = pool.waiters.poll();
+                if (waiter != null) {
+                    pool.open++;
+                }
+            }
+        }
+        if (waiter != null) {
+            connect(pool, waiter.connectionTimeout, waiter.listener);
+        }
+    }
+    
+    private void deliver(Channel channel, AcquireListener listener) {
+        boolean accepted = false;
+        try {
+            accepted = listener.channelAcquired(channel);
+        } finally {
+            if (!accepted) {
+                release(channel, true);
+            }
+        }
+    }
+    
+    private void evictIdleChannels() {
+        long now = System.currentTimeMillis();
+        List<Channel> expired = null;
+        for (HostPool pool : pools.values()) {
+            synchronized (pool) {
+                while (!pool.idle.isEmpty()) {
+                    IdleChannel ic = pool.idle.peekLast();
+                    if (ic.channel.isActive() && now - ic.idleSince < idleTimeout) {
+                        break;
+                    }
+                    pool.idle.pollLast();
+                    if (expired == null) {
+                        expired = new ArrayList<Channel>();
+                    }
+                    expired.add(ic.channel);
+                }
+            }
+        }
+        if (expired != null && LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Closing " + expired.size() + " idle connections");
+        }
+        closeAll(expired);
+    }
+    
+    private static void closeAll(List<Channel> channels) {
+        if (channels != null) {
+            for (Channel ch : channels) {
+                ch.close();
+            }
+        }
+    }
+    
+    private static final class Key {
+        final String host;
+        final int port;
+        final TLSClientParameters tlsClientParameters;
+        
+        Key(String host, int port, TLSClientParameters tlsClientParameters) {
+            this.host = host;
+            this.port = port;
+            this.tlsClientParameters = tlsClientParameters;
+        }
+        
+        @Override
+        public int hashCode() {
+            return host.hashCode() * 31 + port 
+                + (tlsClientParameters == null ? 0 : System.identityHashCode(tlsClientParameters));
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return port == other.port 
+                && host.equals(other.host) 
+                && tlsClientParameters == other.tlsClientParameters;
+        }
+    }
+    
+    private static final class HostPool {
+        final Key key;
+        final Bootstrap bootstrap;
+        final Deque<IdleChannel> idle = new ArrayDeque<IdleChannel>();
+        final Queue<Waiter> waiters = new LinkedList<Waiter>();
+        int open;
+        
+        HostPool(Key key, Bootstrap bootstrap) {
+            this.key = key;
+            this.bootstrap = bootstrap;
+        }
+    }
+    
+    private static final class IdleChannel {
+        final Channel channel;
+        final long idleSince = System.currentTimeMillis();
+        
+        IdleChannel(Channel channel) {
+            this.channel = channel;
+        }
+    }
+    
+    private static final class Waiter {
+        final AcquireListener listener;
+        final int connectionTimeout;
+        
+        Waiter(AcquireListener listener, int connectionTimeout) {
+            this.listener = listener;
+            this.connectionTimeout = connectionTimeout;
+        }
+    }
+}
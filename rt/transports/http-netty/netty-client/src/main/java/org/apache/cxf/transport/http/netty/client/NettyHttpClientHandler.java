@@ -19,6 +19,7 @@
 
 package org.apache.cxf.transport.http.netty.client;
 
+import java.io.IOException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 
@@ -54,12 +55,24 @@ public class NettyHttpClientHandler extends ChannelDuplexHandler {
         if (msg instanceof NettyHttpClientRequest) {
             NettyHttpClientRequest request = (NettyHttpClientRequest)msg;
             sendedQueue.put(request);
-            ctx.writeAndFlush(request.getRequest());
+            ctx.writeAndFlush(request.getRequest(), promise);
         } else {
             super.write(ctx, msg, promise);
         }
     }
     
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // the pending requests will not get their response from this connection anymore
+        NettyHttpClientRequest request = sendedQueue.poll();
+        while (request != null) {
+            request.getCxfResponseCallback().error(
+                new IOException("The connection was closed before the response was received"));
+            request = sendedQueue.poll();
+        }
+        super.channelInactive(ctx);
+    }
+    
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
         throws Exception {
@@ -25,7 +25,6 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.net.HttpURLConnection;
-import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
@@ -55,7 +54,6 @@ import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.apache.cxf.version.Version;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
@@ -63,10 +61,8 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.ssl.SslHandler;
 
@@ -74,18 +70,13 @@ import io.netty.handler.ssl.SslHandler;
 public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLifeCycleListener {
     public static final String USE_ASYNC = "use.async.http.conduit";
     final NettyHttpConduitFactory factory;
-    private Bootstrap bootstrap;
-    // TODO do we need to use the EventLoop from NettyHttpConduitFactory
-    private final EventLoopGroup group;
+    // the pooled connections are keyed by the TLS client parameters instance
+    private final TLSClientParameters defaultTlsClientParameters = new TLSClientParameters();
     
     public NettyHttpConduit(Bus b, EndpointInfo ei, EndpointReferenceType t, NettyHttpConduitFactory conduitFactory)
         throws IOException {
         super(b, ei, t);
         factory = conduitFactory;
-        group = new NioEventLoopGroup();
-        bootstrap = new Bootstrap();
-        bootstrap.group(group);
-        bootstrap.channel(NioSocketChannel.class);
     }
     
     public NettyHttpConduitFactory getNettyHttpConduitFactory() {
@@ -93,9 +84,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
     }
     
     public void close() {
+        // the connections and the event loop group are shared, they are released by the factory
         super.close();
-        // clean up thread of the group
-        group.shutdownGracefully().syncUninterruptibly();
     }
 
     // Using Netty API directly
@@ -166,6 +156,9 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
         volatile Channel channel;
         volatile SSLSession session;
         boolean isAsync;
+        boolean connecting;
+        boolean abandoned;
+        NettyHttpClientChannelPool.AcquireListener acquireListener;
         ByteBuf outBuffer;
         OutputStream outputStream;
 
@@ -205,6 +198,8 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                         throw new IOException(exception);
                     }
 
+                    // the response may still arrive later, the connection can't be reused
+                    abandonChannel();
                     throw new SocketTimeoutException("Read Timeout");
                 }
             }
@@ -238,6 +233,11 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                         throw new IOException(exception);
                     }
 
+                    abandoned = true;
+                    // don't keep the place in the queue of the requests waiting for a connection
+                    if (acquireListener != null) {
+                        factory.getChannelPool().cancel(acquireListener);
+                    }
                     throw new SocketTimeoutException("Connection Timeout");
                 }
             }
@@ -262,6 +262,7 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                         @Override
                         public void operationComplete(ChannelFuture future) throws Exception {
                             if (!future.isSuccess()) {
+                                future.channel().close();
                                 setException(future.cause());
                             }
                         }
@@ -286,39 +287,43 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                 clientParameters = getTlsClientParameters();
             }
             if (clientParameters == null) {
-                clientParameters = new TLSClientParameters();
+                clientParameters = defaultTlsClientParameters;
             }
             return clientParameters;
         }
 
         protected void connect(boolean output) {
+            synchronized (this) {
+                // the https connection info may have already asked for the connection
+                if (connecting) {
+                    return;
+                }
+                connecting = true;
+            }
+            TLSClientParameters clientParameters = null;
+            int port = url.getPort();
             if (url.getScheme().equals("https")) {
-                TLSClientParameters clientParameters = findTLSClientParameters();
-                bootstrap.handler(new NettyHttpClientPipelineFactory(clientParameters));
-            } else {
-                bootstrap.handler(new NettyHttpClientPipelineFactory(null));
+                clientParameters = findTLSClientParameters();
+                if (port == -1) {
+                    port = 443;
+                }
+            } else if (port == -1) {
+                port = 80;
             }
-            ChannelFuture connFuture = 
-                bootstrap.connect(new InetSocketAddress(url.getHost(), url.getPort()));
-
-            // Setup the call back on the NettyHttpClientRequest
-            ChannelFutureListener listener = new ChannelFutureListener() {
-                
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (future.isSuccess()) {
-                        setChannel(future.channel());
-                        SslHandler sslHandler = channel.pipeline().get(SslHandler.class);
-                        if (sslHandler != null) {
-                            session = sslHandler.engine().getSession();
-                        }
-                    } else {
-                        setException((Exception) future.cause());
+            NettyHttpClientChannelPool.AcquireListener listener = 
+                new NettyHttpClientChannelPool.AcquireListener() {
+                    public boolean channelAcquired(Channel ch) {
+                        return setChannel(ch);
                     }
-                }
-            };
-
-            connFuture.addListener(listener);
+                    public void acquireFailed(Throwable cause) {
+                        setException(cause);
+                    }
+                };
+            synchronized (this) {
+                acquireListener = listener;
+            }
+            factory.getChannelPool().acquire(url.getHost(), port, clientParameters, 
+                                             entity.getConnectionTimeout(), listener);
 
             if (!output) {
                 entity.getRequest().headers().remove("Transfer-Encoding");
@@ -330,8 +335,15 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             CxfResponseCallBack callBack = new CxfResponseCallBack() {
                 @Override
                 public void responseReceived(HttpResponse response) {
+                    // hand the connection back before the response is processed
+                    releaseChannel(HttpHeaders.isKeepAlive(response));
                     setHttpResponse(response);
                 }
+                @Override
+                public void error(Throwable ex) {
+                    releaseChannel(false);
+                    setException(ex);
+                }
             };
             entity.setCxfResponseCallback(callBack);
 
@@ -343,6 +355,10 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
                 return null;
             }
             connect(true);
+            if (session == null && httpResponse == null) {
+                // wait for the handshake of the connection to check the session
+                getChannel();
+            }
            
             HostnameVerifier verifier = org.apache.cxf.transport.https.SSLUtils
                 .getHostnameVerifier(findTLSClientParameters());
@@ -500,9 +516,11 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             httpResponse = null;
             isAsync = false;
             exception = null;
-            if (channel != null) {
-                channel.close();
-                channel = null;
+            abandonChannel();
+            synchronized (this) {
+                connecting = false;
+                abandoned = false;
+                acquireListener = null;
             }
 
             try {
@@ -568,9 +586,32 @@ public class NettyHttpConduit extends URLConnectionHTTPConduit implements BusLif
             notifyAll();
         }
 
-        protected synchronized void setChannel(Channel ch) {
+        protected synchronized boolean setChannel(Channel ch) {
+            if (abandoned) {
+                return false;
+            }
             channel = ch;
+            SslHandler sslHandler = ch.pipeline().get(SslHandler.class);
+            if (sslHandler != null) {
+                session = sslHandler.engine().getSession();
+            }
             notifyAll();
+            return true;
+        }
+        
+        protected synchronized void releaseChannel(boolean reusable) {
+            if (channel != null) {
+                factory.getChannelPool().release(channel, reusable);
+                channel = null;
+            }
+        }
+        
+        protected synchronized void abandonChannel() {
+            abandoned = true;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
         }
     }
 
@@ -20,8 +20,13 @@
 package org.apache.cxf.transport.http.netty.client;
 
 import java.io.IOException;
+import java.util.Map;
+
+import javax.annotation.Resource;
+
 import org.apache.cxf.Bus;
 import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.http.HTTPConduit;
@@ -29,13 +34,87 @@ import org.apache.cxf.transport.http.HTTPConduitFactory;
 import org.apache.cxf.transport.http.HTTPTransportFactory;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 
-@NoJSR250Annotations
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+@NoJSR250Annotations(unlessNull = "bus")
 public class NettyHttpConduitFactory implements BusLifeCycleListener, HTTPConduitFactory {
 
+    //ConnectionPool
+    public static final String MAX_PER_HOST_CONNECTIONS 
+        = "org.apache.cxf.transport.http.netty.client.MAX_PER_HOST_CONNECTIONS";
+    public static final String CONNECTION_IDLE_TIMEOUT 
+        = "org.apache.cxf.transport.http.netty.client.CONNECTION_IDLE_TIMEOUT";
+    public static final String THREAD_COUNT = "org.apache.cxf.transport.http.netty.client.ioThreadCount";
+
     boolean isShutdown;
+    int maxPerHost = NettyHttpClientChannelPool.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    int idleTimeout = (int)NettyHttpClientChannelPool.DEFAULT_IDLE_TIMEOUT;
+    int ioThreadCount;
+    
+    private EventLoopGroup group;
+    private NettyHttpClientChannelPool channelPool;
 
     public NettyHttpConduitFactory() {
     }
+    
+    public NettyHttpConduitFactory(Map<String, Object> conf) {
+        setProperties(conf);
+    }
+    
+    public NettyHttpConduitFactory(Bus b) {
+        addListener(b);
+        setProperties(b.getProperties());
+    }
+    
+    @Resource 
+    public void setBus(Bus b) {
+        addListener(b);
+    }
+    
+    private void addListener(Bus b) {
+        BusLifeCycleManager manager = b.getExtension(BusLifeCycleManager.class);
+        if (manager != null) {
+            manager.registerLifeCycleListener(this);
+        }
+    }
+    
+    private void setProperties(Map<String, Object> s) {
+        if (s == null) {
+            return;
+        }
+        maxPerHost = getInt(s.get(MAX_PER_HOST_CONNECTIONS), maxPerHost);
+        idleTimeout = getInt(s.get(CONNECTION_IDLE_TIMEOUT), idleTimeout);
+        ioThreadCount = getInt(s.get(THREAD_COUNT), ioThreadCount);
+    }
+    
+    private int getInt(Object s, int defaultv) {
+        int i = defaultv;
+        if (s instanceof String) {
+            i = Integer.parseInt((String)s);
+        } else if (s instanceof Number) {
+            i = ((Number)s).intValue();
+        }
+        if (i == -1) {
+            i = defaultv;
+        }
+        return i;
+    }
+
+    /**
+     * The pool of the keep-alive connections shared by the conduits created by this factory,
+     * it is created along with the event loop group on first use.
+     */
+    public synchronized NettyHttpClientChannelPool getChannelPool() {
+        if (channelPool == null) {
+            // zero threads means the netty default, daemon threads don't keep the JVM alive
+            group = new NioEventLoopGroup(Math.max(ioThreadCount, 0), 
+                                          new DefaultThreadFactory("cxf-netty-client", true));
+            channelPool = new NettyHttpClientChannelPool(group, maxPerHost, idleTimeout);
+        }
+        return channelPool;
+    }
 
     @Override
     public HTTPConduit createConduit(HTTPTransportFactory f, 
@@ -66,8 +145,16 @@ public class NettyHttpConduitFactory implements BusLifeCycleListener, HTTPCondui
 
     @Override
     public void postShutdown() {
-        // shutdown the group
-        
+        shutdown();
+    }
+    
+    public synchronized void shutdown() {
+        if (channelPool != null) {
+            channelPool.close();
+            group.shutdownGracefully();
+            channelPool = null;
+            group = null;
+        }
     }
 
     public boolean isShutdown() {
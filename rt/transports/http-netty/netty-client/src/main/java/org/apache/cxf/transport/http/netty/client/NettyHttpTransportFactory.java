@@ -103,7 +103,12 @@ public class NettyHttpTransportFactory extends AbstractTransportFactory implemen
         // need to updated the endpointInfo
         endpointInfo.setAddress(getAddress(endpointInfo));
         
-        conduit = factory.createConduit(bus, endpointInfo, target);
+        // share the connection pool of the bus wide conduit factory if there is one
+        NettyHttpConduitFactory conduitFactory = bus.getExtension(NettyHttpConduitFactory.class);
+        if (conduitFactory == null) {
+            conduitFactory = factory;
+        }
+        conduit = conduitFactory.createConduit(bus, endpointInfo, target);
 
         // Spring configure the conduit.  
         String address = conduit.getAddress();
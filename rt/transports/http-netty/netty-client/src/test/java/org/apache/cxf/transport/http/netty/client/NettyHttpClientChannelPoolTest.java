@@ -0,0 +1,331 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.testutil.common.TestUtil;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+
+public class NettyHttpClientChannelPoolTest extends Assert {
+    private static final int PORT =
+        Integer.parseInt(TestUtil.getPortNumber(NettyHttpClientChannelPoolTest.class));
+
+    private static final AtomicInteger ACCEPTED = new AtomicInteger();
+    private static final Queue<Channel> CONNECTIONS = new ConcurrentLinkedQueue<Channel>();
+
+    private static EventLoopGroup serverGroup;
+    private static Channel serverChannel;
+
+    private EventLoopGroup group;
+    private NettyHttpClientChannelPool pool;
+
+    @BeforeClass
+    public static void startServer() throws Exception {
+        serverGroup = new NioEventLoopGroup();
+        ServerBootstrap bootstrap = new ServerBootstrap();
+        bootstrap.group(serverGroup)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel ch) throws Exception {
+                    ACCEPTED.incrementAndGet();
+                    CONNECTIONS.add(ch);
+                    ch.pipeline().addLast("codec", new HttpServerCodec());
+                    ch.pipeline().addLast("aggregator", new HttpObjectAggregator(1048576));
+                    ch.pipeline().addLast("handler", new TestHandler());
+                }
+            });
+        serverChannel = bootstrap.bind(PORT).sync().channel();
+    }
+
+    @AfterClass
+    public static void stopServer() throws Exception {
+        if (serverChannel != null) {
+            serverChannel.close().sync();
+        }
+        serverGroup.shutdownGracefully();
+    }
+
+    @Before
+    public void setUp() {
+        ACCEPTED.set(0);
+        group = new NioEventLoopGroup();
+        pool = new NettyHttpClientChannelPool(group, 1, 60000L);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        group.shutdownGracefully();
+        for (Channel ch : CONNECTIONS) {
+            ch.close().sync();
+        }
+        CONNECTIONS.clear();
+    }
+
+    @Test
+    public void testReuseAfterKeepAlive() throws Exception {
+        Channel ch = acquire().get();
+        HttpResponse response = send(ch, "/");
+        assertTrue(HttpHeaders.isKeepAlive(response));
+        pool.release(ch, HttpHeaders.isKeepAlive(response));
+        assertEquals(1, pool.getIdleConnections("localhost", PORT, null));
+
+        Channel ch2 = acquire().get();
+        assertSame(ch, ch2);
+        send(ch2, "/");
+        pool.release(ch2, true);
+        assertEquals(1, ACCEPTED.get());
+        assertEquals(1, pool.getOpenConnections("localhost", PORT, null));
+    }
+
+    @Test
+    public void testConnectionClose() throws Exception {
+        Channel ch = acquire().get();
+        HttpResponse response = send(ch, "/close");
+        assertFalse(HttpHeaders.isKeepAlive(response));
+        pool.release(ch, HttpHeaders.isKeepAlive(response));
+        ch.closeFuture().await(5000);
+        waitForOpenConnections(0);
+        assertEquals(0, pool.getIdleConnections("localhost", PORT, null));
+
+        Channel ch2 = acquire().get();
+        assertNotSame(ch, ch2);
+        assertTrue(ch2.isActive());
+        // the server only counts the connection once it has been accepted on its side
+        send(ch2, "/");
+        assertEquals(2, ACCEPTED.get());
+    }
+
+    @Test
+    public void testPeerCloseWhileIdle() throws Exception {
+        Channel ch = acquire().get();
+        send(ch, "/");
+        pool.release(ch, true);
+        assertEquals(1, pool.getIdleConnections("localhost", PORT, null));
+
+        for (Channel c : CONNECTIONS) {
+            c.close().sync();
+        }
+        assertTrue(ch.closeFuture().await(5000));
+        waitForOpenConnections(0);
+        assertEquals(0, pool.getIdleConnections("localhost", PORT, null));
+
+        Channel ch2 = acquire().get();
+        assertNotSame(ch, ch2);
+        send(ch2, "/");
+        assertEquals(2, ACCEPTED.get());
+    }
+
+    @Test
+    public void testMaxConnectionsPerHostWithQueuedWaiter() throws Exception {
+        Channel ch = acquire().get();
+
+        Acquirer waiter = acquire();
+        assertNull(waiter.poll(200));
+        assertEquals(1, pool.getWaiters("localhost", PORT, null));
+        assertEquals(1, pool.getOpenConnections("localhost", PORT, null));
+
+        Acquirer cancelled = acquire();
+        assertEquals(2, pool.getWaiters("localhost", PORT, null));
+        assertTrue(pool.cancel(cancelled));
+        assertFalse(pool.cancel(cancelled));
+        assertEquals(1, pool.getWaiters("localhost", PORT, null));
+
+        send(ch, "/");
+        pool.release(ch, true);
+        assertSame(ch, waiter.get());
+        assertEquals(0, pool.getWaiters("localhost", PORT, null));
+
+        pool.release(ch, true);
+        assertNull(cancelled.poll(200));
+        assertEquals(1, pool.getIdleConnections("localhost", PORT, null));
+        assertEquals(1, ACCEPTED.get());
+    }
+
+    @Test
+    public void testReceiveTimeout() throws Exception {
+        Bus bus = BusFactory.newInstance().createBus();
+        NettyHttpConduitFactory factory = new NettyHttpConduitFactory();
+        try {
+            EndpointInfo ei = new EndpointInfo();
+            ei.setAddress("http://localhost:" + PORT + "/slow");
+            NettyHttpConduit conduit = new NettyHttpConduit(bus, ei, null, factory);
+            conduit.finalizeConfig();
+            conduit.getClient().setReceiveTimeout(500);
+
+            Message message = new MessageImpl();
+            message.put(Message.CONTENT_TYPE, "text/plain");
+            Exchange exchange = new ExchangeImpl();
+            exchange.setOutMessage(message);
+            message.setExchange(exchange);
+            conduit.prepare(message);
+
+            OutputStream os = message.getContent(OutputStream.class);
+            os.write("Hello".getBytes());
+            long start = System.currentTimeMillis();
+            try {
+                os.close();
+                fail("Expected the receive timeout");
+            } catch (IOException ex) {
+                // expected
+            }
+            assertTrue(System.currentTimeMillis() - start < 5000);
+
+            // the late response must not be read by the next request, the connection is dropped
+            long deadline = System.currentTimeMillis() + 5000;
+            while (factory.getChannelPool().getOpenConnections("localhost", PORT, null) > 0
+                && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(0, factory.getChannelPool().getOpenConnections("localhost", PORT, null));
+            assertEquals(0, factory.getChannelPool().getIdleConnections("localhost", PORT, null));
+        } finally {
+            factory.shutdown();
+            bus.shutdown(true);
+        }
+    }
+
+    private Acquirer acquire() {
+        Acquirer acquirer = new Acquirer();
+        pool.acquire("localhost", PORT, null, 5000, acquirer);
+        return acquirer;
+    }
+
+    private void waitForOpenConnections(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getOpenConnections("localhost", PORT, null) != expected
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, pool.getOpenConnections("localhost", PORT, null));
+    }
+
+    private static HttpResponse send(Channel ch, String path) throws Exception {
+        NettyHttpClientRequest request =
+            new NettyHttpClientRequest(new URI("http://localhost:" + PORT + path), "GET");
+        request.createRequest(Unpooled.buffer(0));
+        final BlockingQueue<Object> result = new LinkedBlockingQueue<Object>();
+        request.setCxfResponseCallback(new CxfResponseCallBack() {
+            public void responseReceived(HttpResponse response) {
+                result.add(response);
+            }
+            public void error(Throwable ex) {
+                result.add(ex);
+            }
+        });
+        ch.writeAndFlush(request);
+        Object o = result.poll(5, TimeUnit.SECONDS);
+        if (o instanceof Throwable) {
+            throw new Exception((Throwable)o);
+        }
+        assertNotNull("No response received", o);
+        return (HttpResponse)o;
+    }
+
+    private static class Acquirer implements NettyHttpClientChannelPool.AcquireListener {
+        private final BlockingQueue<Object> result = new LinkedBlockingQueue<Object>();
+
+        public boolean channelAcquired(Channel channel) {
+            result.add(channel);
+            return true;
+        }
+
+        public void acquireFailed(Throwable cause) {
+            result.add(cause);
+        }
+
+        Channel poll(long timeout) throws Exception {
+            Object o = result.poll(timeout, TimeUnit.MILLISECONDS);
+            if (o instanceof Throwable) {
+                throw new Exception((Throwable)o);
+            }
+            return (Channel)o;
+        }
+
+        Channel get() throws Exception {
+            Channel ch = poll(5000);
+            assertNotNull("No connection acquired", ch);
+            return ch;
+        }
+    }
+
+    private static class TestHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
+            if (request.getUri().startsWith("/slow")) {
+                // never answers, the client gives up after the receive timeout
+                return;
+            }
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.OK, Unpooled.copiedBuffer("OK".getBytes()));
+            HttpHeaders.setContentLength(response, 2);
+            if (request.getUri().startsWith("/close")) {
+                response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            } else {
+                response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+                ctx.writeAndFlush(response);
+            }
+        }
+    }
+}
@@ -23,11 +23,13 @@ import java.net.InetSocketAddress;
 import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.cxf.configuration.jsse.TLSServerParameters;
 import org.apache.cxf.transport.HttpUriMapper;
+import org.apache.cxf.transport.http.PathPrefixIndex;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
@@ -60,6 +62,10 @@ public class NettyHttpServerEngine implements ServerEngine {
     
     private Map<String, NettyHttpContextHandler> handlerMap = new ConcurrentHashMap<String, NettyHttpContextHandler>();
     
+    // looked up for every request, updated along with the handlerMap
+    private PathPrefixIndex<NettyHttpContextHandler> handlerIndex = 
+        new PathPrefixIndex<NettyHttpContextHandler>();
+    
     /**
      * This field holds the TLS ServerParameters that are programatically
      * configured. The tlsServerParamers (due to JAXB) holds the struct
@@ -77,6 +83,10 @@ public class NettyHttpServerEngine implements ServerEngine {
     
     private boolean sessionSupport;
     
+    private boolean streaming;
+    
+    private Executor executor;
+    
     // TODO need to setup configuration about them
     private EventLoopGroup bossGroup = new NioEventLoopGroup();
     private EventLoopGroup workerGroup = new NioEventLoopGroup();
@@ -149,7 +159,8 @@ public class NettyHttpServerEngine implements ServerEngine {
                  tlsServerParameters, sessionSupport, 
                  threadingParameters.getThreadPoolSize(),
                  maxChunkContentSize,
-                 handlerMap, idleStateHandler);
+                 handlerMap, handlerIndex, idleStateHandler,
+                 streaming, 0, executor);
         // Start the servletPipeline's timer
         servletPipeline.start();
         bootstrap.childHandler(servletPipeline);
@@ -182,6 +193,7 @@ public class NettyHttpServerEngine implements ServerEngine {
         if (contextHandler == null) {
             contextHandler = new NettyHttpContextHandler(contextName);
             handlerMap.put(contextName, contextHandler);
+            handlerIndex.put(contextName, contextHandler);
         }
         contextHandler.addNettyHttpHandler(handler);
     }
@@ -195,6 +207,7 @@ public class NettyHttpServerEngine implements ServerEngine {
             if (contextHandler.isEmpty()) {
                 // remove the contextHandler from handlerMap
                 handlerMap.remove(contextName);
+                handlerIndex.remove(contextName);
             }
         }
     }
@@ -249,6 +262,31 @@ public class NettyHttpServerEngine implements ServerEngine {
         this.sessionSupport = session;
     }
     
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * In the streaming mode the requests and responses are not aggregated in memory, 
+     * the maxChunkContentSize then limits the request content which is buffered 
+     * before the reading from the connection is suspended.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor the streamed requests are dispatched to, by default a work queue
+     * sized after the threading parameters is used.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+    
     public int getMaxChunkContentSize() {
         return maxChunkContentSize;
     }
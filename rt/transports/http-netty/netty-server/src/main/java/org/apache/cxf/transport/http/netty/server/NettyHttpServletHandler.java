@@ -19,8 +19,12 @@
 
 package org.apache.cxf.transport.http.netty.server;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +32,8 @@ import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.transport.http.netty.server.interceptor.NettyInterceptor;
 import org.apache.cxf.transport.http.netty.server.servlet.NettyHttpServletRequest;
 import org.apache.cxf.transport.http.netty.server.servlet.NettyServletResponse;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyStreamingServletInputStream;
+import org.apache.cxf.transport.http.netty.server.servlet.NettyStreamingServletOutputStream;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -41,12 +47,14 @@ import io.netty.handler.codec.TooLongFrameException;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders.Names;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.timeout.IdleState;
 import io.netty.util.CharsetUtil;
 
@@ -59,6 +67,11 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
     private final NettyHttpServletPipelineFactory pipelineFactory;
 
     private List<NettyInterceptor> interceptors;
+    
+    // the streaming mode state, the requests of a connection are dispatched one after another
+    private NettyStreamingServletInputStream currentInput;
+    private final Queue<Runnable> pendingRequests = new ArrayDeque<Runnable>();
+    private boolean dispatching;
 
     public NettyHttpServletHandler(NettyHttpServletPipelineFactory pipelineFactory) {
         this.allChannels = pipelineFactory.getAllChannels();
@@ -97,6 +110,10 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
     
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (pipelineFactory.isStreaming()) {
+            streamHttpObject(ctx, msg);
+            return;
+        }
         HttpRequest request = (HttpRequest) msg;
         if (HttpHeaders.is100ContinueExpected(request)) {
             ctx.write(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
@@ -117,6 +134,131 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         ctx.flush();
     }
+    
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (currentInput != null) {
+            currentInput.fail(new IOException("The connection was closed before the request was received"));
+            currentInput = null;
+        }
+        super.channelInactive(ctx);
+    }
+    
+    /**
+     * Handles the request parts as they are decoded, the request is dispatched to the 
+     * executor as soon as its head is received and its content is fed to the request stream.
+     */
+    protected void streamHttpObject(final ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            final HttpRequest request = (HttpRequest) msg;
+            if (HttpHeaders.is100ContinueExpected(request)) {
+                ctx.writeAndFlush(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+            }
+            final NettyHttpContextHandler nettyHttpContextHandler = 
+                pipelineFactory.getNettyHttpHandler(request.getUri());
+            if (nettyHttpContextHandler == null) {
+                throw new RuntimeException(
+                        "No handler found for uri: " + request.getUri());
+            }
+            final NettyStreamingServletInputStream in = 
+                new NettyStreamingServletInputStream(ctx.channel(), pipelineFactory.getMaxChunkContentSize());
+            currentInput = in;
+            dispatch(ctx, new Runnable() {
+                public void run() {
+                    handleStreamingHttpServletRequest(ctx, request, nettyHttpContextHandler, in);
+                }
+            });
+        }
+        if (msg instanceof HttpContent) {
+            HttpContent content = (HttpContent) msg;
+            if (currentInput != null) {
+                currentInput.offer(content);
+            } else {
+                content.release();
+            }
+            if (msg instanceof LastHttpContent) {
+                currentInput = null;
+            }
+        }
+    }
+    
+    private void dispatch(ChannelHandlerContext ctx, Runnable request) {
+        synchronized (pendingRequests) {
+            if (dispatching) {
+                pendingRequests.add(request);
+                return;
+            }
+            dispatching = true;
+        }
+        try {
+            pipelineFactory.getExecutor().execute(request);
+        } catch (RejectedExecutionException ex) {
+            LOG.log(Level.WARNING, "Could not dispatch the request, closing the connection", ex);
+            dispatchRejected(ctx);
+        }
+    }
+    
+    private void dispatchNext(ChannelHandlerContext ctx) {
+        Runnable next;
+        synchronized (pendingRequests) {
+            next = pendingRequests.poll();
+            if (next == null) {
+                dispatching = false;
+                return;
+            }
+        }
+        try {
+            pipelineFactory.getExecutor().execute(next);
+        } catch (RejectedExecutionException ex) {
+            LOG.log(Level.WARNING, "Could not dispatch the pipelined request, closing the connection", ex);
+            dispatchRejected(ctx);
+        }
+    }
+    
+    private void dispatchRejected(ChannelHandlerContext ctx) {
+        // the requests queued behind will not be answered on this connection either
+        synchronized (pendingRequests) {
+            pendingRequests.clear();
+            dispatching = false;
+        }
+        ctx.close();
+    }
+    
+    protected void handleStreamingHttpServletRequest(ChannelHandlerContext ctx,
+                                                     HttpRequest request, 
+                                                     NettyHttpContextHandler nettyHttpContextHandler,
+                                                     NettyStreamingServletInputStream in) {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        NettyStreamingServletOutputStream out = new NettyStreamingServletOutputStream(ctx.channel(), 
+            response, HttpHeaders.isKeepAlive(request), pipelineFactory.getResponseBufferSize());
+        try {
+            interceptOnRequestReceived(ctx, request);
+            NettyServletResponse nettyServletResponse = new NettyServletResponse(response, out);
+            NettyHttpServletRequest nettyServletRequest = 
+                new NettyHttpServletRequest(request, nettyHttpContextHandler.getContextPath(), ctx, in);
+            nettyHttpContextHandler.handle(nettyServletRequest.getRequestURI(), 
+                                           nettyServletRequest, nettyServletResponse);
+            // the headers added here are lost if the response has already been committed 
+            interceptOnRequestSuccessed(ctx, response);
+            nettyServletResponse.getWriter().flush();
+            out.close();
+        } catch (Throwable ex) {
+            LOG.log(Level.SEVERE, "Unexpected exception from the streaming request.", ex);
+            interceptOnRequestFailed(ctx, ex);
+            if (out.isCommitted()) {
+                ctx.close();
+            } else {
+                sendError(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            }
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                // nothing left to do with the request
+            }
+            dispatchNext(ctx);
+        }
+    }
    
     protected void handleHttpServletRequest(ChannelHandlerContext ctx,
                                             HttpRequest request, NettyHttpContextHandler nettyHttpContextHandler)
@@ -190,7 +332,7 @@ public class NettyHttpServletHandler extends ChannelInboundHandlerAdapter {
                                                                 content);
         response.headers().set(Names.CONTENT_TYPE, "text/plain; charset=UTF-8");
         
-        ctx.write(response).addListener(ChannelFutureListener.CLOSE);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
     }
 
     private void interceptOnRequestReceived(ChannelHandlerContext ctx, HttpRequest request) {
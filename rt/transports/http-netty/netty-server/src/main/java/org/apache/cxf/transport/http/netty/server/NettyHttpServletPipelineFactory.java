@@ -20,7 +20,7 @@
 package org.apache.cxf.transport.http.netty.server;
 
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,11 +28,13 @@ import javax.net.ssl.SSLEngine;
 
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.configuration.jsse.TLSServerParameters;
+import org.apache.cxf.transport.http.PathPrefixIndex;
 import org.apache.cxf.transport.http.netty.server.interceptor.ChannelInterceptor;
 import org.apache.cxf.transport.http.netty.server.interceptor.HttpSessionInterceptor;
 import org.apache.cxf.transport.http.netty.server.session.DefaultHttpSessionStore;
 import org.apache.cxf.transport.http.netty.server.session.HttpSessionStore;
 import org.apache.cxf.transport.https.SSLUtils;
+import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
@@ -67,18 +69,61 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     
     private final Map<String, NettyHttpContextHandler> handlerMap;
     
+    private final PathPrefixIndex<NettyHttpContextHandler> handlerIndex;
+    
     private final int maxChunkContentSize;
+    
+    private final int threadPoolSize;
+    
+    private final boolean streaming;
+    
+    private final int responseBufferSize;
+    
+    // runs the handlers of the aggregated requests
+    private EventExecutorGroup applicationExecutorGroup;
+    
+    // dispatches the streamed requests
+    private Executor executor;
+    
+    private AutomaticWorkQueueImpl defaultExecutor;
 
     public NettyHttpServletPipelineFactory(TLSServerParameters tlsServerParameters, 
                                            boolean supportSession, int threadPoolSize, int maxChunkContentSize,
                                            Map<String, NettyHttpContextHandler> handlerMap,
                                            IdleStateHandler idleStateHandler) {
+        this(tlsServerParameters, supportSession, threadPoolSize, maxChunkContentSize, handlerMap, null,
+             idleStateHandler, false, 0, null);
+    }
+    
+    /**
+     * @param handlerIndex the context handlers indexed by their context paths, it is kept up to date
+     *        with the handlerMap by the engine. If it is null the handlerMap is searched.
+     * @param streaming if true the requests and responses are not aggregated, the request content is
+     *        streamed to the dispatched request and the response is sent as chunks once 
+     *        responseBufferSize bytes have been written, maxChunkContentSize then limits 
+     *        the request content queued in memory
+     * @param executor the executor the streamed requests are dispatched to, a work queue with
+     *        threadPoolSize threads is used if it is null
+     */
+    //CHECKSTYLE:OFF - lots of params to configure
+    public NettyHttpServletPipelineFactory(TLSServerParameters tlsServerParameters, 
+                                           boolean supportSession, int threadPoolSize, int maxChunkContentSize,
+                                           Map<String, NettyHttpContextHandler> handlerMap,
+                                           PathPrefixIndex<NettyHttpContextHandler> handlerIndex,
+                                           IdleStateHandler idleStateHandler,
+                                           boolean streaming, int responseBufferSize, Executor executor) {
+        //CHECKSTYLE:ON
         this.supportSession = supportSession;
         this.idleStateHandler = idleStateHandler;
         this.watchdog = new HttpSessionWatchdog();
         this.handlerMap = handlerMap;
+        this.handlerIndex = handlerIndex;
         this.tlsServerParameters = tlsServerParameters;
         this.maxChunkContentSize = maxChunkContentSize;
+        this.threadPoolSize = threadPoolSize;
+        this.streaming = streaming;
+        this.responseBufferSize = responseBufferSize > 0 ? responseBufferSize : 8192;
+        this.executor = executor;
     }
 
 
@@ -90,27 +135,81 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
         return allChannels;
     }
 
+    /**
+     * @return the context handler with the longest context path the url starts with
+     */
     public NettyHttpContextHandler getNettyHttpHandler(String url) {
-        Set<String> keySet = handlerMap.keySet();
-        for (String key : keySet) {
-            // Here just check the context path first
-            if (url.startsWith(key)) {
-                return handlerMap.get(key);
+        if (handlerIndex != null) {
+            return handlerIndex.findLongestPrefix(url);
+        }
+        NettyHttpContextHandler handler = null;
+        int len = -1;
+        for (Map.Entry<String, NettyHttpContextHandler> entry : handlerMap.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() > len && isContextPathOf(key, url)) {
+                handler = entry.getValue();
+                len = key.length();
             }
         }
-        return null;
+        return handler;
+    }
+    
+    /**
+     * Matches whole path segments like the handlerIndex, so "/foo" is not the context of "/foobar"
+     */
+    private static boolean isContextPathOf(String contextPath, String url) {
+        String path = contextPath.endsWith("/") 
+            ? contextPath.substring(0, contextPath.length() - 1) : contextPath;
+        if (!url.startsWith(path)) {
+            return false;
+        }
+        if (url.length() == path.length()) {
+            return true;
+        }
+        char c = url.charAt(path.length());
+        return c == '/' || c == '?' || path.length() == 0;
+    }
+    
+    public boolean isStreaming() {
+        return streaming;
+    }
+    
+    public int getMaxChunkContentSize() {
+        return maxChunkContentSize;
+    }
+    
+    public int getResponseBufferSize() {
+        return responseBufferSize;
+    }
+    
+    public Executor getExecutor() {
+        return executor;
     }
     
     public void start() {
         if (supportSession) {
             new Thread(watchdog).start();
         }
+        if (streaming) {
+            if (executor == null) {
+                defaultExecutor = new AutomaticWorkQueueImpl(-1, 0, threadPoolSize, 1, 
+                                                             60 * 1000L, "netty-http-server");
+                executor = defaultExecutor;
+            }
+        } else {
+            applicationExecutorGroup = new DefaultEventExecutorGroup(threadPoolSize);
+        }
     }
     
     public void shutdown() {
         allChannels.close();
         watchdog.stopWatching();
-        
+        if (applicationExecutorGroup != null) {
+            applicationExecutorGroup.shutdownGracefully();
+        }
+        if (defaultExecutor != null) {
+            defaultExecutor.shutdown(false);
+        }
     }
 
     protected HttpSessionStore getHttpSessionStore() {
@@ -141,7 +240,9 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
         }
 
         pipeline.addLast("decoder", new HttpRequestDecoder());
-        pipeline.addLast("aggregator", new HttpObjectAggregator(maxChunkContentSize));
+        if (!streaming) {
+            pipeline.addLast("aggregator", new HttpObjectAggregator(maxChunkContentSize));
+        }
         pipeline.addLast("encoder", new HttpResponseEncoder());
 
         // Remove the following line if you don't want automatic content
@@ -194,9 +295,12 @@ public class NettyHttpServletPipelineFactory extends ChannelInitializer<Channel>
     @Override
     protected void initChannel(Channel ch) throws Exception {
         ChannelPipeline pipeline = getDefaulHttpChannelPipeline(ch);
-        //TODO need to configure the thread size of EventExecutorGroup
-        EventExecutorGroup e1 = new DefaultEventExecutorGroup(16);
-        pipeline.addLast(e1, "handler", this.getServletHandler());
+        if (streaming) {
+            // the handler only feeds the streams on the event loop, the requests run on the executor
+            pipeline.addLast("handler", this.getServletHandler());
+        } else {
+            pipeline.addLast(applicationExecutorGroup, "handler", this.getServletHandler());
+        }
     }
 
 }
@@ -123,6 +123,9 @@ public class NettyHttpServerEngineFactoryHolder {
                 if (engine.getMaxChunkContentSize() != null) {
                     eng.setMaxChunkContentSize(engine.getMaxChunkContentSize());
                 }
+                if (engine.isStreaming() != null) {
+                    eng.setStreaming(engine.isStreaming());
+                }
                 if (engine.getPort() != null) {
                     eng.setPort(engine.getPort());
                 }
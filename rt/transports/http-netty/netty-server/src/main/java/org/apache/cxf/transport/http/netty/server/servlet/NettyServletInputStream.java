@@ -34,6 +34,13 @@ public class NettyServletInputStream extends ServletInputStream {
     public NettyServletInputStream(HttpContent httpContent) {
         this.in = new ByteBufInputStream(httpContent.content());
     }
+    
+    /**
+     * Used by the subclasses which don't read from an aggregated content
+     */
+    protected NettyServletInputStream() {
+        this.in = null;
+    }
 
     @Override
     public int read() throws IOException {
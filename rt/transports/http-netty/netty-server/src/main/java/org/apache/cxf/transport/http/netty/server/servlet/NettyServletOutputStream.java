@@ -35,6 +35,12 @@ public class NettyServletOutputStream extends ServletOutputStream {
     public NettyServletOutputStream(HttpContent httpContent) {
         this.out = new ByteBufOutputStream(httpContent.content());
     }
+    
+    /**
+     * Used by the subclasses which don't write into an aggregated content
+     */
+    protected NettyServletOutputStream() {
+    }
 
     @Override
     public void write(int b) throws IOException {
@@ -64,6 +70,14 @@ public class NettyServletOutputStream extends ServletOutputStream {
     public boolean isFlushed() {
         return flushed;
     }
+    
+    /**
+     * @return true if the response has already been sent to the client, 
+     *         which is never the case for an aggregated content
+     */
+    public boolean isCommitted() {
+        return false;
+    }
 
     public int getBufferSize() {
         return this.out.buffer().capacity();
@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server.servlet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Request body which is fed with the content chunks as the event loop decodes them.
+ * Reading from the channel is suspended once more than the high water mark is queued 
+ * and resumed when the reader has consumed half of it.
+ */
+public class NettyStreamingServletInputStream extends NettyServletInputStream {
+    
+    private final Channel channel;
+    private final int highWaterMark;
+    private final int lowWaterMark;
+    private final Queue<ByteBuf> chunks = new ArrayDeque<ByteBuf>();
+    private ByteBuf current;
+    private int queuedBytes;
+    private boolean complete;
+    private boolean closed;
+    private IOException failure;
+    
+    public NettyStreamingServletInputStream(Channel channel, int highWaterMark) {
+        this.channel = channel;
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = highWaterMark / 2;
+    }
+    
+    /**
+     * Called from the event loop, the stream takes over the content buffer
+     */
+    public synchronized void offer(HttpContent content) {
+        ByteBuf buf = content.content();
+        if (closed || !buf.isReadable()) {
+            buf.release();
+        } else {
+            chunks.add(buf);
+            queuedBytes += buf.readableBytes();
+            if (queuedBytes >= highWaterMark && channel.config().isAutoRead()) {
+                channel.config().setAutoRead(false);
+            }
+        }
+        if (content instanceof LastHttpContent) {
+            complete = true;
+        }
+        notifyAll();
+    }
+    
+    /**
+     * Called if the connection is lost before the whole content is received
+     */
+    public synchronized void fail(IOException ex) {
+        if (!complete) {
+            failure = ex;
+            notifyAll();
+        }
+    }
+    
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+    
+    private ByteBuf current() throws IOException {
+        while (current == null || !current.isReadable()) {
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+            if (closed) {
+                return null;
+            }
+            ByteBuf next = chunks.poll();
+            if (next != null) {
+                current = next;
+                queuedBytes -= next.readableBytes();
+                resumeReading();
+            } else if (complete) {
+                return null;
+            } else if (failure != null) {
+                throw failure;
+            } else {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        return current;
+    }
+    
+    private void resumeReading() {
+        if (queuedBytes <= lowWaterMark && !channel.config().isAutoRead()) {
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+        ByteBuf buf = current();
+        return buf == null ? -1 : buf.readByte() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buf) throws IOException {
+        return read(buf, 0, buf.length);
+    }
+
+    @Override
+    public synchronized int read(byte[] buf, int offset, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuf b = current();
+        if (b == null) {
+            return -1;
+        }
+        int n = Math.min(len, b.readableBytes());
+        b.readBytes(buf, offset, n);
+        return n;
+    }
+    
+    @Override
+    public synchronized int available() throws IOException {
+        return (current == null ? 0 : current.readableBytes()) + queuedBytes;
+    }
+    
+    /**
+     * Discards the unread content, the rest of the request is still drained from the channel
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        for (ByteBuf buf : chunks) {
+            buf.release();
+        }
+        chunks.clear();
+        queuedBytes = 0;
+        resumeReading();
+        notifyAll();
+    }
+}
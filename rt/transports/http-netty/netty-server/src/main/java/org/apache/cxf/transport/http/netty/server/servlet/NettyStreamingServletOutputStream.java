@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server.servlet;
+
+import java.io.IOException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders.Names;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * Response body which is written to the channel as chunked content once the
+ * buffer is full or flushed. A response which fits into the buffer is sent 
+ * as a single message with its Content-Length when the stream is closed.
+ * The writer waits for the channel to become writable again, so a slow client 
+ * does not pile up the response in memory.
+ */
+public class NettyStreamingServletOutputStream extends NettyServletOutputStream {
+    
+    private final Channel channel;
+    private final HttpResponse response;
+    private final boolean keepAlive;
+    private final int bufferSize;
+    private ByteBuf buffer;
+    private ChannelFuture lastWrite;
+    private boolean committed;
+    private boolean closed;
+    private boolean flushed;
+    
+    public NettyStreamingServletOutputStream(Channel channel, HttpResponse response, 
+                                             boolean keepAlive, int bufferSize) {
+        this.channel = channel;
+        this.response = response;
+        this.keepAlive = keepAlive;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureBuffer().writeByte(b);
+        if (!buffer.isWritable()) {
+            writeChunk();
+        }
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int offset, int len) throws IOException {
+        while (len > 0) {
+            ByteBuf buf = ensureBuffer();
+            int n = Math.min(len, buf.writableBytes());
+            buf.writeBytes(b, offset, n);
+            offset += n;
+            len -= n;
+            if (!buf.isWritable()) {
+                writeChunk();
+            }
+        }
+    }
+
+    /**
+     * The buffered content is only pushed out once the response is committed, the
+     * intermediate flushes of a small response would otherwise cost its Content-Length
+     */
+    @Override
+    public void flush() throws IOException {
+        if (committed && buffer != null && buffer.isReadable()) {
+            writeChunk();
+        }
+        flushed = true;
+    }
+    
+    /**
+     * Completes the response, the stream can't be written to afterwards
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ChannelFuture future;
+        if (!committed) {
+            // the whole response is buffered, send it with its length
+            ByteBuf content = buffer == null ? Unpooled.EMPTY_BUFFER : buffer;
+            buffer = null;
+            FullHttpResponse full = 
+                new DefaultFullHttpResponse(response.getProtocolVersion(), response.getStatus(), content);
+            full.headers().set(response.headers());
+            HttpHeaders.setContentLength(full, content.readableBytes());
+            if (keepAlive) {
+                full.headers().set(Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+            }
+            committed = true;
+            future = channel.writeAndFlush(full);
+        } else {
+            if (buffer != null && buffer.isReadable()) {
+                writeChunk();
+            }
+            future = channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+    
+    private ByteBuf ensureBuffer() throws IOException {
+        if (closed) {
+            throw new IOException("The response has already been completed");
+        }
+        if (buffer == null) {
+            buffer = channel.alloc().buffer(bufferSize, bufferSize);
+        }
+        return buffer;
+    }
+    
+    private void writeChunk() throws IOException {
+        if (!committed) {
+            committed = true;
+            if (!HttpHeaders.isContentLengthSet(response)) {
+                HttpHeaders.setTransferEncodingChunked(response);
+            }
+            if (keepAlive) {
+                response.headers().set(Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+            }
+            channel.write(response);
+        }
+        ByteBuf chunk = buffer;
+        buffer = null;
+        lastWrite = channel.writeAndFlush(new DefaultHttpContent(chunk));
+        if (!channel.isWritable()) {
+            // don't queue more than the outbound buffer can take
+            lastWrite.awaitUninterruptibly();
+        }
+        if (lastWrite.isDone() && !lastWrite.isSuccess()) {
+            throw new IOException(lastWrite.cause());
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (buffer != null) {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public boolean isFlushed() {
+        return flushed;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
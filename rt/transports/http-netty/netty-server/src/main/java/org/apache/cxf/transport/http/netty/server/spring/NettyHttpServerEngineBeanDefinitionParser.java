@@ -90,6 +90,11 @@ public class NettyHttpServerEngineBeanDefinitionParser extends AbstractBeanDefin
             bean.addPropertyValue("maxChunkContentSize", maxChunkContentSizeStr);
         }
         
+        String streamingStr = element.getAttribute("streaming");
+        if (streamingStr != null && !"".equals(streamingStr.trim())) {
+            bean.addPropertyValue("streaming", streamingStr);
+        }
+        
         
         ValueHolder busValue = ctx.getContainingBeanDefinition()
             .getConstructorArgumentValues().getArgumentValue(0, Bus.class);
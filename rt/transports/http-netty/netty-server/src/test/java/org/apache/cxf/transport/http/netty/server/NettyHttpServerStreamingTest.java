@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.configuration.Configurer;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.testutil.common.TestUtil;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NettyHttpServerStreamingTest extends Assert {
+    private static final int PORT
+        = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerStreamingTest.class, 1));
+    private static final int PORT2
+        = Integer.valueOf(TestUtil.getPortNumber(NettyHttpServerStreamingTest.class, 2));
+
+    private Bus bus;
+    private IMocksControl control;
+    private NettyHttpServerEngineFactory factory;
+    private StreamingTestHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        control = EasyMock.createNiceControl();
+        bus = control.createMock(Bus.class);
+
+        Configurer configurer = control.createMock(Configurer.class);
+        bus.getExtension(Configurer.class);
+        EasyMock.expectLastCall().andReturn(configurer).anyTimes();
+
+        control.replay();
+
+        factory = new NettyHttpServerEngineFactory();
+        factory.setBus(bus);
+
+        NettyHttpServerEngine engine = factory.createNettyHttpServerEngine(PORT, "http");
+        engine.setStreaming(true);
+        // a small buffer makes the slow readers suspend the reading from the connection
+        engine.setMaxChunkContentSize(16 * 1024);
+        handler = new StreamingTestHandler();
+        engine.addServant(new URL("http://localhost:" + PORT + "/stream"), handler);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        NettyHttpServerEngineFactory.destroyForPort(PORT);
+        NettyHttpServerEngineFactory.destroyForPort(PORT2);
+    }
+
+    @Test
+    public void testLargeChunkedUpload() throws Exception {
+        assertEquals(Long.toString(8L * 1024 * 1024), upload("/stream/count", 8 * 1024 * 1024));
+    }
+
+    @Test
+    public void testSlowReader() throws Exception {
+        // the handler reads much slower than the client sends
+        assertEquals(Long.toString(1024L * 1024), upload("/stream/slowcount", 1024 * 1024));
+    }
+
+    @Test
+    public void testPipelinedRequestsAnsweredInOrder() throws Exception {
+        Socket socket = new Socket("localhost", PORT);
+        try {
+            socket.setSoTimeout(10000);
+            StringBuilder requests = new StringBuilder();
+            for (int i = 1; i <= 3; i++) {
+                requests.append("GET /stream/order/").append(i).append(" HTTP/1.1\r\n")
+                    .append("Host: localhost:").append(PORT).append("\r\n\r\n");
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.toString().getBytes("ISO-8859-1"));
+            out.flush();
+
+            // the first request is the slowest one, it is still answered first
+            InputStream in = socket.getInputStream();
+            assertEquals("1", readResponseBody(in));
+            assertEquals("2", readResponseBody(in));
+            assertEquals("3", readResponseBody(in));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testClientDisconnectMidBody() throws Exception {
+        Socket socket = new Socket("localhost", PORT);
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /stream/disconnect HTTP/1.1\r\nHost: localhost:" + PORT
+                + "\r\nContent-Length: 1000000\r\n\r\n").getBytes("ISO-8859-1"));
+            out.write(new byte[1000]);
+            out.flush();
+            assertNull(handler.failures.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            socket.close();
+        }
+        // the handler blocked in the read gets the failure instead of waiting forever
+        Throwable failure = handler.failures.poll(5, TimeUnit.SECONDS);
+        assertTrue("Expected an IOException, got " + failure, failure instanceof IOException);
+    }
+
+    @Test
+    public void testRejectedDispatchClosesConnection() throws Exception {
+        NettyHttpServerEngine engine = factory.createNettyHttpServerEngine(PORT2, "http");
+        engine.setStreaming(true);
+        engine.setExecutor(new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException("Rejected for testing");
+            }
+        });
+        engine.addServant(new URL("http://localhost:" + PORT2 + "/stream"), new StreamingTestHandler());
+
+        Socket socket = new Socket("localhost", PORT2);
+        try {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /stream/order/1 HTTP/1.1\r\nHost: localhost:" + PORT2 + "\r\n\r\n"
+                + "GET /stream/order/2 HTTP/1.1\r\nHost: localhost:" + PORT2 + "\r\n\r\n")
+                .getBytes("ISO-8859-1"));
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+    }
+
+    private String upload(String path, int size) throws Exception {
+        HttpURLConnection connection =
+            (HttpURLConnection)new URL("http://localhost:" + PORT + path).openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setChunkedStreamingMode(8192);
+        OutputStream out = connection.getOutputStream();
+        byte[] data = new byte[8192];
+        for (int written = 0; written < size; written += data.length) {
+            out.write(data, 0, Math.min(data.length, size - written));
+        }
+        out.close();
+        assertEquals(200, connection.getResponseCode());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        IOUtils.copy(connection.getInputStream(), buffer);
+        return buffer.toString();
+    }
+
+    private static String readResponseBody(InputStream in) throws IOException {
+        List<String> headers = new ArrayList<String>();
+        String line = readLine(in);
+        while (line.length() > 0) {
+            headers.add(line);
+            line = readLine(in);
+        }
+        assertTrue(headers.toString(), headers.get(0).startsWith("HTTP/1.1 200"));
+        int length = -1;
+        for (String header : headers) {
+            if (header.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+        assertTrue(headers.toString(), length >= 0);
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            int n = in.read(body, read, length - read);
+            assertTrue(n > 0);
+            read += n;
+        }
+        return new String(body, "ISO-8859-1");
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = in.read();
+        while (c != '\n') {
+            assertTrue("Unexpected end of the response", c != -1);
+            if (c != '\r') {
+                line.append((char)c);
+            }
+            c = in.read();
+        }
+        return line.toString();
+    }
+
+    private static class StreamingTestHandler extends NettyHttpHandler {
+        final BlockingQueue<Throwable> failures = new LinkedBlockingQueue<Throwable>();
+
+        StreamingTestHandler() {
+            super(null, false);
+        }
+
+        @Override
+        public void handle(String target, HttpServletRequest request, HttpServletResponse resp)
+            throws IOException, ServletException {
+            String uri = request.getRequestURI();
+            if (uri.endsWith("/count") || uri.endsWith("/slowcount")) {
+                boolean slow = uri.endsWith("/slowcount");
+                InputStream in = request.getInputStream();
+                byte[] buf = new byte[4096];
+                long count = 0;
+                int n = in.read(buf);
+                while (n != -1) {
+                    count += n;
+                    if (slow) {
+                        sleep(2);
+                    }
+                    n = in.read(buf);
+                }
+                write(resp, Long.toString(count));
+            } else if (uri.contains("/order/")) {
+                String id = uri.substring(uri.lastIndexOf('/') + 1);
+                if ("1".equals(id)) {
+                    sleep(500);
+                }
+                write(resp, id);
+            } else if (uri.endsWith("/disconnect")) {
+                try {
+                    IOUtils.copy(request.getInputStream(), new ByteArrayOutputStream());
+                } catch (IOException ex) {
+                    failures.add(ex);
+                    throw ex;
+                }
+                write(resp, "complete");
+            }
+        }
+
+        private static void write(HttpServletResponse resp, String s) throws IOException {
+            byte[] b = s.getBytes("ISO-8859-1");
+            resp.setContentLength(b.length);
+            resp.getOutputStream().write(b);
+        }
+
+        private static void sleep(long millis) throws IOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cxf.transport.http.PathPrefixIndex;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NettyHttpServletPipelineFactoryTest extends Assert {
+    private Map<String, NettyHttpContextHandler> handlerMap;
+    private PathPrefixIndex<NettyHttpContextHandler> handlerIndex;
+    private NettyHttpContextHandler foo;
+    private NettyHttpContextHandler foobar;
+
+    @Before
+    public void setUp() {
+        handlerMap = new ConcurrentHashMap<String, NettyHttpContextHandler>();
+        handlerIndex = new PathPrefixIndex<NettyHttpContextHandler>();
+        foo = addContext("/foo");
+        foobar = addContext("/foobar");
+    }
+
+    @Test
+    public void testLongestPrefixWithIndex() {
+        checkLongestPrefix(createFactory(handlerIndex));
+    }
+
+    @Test
+    public void testLongestPrefixWithoutIndex() {
+        checkLongestPrefix(createFactory(null));
+    }
+
+    @Test
+    public void testRootContext() {
+        NettyHttpContextHandler root = addContext("/");
+        for (NettyHttpServletPipelineFactory factory
+            : new NettyHttpServletPipelineFactory[] {createFactory(handlerIndex), createFactory(null)}) {
+            assertSame(root, factory.getNettyHttpHandler("/foobarbaz"));
+            assertSame(root, factory.getNettyHttpHandler("/"));
+            assertSame(foo, factory.getNettyHttpHandler("/foo/test"));
+        }
+    }
+
+    @Test
+    public void testRemovedContext() {
+        handlerMap.remove("/foobar");
+        handlerIndex.remove("/foobar");
+        for (NettyHttpServletPipelineFactory factory
+            : new NettyHttpServletPipelineFactory[] {createFactory(handlerIndex), createFactory(null)}) {
+            assertNull(factory.getNettyHttpHandler("/foobar/test"));
+            assertSame(foo, factory.getNettyHttpHandler("/foo/test"));
+        }
+    }
+
+    private void checkLongestPrefix(NettyHttpServletPipelineFactory factory) {
+        assertSame(foo, factory.getNettyHttpHandler("/foo"));
+        assertSame(foo, factory.getNettyHttpHandler("/foo/"));
+        assertSame(foo, factory.getNettyHttpHandler("/foo/bar"));
+        assertSame(foo, factory.getNettyHttpHandler("/foo?wsdl"));
+        assertSame(foobar, factory.getNettyHttpHandler("/foobar"));
+        assertSame(foobar, factory.getNettyHttpHandler("/foobar/test"));
+        assertSame(foobar, factory.getNettyHttpHandler("/foobar?wsdl"));
+        // whole segments only, "/foo" is not the context of "/foobarbaz" or "/fo"
+        assertNull(factory.getNettyHttpHandler("/foobarbaz"));
+        assertNull(factory.getNettyHttpHandler("/fo"));
+        assertNull(factory.getNettyHttpHandler("/other/foo"));
+    }
+
+    private NettyHttpContextHandler addContext(String contextPath) {
+        NettyHttpContextHandler handler = new NettyHttpContextHandler(contextPath);
+        handlerMap.put(contextPath, handler);
+        handlerIndex.put(contextPath, handler);
+        return handler;
+    }
+
+    private NettyHttpServletPipelineFactory createFactory(PathPrefixIndex<NettyHttpContextHandler> index) {
+        return new NettyHttpServletPipelineFactory(null, false, 1, 1048576, handlerMap, index,
+                                                   null, false, 0, null);
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http.netty.server.servlet;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+public class NettyStreamingServletInputStreamTest extends Assert {
+    private EmbeddedChannel channel;
+    private NettyStreamingServletInputStream in;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        in = new NettyStreamingServletInputStream(channel, 100);
+    }
+
+    @Test
+    public void testSlowReaderSuspendsAutoRead() throws Exception {
+        in.offer(content(60));
+        assertTrue(channel.config().isAutoRead());
+        in.offer(content(60));
+        // the high water mark is reached, the connection is not read anymore
+        assertFalse(channel.config().isAutoRead());
+
+        byte[] buf = new byte[60];
+        assertEquals(60, in.read(buf));
+        // still above the low water mark
+        assertFalse(channel.config().isAutoRead());
+        assertEquals(60, in.read(buf));
+        assertTrue(channel.config().isAutoRead());
+
+        in.offer(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(-1, in.read(buf));
+        assertTrue(in.isComplete());
+    }
+
+    @Test
+    public void testCloseResumesAutoRead() throws Exception {
+        in.offer(content(150));
+        assertFalse(channel.config().isAutoRead());
+        in.close();
+        // the rest of the request is drained from the connection
+        assertTrue(channel.config().isAutoRead());
+        in.offer(new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[10])));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testReaderWaitsForContent() throws Exception {
+        final BlockingQueue<Object> result = new LinkedBlockingQueue<Object>();
+        Thread reader = new Thread() {
+            public void run() {
+                try {
+                    byte[] buf = new byte[1000];
+                    int total = 0;
+                    int n = in.read(buf);
+                    while (n != -1) {
+                        total += n;
+                        n = in.read(buf);
+                    }
+                    result.add(total);
+                } catch (IOException ex) {
+                    result.add(ex);
+                }
+            }
+        };
+        reader.start();
+        for (int i = 0; i < 10; i++) {
+            in.offer(content(50));
+        }
+        in.offer(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertEquals(500, result.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDisconnectMidBody() throws Exception {
+        final BlockingQueue<Object> result = new LinkedBlockingQueue<Object>();
+        in.offer(content(10));
+        Thread reader = new Thread() {
+            public void run() {
+                try {
+                    byte[] buf = new byte[1000];
+                    while (in.read(buf) != -1) {
+                        // keep reading
+                    }
+                    result.add("complete");
+                } catch (IOException ex) {
+                    result.add(ex);
+                }
+            }
+        };
+        reader.start();
+        assertNull(result.poll(200, TimeUnit.MILLISECONDS));
+        in.fail(new IOException("The connection was closed"));
+        assertTrue(result.poll(5, TimeUnit.SECONDS) instanceof IOException);
+    }
+
+    private static DefaultHttpContent content(int size) {
+        return new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[size]));
+    }
+}
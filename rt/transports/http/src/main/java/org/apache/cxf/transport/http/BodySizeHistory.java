@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.model.BindingOperationInfo;
+
+/**
+ * Remembers how large the request bodies a conduit sent for each operation
+ * were, so the next request can decide between buffering for a Content-Length
+ * and chunking before the first byte is written, and can size its buffer.
+ * <p>
+ * Each operation keeps a decaying peak of the sizes seen below the chunking
+ * threshold and a moving ratio of the requests that went over it.  The
+ * updates are not synchronized, a lost update just leaves the estimate
+ * slightly stale.
+ */
+public final class BodySizeHistory {
+    static final int MAX_OPERATIONS = 256;
+    static final int MIN_SAMPLES = 8;
+    static final int RESAMPLE_INTERVAL = 16;
+    static final int MIN_BUFFER_SIZE = 256;
+    
+    //ratios are in 1/256th, chunk up front once about 7 out of 8 were too big
+    private static final int CHUNK_RATIO = 224;
+    private static final int SIZE_RATIO = 32;
+    
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+    
+    /**
+     * Returns true if the requests for the message's operation have nearly
+     * always been over the threshold, so buffering would only add a copy.
+     * Every so often it still returns false so that the size is measured again.
+     */
+    public boolean isChunkingUpFront(Message message) {
+        Entry e = entries.get(getKey(message));
+        if (e == null || e.samples < MIN_SAMPLES || e.overRatio < CHUNK_RATIO) {
+            return false;
+        }
+        return ++e.skipped % RESAMPLE_INTERVAL != 0;
+    }
+    
+    /**
+     * Returns the initial size of the buffer used to hold up to threshold
+     * bytes of the message's body.
+     */
+    public int getBufferSize(Message message, int threshold) {
+        Entry e = entries.get(getKey(message));
+        if (e == null || e.samples < MIN_SAMPLES || e.overRatio > SIZE_RATIO) {
+            return threshold + 1;
+        }
+        int size = Math.max(MIN_BUFFER_SIZE, e.peak + (e.peak >> 2));
+        return Math.min(size, threshold + 1);
+    }
+    
+    /**
+     * Records the size of a body that was buffered against the threshold,
+     * or -1 if it went over it.
+     */
+    public void record(Message message, int size) {
+        Object key = getKey(message);
+        Entry e = entries.get(key);
+        if (e == null) {
+            if (entries.size() >= MAX_OPERATIONS) {
+                entries.clear();
+            }
+            e = new Entry();
+            Entry old = entries.putIfAbsent(key, e);
+            if (old != null) {
+                e = old;
+            }
+        }
+        e.record(size);
+    }
+    
+    private static Object getKey(Message message) {
+        Exchange exchange = message.getExchange();
+        BindingOperationInfo boi = exchange == null ? null : exchange.getBindingOperationInfo();
+        if (boi != null) {
+            return boi.getName();
+        }
+        Object address = message.get(Message.ENDPOINT_ADDRESS);
+        return message.get(Message.HTTP_REQUEST_METHOD) + " " + address;
+    }
+    
+    static final class Entry {
+        volatile int samples;
+        volatile int peak;
+        volatile int overRatio;
+        volatile int skipped;
+        
+        void record(int size) {
+            int r = overRatio;
+            if (size < 0) {
+                overRatio = r + ((256 - r) >> 3);
+            } else {
+                overRatio = r - ((r + 7) >> 3);
+                int p = peak;
+                peak = size >= p ? size : p - ((p - size) >> 3);
+            }
+            if (samples < MIN_SAMPLES) {
+                samples++;
+            }
+        }
+    }
+}
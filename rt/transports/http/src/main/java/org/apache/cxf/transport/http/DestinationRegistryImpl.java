@@ -38,6 +38,9 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         = new ConcurrentHashMap<String, AbstractHTTPDestination>();
     private Map<String, AbstractHTTPDestination> decodedDestinations = 
         new ConcurrentHashMap<String, AbstractHTTPDestination>();
+    // the destinations by their paths without the trailing slash, for the restful requests 
+    private PathPrefixIndex<AbstractHTTPDestination> pathIndex = 
+        new PathPrefixIndex<AbstractHTTPDestination>();
 
     public DestinationRegistryImpl() {
     }
@@ -48,6 +51,9 @@ public class DestinationRegistryImpl implements DestinationRegistry {
         if (dest != null && dest != destination) {
             throw new RuntimeException("Already a destination on " + path);
         }
+        if (pathIndex.get(path) == null) {
+            pathIndex.put(path, destination);
+        }
         try {
             String path2 = URLDecoder.decode(path, "ISO-8859-1");
             if (!path.equals(path2)) {
@@ -59,7 +65,16 @@ public class DestinationRegistryImpl implements DestinationRegistry {
     }
 
     public synchronized void removeDestination(String path) {
-        destinations.remove(path);
+        AbstractHTTPDestination dest = destinations.remove(path);
+        if (dest != null && pathIndex.get(path) == dest) {
+            pathIndex.remove(path);
+            // "/foo" and "/foo/" share the same index entry
+            String other = path.endsWith(SLASH) ? path.substring(0, path.length() - 1) : path + SLASH;
+            AbstractHTTPDestination otherDest = destinations.get(other);
+            if (otherDest != null) {
+                pathIndex.put(other, otherDest);
+            }
+        }
         try {
             String path2 = URLDecoder.decode(path, "ISO-8859-1");
             if (!path.equals(path2)) {
@@ -85,20 +100,8 @@ public class DestinationRegistryImpl implements DestinationRegistry {
     }
     
     public AbstractHTTPDestination checkRestfulRequest(String address) {
-        int len = -1;
-        AbstractHTTPDestination ret = null;
-        for (String path : getDestinationsPaths()) {
-            String thePath = path.length() > 1 && path.endsWith(SLASH) 
-                ? path.substring(0, path.length() - 1) : path;
-            if ((address.equals(thePath) 
-                || SLASH.equals(thePath)
-                || (address.length() > thePath.length() 
-                    && address.startsWith(thePath) && address.charAt(thePath.length()) == '/'))
-                && thePath.length() > len) {
-                ret = getDestinationForPath(path);
-                len = path.length();
-            }
-        }
+        // the destination with the longest path the address starts with
+        AbstractHTTPDestination ret = pathIndex.findLongestPrefix(address);
         if (ret != null && ret.getMessageObserver() == null) {
             return null;
         }
@@ -150,6 +150,12 @@ public abstract class HTTPConduit
      *  is used to get the response.
      */
     public static final String KEY_HTTP_CONNECTION = "http.connection";
+    
+    /**
+     * Contextual property that, when false, turns off choosing the request
+     * body buffering from the sizes previously sent for the operation.
+     */
+    public static final String ADAPTIVE_BUFFERING = "http.adaptive.buffering";
 
     /**
      * The Logger for this class.
@@ -259,6 +265,12 @@ public abstract class HTTPConduit
     
     protected CertConstraints certConstraints;
     
+    /**
+     * The sizes of the request bodies sent per operation, used to choose
+     * how the next request body is buffered.
+     */
+    protected final BodySizeHistory bodySizeHistory = new BodySizeHistory();
+    
     private volatile boolean clientSidePolicyCalced;
     
 
@@ -523,6 +535,12 @@ public abstract class HTTPConduit
             //use -1 and allow the URL connection to pick a default value
             isChunking = true;
             chunkThreshold = csPolicy.getChunkingThreshold();
+            if (chunkThreshold > 0 && isAdaptiveBuffering(message)
+                && bodySizeHistory.isChunkingUpFront(message)) {
+                //the bodies of this operation nearly always go over the 
+                //threshold, don't copy them through the buffer first
+                chunkThreshold = 0;
+            }
         }
         cookies.writeToMessageHeaders(message);
 
@@ -546,6 +564,10 @@ public abstract class HTTPConduit
         // We are now "ready" to "send" the message. 
     }
 
+    private static boolean isAdaptiveBuffering(Message message) {
+        return MessageUtils.getContextualBoolean(message, ADAPTIVE_BUFFERING, true);
+    }
+    
     protected boolean isChunkingSupported(Message message, String httpMethod) {
         if (HTTP_POST_METHOD.equals(httpMethod)) { 
             return true;
@@ -1044,6 +1066,13 @@ public abstract class HTTPConduit
 
     
     
+    private int getBufferSize(Message message, boolean isChunking, int chunkThreshold) {
+        if (isChunking && chunkThreshold > 0 && isAdaptiveBuffering(message)) {
+            return bodySizeHistory.getBufferSize(message, chunkThreshold);
+        }
+        return chunkThreshold + 1;
+    }
+    
     /**
      * Wrapper output stream responsible for flushing headers and handling
      * the incoming HTTP-level response (not necessarily the MEP response).
@@ -1080,7 +1109,7 @@ public abstract class HTTPConduit
                 String conduitName,
                 URI url
         ) {
-            super(chunkThreshold);
+            super(chunkThreshold, getBufferSize(outMessage, isChunking, chunkThreshold));
             this.outMessage = outMessage;
             this.cachingForRetransmission = possibleRetransmit;
             this.chunking = isChunking;
@@ -1105,6 +1134,12 @@ public abstract class HTTPConduit
             }
         }
 
+        private void recordBodySize() {
+            if (chunking && threshold > 0 && isAdaptiveBuffering(outMessage)) {
+                bodySizeHistory.record(outMessage, buffer == null ? -1 : buffer.size());
+            }
+        }
+
         // methods used for the outgoing side
         protected abstract void setupWrappedStream() throws IOException;
         protected abstract HttpsURLConnectionInfo getHttpsURLConnectionInfo() throws IOException;
@@ -1301,6 +1336,7 @@ public abstract class HTTPConduit
          * Perform any actions required on stream closure (handle response etc.)
          */
         public void close() throws IOException {
+            recordBodySize();
             try {
                 if (buffer != null && buffer.size() > 0) {
                     thresholdNotReached();
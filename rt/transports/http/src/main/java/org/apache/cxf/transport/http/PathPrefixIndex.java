@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+/**
+ * Maps the paths of the registered endpoints to their values and finds the value 
+ * registered with the longest path a request path starts with. The paths are 
+ * compared segment by segment, so "/soap" matches "/soap" and "/soap/test" but 
+ * not "/soap2", and a trailing slash is ignored. A value registered with "/" or 
+ * "" matches every path.
+ * <p>
+ * The lookups do not lock, the updates replace the modified branch of the tree
+ * and publish it at once.
+ */
+public final class PathPrefixIndex<T> {
+    private volatile Node<T> root = new Node<T>();
+
+    /**
+     * @return the value previously registered with the path
+     */
+    public synchronized T put(String path, T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value can not be null");
+        }
+        Node<T> newRoot = root.copy();
+        Node<T> node = newRoot;
+        int end = trimmedEnd(path);
+        for (int start = trimmedStart(path); start < end;) {
+            int slash = segmentEnd(path, start, end);
+            String segment = path.substring(start, slash);
+            Node<T> child = node.child(path, start, slash);
+            child = child == null ? new Node<T>() : child.copy();
+            node.setChild(segment, child);
+            node = child;
+            start = slash + 1;
+        }
+        T old = node.value;
+        node.value = value;
+        root = newRoot;
+        return old;
+    }
+    
+    /**
+     * @return the value which was registered with the path
+     */
+    public synchronized T remove(String path) {
+        T old = get(path);
+        if (old != null) {
+            root = remove(root, path, trimmedStart(path), trimmedEnd(path));
+        }
+        return old;
+    }
+    
+    private Node<T> remove(Node<T> node, String path, int start, int end) {
+        Node<T> copy = node.copy();
+        if (start >= end) {
+            copy.value = null;
+        } else {
+            int slash = segmentEnd(path, start, end);
+            Node<T> child = remove(node.child(path, start, slash), path, slash + 1, end);
+            String segment = path.substring(start, slash);
+            if (child.isEmpty()) {
+                copy.removeChild(segment);
+            } else {
+                copy.setChild(segment, child);
+            }
+        }
+        return copy;
+    }
+    
+    public synchronized void clear() {
+        root = new Node<T>();
+    }
+    
+    /**
+     * @return the value registered with exactly this path
+     */
+    public T get(String path) {
+        Node<T> node = root;
+        int end = trimmedEnd(path);
+        for (int start = trimmedStart(path); node != null && start < end;) {
+            int slash = segmentEnd(path, start, end);
+            node = node.child(path, start, slash);
+            start = slash + 1;
+        }
+        return node == null ? null : node.value;
+    }
+    
+    /**
+     * @return the value registered with the longest path the given path starts with, 
+     *         the query of the path is ignored
+     */
+    public T findLongestPrefix(String path) {
+        int end = path.indexOf('?');
+        if (end == -1) {
+            end = path.length();
+        }
+        Node<T> node = root;
+        T best = node.value;
+        for (int start = path.startsWith("/") ? 1 : 0; start < end;) {
+            int slash = segmentEnd(path, start, end);
+            node = node.child(path, start, slash);
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                best = node.value;
+            }
+            start = slash + 1;
+        }
+        return best;
+    }
+    
+    private static int trimmedStart(String path) {
+        return path.startsWith("/") ? 1 : 0;
+    }
+    
+    private static int trimmedEnd(String path) {
+        return path.length() > 1 && path.endsWith("/") ? path.length() - 1 : path.length();
+    }
+    
+    private static int segmentEnd(String path, int start, int end) {
+        int slash = path.indexOf('/', start);
+        return slash == -1 || slash > end ? end : slash;
+    }
+    
+    private static int compare(String path, int start, int end, String segment) {
+        int len = Math.min(end - start, segment.length());
+        for (int i = 0; i < len; i++) {
+            int c = path.charAt(start + i) - segment.charAt(i);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return (end - start) - segment.length();
+    }
+    
+    /**
+     * The children are kept sorted by their segments so they can be 
+     * looked up without creating a substring of the path.
+     */
+    private static final class Node<T> {
+        private static final String[] NO_SEGMENTS = new String[0];
+        private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+        
+        String[] segments = NO_SEGMENTS;
+        Node<?>[] children = NO_CHILDREN;
+        T value;
+        
+        Node<T> copy() {
+            Node<T> n = new Node<T>();
+            n.segments = segments;
+            n.children = children;
+            n.value = value;
+            return n;
+        }
+        
+        boolean isEmpty() {
+            return value == null && segments.length == 0;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Node<T> child(String path, int start, int end) {
+            int idx = indexOf(path, start, end);
+            return idx < 0 ? null : (Node<T>)children[idx];
+        }
+        
+        private int indexOf(String path, int start, int end) {
+            int low = 0;
+            int high = segments.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int c = compare(path, start, end, segments[mid]);
+                if (c > 0) {
+                    low = mid + 1;
+                } else if (c < 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+        
+        void setChild(String segment, Node<T> child) {
+            int idx = indexOf(segment, 0, segment.length());
+            if (idx >= 0) {
+                Node<?>[] c = children.clone();
+                c[idx] = child;
+                children = c;
+                return;
+            }
+            idx = -(idx + 1);
+            String[] s = new String[segments.length + 1];
+            Node<?>[] c = new Node<?>[children.length + 1];
+            System.arraycopy(segments, 0, s, 0, idx);
+            System.arraycopy(children, 0, c, 0, idx);
+            s[idx] = segment;
+            c[idx] = child;
+            System.arraycopy(segments, idx, s, idx + 1, segments.length - idx);
+            System.arraycopy(children, idx, c, idx + 1, children.length - idx);
+            segments = s;
+            children = c;
+        }
+        
+        void removeChild(String segment) {
+            int idx = indexOf(segment, 0, segment.length());
+            if (idx < 0) {
+                return;
+            }
+            String[] s = new String[segments.length - 1];
+            Node<?>[] c = new Node<?>[children.length - 1];
+            System.arraycopy(segments, 0, s, 0, idx);
+            System.arraycopy(children, 0, c, 0, idx);
+            System.arraycopy(segments, idx + 1, s, idx, segments.length - idx - 1);
+            System.arraycopy(children, idx + 1, c, idx, children.length - idx - 1);
+            segments = s;
+            children = c;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BodySizeHistoryTest extends Assert {
+    private static final int THRESHOLD = 4096;
+    
+    @Test
+    public void testDefaultsWithoutHistory() {
+        BodySizeHistory history = new BodySizeHistory();
+        Message m = createMessage("http://localhost/a");
+        assertFalse(history.isChunkingUpFront(m));
+        assertEquals(THRESHOLD + 1, history.getBufferSize(m, THRESHOLD));
+    }
+    
+    @Test
+    public void testSmallBodiesGetSmallerBuffers() {
+        BodySizeHistory history = new BodySizeHistory();
+        Message m = createMessage("http://localhost/a");
+        for (int x = 0; x < BodySizeHistory.MIN_SAMPLES; x++) {
+            history.record(m, 800);
+        }
+        assertFalse(history.isChunkingUpFront(m));
+        assertEquals(1000, history.getBufferSize(m, THRESHOLD));
+        
+        //the peak only decays slowly towards the smaller sizes
+        history.record(m, 10);
+        assertEquals(877, history.getBufferSize(m, THRESHOLD));
+        for (int x = 0; x < 32; x++) {
+            history.record(m, 10);
+        }
+        assertEquals(BodySizeHistory.MIN_BUFFER_SIZE, history.getBufferSize(m, THRESHOLD));
+        
+        //other operations are not affected
+        assertEquals(THRESHOLD + 1, history.getBufferSize(createMessage("http://localhost/b"), THRESHOLD));
+    }
+    
+    @Test
+    public void testLargeBodiesChunkUpFront() {
+        BodySizeHistory history = new BodySizeHistory();
+        Message m = createMessage("http://localhost/a");
+        for (int x = 0; x < 24; x++) {
+            history.record(m, -1);
+        }
+        assertEquals(THRESHOLD + 1, history.getBufferSize(m, THRESHOLD));
+        int upFront = 0;
+        for (int x = 0; x < BodySizeHistory.RESAMPLE_INTERVAL; x++) {
+            if (history.isChunkingUpFront(m)) {
+                upFront++;
+            }
+        }
+        //one request in each interval is buffered again to remeasure
+        assertEquals(BodySizeHistory.RESAMPLE_INTERVAL - 1, upFront);
+        
+        for (int x = 0; x < 4; x++) {
+            history.record(m, 100);
+        }
+        assertFalse(history.isChunkingUpFront(m));
+    }
+    
+    private static Message createMessage(String address) {
+        Message m = new MessageImpl();
+        Exchange ex = new ExchangeImpl();
+        ex.setOutMessage(m);
+        m.put(Message.ENDPOINT_ADDRESS, address);
+        m.put(Message.HTTP_REQUEST_METHOD, "POST");
+        return m;
+    }
+}
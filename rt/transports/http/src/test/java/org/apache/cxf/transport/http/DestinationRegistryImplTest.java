@@ -121,6 +121,21 @@ public class DestinationRegistryImplTest extends Assert {
         
     }
 
+    @Test
+    public void testCheckRestfulRequestAfterRemove() throws Exception {
+        setUpDestinations();
+        registry.removeDestination("/soap/test");
+        registry.removeDestination("/test2/");
+        
+        AbstractHTTPDestination soap = registry.getDestinationForPath("/soap");
+        EasyMock.expect(soap.getMessageObserver()).andReturn(observer).anyTimes();
+        control.replay();
+        
+        assertSame(soap, registry.checkRestfulRequest("/soap/test"));
+        assertNull(registry.checkRestfulRequest("/test2/3"));
+        control.verify();
+    }
+
     private void setUpDestinations() {
         for (int i = 0; i < REGISTERED_PATHS.length; i++) {
             AbstractHTTPDestination destination = control.createMock(AbstractHTTPDestination.class);
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PathPrefixIndexTest extends Assert {
+
+    @Test
+    public void testLongestPrefix() {
+        PathPrefixIndex<String> index = new PathPrefixIndex<String>();
+        index.put("/soap", "soap");
+        index.put("/soap/test", "soaptest");
+        index.put("/soap2", "soap2");
+        index.put("/rest/", "rest");
+        
+        assertEquals("soap", index.findLongestPrefix("/soap"));
+        assertEquals("soap", index.findLongestPrefix("/soap/"));
+        assertEquals("soap", index.findLongestPrefix("/soap/tst"));
+        assertEquals("soaptest", index.findLongestPrefix("/soap/test"));
+        assertEquals("soaptest", index.findLongestPrefix("/soap/test/1?wsdl"));
+        assertEquals("soap2", index.findLongestPrefix("/soap2?wsdl"));
+        assertEquals("rest", index.findLongestPrefix("/rest"));
+        assertEquals("rest", index.findLongestPrefix("/rest/customers/1"));
+        assertNull(index.findLongestPrefix("/soap3"));
+        assertNull(index.findLongestPrefix("/"));
+        
+        index.put("/", "root");
+        assertEquals("root", index.findLongestPrefix("/soap3"));
+        assertEquals("soap", index.findLongestPrefix("/soap/tst"));
+    }
+    
+    @Test
+    public void testPutAndRemove() {
+        PathPrefixIndex<String> index = new PathPrefixIndex<String>();
+        assertNull(index.put("/a/b/c", "c"));
+        assertNull(index.put("/a", "a"));
+        assertEquals("a", index.put("/a/", "a2"));
+        
+        assertEquals("a2", index.get("/a"));
+        assertEquals("c", index.get("/a/b/c"));
+        assertNull(index.get("/a/b"));
+        assertEquals("a2", index.findLongestPrefix("/a/b"));
+        
+        assertNull(index.remove("/a/b"));
+        assertEquals("c", index.remove("/a/b/c"));
+        assertEquals("a2", index.findLongestPrefix("/a/b/c"));
+        assertEquals("a2", index.remove("/a"));
+        assertNull(index.findLongestPrefix("/a/b/c"));
+        
+        index.put("", "root");
+        assertEquals("root", index.get("/"));
+        index.clear();
+        assertNull(index.findLongestPrefix("/a"));
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.support.JmsUtils;
+
+/**
+ * A listener container which commits its locally transacted sessions once per batch of 
+ * messages instead of once per message. A batch is committed when it has reached the batch size,
+ * when its first message is older than the linger time or when no further message is waiting.
+ * If the processing of one message fails the whole batch is rolled back and redelivered. 
+ * The sessions have to be cached by the container for the batch to span several receives.
+ */
+public class BatchingMessageListenerContainer extends DefaultMessageListenerContainer {
+    private static final Logger LOG = LogUtils.getL7dLogger(BatchingMessageListenerContainer.class);
+    
+    private final Map<Session, Batch> batches = new ConcurrentHashMap<Session, Batch>();
+    private int batchSize;
+    private long batchLinger;
+    
+    public BatchingMessageListenerContainer(int batchSize, long batchLinger) {
+        this.batchSize = batchSize;
+        this.batchLinger = batchLinger;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchLinger() {
+        return batchLinger;
+    }
+
+    @Override
+    protected void commitIfNecessary(Session session, Message message) throws JMSException {
+        if (batchSize > 1 && session.getTransacted() && isSessionLocallyTransacted(session)) {
+            // a session is only used by one invoker at a time
+            Batch batch = batches.get(session);
+            if (batch == null) {
+                batch = new Batch();
+                batches.put(session, batch);
+            }
+            if (++batch.count < batchSize 
+                && System.currentTimeMillis() - batch.started < batchLinger) {
+                return;
+            }
+            batches.remove(session);
+        }
+        super.commitIfNecessary(session, message);
+    }
+
+    @Override
+    protected void rollbackIfNecessary(Session session) throws JMSException {
+        batches.remove(session);
+        super.rollbackIfNecessary(session);
+    }
+
+    @Override
+    protected void rollbackOnExceptionIfNecessary(Session session, Throwable ex) throws JMSException {
+        batches.remove(session);
+        super.rollbackOnExceptionIfNecessary(session, ex);
+    }
+
+    @Override
+    protected void noMessageReceived(Object invoker, Session session) {
+        if (session != null && batches.remove(session) != null) {
+            try {
+                JmsUtils.commitIfNecessary(session);
+            } catch (JMSException ex) {
+                LOG.log(Level.WARNING, "Failed to commit the batch of received messages", ex);
+                try {
+                    JmsUtils.rollbackIfNecessary(session);
+                } catch (JMSException ex2) {
+                    LOG.log(Level.FINE, "Failed to roll back the batch of received messages", ex2);
+                }
+            }
+        }
+        super.noMessageReceived(invoker, session);
+    }
+
+    @Override
+    protected void doShutdown() throws JMSException {
+        // the uncommitted messages are redelivered once the sessions are closed
+        batches.clear();
+        super.doShutdown();
+    }
+    
+    private static final class Batch {
+        final long started = System.currentTimeMillis();
+        int count;
+    }
+}
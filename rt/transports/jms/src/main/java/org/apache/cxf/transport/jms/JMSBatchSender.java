@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.workqueue.WorkQueue;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.support.JmsUtils;
+
+/**
+ * Sends one way messages through one transacted session and commits them in batches. 
+ * A batch is committed when it has reached the configured number of messages or bytes or
+ * when its first message has waited for the linger time. The messages of a batch whose
+ * commit fails are lost. The failure is thrown from the send which triggered the commit, 
+ * or from the next send, flush or close if the batch was committed after the linger time,
+ * unless the loss on failure has been allowed, then it is only logged.
+ */
+class JMSBatchSender {
+    private static final Logger LOG = LogUtils.getL7dLogger(JMSBatchSender.class);
+    
+    private final JMSConfiguration jmsConfig;
+    private final WorkQueue workQueue;
+    private Connection connection;
+    private Session session;
+    private MessageProducer producer;
+    private int count;
+    private long bytes;
+    private long batchNumber;
+    private RuntimeException failure;
+    
+    JMSBatchSender(JMSConfiguration jmsConfig, WorkQueue workQueue) {
+        this.jmsConfig = jmsConfig;
+        this.workQueue = workQueue;
+    }
+    
+    /**
+     * Adds the message to the current batch using the QoS settings of the template
+     * 
+     * @param size the size of the payload which counts towards the bytes of the batch
+     */
+    synchronized void send(JmsTemplate jmsTemplate, MessageCreator creator, long size) {
+        throwFailure();
+        try {
+            if (session == null) {
+                open(jmsTemplate);
+            }
+            javax.jms.Message message = creator.createMessage(session);
+            if (jmsTemplate.isExplicitQosEnabled()) {
+                producer.send(message, jmsTemplate.getDeliveryMode(), jmsTemplate.getPriority(),
+                              jmsTemplate.getTimeToLive());
+            } else {
+                producer.send(message);
+            }
+        } catch (JMSException ex) {
+            discard();
+            throw JmsUtils.convertJmsAccessException(ex);
+        }
+        count++;
+        bytes += size;
+        boolean full = count >= jmsConfig.getBatchSize() 
+            || jmsConfig.getBatchMaxBytes() > 0 && bytes >= jmsConfig.getBatchMaxBytes();
+        if (full || jmsConfig.getBatchLinger() <= 0 || workQueue == null) {
+            commit();
+            throwFailure();
+        } else if (count == 1) {
+            final long scheduled = batchNumber;
+            workQueue.schedule(new Runnable() {
+                public void run() {
+                    flush(scheduled);
+                }
+            }, jmsConfig.getBatchLinger());
+        }
+    }
+    
+    /**
+     * Commits the pending messages
+     */
+    synchronized void flush() {
+        if (count > 0) {
+            commit();
+        }
+        throwFailure();
+    }
+    
+    synchronized void close() {
+        try {
+            flush();
+        } finally {
+            discard();
+        }
+    }
+    
+    private synchronized void flush(long number) {
+        // only if the batch the flush was scheduled for is still pending, 
+        // a failure is reported to the next caller
+        if (number == batchNumber && count > 0) {
+            commit();
+        }
+    }
+
+    private void open(JmsTemplate jmsTemplate) throws JMSException {
+        connection = jmsTemplate.getConnectionFactory().createConnection();
+        session = connection.createSession(true, Session.SESSION_TRANSACTED);
+        Destination destination = jmsTemplate.getDestinationResolver()
+            .resolveDestinationName(session, jmsConfig.getTargetDestination(), jmsConfig.isPubSubDomain());
+        producer = session.createProducer(destination);
+    }
+    
+    private void commit() {
+        try {
+            session.commit();
+        } catch (JMSException ex) {
+            LOG.log(Level.WARNING, "Failed to commit a batch of " + count + " messages", ex);
+            if (!jmsConfig.isBatchLossOnFailure()) {
+                failure = JmsUtils.convertJmsAccessException(ex);
+            }
+            discard();
+        }
+        count = 0;
+        bytes = 0;
+        batchNumber++;
+    }
+    
+    private void throwFailure() {
+        if (failure != null) {
+            RuntimeException ex = failure;
+            failure = null;
+            throw ex;
+        }
+    }
+    
+    private void discard() {
+        count = 0;
+        bytes = 0;
+        batchNumber++;
+        JmsUtils.closeMessageProducer(producer);
+        JmsUtils.closeSession(session);
+        JmsUtils.closeConnection(connection);
+        producer = null;
+        session = null;
+        connection = null;
+    }
+}
@@ -26,9 +26,9 @@ import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.lang.ref.WeakReference;
-import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -48,8 +48,11 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.apache.cxf.service.model.EndpointInfo;
 import org.apache.cxf.transport.AbstractConduit;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.workqueue.WorkQueueManager;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
@@ -69,15 +72,20 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     
     private static final String CORRELATED = JMSConduit.class.getName() + ".correlated";
     
+    // the reply timeout if none is configured, the same as the synchronous client timeout
+    private static final long DEFAULT_REPLY_TIMEOUT = 60000L;
+    
     private EndpointInfo endpointInfo;
     private JMSConfiguration jmsConfig;
-    private Map<String, Exchange> correlationMap = new ConcurrentHashMap<String, Exchange>();
+    private ConcurrentMap<String, Exchange> correlationMap = new ConcurrentHashMap<String, Exchange>();
     private DefaultMessageListenerContainer jmsListener;
     private DefaultMessageListenerContainer allListener;
     private String conduitId;
     private AtomicLong messageCount;
     private JMSBusLifeCycleListener listener;
     private Bus bus;
+    private volatile JmsTemplate defaultJmsTemplate;
+    private JMSBatchSender batchSender;
 
     public JMSConduit(EndpointInfo endpointInfo,
                       EndpointReferenceType target,
@@ -180,7 +188,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         if (replyTo == null) {
             replyTo = jmsConfig.getReplyDestination();
         }
-        final JmsTemplate jmsTemplate = JMSFactory.createJmsTemplate(jmsConfig, headers);
+        final JmsTemplate jmsTemplate = getJmsTemplate(headers);
         
         String userCID = headers.getJMSCorrelationID();
 
@@ -190,7 +198,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
         if (!exchange.isOneWay() || !jmsConfig.isEnforceSpec() && isSetReplyTo(outMessage)
             && replyTo != null) {
             if (!jmsConfig.isReplyPubSubDomain()
-                && (exchange.isSynchronous() 
+                && (exchange.isSynchronous() && !jmsConfig.isUseSharedReplyListener()
                     || exchange.isOneWay())) {
                 replyToDestination = JMSFactory.resolveOrCreateDestination(jmsTemplate, replyTo,
                                                                            jmsConfig.isReplyPubSubDomain());
@@ -219,7 +227,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                 jmsMessage = JMSUtils.buildJMSMessageFromCXFMessage(jmsConfig, outMessage, request,
                                                                     messageType, session, destination,
                                                                     cid);
-                if ((jmsConfig.isReplyPubSubDomain() || !exchange.isSynchronous()) && !exchange.isOneWay()) {
+                if (isCorrelatedByListener(exchange)) {
                     correlationMap.put(cid, exchange);
                 }
                 LOG.log(Level.FINE, "client sending request: ", jmsMessage);
@@ -244,14 +252,24 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
          */
         if (!exchange.isOneWay()) {
             synchronized (exchange) {
-                jmsTemplate.send(jmsConfig.getTargetDestination(), messageCreator);
+                try {
+                    jmsTemplate.send(jmsConfig.getTargetDestination(), messageCreator);
+                } catch (RuntimeException ex) {
+                    if (cid != null) {
+                        correlationMap.remove(cid);
+                    }
+                    throw ex;
+                }
+                if (isCorrelatedByListener(exchange)) {
+                    scheduleReplyTimeout(exchange, cid);
+                }
                 if (correlationId == null) {
                     correlationId = messageCreator.getMessageID();
                 }
                 headers.setJMSMessageID(messageCreator.getMessageID());
 
                 final String messageSelector = "JMSCorrelationID = '" + correlationId + "'";
-                if (exchange.isSynchronous() && !jmsConfig.isReplyPubSubDomain()) {
+                if (!isCorrelatedByListener(exchange)) {
                     javax.jms.Message replyMessage = jmsTemplate.receiveSelected(replyToDestination,
                                                                                  messageSelector);
                     if (replyMessage == null) {
@@ -273,12 +291,118 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
                     }
                 }
             }
+        } else if (jmsConfig.getBatchSize() > 1) {
+            getBatchSender().send(jmsTemplate, messageCreator, getPayloadSize(request));
+            headers.setJMSMessageID(messageCreator.getMessageID());
         } else {
             jmsTemplate.send(jmsConfig.getTargetDestination(), messageCreator);
             headers.setJMSMessageID(messageCreator.getMessageID());
         }
     }
 
+    /**
+     * @return true if the reply is received by the listener of the conduit and correlated with 
+     *         the exchange through the correlation map, otherwise the sending thread receives it
+     */
+    private boolean isCorrelatedByListener(Exchange exchange) {
+        return !exchange.isOneWay()
+            && (jmsConfig.isReplyPubSubDomain() 
+                || !exchange.isSynchronous() 
+                || jmsConfig.isUseSharedReplyListener());
+    }
+    
+    private synchronized JMSBatchSender getBatchSender() {
+        if (batchSender == null) {
+            WorkQueueManager mgr = bus == null ? null : bus.getExtension(WorkQueueManager.class);
+            batchSender = new JMSBatchSender(jmsConfig, mgr == null ? null : mgr.getAutomaticWorkQueue());
+            addBusListener();
+        }
+        return batchSender;
+    }
+    
+    private static long getPayloadSize(Object request) {
+        if (request instanceof byte[]) {
+            return ((byte[])request).length;
+        } else if (request instanceof String) {
+            return ((String)request).length();
+        }
+        return 0;
+    }
+    
+    /**
+     * The template is only configured for the message if the message sets its own QoS,
+     * otherwise the template of the conduit is reused
+     */
+    private JmsTemplate getJmsTemplate(JMSMessageHeadersType headers) {
+        if (headers.isSetTimeToLive() || headers.isSetJMSPriority() || headers.isSetJMSDeliveryMode()) {
+            return JMSFactory.createJmsTemplate(jmsConfig, headers);
+        }
+        JmsTemplate template = defaultJmsTemplate;
+        if (template == null) {
+            template = JMSFactory.createJmsTemplate(jmsConfig, null);
+            defaultJmsTemplate = template;
+        }
+        return template;
+    }
+    
+    /**
+     * Removes the exchange from the correlation map if the reply has not arrived in time 
+     * and fails it if nobody else waits for the reply
+     */
+    private void scheduleReplyTimeout(final Exchange exchange, final String correlationId) {
+        Long timeout = jmsConfig.getReceiveTimeout();
+        if (timeout != null && timeout <= 0) {
+            // wait forever
+            return;
+        }
+        ReplyTimeoutWheel.getInstance().schedule(new Runnable() {
+            public void run() {
+                if (correlationMap.remove(correlationId, exchange)) {
+                    replyTimedOut(exchange, correlationId);
+                }
+            }
+        }, timeout == null ? DEFAULT_REPLY_TIMEOUT : timeout);
+    }
+    
+    protected void replyTimedOut(final Exchange exchange, final String correlationId) {
+        if (exchange.isSynchronous()) {
+            // the client waiting for the response times out on its own
+            return;
+        }
+        Runnable runnable = new Runnable() {
+            public void run() {
+                Message outMessage = exchange.getOutMessage();
+                if (outMessage == null) {
+                    return;
+                }
+                Exception ex = new RuntimeException("Timeout receiving message with correlationId "
+                                                    + correlationId);
+                if (outMessage.getInterceptorChain() instanceof PhaseInterceptorChain) {
+                    ((PhaseInterceptorChain)outMessage.getInterceptorChain()).abort();
+                }
+                outMessage.setContent(Exception.class, ex);
+                MessageObserver mo = null;
+                if (outMessage.getInterceptorChain() != null) {
+                    ((PhaseInterceptorChain)outMessage.getInterceptorChain()).unwind(outMessage);
+                    mo = outMessage.getInterceptorChain().getFaultObserver();
+                }
+                if (mo == null) {
+                    mo = exchange.get(MessageObserver.class);
+                }
+                if (mo != null) {
+                    mo.onMessage(outMessage);
+                }
+            }
+        };
+        // don't run the fault processing on the timer thread
+        WorkQueueManager mgr = bus == null ? null : bus.getExtension(WorkQueueManager.class);
+        if (mgr != null && mgr.getAutomaticWorkQueue() != null) {
+            mgr.getAutomaticWorkQueue().execute(runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
     private String createCorrelationId(final Exchange exchange, String userCID) {
         String correlationId = null;
         if (!exchange.isOneWay()) {
@@ -287,6 +411,7 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
             } else if (!jmsConfig.isSetConduitSelectorPrefix()
                        && !jmsConfig.isReplyPubSubDomain()
                        && (exchange.isSynchronous() || exchange.isOneWay())
+                       && !jmsConfig.isUseSharedReplyListener()
                        && (!jmsConfig.isSetUseConduitIdSelector() 
                            || !jmsConfig.isUseConduitIdSelector())) {
                 // in this case the correlation id will be set to
@@ -417,8 +542,17 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     }
     public synchronized void close() {
         shutdownListeners();
-        jmsConfig.destroyWrappedConnectionFactory();
-        LOG.log(Level.FINE, "JMSConduit closed ");
+        try {
+            if (batchSender != null) {
+                // throws if the last batch could not be committed
+                batchSender.close();
+            }
+        } finally {
+            batchSender = null;
+            defaultJmsTemplate = null;
+            jmsConfig.destroyWrappedConnectionFactory();
+            LOG.log(Level.FINE, "JMSConduit closed ");
+        }
     }
 
     protected Logger getLogger() {
@@ -428,9 +562,14 @@ public class JMSConduit extends AbstractConduit implements JMSExchangeSender, Me
     public JMSConfiguration getJmsConfig() {
         return jmsConfig;
     }
+    
+    int getCorrelationMapSize() {
+        return correlationMap.size();
+    }
 
     public void setJmsConfig(JMSConfiguration jmsConfig) {
         this.jmsConfig = jmsConfig;
+        defaultJmsTemplate = null;
     }
 
     protected static boolean isSetReplyTo(Message message) {         
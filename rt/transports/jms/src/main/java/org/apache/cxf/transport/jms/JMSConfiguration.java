@@ -27,6 +27,7 @@ import org.apache.cxf.configuration.ConfigurationException;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.connection.SingleConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.AbstractMessageListenerContainer;
@@ -101,6 +102,12 @@ public class JMSConfiguration implements InitializingBean {
     private Boolean enforceSpec;
     private boolean acceptMessagesWhileStopping;
     private boolean jmsProviderTibcoEms;
+    private boolean useSharedReplyListener;
+    private int sessionCacheSize;
+    private int batchSize;
+    private long batchMaxBytes;
+    private long batchLinger = 100;
+    private boolean batchLossOnFailure;
 
     //For jms spec.
     private String targetService;
@@ -410,6 +417,85 @@ public class JMSConfiguration implements InitializingBean {
     public boolean isSetUseConduitIdSelector() {
         return useConduitIdSelector != null;
     }
+    
+    /**
+     * If true the replies to synchronous requests are also received by the listener
+     * the conduit keeps on the reply destination instead of a consumer per request.
+     * The calling thread is then not blocked in the conduit and the replies of 
+     * all exchanges are correlated by their conduit generated correlation ids.
+     */
+    public void setUseSharedReplyListener(boolean useSharedReplyListener) {
+        this.useSharedReplyListener = useSharedReplyListener;
+    }
+
+    public boolean isUseSharedReplyListener() {
+        return useSharedReplyListener;
+    }
+    
+    /**
+     * If greater than 0 the sessions and producers used to send the messages are cached 
+     * by a CachingConnectionFactory instead of being created for every message. 
+     * Only applies to JMS 1.1 non XA connection factories which are wrapped by CXF.
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+    
+    /**
+     * If greater than 1 the conduit sends one way messages in a transacted session which is 
+     * committed once per batch of messages. Listeners with locally transacted sessions commit
+     * the received messages in batches of this size, a failure rolls back the whole batch.
+     * <p>
+     * The messages of a sent batch whose commit fails are lost. The failure is thrown from 
+     * the send which filled the batch, or if the batch was committed after the linger time, 
+     * from the next send or from the flush or close of the conduit. Set batchLossOnFailure
+     * to only log the failure instead.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    /**
+     * The size of the sent payloads after which a batch is committed, 0 for no limit 
+     */
+    public void setBatchMaxBytes(long batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public long getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+    
+    /**
+     * The time in ms after which a batch is committed even if it is not full
+     */
+    public void setBatchLinger(long batchLinger) {
+        this.batchLinger = batchLinger;
+    }
+
+    public long getBatchLinger() {
+        return batchLinger;
+    }
+    
+    /**
+     * If true the failed commit of a sent batch is only logged, the caller is not told 
+     * that the messages of the batch have been lost
+     */
+    public void setBatchLossOnFailure(boolean batchLossOnFailure) {
+        this.batchLossOnFailure = batchLossOnFailure;
+    }
+
+    public boolean isBatchLossOnFailure() {
+        return batchLossOnFailure;
+    }
 
     public void setJndiTemplate(JndiTemplate jndiTemplate) {
         this.jndiTemplate = jndiTemplate;
@@ -461,6 +547,12 @@ public class JMSConfiguration implements InitializingBean {
                 if (useJms11) {
                     if (connectionFactory instanceof XAConnectionFactory) {
                         scf = new XASingleConnectionFactory(connectionFactory);
+                    } else if (sessionCacheSize > 0) {
+                        CachingConnectionFactory ccf = new CachingConnectionFactory(connectionFactory);
+                        ccf.setSessionCacheSize(sessionCacheSize);
+                        // the listener containers manage their consumers themselves
+                        ccf.setCacheConsumers(false);
+                        scf = ccf;
                     } else {
                         scf = new SingleConnectionFactory(connectionFactory);
                     }
@@ -165,6 +165,9 @@ public final class JMSFactory {
                 && 
                 jmsConfig.getConnectionFactory() instanceof XAConnectionFactory) {
                 jmsListener = new JCATransactionalMessageListenerContainer(ei); 
+            } else if (jmsConfig.getBatchSize() > 1 && jmsConfig.isSessionTransacted()) {
+                jmsListener = new BatchingMessageListenerContainer(jmsConfig.getBatchSize(),
+                                                                   jmsConfig.getBatchLinger());
             } else {
                 jmsListener = new DefaultMessageListenerContainer();
             }
@@ -261,6 +264,12 @@ public final class JMSFactory {
         } else if (jmsConfig.getCacheLevel() != JMSConfiguration.DEFAULT_VALUE) {
             jmsListener.setCacheLevel(jmsConfig.getCacheLevel());
         }
+        if (jmsListener instanceof BatchingMessageListenerContainer
+            && jmsListener.getCacheLevel() < DefaultMessageListenerContainer.CACHE_CONSUMER) {
+            // the batch would be rolled back when the session is closed after each message
+            LOG.info("cacheLevel is raised to CACHE_CONSUMER for the batched listener");
+            jmsListener.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
+        }
         if (jmsListener.getCacheLevel() >= DefaultMessageListenerContainer.CACHE_CONSUMER
             && jmsConfig.getMaxSuspendedContinuations() > 0) {
             LOG.info("maxSuspendedContinuations value will be ignored - "
@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.jms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * A hashed timer wheel which expires the outstanding replies of all JMS conduits 
+ * from one daemon thread. Scheduling is constant time, the tasks are not cancelled 
+ * but are expected to find out themselves if the reply has already arrived.
+ * The timeouts fire with the precision of one tick.
+ */
+final class ReplyTimeoutWheel {
+    static final long TICK = 100L;
+    static final int BUCKETS = 512;
+    
+    private static final Logger LOG = LogUtils.getL7dLogger(ReplyTimeoutWheel.class);
+    private static ReplyTimeoutWheel instance;
+    
+    private final long tickMillis;
+    private final long startTime;
+    private final Queue<Entry>[] buckets;
+    private volatile long processedTick;
+    private Thread worker;
+    
+    @SuppressWarnings("unchecked")
+    ReplyTimeoutWheel(long tickMillis, int bucketCount) {
+        this.tickMillis = tickMillis;
+        this.startTime = System.currentTimeMillis();
+        this.buckets = new Queue[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<Entry>();
+        }
+    }
+    
+    static synchronized ReplyTimeoutWheel getInstance() {
+        if (instance == null) {
+            instance = new ReplyTimeoutWheel(TICK, BUCKETS);
+        }
+        return instance;
+    }
+    
+    /**
+     * Runs the task on the timer thread once the timeout has passed, 
+     * the task must not block.
+     */
+    void schedule(Runnable task, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout - startTime;
+        // round up, an expiry must never come early, and stay clear of the tick being processed
+        long tick = Math.max((deadline + tickMillis - 1) / tickMillis, processedTick + 2);
+        buckets[(int)(tick % buckets.length)].add(new Entry(task, tick));
+        ensureStarted();
+    }
+    
+    private synchronized void ensureStarted() {
+        if (worker == null) {
+            worker = new Thread(new Runnable() {
+                public void run() {
+                    turn();
+                }
+            }, "cxf-jms-reply-timeouts");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+    
+    private void turn() {
+        while (true) {
+            long tick = processedTick + 1;
+            long wait = startTime + tick * tickMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    // the wheel keeps turning as long as the JVM lives
+                }
+                continue;
+            }
+            expire(tick);
+            processedTick = tick;
+        }
+    }
+    
+    void expire(long tick) {
+        Queue<Entry> bucket = buckets[(int)(tick % buckets.length)];
+        List<Entry> later = null;
+        int count = bucket.size();
+        for (int i = 0; i < count; i++) {
+            Entry e = bucket.poll();
+            if (e == null) {
+                break;
+            }
+            if (e.tick > tick) {
+                // due in one of the next turns of the wheel
+                if (later == null) {
+                    later = new ArrayList<Entry>();
+                }
+                later.add(e);
+                continue;
+            }
+            try {
+                e.task.run();
+            } catch (Throwable t) {
+                LOG.log(Level.WARNING, "Reply timeout task failed", t);
+            }
+        }
+        if (later != null) {
+            bucket.addAll(later);
+        }
+    }
+    
+    private static final class Entry {
+        final Runnable task;
+        final long tick;
+        
+        Entry(Runnable task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+    }
+}
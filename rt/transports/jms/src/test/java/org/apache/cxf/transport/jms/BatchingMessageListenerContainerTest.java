@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.jms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+public class BatchingMessageListenerContainerTest extends AbstractJMSTester {
+    private BatchingMessageListenerContainer container;
+
+    @BeforeClass
+    public static void createAndStartBroker() throws Exception {
+        startBroker(new JMSBrokerSetup("tcp://localhost:" + JMS_PORT));
+    }
+
+    @After
+    public void shutdownContainer() {
+        if (container != null) {
+            container.shutdown();
+            container = null;
+        }
+    }
+
+    @Test
+    public void testBatchRedeliveredAfterListenerFailure() throws Exception {
+        ActiveMQConnectionFactory cf = new ActiveMQConnectionFactory("tcp://localhost:" + JMS_PORT);
+        cf.getRedeliveryPolicy().setInitialRedeliveryDelay(0);
+        // the messages are all sent before the listener starts, so they form one batch
+        send(cf, "batch.listener.failure", "1", "2", "3");
+
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> redelivered = Collections.synchronizedList(new ArrayList<String>());
+        container = createContainer(cf, "batch.listener.failure", 3, new MessageListener() {
+            private boolean failed;
+
+            public void onMessage(Message message) {
+                try {
+                    String text = ((TextMessage)message).getText();
+                    received.add(text);
+                    if (message.getJMSRedelivered()) {
+                        redelivered.add(text);
+                    }
+                    if ("3".equals(text) && !failed) {
+                        failed = true;
+                        throw new RuntimeException("Listener failure for testing");
+                    }
+                } catch (JMSException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+
+        waitForSize(received, 6);
+        // the messages processed before the failure are redelivered with the failed one
+        assertEquals("[1, 2, 3, 1, 2, 3]", received.toString());
+        assertEquals("[1, 2, 3]", redelivered.toString());
+
+        container.shutdown();
+        container = null;
+        assertNull("The redelivered batch has been committed", receive(cf, "batch.listener.failure"));
+    }
+
+    @Test
+    public void testPartialBatchCommittedWhenIdle() throws Exception {
+        ActiveMQConnectionFactory cf = new ActiveMQConnectionFactory("tcp://localhost:" + JMS_PORT);
+        send(cf, "batch.listener.idle", "1", "2");
+
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        container = createContainer(cf, "batch.listener.idle", 10, new MessageListener() {
+            public void onMessage(Message message) {
+                try {
+                    received.add(((TextMessage)message).getText());
+                } catch (JMSException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+        waitForSize(received, 2);
+        // wait for the receive timeout of the container to commit the batch
+        Thread.sleep(2000);
+        container.shutdown();
+        container = null;
+        assertNull("The batch has not been committed", receive(cf, "batch.listener.idle"));
+    }
+
+    private static BatchingMessageListenerContainer createContainer(ActiveMQConnectionFactory cf,
+                                                                    String destination, int batchSize,
+                                                                    MessageListener listener) {
+        BatchingMessageListenerContainer c = new BatchingMessageListenerContainer(batchSize, 60000);
+        c.setConnectionFactory(cf);
+        c.setDestinationName(destination);
+        c.setSessionTransacted(true);
+        c.setCacheLevel(DefaultMessageListenerContainer.CACHE_CONSUMER);
+        c.setReceiveTimeout(500);
+        c.setMessageListener(listener);
+        c.afterPropertiesSet();
+        c.start();
+        return c;
+    }
+
+    private static void send(ActiveMQConnectionFactory cf, String destination, String... texts) {
+        JmsTemplate jmsTemplate = new JmsTemplate(cf);
+        for (final String text : texts) {
+            jmsTemplate.send(destination, new MessageCreator() {
+                public Message createMessage(Session session) throws JMSException {
+                    return session.createTextMessage(text);
+                }
+            });
+        }
+    }
+
+    private static String receive(ActiveMQConnectionFactory cf, String destination) throws JMSException {
+        JmsTemplate jmsTemplate = new JmsTemplate(cf);
+        jmsTemplate.setReceiveTimeout(1000);
+        Message message = jmsTemplate.receive(destination);
+        return message == null ? null : ((TextMessage)message).getText();
+    }
+
+    private static void waitForSize(List<String> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(list.toString(), size, list.size());
+    }
+}
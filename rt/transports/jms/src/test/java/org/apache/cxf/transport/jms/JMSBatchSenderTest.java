@@ -0,0 +1,246 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.transport.jms;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
+import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+
+public class JMSBatchSenderTest extends AbstractJMSTester {
+    private AutomaticWorkQueueImpl workQueue;
+    private JMSBatchSender sender;
+
+    @BeforeClass
+    public static void createAndStartBroker() throws Exception {
+        startBroker(new JMSBrokerSetup("tcp://localhost:" + JMS_PORT));
+    }
+
+    @After
+    public void closeSender() {
+        if (sender != null) {
+            sender.close();
+            sender = null;
+        }
+        if (workQueue != null) {
+            workQueue.shutdown(false);
+            workQueue = null;
+        }
+    }
+
+    @Test
+    public void testFlushByCount() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.count");
+        jmsConfig.setBatchSize(3);
+        jmsConfig.setBatchLinger(60000);
+        workQueue = new AutomaticWorkQueueImpl();
+        sender = new JMSBatchSender(jmsConfig, workQueue);
+        JmsTemplate jmsTemplate = createTemplate(jmsConfig);
+
+        sender.send(jmsTemplate, textCreator("1"), 1);
+        sender.send(jmsTemplate, textCreator("2"), 1);
+        assertNull("The batch has not been committed yet", receive(jmsTemplate, "batch.test.count", 200));
+        sender.send(jmsTemplate, textCreator("3"), 1);
+        assertEquals("1", receive(jmsTemplate, "batch.test.count", 5000));
+        assertEquals("2", receive(jmsTemplate, "batch.test.count", 5000));
+        assertEquals("3", receive(jmsTemplate, "batch.test.count", 5000));
+    }
+
+    @Test
+    public void testFlushByBytes() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.bytes");
+        jmsConfig.setBatchSize(100);
+        jmsConfig.setBatchMaxBytes(10);
+        jmsConfig.setBatchLinger(60000);
+        workQueue = new AutomaticWorkQueueImpl();
+        sender = new JMSBatchSender(jmsConfig, workQueue);
+        JmsTemplate jmsTemplate = createTemplate(jmsConfig);
+
+        sender.send(jmsTemplate, textCreator("first"), 6);
+        assertNull(receive(jmsTemplate, "batch.test.bytes", 200));
+        sender.send(jmsTemplate, textCreator("second"), 6);
+        assertEquals("first", receive(jmsTemplate, "batch.test.bytes", 5000));
+        assertEquals("second", receive(jmsTemplate, "batch.test.bytes", 5000));
+    }
+
+    @Test
+    public void testFlushByLinger() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.linger");
+        jmsConfig.setBatchSize(100);
+        jmsConfig.setBatchLinger(300);
+        workQueue = new AutomaticWorkQueueImpl();
+        sender = new JMSBatchSender(jmsConfig, workQueue);
+        JmsTemplate jmsTemplate = createTemplate(jmsConfig);
+
+        long start = System.currentTimeMillis();
+        sender.send(jmsTemplate, textCreator("lingering"), 1);
+        assertEquals("lingering", receive(jmsTemplate, "batch.test.linger", 5000));
+        assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+
+    @Test
+    public void testCommitOnClose() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.close");
+        jmsConfig.setBatchSize(100);
+        jmsConfig.setBatchLinger(60000);
+        workQueue = new AutomaticWorkQueueImpl();
+        sender = new JMSBatchSender(jmsConfig, workQueue);
+        JmsTemplate jmsTemplate = createTemplate(jmsConfig);
+
+        sender.send(jmsTemplate, textCreator("1"), 1);
+        sender.send(jmsTemplate, textCreator("2"), 1);
+        assertNull(receive(jmsTemplate, "batch.test.close", 200));
+        sender.close();
+        sender = null;
+        assertEquals("1", receive(jmsTemplate, "batch.test.close", 5000));
+        assertEquals("2", receive(jmsTemplate, "batch.test.close", 5000));
+    }
+
+    @Test
+    public void testFailedCommitFailsTheSend() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.failed");
+        jmsConfig.setBatchSize(2);
+        IMocksControl control = EasyMock.createNiceControl();
+        JmsTemplate jmsTemplate = createFailingTemplate(control);
+        control.replay();
+        // without a work queue every message is committed at once
+        sender = new JMSBatchSender(jmsConfig, null);
+
+        try {
+            sender.send(jmsTemplate, textCreator("1"), 1);
+            fail("The failed commit must be reported");
+        } catch (JmsException ex) {
+            assertEquals("Commit failed", ex.getCause().getMessage());
+        }
+        // reported once only
+        sender.flush();
+    }
+
+    @Test
+    public void testFailedLingerCommitFailsTheNextCall() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.failed");
+        jmsConfig.setBatchSize(100);
+        jmsConfig.setBatchLinger(50);
+        IMocksControl control = EasyMock.createNiceControl();
+        JmsTemplate jmsTemplate = createFailingTemplate(control);
+        control.replay();
+        workQueue = new AutomaticWorkQueueImpl();
+        sender = new JMSBatchSender(jmsConfig, workQueue);
+
+        sender.send(jmsTemplate, textCreator("1"), 1);
+        // the batch is committed by the work queue after the linger time
+        Thread.sleep(1000);
+        try {
+            sender.flush();
+            fail("The failed commit must be reported");
+        } catch (JmsException ex) {
+            assertEquals("Commit failed", ex.getCause().getMessage());
+        }
+        // reported once only
+        sender.flush();
+
+        sender.send(jmsTemplate, textCreator("2"), 1);
+        Thread.sleep(1000);
+        try {
+            sender.close();
+            fail("The failed commit must be reported");
+        } catch (JmsException ex) {
+            assertEquals("Commit failed", ex.getCause().getMessage());
+        } finally {
+            sender = null;
+        }
+    }
+
+    @Test
+    public void testLossOnFailureAllowed() throws Exception {
+        JMSConfiguration jmsConfig = createConfiguration("batch.test.failed");
+        jmsConfig.setBatchSize(2);
+        jmsConfig.setBatchLossOnFailure(true);
+        IMocksControl control = EasyMock.createNiceControl();
+        JmsTemplate jmsTemplate = createFailingTemplate(control);
+        control.replay();
+        sender = new JMSBatchSender(jmsConfig, null);
+
+        sender.send(jmsTemplate, textCreator("1"), 1);
+        sender.send(jmsTemplate, textCreator("2"), 1);
+        sender.flush();
+    }
+
+    private JMSConfiguration createConfiguration(String destination) {
+        JMSConfiguration jmsConfig = new JMSConfiguration();
+        jmsConfig.setConnectionFactory(new ActiveMQConnectionFactory("tcp://localhost:" + JMS_PORT));
+        jmsConfig.setTargetDestination(destination);
+        return jmsConfig;
+    }
+
+    private static JmsTemplate createTemplate(JMSConfiguration jmsConfig) {
+        return new JmsTemplate(jmsConfig.getConnectionFactory());
+    }
+
+    /**
+     * Every commit of the session of the returned template fails
+     */
+    private static JmsTemplate createFailingTemplate(IMocksControl control) throws JMSException {
+        ConnectionFactory cf = control.createMock(ConnectionFactory.class);
+        Connection connection = control.createMock(Connection.class);
+        Session session = control.createMock(Session.class);
+        Queue queue = control.createMock(Queue.class);
+        MessageProducer producer = control.createMock(MessageProducer.class);
+        EasyMock.expect(cf.createConnection()).andReturn(connection).anyTimes();
+        EasyMock.expect(connection.createSession(true, Session.SESSION_TRANSACTED))
+            .andReturn(session).anyTimes();
+        EasyMock.expect(session.createQueue(EasyMock.<String>anyObject())).andReturn(queue).anyTimes();
+        EasyMock.expect(session.createProducer(queue)).andReturn(producer).anyTimes();
+        EasyMock.expect(session.createTextMessage(EasyMock.<String>anyObject()))
+            .andReturn(control.createMock(TextMessage.class)).anyTimes();
+        session.commit();
+        EasyMock.expectLastCall().andThrow(new JMSException("Commit failed")).anyTimes();
+        return new JmsTemplate(cf);
+    }
+
+    private static MessageCreator textCreator(final String text) {
+        return new MessageCreator() {
+            public javax.jms.Message createMessage(Session session) throws JMSException {
+                return session.createTextMessage(text);
+            }
+        };
+    }
+
+    private static String receive(JmsTemplate jmsTemplate, String destination, long timeout)
+        throws JMSException {
+        jmsTemplate.setReceiveTimeout(timeout);
+        javax.jms.Message message = jmsTemplate.receive(destination);
+        return message == null ? null : ((TextMessage)message).getText();
+    }
+}
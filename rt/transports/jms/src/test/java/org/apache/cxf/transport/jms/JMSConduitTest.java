@@ -29,18 +29,24 @@ import java.util.logging.Logger;
 
 import javax.jms.BytesMessage;
 import javax.jms.JMSException;
+import javax.jms.ObjectMessage;
 import javax.jms.Session;
+import javax.jms.TemporaryQueue;
 
 import org.apache.cxf.BusFactory;
 import org.apache.cxf.bus.spring.SpringBusFactory;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.transport.MessageObserver;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
 import org.springframework.jms.core.SessionCallback;
 
 public class JMSConduitTest extends AbstractJMSTester {
@@ -126,6 +132,141 @@ public class JMSConduitTest extends AbstractJMSTester {
         }
     }
 
+    @Test
+    public void testSharedListenerSyncCall() throws Exception {
+        setupServiceInfo("http://cxf.apache.org/hello_world_jms", "/wsdl/jms_test.wsdl",
+                         "HelloWorldServiceLoop", "HelloWorldPortLoop");
+
+        JMSConduit conduit = setupJMSConduit(true, false);
+        conduit.getJmsConfig().setUseSharedReplyListener(true);
+        try {
+            Message message = new MessageImpl();
+            // the conduit does not block the caller waiting for the reply
+            sendoutMessage(conduit, message, false);
+            assertNull(inMessage);
+            assertEquals(1, conduit.getCorrelationMapSize());
+            
+            // act as the server
+            JmsTemplate jmsTemplate = JMSFactory.createJmsTemplate(conduit.getJmsConfig(), null);
+            jmsTemplate.setReceiveTimeout(5000);
+            final javax.jms.Message request = 
+                jmsTemplate.receive(conduit.getJmsConfig().getTargetDestination());
+            assertNotNull("The request was not sent", request);
+            assertFalse("The shared listener is used instead of a temporary queue", 
+                        request.getJMSReplyTo() instanceof TemporaryQueue);
+            // the endpoint sends binary messages, which are object messages
+            final String messageType = conduit.getJmsConfig().getMessageType();
+            final byte[] payload = (byte[])((ObjectMessage)request).getObject();
+            jmsTemplate.send(request.getJMSReplyTo(), new MessageCreator() {
+                public javax.jms.Message createMessage(Session session) throws JMSException {
+                    javax.jms.Message reply = JMSUtils.createAndSetPayload(payload, session, messageType);
+                    reply.setJMSCorrelationID(request.getJMSCorrelationID());
+                    return reply;
+                }
+            });
+            
+            waitForReceivedMessage(5000);
+            verifyReceivedMessage(message);
+            assertSame(message.getExchange(), inMessage.getExchange());
+            assertEquals(0, conduit.getCorrelationMapSize());
+        } finally {
+            conduit.close();
+        }
+    }
+    
+    @Test
+    public void testSharedListenerReplyTimeout() throws Exception {
+        setupServiceInfo("http://cxf.apache.org/hello_world_jms", "/wsdl/jms_test.wsdl",
+                         "HelloWorldServiceLoop", "HelloWorldPortLoop");
+
+        JMSConduit conduit = setupJMSConduit(true, false);
+        conduit.getJmsConfig().setUseSharedReplyListener(true);
+        conduit.getJmsConfig().setReceiveTimeout(200L);
+        try {
+            Message message = new MessageImpl();
+            sendoutMessage(conduit, message, false);
+            assertEquals(1, conduit.getCorrelationMapSize());
+            
+            // the request is never answered
+            JmsTemplate jmsTemplate = JMSFactory.createJmsTemplate(conduit.getJmsConfig(), null);
+            jmsTemplate.setReceiveTimeout(5000);
+            assertNotNull(jmsTemplate.receive(conduit.getJmsConfig().getTargetDestination()));
+            
+            waitForCorrelationMapSize(conduit, 0, 5000);
+            assertEquals(0, conduit.getCorrelationMapSize());
+            assertNull(inMessage);
+        } finally {
+            conduit.close();
+        }
+    }
+    
+    @Test
+    public void testSharedListenerAsyncReplyTimeout() throws Exception {
+        setupServiceInfo("http://cxf.apache.org/hello_world_jms", "/wsdl/jms_test.wsdl",
+                         "HelloWorldServiceLoop", "HelloWorldPortLoop");
+
+        JMSConduit conduit = setupJMSConduit(true, false);
+        conduit.getJmsConfig().setUseSharedReplyListener(true);
+        conduit.getJmsConfig().setReceiveTimeout(200L);
+        try {
+            final Message[] faults = new Message[1];
+            Message message = new MessageImpl();
+            Exchange exchange = new ExchangeImpl();
+            exchange.setOneWay(false);
+            exchange.setSynchronous(false);
+            exchange.put(MessageObserver.class, new MessageObserver() {
+                public void onMessage(Message m) {
+                    synchronized (faults) {
+                        faults[0] = m;
+                        faults.notifyAll();
+                    }
+                }
+            });
+            message.setExchange(exchange);
+            exchange.setOutMessage(message);
+            conduit.prepare(message);
+            OutputStream os = message.getContent(OutputStream.class);
+            os.write(MESSAGE_CONTENT.getBytes());
+            os.close();
+            assertEquals(1, conduit.getCorrelationMapSize());
+            
+            JmsTemplate jmsTemplate = JMSFactory.createJmsTemplate(conduit.getJmsConfig(), null);
+            jmsTemplate.setReceiveTimeout(5000);
+            assertNotNull(jmsTemplate.receive(conduit.getJmsConfig().getTargetDestination()));
+            
+            // the asynchronous exchange is failed through its fault observer 
+            synchronized (faults) {
+                long deadline = System.currentTimeMillis() + 5000;
+                while (faults[0] == null && System.currentTimeMillis() < deadline) {
+                    faults.wait(100);
+                }
+            }
+            assertSame(message, faults[0]);
+            assertNotNull(message.getContent(Exception.class));
+            assertEquals(0, conduit.getCorrelationMapSize());
+        } finally {
+            conduit.close();
+        }
+    }
+    
+    private void waitForReceivedMessage(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (inMessage == null && System.currentTimeMillis() < deadline) {
+            synchronized (this) {
+                wait(10);
+            }
+        }
+        assertNotNull("The reply was not received", inMessage);
+    }
+    
+    private static void waitForCorrelationMapSize(JMSConduit conduit, int size, long timeout) 
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (conduit.getCorrelationMapSize() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
     private void verifyReceivedMessage(Message message) throws InterruptedException {
         while (inMessage == null) {
             //the send has completed, but the response might not be back yet.
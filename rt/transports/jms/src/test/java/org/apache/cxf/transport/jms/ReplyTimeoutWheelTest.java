@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.jms;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReplyTimeoutWheelTest extends Assert {
+
+    @Test
+    public void testTimeoutsSpanningSeveralTurns() throws Exception {
+        ReplyTimeoutWheel wheel = new ReplyTimeoutWheel(10, 4);
+        final CountDownLatch shortLatch = new CountDownLatch(1);
+        final CountDownLatch longLatch = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        wheel.schedule(new Runnable() {
+            public void run() {
+                shortLatch.countDown();
+            }
+        }, 5);
+        wheel.schedule(new Runnable() {
+            public void run() {
+                longLatch.countDown();
+            }
+        }, 200);
+        
+        assertTrue(shortLatch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, longLatch.getCount());
+        assertTrue(longLatch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+}
@@ -22,8 +22,6 @@ package org.apache.cxf.transport.local;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -68,11 +66,10 @@ public class LocalConduit extends AbstractConduit {
             final MessageImpl inMsg = new MessageImpl();
             transportFactory.copy(message, inMsg);
             
-            if (!empty) {
-                final PipedInputStream stream = new PipedInputStream();
-                wrappedStream = new PipedOutputStream(stream);
-
-                inMsg.setContent(InputStream.class, stream);
+            final LocalPipe pipe = empty ? null : new LocalPipe();
+            if (pipe != null) {
+                wrappedStream = pipe.getOutputStream();
+                inMsg.setContent(InputStream.class, pipe.getInputStream());
             }
             inMsg.setDestination(destination);
             inMsg.put(IN_CONDUIT, conduit);
@@ -101,18 +98,19 @@ public class LocalConduit extends AbstractConduit {
                                 //ignore
                             }
                         }
+                    } finally {
+                        if (pipe != null) {
+                            //the service is done with the request, a client still writing
+                            //gets an IOException instead of waiting for space forever
+                            pipe.closeInputStream();
+                        }
                     }
                 }
             };
             Executor ex = message.getExchange() != null
                 ? message.getExchange().get(Executor.class) : null;
             if (ex == null || SynchronousExecutor.isA(ex)) {
-                ex = transportFactory.getExecutor(destination.getBus());
-                if (ex != null) {
-                    ex.execute(receiver);
-                } else {
-                    new Thread(receiver).start();
-                }
+                transportFactory.dispatch(destination.getBus(), receiver);
             } else {
                 ex.execute(receiver);
             }
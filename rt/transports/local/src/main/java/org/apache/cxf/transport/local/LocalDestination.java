@@ -22,8 +22,6 @@ package org.apache.cxf.transport.local;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
@@ -100,10 +98,10 @@ public class LocalDestination extends AbstractDestination {
             protected void dispatchToClient(boolean empty) throws IOException {
                 final MessageImpl m = new MessageImpl();
                 localDestinationFactory.copy(message, m);
-                if (!empty) {
-                    final PipedInputStream stream = new PipedInputStream();
-                    wrappedStream = new PipedOutputStream(stream);
-                    m.setContent(InputStream.class, stream);
+                final LocalPipe pipe = empty ? null : new LocalPipe();
+                if (pipe != null) {
+                    wrappedStream = pipe.getOutputStream();
+                    m.setContent(InputStream.class, pipe.getInputStream());
                 }
 
                 final Runnable receiver = new Runnable() {
@@ -111,23 +109,24 @@ public class LocalDestination extends AbstractDestination {
                         if (exchange != null) {
                             exchange.setInMessage(m);
                         }
-                        conduit.getMessageObserver().onMessage(m);
+                        boolean handled = false;
+                        try {
+                            conduit.getMessageObserver().onMessage(m);
+                            handled = true;
+                        } finally {
+                            //the client may read the response after onMessage returns, like
+                            //JAX-RS entities or an executor do, so only close it on a failure
+                            if (!handled && pipe != null) {
+                                pipe.closeInputStream();
+                            }
+                        }
                     }
                 };
                 Executor ex = message.getExchange() != null
                     ? message.getExchange().get(Executor.class) : null;
                 // Need to avoid to get the SynchronousExecutor
                 if (ex == null || SynchronousExecutor.isA(ex)) {
-                    if (exchange == null) {
-                        ex = localDestinationFactory.getExecutor(bus);
-                    } else {
-                        ex = localDestinationFactory.getExecutor(exchange.getBus());
-                    }
-                    if (ex != null) {
-                        ex.execute(receiver);
-                    } else {
-                        new Thread(receiver).start();
-                    }
+                    localDestinationFactory.dispatch(exchange == null ? bus : exchange.getBus(), receiver);
                 } else {
                     ex.execute(receiver);
                 }
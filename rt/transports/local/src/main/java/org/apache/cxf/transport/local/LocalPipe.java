@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.local;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in memory pipe between the thread writing a message and the thread reading it. 
+ * Unlike the java.io piped streams the reader and writer are not tied to particular threads,
+ * they are woken up as soon as data or space is available and the ring buffers are pooled.
+ */
+final class LocalPipe {
+    static final int BUFFER_SIZE = 32 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final Queue<byte[]> POOL = new ConcurrentLinkedQueue<byte[]>();
+    private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+    
+    private byte[] buffer;
+    private int readPos;
+    private int count;
+    private boolean writerClosed;
+    private boolean readerClosed;
+    private final InputStream in = new PipeInputStream();
+    private final OutputStream out = new PipeOutputStream();
+    
+    LocalPipe() {
+        buffer = POOL.poll();
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        } else {
+            POOL_SIZE.decrementAndGet();
+        }
+    }
+    
+    InputStream getInputStream() {
+        return in;
+    }
+    
+    OutputStream getOutputStream() {
+        return out;
+    }
+    
+    /**
+     * Closes the reading side, a writer waiting for space fails instead of blocking. 
+     */
+    void closeInputStream() {
+        closeReader();
+    }
+
+    private synchronized void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (writerClosed) {
+                throw new IOException("Pipe closed");
+            }
+            if (readerClosed) {
+                // like the "Read end dead" of the java.io pipes, the receiver is gone
+                throw new IOException("Read end closed");
+            }
+            if (count == buffer.length) {
+                waitForOtherSide();
+                continue;
+            }
+            int writePos = (readPos + count) % buffer.length;
+            int n = Math.min(len, Math.min(buffer.length - count, buffer.length - writePos));
+            System.arraycopy(b, off, buffer, writePos, n);
+            count += n;
+            off += n;
+            len -= n;
+            notifyAll();
+        }
+    }
+
+    private synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (readerClosed) {
+            throw new IOException("Pipe closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (count == 0) {
+            if (writerClosed) {
+                return -1;
+            }
+            waitForOtherSide();
+        }
+        int n = Math.min(len, Math.min(count, buffer.length - readPos));
+        System.arraycopy(buffer, readPos, b, off, n);
+        readPos = (readPos + n) % buffer.length;
+        count -= n;
+        notifyAll();
+        return n;
+    }
+    
+    private synchronized int available() {
+        return count;
+    }
+    
+    private void waitForOtherSide() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+    }
+
+    private synchronized void closeWriter() {
+        writerClosed = true;
+        notifyAll();
+        releaseIfDone();
+    }
+    
+    private synchronized void closeReader() {
+        readerClosed = true;
+        notifyAll();
+        releaseIfDone();
+    }
+    
+    private void releaseIfDone() {
+        if (writerClosed && readerClosed && buffer != null) {
+            if (POOL_SIZE.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+                POOL.offer(buffer);
+            } else {
+                POOL_SIZE.decrementAndGet();
+            }
+            buffer = null;
+        }
+    }
+    
+    private class PipeInputStream extends InputStream {
+        private final byte[] single = new byte[1];
+        
+        @Override
+        public int read() throws IOException {
+            return LocalPipe.this.read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return LocalPipe.this.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return LocalPipe.this.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeReader();
+        }
+    }
+    
+    private class PipeOutputStream extends OutputStream {
+        private final byte[] single = new byte[1];
+        
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte)b;
+            LocalPipe.this.write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            LocalPipe.this.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeWriter();
+        }
+    }
+}
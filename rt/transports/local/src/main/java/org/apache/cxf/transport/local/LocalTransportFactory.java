@@ -31,6 +31,8 @@ import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.injection.NoJSR250Annotations;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.helpers.CastUtils;
@@ -41,6 +43,7 @@ import org.apache.cxf.transport.Conduit;
 import org.apache.cxf.transport.ConduitInitiator;
 import org.apache.cxf.transport.Destination;
 import org.apache.cxf.transport.DestinationFactory;
+import org.apache.cxf.workqueue.AutomaticWorkQueueImpl;
 import org.apache.cxf.workqueue.WorkQueueManager;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.addressing.EndpointReferenceType;
@@ -76,6 +79,7 @@ public class LocalTransportFactory extends AbstractTransportFactory
     private Set<String> messageIncludeProperties;
     private Set<String> uriPrefixes = new HashSet<String>(URI_PREFIXES);
     private volatile Executor executor;
+    private AutomaticWorkQueueImpl fallbackExecutor;
 
     public LocalTransportFactory() {
         super(DEFAULT_NAMESPACES);
@@ -151,6 +155,45 @@ public class LocalTransportFactory extends AbstractTransportFactory
         return executor;
     }
     
+    /**
+     * Runs the receiving side of a piped dispatch, without a bus executor it runs 
+     * on a work queue of the factory instead of a new thread for every message
+     */
+    void dispatch(Bus bus, Runnable receiver) {
+        Executor ex = getExecutor(bus);
+        if (ex == null) {
+            ex = getFallbackExecutor(bus);
+        }
+        ex.execute(receiver);
+    }
+    
+    private synchronized Executor getFallbackExecutor(Bus bus) {
+        if (fallbackExecutor == null) {
+            final AutomaticWorkQueueImpl queue = new AutomaticWorkQueueImpl("local-transport");
+            BusLifeCycleManager manager = bus == null ? null : bus.getExtension(BusLifeCycleManager.class);
+            if (manager != null) {
+                manager.registerLifeCycleListener(new BusLifeCycleListener() {
+                    public void initComplete() {
+                    }
+                    public void preShutdown() {
+                    }
+                    public void postShutdown() {
+                        shutdownFallbackExecutor(queue);
+                    }
+                });
+            }
+            fallbackExecutor = queue;
+        }
+        return fallbackExecutor;
+    }
+    
+    private synchronized void shutdownFallbackExecutor(AutomaticWorkQueueImpl queue) {
+        if (fallbackExecutor == queue) {
+            fallbackExecutor = null;
+        }
+        queue.shutdown(false);
+    }
+    
     public void setExecutor(Executor executor) {
         this.executor = executor;
     }
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.transport.local;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalPipeTest extends Assert {
+
+    @Test
+    public void testTransferLargerThanBuffer() throws Exception {
+        final LocalPipe pipe = new LocalPipe();
+        final byte[] data = new byte[LocalPipe.BUFFER_SIZE * 3 + 17];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte)i;
+        }
+        Thread writer = new Thread() {
+            public void run() {
+                try {
+                    OutputStream out = pipe.getOutputStream();
+                    out.write(data, 0, 5);
+                    out.write(data[5]);
+                    out.write(data, 6, data.length - 6);
+                    out.close();
+                } catch (IOException e) {
+                    // the reader will miss the data
+                }
+            }
+        };
+        writer.start();
+        
+        InputStream in = pipe.getInputStream();
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        byte[] buf = new byte[1000];
+        int n = in.read(buf);
+        while (n != -1) {
+            bout.write(buf, 0, n);
+            n = in.read(buf);
+        }
+        in.close();
+        writer.join();
+        assertArrayEquals(data, bout.toByteArray());
+    }
+
+    @Test
+    public void testWriteAfterReaderClosed() throws Exception {
+        LocalPipe pipe = new LocalPipe();
+        pipe.getInputStream().close();
+        try {
+            pipe.getOutputStream().write(1);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testBlockedWriterFailsWhenReaderClosed() throws Exception {
+        final LocalPipe pipe = new LocalPipe();
+        final IOException[] failure = new IOException[1];
+        Thread writer = new Thread() {
+            public void run() {
+                try {
+                    pipe.getOutputStream().write(new byte[LocalPipe.BUFFER_SIZE * 2]);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        writer.start();
+        // the writer fills the buffer and waits for space
+        while (pipe.getInputStream().available() < LocalPipe.BUFFER_SIZE) {
+            Thread.sleep(10);
+        }
+        pipe.closeInputStream();
+        writer.join();
+        assertNotNull("Expected IOException", failure[0]);
+        assertEquals("Read end closed", failure[0].getMessage());
+    }
+}
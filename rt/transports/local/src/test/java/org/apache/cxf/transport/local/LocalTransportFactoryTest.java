@@ -87,6 +87,42 @@ public class LocalTransportFactoryTest extends Assert {
 
         assertEquals(builder.toString(), obs.getResponseStream().toString());
     }
+    @Test(timeout = 30000)
+    public void testServiceNotReadingRequest() throws Exception {
+        Bus bus = BusFactory.getDefaultBus();
+        LocalTransportFactory factory = new LocalTransportFactory();
+        
+        EndpointInfo ei = new EndpointInfo(null, "http://schemas.xmlsoap.org/soap/http");
+        ei.setAddress("http://localhost/test-not-reading");
+        LocalDestination d = (LocalDestination) factory.getDestination(ei, bus);
+        d.setMessageObserver(new MessageObserver() {
+            public void onMessage(Message message) {
+                // returns without reading the request
+            }
+        });
+        Conduit conduit = factory.getConduit(ei, bus);
+        conduit.setMessageObserver(new TestMessageObserver());
+        
+        MessageImpl m = new MessageImpl();
+        m.setDestination(d);
+        Exchange ex = new ExchangeImpl();
+        ex.put(Bus.class, bus);
+        m.setExchange(ex);
+        conduit.prepare(m);
+        
+        // larger than the pipe buffer, the client fails instead of waiting forever
+        OutputStream out = m.getContent(OutputStream.class);
+        try {
+            byte[] data = new byte[1024];
+            for (int x = 0; x < LocalPipe.BUFFER_SIZE / 1024 * 4; x++) {
+                out.write(data);
+            }
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("Read end closed", e.getMessage());
+        }
+    }
+    
     static class EchoObserver implements MessageObserver {
 
         public void onMessage(Message message) {
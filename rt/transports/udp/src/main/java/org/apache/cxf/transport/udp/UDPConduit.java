@@ -31,13 +31,16 @@ import java.net.MulticastSocket;
 import java.net.NetworkInterface;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Logger;
 
 import org.apache.cxf.Bus;
@@ -61,15 +64,23 @@ import org.apache.mina.transport.socket.nio.NioDatagramConnector;
  * 
  */
 public class UDPConduit extends AbstractConduit {
+    static final int MAX_DATAGRAM_SIZE = 64 * 1024 - 42;
+    static final long BROADCAST_ADDRESSES_REFRESH = 30000L;
     private static final String CXF_MESSAGE_ATTR = "CXFMessage";
     private static final String MULTI_RESPONSE_TIMEOUT = "udp.multi.response.timeout";
     private static final String HOST_PORT = UDPConduit.class + ".host:port";
     private static final Logger LOG = LogUtils.getL7dLogger(UDPDestination.class); 
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
 
     Bus bus;
     NioDatagramConnector connector = new NioDatagramConnector();
     ConcurrentHashMap<String, Queue<ConnectFuture>> connections 
         = new ConcurrentHashMap<String, Queue<ConnectFuture>>();
+    Queue<byte[]> receiveBuffers = new ConcurrentLinkedQueue<byte[]>();
+    volatile long broadcastAddressesTime;
+    private DatagramSocket oneWaySocket;
+    private MulticastSocket oneWayMulticastSocket;
+    private volatile List<InetAddress> broadcastAddresses;
     
     public UDPConduit(EndpointReferenceType t, 
                       final Bus bus) {
@@ -164,6 +175,17 @@ public class UDPConduit extends AbstractConduit {
         connections.clear();
         connector.dispose();
         connector = null;
+        synchronized (this) {
+            if (oneWaySocket != null) {
+                oneWaySocket.close();
+                oneWaySocket = null;
+            }
+            if (oneWayMulticastSocket != null) {
+                oneWayMulticastSocket.close();
+                oneWayMulticastSocket = null;
+            }
+        }
+        receiveBuffers.clear();
     }
 
 
@@ -219,6 +241,58 @@ public class UDPConduit extends AbstractConduit {
         }
     }
 
+    /**
+     * The one way broadcasts share a socket as no responses are received on it
+     */
+    synchronized DatagramSocket getOneWaySocket(boolean multicast) throws IOException {
+        if (multicast) {
+            if (oneWayMulticastSocket == null) {
+                oneWayMulticastSocket = new MulticastSocket(null);
+                initBroadcastSocket(oneWayMulticastSocket);
+            }
+            return oneWayMulticastSocket;
+        }
+        if (oneWaySocket == null) {
+            oneWaySocket = new DatagramSocket();
+            initBroadcastSocket(oneWaySocket);
+        }
+        return oneWaySocket;
+    }
+    
+    private static void initBroadcastSocket(DatagramSocket socket) throws IOException {
+        socket.setSendBufferSize(64 * 1024);
+        socket.setReceiveBufferSize(64 * 1024);
+        socket.setBroadcast(true);
+    }
+    
+    /**
+     * The broadcast addresses of the interfaces which are up, looked up again after a while 
+     * as the interfaces may change
+     */
+    List<InetAddress> getBroadcastAddresses() throws IOException {
+        List<InetAddress> addresses = broadcastAddresses;
+        long now = System.currentTimeMillis();
+        if (addresses == null || now - broadcastAddressesTime > BROADCAST_ADDRESSES_REFRESH) {
+            addresses = new ArrayList<InetAddress>();
+            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+            while (interfaces.hasMoreElements()) {
+                NetworkInterface networkInterface = interfaces.nextElement();
+                if (!networkInterface.isUp() || networkInterface.isLoopback()) {
+                    continue;  
+                }
+                for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
+                    InetAddress broadcast = interfaceAddress.getBroadcast();
+                    if (broadcast != null) {
+                        addresses.add(broadcast);
+                    }
+                }
+            }
+            broadcastAddresses = addresses;
+            broadcastAddressesTime = now;
+        }
+        return addresses;
+    }
+
     private void sendViaBroadcast(Message message, InetSocketAddress isa, int port) {
         message.setContent(OutputStream.class, 
                            new UDPBroadcastOutputStream(port, isa, message));
@@ -238,39 +312,30 @@ public class UDPConduit extends AbstractConduit {
 
         public void close() throws IOException {
             super.close();
+            boolean oneWay = message.getExchange().isOneWay();
             DatagramSocket socket;
-            if (multicast != null) {
+            if (oneWay) {
+                socket = getOneWaySocket(multicast != null);
+            } else if (multicast != null) {
                 socket = new MulticastSocket(null);
+                initBroadcastSocket(socket);
             } else {
                 socket = new DatagramSocket();
+                initBroadcastSocket(socket);
             }
-            socket.setSendBufferSize(this.size());
-            socket.setReceiveBufferSize(64 * 1024);
-            socket.setBroadcast(true);
             
             if (multicast == null) {
-                Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-                while (interfaces.hasMoreElements()) {
-                    NetworkInterface networkInterface = interfaces.nextElement();
-                    if (!networkInterface.isUp() || networkInterface.isLoopback()) {
-                        continue;  
-                    }
-                    for (InterfaceAddress interfaceAddress : networkInterface.getInterfaceAddresses()) {
-                        InetAddress broadcast = interfaceAddress.getBroadcast();
-                        if (broadcast == null) {
-                            continue;
-                        }
-                        DatagramPacket sendPacket = new DatagramPacket(this.getRawBytes(), 
-                                                                       0,
-                                                                       this.size(),
-                                                                       broadcast, 
-                                                                       port);
-                        
-                        try {
-                            socket.send(sendPacket);
-                        } catch (Exception e) {
-                            //ignore
-                        }
+                for (InetAddress broadcast : getBroadcastAddresses()) {
+                    DatagramPacket sendPacket = new DatagramPacket(this.getRawBytes(), 
+                                                                   0,
+                                                                   this.size(),
+                                                                   broadcast, 
+                                                                   port);
+                    
+                    try {
+                        socket.send(sendPacket);
+                    } catch (Exception e) {
+                        //ignore
                     }
                 }
             } else {
@@ -286,8 +351,16 @@ public class UDPConduit extends AbstractConduit {
                 }
             }
             
-            if (!message.getExchange().isOneWay()) {
-                byte bytes[] = new byte[64 * 1024];
+            if (oneWay) {
+                return;
+            }
+            // the receive buffer is reused, each response is copied out as the in message 
+            // may still be read after the exchange has returned 
+            byte bytes[] = receiveBuffers.poll();
+            if (bytes == null) {
+                bytes = new byte[64 * 1024];
+            }
+            try {
                 DatagramPacket p = new DatagramPacket(bytes, bytes.length);
                 Object to = message.getContextualProperty(MULTI_RESPONSE_TIMEOUT);
                 Integer i = null;
@@ -299,14 +372,16 @@ public class UDPConduit extends AbstractConduit {
                 if (i == null || i <= 0 || message.getExchange().isSynchronous()) {
                     socket.setSoTimeout(30000);
                     socket.receive(p);
-                    dataReceived(message, IoBuffer.wrap(bytes, 0, p.getLength()), false, false);
+                    IoBuffer response = IoBuffer.wrap(Arrays.copyOf(bytes, p.getLength()));
+                    dataReceived(message, response, false, false);
                 } else {
                     socket.setSoTimeout(i);
                     boolean found = false;
                     try {
                         while (true) {
                             socket.receive(p);
-                            dataReceived(message, IoBuffer.wrap(bytes, 0, p.getLength()), false, true);
+                            IoBuffer response = IoBuffer.wrap(Arrays.copyOf(bytes, p.getLength()));
+                            dataReceived(message, response, false, true);
                             found = true;
                         }
                     } catch (java.net.SocketTimeoutException ex) {
@@ -315,8 +390,10 @@ public class UDPConduit extends AbstractConduit {
                         }
                     }
                 }
+            } finally {
+                socket.close();
+                receiveBuffers.offer(bytes);
             }
-            socket.close();
         }
 
         public void flush() throws IOException {
@@ -327,7 +404,7 @@ public class UDPConduit extends AbstractConduit {
         final ConnectFuture future;
         final NioDatagramConnector connector;
         final Message message;
-        IoBuffer buffer = IoBuffer.allocate(64 * 1024 - 42); //max size
+        IoBuffer buffer = newBuffer();
         boolean closed;
         
         public UDPConduitOutputStream(NioDatagramConnector connector,
@@ -339,16 +416,20 @@ public class UDPConduit extends AbstractConduit {
         }
 
         public void write(int b) throws IOException {
-            buffer.put(new byte[] {(byte)b}, 0, 1);
+            if (buffer.position() == MAX_DATAGRAM_SIZE) {
+                send();
+                buffer = newBuffer();
+            }
+            buffer.put((byte)b);
         }
         public void write(byte b[], int off, int len) throws IOException {
-            while (len > buffer.remaining()) {
-                int nlen = buffer.remaining();
+            while (len > MAX_DATAGRAM_SIZE - buffer.position()) {
+                int nlen = MAX_DATAGRAM_SIZE - buffer.position();
                 buffer.put(b, off, nlen);
                 len -= nlen;
                 off += nlen;
                 send();
-                buffer = IoBuffer.allocate((64 * 1024) - 42);
+                buffer = newBuffer();
             }
             buffer.put(b, off, len);
         }
@@ -376,6 +457,13 @@ public class UDPConduit extends AbstractConduit {
         }
     }
     
+    /**
+     * Most messages are much smaller than a datagram can be, so the buffer only grows as needed
+     */
+    static IoBuffer newBuffer() {
+        return IoBuffer.allocate(INITIAL_BUFFER_SIZE).setAutoExpand(true);
+    }
+    
     protected Logger getLogger() {
         return LOG;
     }
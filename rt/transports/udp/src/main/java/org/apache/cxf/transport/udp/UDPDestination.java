@@ -59,6 +59,7 @@ public class UDPDestination extends AbstractDestination {
     private static final Logger LOG = LogUtils.getL7dLogger(UDPDestination.class); 
     private static final AttributeKey KEY_IN = new AttributeKey(StreamIoHandler.class, "in");
     private static final AttributeKey KEY_OUT = new AttributeKey(StreamIoHandler.class, "out");
+    private static final int MAX_DATAGRAM_SIZE = 64 * 1024 - 42;
     
     NioDatagramAcceptor acceptor;
     AutomaticWorkQueue queue;
@@ -70,14 +71,17 @@ public class UDPDestination extends AbstractDestination {
 
     class MCastListener implements Runnable {
         public void run() {
+            // received into one buffer, only the received bytes are copied for the processing
+            byte buffer[] = new byte[64 * 1024];
             while (true) {
                 if (mcast == null) {
                     return;
                 }
                 try {
-                    byte bytes[] = new byte[64 * 1024];
-                    final DatagramPacket p = new DatagramPacket(bytes, bytes.length);
+                    final DatagramPacket p = new DatagramPacket(buffer, buffer.length);
                     mcast.receive(p);
+                    byte bytes[] = new byte[p.getLength()];
+                    System.arraycopy(buffer, 0, bytes, 0, bytes.length);
                     
                     LoadingByteArrayOutputStream out = new LoadingByteArrayOutputStream() {
                         public void close() throws IOException {
@@ -92,7 +96,7 @@ public class UDPDestination extends AbstractDestination {
                     
                     UDPConnectionInfo info = new UDPConnectionInfo(null,
                                                                    out,
-                                                                   new ByteArrayInputStream(bytes, 0, p.getLength()));
+                                                                   new ByteArrayInputStream(bytes));
                     
                     final MessageImpl m = new MessageImpl();
                     final Exchange exchange = new ExchangeImpl();
@@ -293,7 +297,7 @@ public class UDPDestination extends AbstractDestination {
     
     public class UDPDestinationOutputStream extends OutputStream {
         final OutputStream out;
-        IoBuffer buffer = IoBuffer.allocate(64 * 1024 - 42); //max size
+        IoBuffer buffer = UDPConduit.newBuffer();
         boolean closed;
         
         public UDPDestinationOutputStream(OutputStream out) {
@@ -301,16 +305,20 @@ public class UDPDestination extends AbstractDestination {
         }
 
         public void write(int b) throws IOException {
-            buffer.put(new byte[] {(byte)b}, 0, 1);
+            if (buffer.position() == MAX_DATAGRAM_SIZE) {
+                send();
+                buffer = UDPConduit.newBuffer();
+            }
+            buffer.put((byte)b);
         }
         public void write(byte b[], int off, int len) throws IOException {
-            while (len > buffer.remaining()) {
-                int nlen = buffer.remaining();
+            while (len > MAX_DATAGRAM_SIZE - buffer.position()) {
+                int nlen = MAX_DATAGRAM_SIZE - buffer.position();
                 buffer.put(b, off, nlen);
                 len -= nlen;
                 off += nlen;
                 send();
-                buffer = IoBuffer.allocate((64 * 1024) - 42);
+                buffer = UDPConduit.newBuffer();
             }
             buffer.put(b, off, len);
         }
@@ -19,13 +19,23 @@
 
 package org.apache.cxf.transport.udp;
 
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.util.Enumeration;
+import java.util.List;
 
 import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.testutil.common.AbstractBusClientServerTestBase;
+import org.apache.cxf.ws.addressing.EndpointReferenceUtils;
 import org.apache.hello_world.Greeter;
 import org.apache.hello_world.GreeterImpl;
 
@@ -38,6 +48,7 @@ import org.junit.Test;
  */
 public class UDPTransportTest extends AbstractBusClientServerTestBase {
     static final String PORT = allocatePort(UDPTransportTest.class);
+    static final String BROADCAST_PORT = allocatePort(UDPTransportTest.class, 1);
     private static Server server; 
 
     
@@ -105,4 +116,87 @@ public class UDPTransportTest extends AbstractBusClientServerTestBase {
                
         ((java.io.Closeable)g).close();
     }    
+    
+    @Test
+    public void testOneWayBroadcastSocketShared() throws Exception {
+        UDPConduit conduit = new UDPConduit(EndpointReferenceUtils.getEndpointReference("udp://:" + BROADCAST_PORT),
+                                            getStaticBus());
+        DatagramSocket socket = null;
+        for (int x = 0; x < 2; x++) {
+            Message message = createOneWayMessage();
+            conduit.prepare(message);
+            OutputStream out = message.getContent(OutputStream.class);
+            out.write("<hello/>".getBytes());
+            out.close();
+            if (socket == null) {
+                socket = conduit.getOneWaySocket(false);
+            } 
+            assertSame(socket, conduit.getOneWaySocket(false));
+            assertFalse(socket.isClosed());
+        }
+        assertNotSame(socket, conduit.getOneWaySocket(true));
+        conduit.close();
+        assertTrue(socket.isClosed());
+    }
+    
+    @Test
+    public void testBroadcastAddressesCached() throws Exception {
+        UDPConduit conduit = new UDPConduit(EndpointReferenceUtils.getEndpointReference("udp://:" + BROADCAST_PORT),
+                                            getStaticBus());
+        List<InetAddress> addresses = conduit.getBroadcastAddresses();
+        assertSame(addresses, conduit.getBroadcastAddresses());
+        
+        conduit.broadcastAddressesTime -= UDPConduit.BROADCAST_ADDRESSES_REFRESH + 1;
+        List<InetAddress> refreshed = conduit.getBroadcastAddresses();
+        assertNotSame(addresses, refreshed);
+        assertEquals(addresses, refreshed);
+        conduit.close();
+    }
+    
+    @Test
+    public void testLargeMessageSplitIntoDatagrams() throws Exception {
+        DatagramSocket receiver = new DatagramSocket(0, InetAddress.getByName("localhost"));
+        receiver.setReceiveBufferSize(256 * 1024);
+        receiver.setSoTimeout(30000);
+        UDPConduit conduit = new UDPConduit(EndpointReferenceUtils.getEndpointReference("udp://localhost:" 
+                                                + receiver.getLocalPort()), getStaticBus());
+        try {
+            Message message = createOneWayMessage();
+            conduit.prepare(message);
+            OutputStream out = message.getContent(OutputStream.class);
+            // the buffer starts small and expands until a datagram is full
+            byte data[] = new byte[UDPConduit.MAX_DATAGRAM_SIZE + 1000];
+            for (int x = 0; x < data.length; x++) {
+                data[x] = (byte)x;
+            }
+            out.write(data, 0, 100);
+            out.write(data, 100, data.length - 100);
+            out.close();
+            
+            DatagramPacket p = new DatagramPacket(new byte[64 * 1024], 64 * 1024);
+            receiver.receive(p);
+            assertEquals(UDPConduit.MAX_DATAGRAM_SIZE, p.getLength());
+            for (int x = 0; x < p.getLength(); x++) {
+                assertEquals(data[x], p.getData()[x]);
+            }
+            p = new DatagramPacket(new byte[64 * 1024], 64 * 1024);
+            receiver.receive(p);
+            assertEquals(1000, p.getLength());
+            for (int x = 0; x < p.getLength(); x++) {
+                assertEquals(data[UDPConduit.MAX_DATAGRAM_SIZE + x], p.getData()[x]);
+            }
+        } finally {
+            conduit.close();
+            receiver.close();
+        }
+    }
+    
+    private static Message createOneWayMessage() {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOneWay(true);
+        exchange.setOutMessage(message);
+        message.setExchange(exchange);
+        return message;
+    }
 }
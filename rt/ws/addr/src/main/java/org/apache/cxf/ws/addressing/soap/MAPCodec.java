@@ -34,6 +34,8 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -57,6 +59,7 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
+import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.addressing.ContextUtils;
@@ -472,14 +475,22 @@ public class MAPCodec extends AbstractSoapInterceptor {
             if (header != null) {
                 LOG.log(Level.FINE, "Inbound WS-Addressing headers");
                 Unmarshaller unmarshaller = null;
-                Set<Element> referenceParameterHeaders = null;
+                Set<Header> referenceParameterHeaders = null;
                 QName invalidCardinalityQName = null;
                 Iterator<Header> iter = header.iterator();
                 while (iter.hasNext()) {
                     Header hdr = iter.next();
-                    if (hdr.getObject() instanceof Element) {
-                        Element headerElement = (Element)hdr.getObject();
-                        String headerURI = headerElement.getNamespaceURI();
+                    // a buffered header is decoded from its reader, without building its Element
+                    Element headerElement = null;
+                    QName headerName = null;
+                    if (hdr instanceof SoapHeader && ((SoapHeader)hdr).isBuffered()) {
+                        headerName = hdr.getName();
+                    } else if (hdr.getObject() instanceof Element) {
+                        headerElement = (Element)hdr.getObject();
+                        headerName = new QName(headerElement.getNamespaceURI(), headerElement.getLocalName());
+                    }
+                    if (headerName != null) {
+                        String headerURI = headerName.getNamespaceURI();
                         // Need to check the uri before getting unmarshaller else
                         // would get wrong unmarshaller and fail to process required
                         // headers.
@@ -494,21 +505,21 @@ public class MAPCodec extends AbstractSoapInterceptor {
                                 maps = new AddressingProperties();
                                 maps.exposeAs(headerURI);
                             }
-                            String localName = headerElement.getLocalName();
+                            String localName = headerName.getLocalPart();
                             if (Names.WSA_MESSAGEID_NAME.equals(localName)) {
                                 invalidCardinalityQName = maps.getMessageID() != null
                                     ? Names.WSA_MESSAGEID_QNAME : null;
                                 maps.setMessageID(decodeAsNative(
                                                        headerURI,
                                                        AttributedURIType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller));
                             } else if (Names.WSA_TO_NAME.equals(localName)) {
                                 invalidCardinalityQName = maps.getTo() != null ? Names.WSA_TO_QNAME : null;
                                 AttributedURIType addr = decodeAsNative(
                                                        headerURI,
                                                        AttributedURIType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller);
                                 maps.setTo(EndpointReferenceUtils.getEndpointReference(addr));
                             } else if (Names.WSA_FROM_NAME.equals(localName)) {
@@ -517,7 +528,7 @@ public class MAPCodec extends AbstractSoapInterceptor {
                                 maps.setFrom(decodeAsNative(
                                                        headerURI,
                                                        EndpointReferenceType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller));
                             } else if (Names.WSA_REPLYTO_NAME.equals(localName)) {
                                 invalidCardinalityQName = maps.getReplyTo() != null
@@ -526,7 +537,7 @@ public class MAPCodec extends AbstractSoapInterceptor {
                                 maps.setReplyTo(decodeAsNative(
                                                        headerURI,
                                                        EndpointReferenceType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller));
                             } else if (Names.WSA_FAULTTO_NAME.equals(localName)) {
                                 invalidCardinalityQName = maps.getFaultTo() != null
@@ -535,13 +546,13 @@ public class MAPCodec extends AbstractSoapInterceptor {
                                 maps.setFaultTo(decodeAsNative(
                                                        headerURI,
                                                        EndpointReferenceType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller));
                             } else if (Names.WSA_RELATESTO_NAME.equals(localName)) {
                                 maps.setRelatesTo(decodeAsNative(
                                                        headerURI,
                                                        RelatesToType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller));
                             } else if (Names.WSA_ACTION_NAME.equals(localName)) {
                                 invalidCardinalityQName = maps.getAction() != null
@@ -549,14 +560,15 @@ public class MAPCodec extends AbstractSoapInterceptor {
                                 maps.setAction(decodeAsNative(
                                                        headerURI,
                                                        AttributedURIType.class,
-                                                       headerElement, 
+                                                       hdr, 
                                                        unmarshaller));
                             }
-                        } else if (null != headerElement.getAttribute(IS_REFERENCE_PARAM_ATTR_NAME)) {
+                        } else if (headerElement == null
+                            || null != headerElement.getAttribute(IS_REFERENCE_PARAM_ATTR_NAME)) {
                             if (null == referenceParameterHeaders) {
-                                referenceParameterHeaders = new HashSet<Element>();
+                                referenceParameterHeaders = new HashSet<Header>();
                             }
-                            referenceParameterHeaders.add(headerElement); 
+                            referenceParameterHeaders.add(hdr); 
                         } else if (headerURI.contains(Names.WSA_NAMESPACE_PATTERN)) {
                             LOG.log(Level.WARNING, 
                                     "UNSUPPORTED_VERSION_MSG",
@@ -596,13 +608,14 @@ public class MAPCodec extends AbstractSoapInterceptor {
         ContextUtils.storeMAPFaultReason(reason, message);
     }
         
-    private void decodeReferenceParameters(Set<Element> referenceParameterHeaders, 
+    private void decodeReferenceParameters(Set<Header> referenceParameterHeaders, 
                                            AddressingProperties maps, 
                                            Unmarshaller unmarshaller) 
         throws JAXBException {
         EndpointReferenceType toEpr = maps.getToEndpointReference();
         if (null != toEpr) {
-            for (Element e : referenceParameterHeaders) {
+            for (Header hdr : referenceParameterHeaders) {
+                Element e = (Element)hdr.getObject();
                 if (DOMUtils.getChild(e, Node.ELEMENT_NODE) == null) {
                     JAXBElement<String> el = unmarshaller.unmarshal(e, String.class);
                     ContextUtils.applyReferenceParam(toEpr, el);
@@ -637,6 +650,33 @@ public class MAPCodec extends AbstractSoapInterceptor {
         return value;
     }
     
+    private <T> T decodeAsNative(String encodedAs,
+                                 Class<T> clz,
+                                 Header header,
+                                 Unmarshaller unmarshaller) 
+        throws JAXBException {
+        if (!(header instanceof SoapHeader) || !((SoapHeader)header).isBuffered()) {
+            return decodeAsNative(encodedAs, clz, (Element)header.getObject(), unmarshaller);
+        }
+        XMLStreamReader reader = ((SoapHeader)header).getXMLStreamReader();
+        try {
+            T value = clz.cast(transformer.decodeAsNative(encodedAs,
+                                                          clz,
+                                                          reader,
+                                                          unmarshaller));
+            LOG.log(Level.FINE,
+                    "{0} : {1}",
+                    new Object[] {header.getName().getLocalPart(), getLogText(value)});
+            return value;
+        } finally {
+            try {
+                StaxUtils.close(reader);
+            } catch (XMLStreamException e) {
+                //ignore
+            }
+        }
+    }
+    
     /**
      * Return a text representation of a header value for logging.
      * 
@@ -712,6 +752,22 @@ public class MAPCodec extends AbstractSoapInterceptor {
         return element.getValue();
     }
 
+    /**
+     * Decodes a MAP from a SOAP header.
+     *
+     * @param clz the class
+     * @param reader the reader positioned on the start tag of the SOAP header
+     * @param marshaller the JAXB marshaller to use
+     * @return the decoded value
+     */
+    protected <T> T decodeMAP(Class<T> clz,
+                              XMLStreamReader reader,
+                              Unmarshaller unmarshaller) throws JAXBException {
+        JAXBElement<T> element =
+            unmarshaller.unmarshal(reader, clz);
+        return element.getValue();
+    }
+
     /**
      * Discard any pre-existing MAP headers - this may occur if the runtime
      * re-uses a SOAP message.
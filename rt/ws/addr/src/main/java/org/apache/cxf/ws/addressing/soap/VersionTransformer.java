@@ -29,6 +29,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Element;
 
@@ -137,6 +138,25 @@ public class VersionTransformer extends org.apache.cxf.ws.addressing.VersionTran
      */
     public <T> T decodeAsNative(String encodedAs, Class<T> clz, Element headerElement,
                                 Unmarshaller unmarshaller) throws JAXBException {
+        return decode(encodedAs, clz, headerElement, unmarshaller);
+    }
+
+    /**
+     * Decodes a MAP from a exposed version.
+     * 
+     * @param encodedAs specifies the encoded version
+     * @param clz the class
+     * @param reader the reader positioned on the start tag of the SOAP header
+     * @param marshaller the JAXB marshaller to use
+     * @return the decoded value
+     */
+    public <T> T decodeAsNative(String encodedAs, Class<T> clz, XMLStreamReader reader,
+                                Unmarshaller unmarshaller) throws JAXBException {
+        return decode(encodedAs, clz, reader, unmarshaller);
+    }
+
+    private <T> T decode(String encodedAs, Class<T> clz, Object header,
+                         Unmarshaller unmarshaller) throws JAXBException {
         T ret = null;
         if (LOG.isLoggable(Level.FINE)) {
             LOG.fine("decodeAsNative: encodedAs: " + encodedAs);
@@ -144,31 +164,37 @@ public class VersionTransformer extends org.apache.cxf.ws.addressing.VersionTran
         }
 
         if (NATIVE_VERSION.equals(encodedAs)) {
-            ret = codec.decodeMAP(clz, headerElement, unmarshaller);
+            ret = decodeMAP(clz, header, unmarshaller);
         } else if (Names200408.WSA_NAMESPACE_NAME.equals(encodedAs)) {
             if (AttributedURIType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(AttributedURI.class, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(AttributedURI.class, header, unmarshaller)));
             } else if (EndpointReferenceType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(Names200408.EPR_TYPE, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(Names200408.EPR_TYPE, header, unmarshaller)));
             } else if (RelatesToType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(Relationship.class, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(Relationship.class, header, unmarshaller)));
             }
         } else if (Names200403.WSA_NAMESPACE_NAME.equals(encodedAs)) {
             if (AttributedURIType.class.equals(clz)) {
-                ret = clz.cast(convert(codec
-                    .decodeMAP(org.apache.cxf.ws.addressing.v200403.AttributedURI.class, headerElement,
+                ret = clz.cast(convert(
+                    decodeMAP(org.apache.cxf.ws.addressing.v200403.AttributedURI.class, header,
                                unmarshaller)));
             } else if (EndpointReferenceType.class.equals(clz)) {
-                ret = clz.cast(convert(codec.decodeMAP(Names200403.EPR_TYPE, headerElement, unmarshaller)));
+                ret = clz.cast(convert(decodeMAP(Names200403.EPR_TYPE, header, unmarshaller)));
             } else if (RelatesToType.class.equals(clz)) {
-                ret = clz.cast(convert(codec
-                    .decodeMAP(org.apache.cxf.ws.addressing.v200403.Relationship.class, headerElement,
+                ret = clz.cast(convert(
+                    decodeMAP(org.apache.cxf.ws.addressing.v200403.Relationship.class, header,
                                unmarshaller)));
             }
         }
         return ret;
     }
 
+    private <T> T decodeMAP(Class<T> clz, Object header, Unmarshaller unmarshaller) 
+        throws JAXBException {
+        return header instanceof Element ? codec.decodeMAP(clz, (Element)header, unmarshaller)
+            : codec.decodeMAP(clz, (XMLStreamReader)header, unmarshaller);
+    }
+
     /**
      * Augment the set of headers understood by the protocol binding with the 2004/08 header QNames.
      */
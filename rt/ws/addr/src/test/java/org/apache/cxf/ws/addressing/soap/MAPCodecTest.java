@@ -19,6 +19,7 @@
 
 package org.apache.cxf.ws.addressing.soap;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -29,18 +30,22 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Element;
 
 import org.apache.cxf.binding.soap.SoapBindingConstants;
 import org.apache.cxf.binding.soap.SoapFault;
+import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
+import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.headers.Header;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.addressing.ContextUtils;
@@ -272,6 +277,32 @@ public class MAPCodecTest extends Assert {
         verifyMessage(message, true, false, false);
     }
 
+    @Test
+    public void testDecodeBufferedHeaders() throws Exception {
+        String env = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+            + " xmlns:wsa=\"" + Names.WSA_NAMESPACE_NAME + "\"><soap:Header>"
+            + "<wsa:MessageID>urn:uuid:12345</wsa:MessageID>"
+            + "<wsa:To>http://localhost:9000/test</wsa:To>"
+            + "<wsa:ReplyTo><wsa:Address>http://localhost:9001/reply</wsa:Address></wsa:ReplyTo>"
+            + "<wsa:Action>http://test/action</wsa:Action>"
+            + "</soap:Header><soap:Body/></soap:Envelope>";
+        SoapMessage message = new SoapMessage(new MessageImpl());
+        message.setContent(XMLStreamReader.class,
+                           StaxUtils.createXMLStreamReader(new StringReader(env)));
+        new ReadHeadersInterceptor(null).handleMessage(message);
+
+        AddressingProperties maps = codec.unmarshalMAPs(message);
+        assertEquals("urn:uuid:12345", maps.getMessageID().getValue());
+        assertEquals("http://localhost:9000/test", maps.getTo().getValue());
+        assertEquals("http://localhost:9001/reply", maps.getReplyTo().getAddress().getValue());
+        assertEquals("http://test/action", maps.getAction().getValue());
+        // the headers are decoded from their buffers without building the DOM
+        assertEquals(4, message.getHeaders().size());
+        for (Header header : message.getHeaders()) {
+            assertTrue(((SoapHeader)header).isBuffered());
+        }
+    }
+
     private SoapMessage setUpMessage(boolean requestor, boolean outbound) throws Exception {
         return setUpMessage(requestor, outbound, false);
     }
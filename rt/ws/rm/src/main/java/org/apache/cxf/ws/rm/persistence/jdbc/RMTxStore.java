@@ -36,6 +36,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -195,6 +196,14 @@ public class RMTxStore implements RMStore {
     private String tableExistsState = DERBY_TABLE_EXISTS_STATE;
     private int tableExistsCode = ORACLE_TABLE_EXISTS_CODE;
     
+    private boolean groupCommit;
+    private int groupCommitMaxSize = 64;
+    private long groupCommitWindow = 2L;
+    private final Object groupCommitLock = new Object();
+    private final Lock groupTransactionLock = new ReentrantLock();
+    private List<PendingUpdate> pendingUpdates = new ArrayList<PendingUpdate>();
+    private boolean groupCommitting;
+    
     public RMTxStore() {
     }
     
@@ -304,6 +313,39 @@ public class RMTxStore implements RMStore {
         this.maxReconnectAttempts = maxReconnectAttempts;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * Enables the group commit mode. The sequence updates and the message inserts
+     * and deletes requested by concurrent callers are then collected for up to
+     * groupCommitWindow milliseconds or until groupCommitMaxSize of them are waiting,
+     * written with JDBC batches and committed in one transaction. Each caller returns 
+     * once the transaction containing its update has been committed. A caller finding 
+     * no other update waiting commits its own at once. 
+     * The mode is only used when the connection is kept.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public int getGroupCommitMaxSize() {
+        return groupCommitMaxSize;
+    }
+
+    public void setGroupCommitMaxSize(int groupCommitMaxSize) {
+        this.groupCommitMaxSize = groupCommitMaxSize;
+    }
+
+    public long getGroupCommitWindow() {
+        return groupCommitWindow;
+    }
+
+    public void setGroupCommitWindow(long groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+    }
+
     public void setConnection(Connection c) {
         connection = c;
         createdConnection = false;
@@ -322,6 +364,7 @@ public class RMTxStore implements RMStore {
         Connection con = verifyConnection();
         PreparedStatement stmt = null;
         SQLException conex = null;
+        Lock lock = lockGroupTransaction();
         try {
             beginTransaction();
             stmt = getStatement(con, CREATE_DEST_SEQUENCE_STMT_STR); 
@@ -341,6 +384,7 @@ public class RMTxStore implements RMStore {
         } finally {
             releaseResources(stmt, null);
             updateConnectionState(con, conex);
+            unlock(lock);
         }
     }
     
@@ -355,6 +399,7 @@ public class RMTxStore implements RMStore {
         Connection con = verifyConnection();
         PreparedStatement stmt = null;
         SQLException conex = null;
+        Lock lock = lockGroupTransaction();
         try {
             beginTransaction();
             
@@ -377,6 +422,7 @@ public class RMTxStore implements RMStore {
         } finally {
             releaseResources(stmt, null);
             updateConnectionState(con, conex);
+            unlock(lock);
         }
     }
 
@@ -459,6 +505,7 @@ public class RMTxStore implements RMStore {
         Connection con = verifyConnection();
         PreparedStatement stmt = null;
         SQLException conex = null;
+        Lock lock = lockGroupTransaction();
         try {
             beginTransaction();
             
@@ -476,6 +523,7 @@ public class RMTxStore implements RMStore {
         } finally {
             releaseResources(stmt, null);
             updateConnectionState(con, conex);
+            unlock(lock);
         }
     }
     
@@ -484,6 +532,7 @@ public class RMTxStore implements RMStore {
         Connection con = verifyConnection();
         PreparedStatement stmt = null;
         SQLException conex = null;
+        Lock lock = lockGroupTransaction();
         try {
             beginTransaction();
             
@@ -501,6 +550,7 @@ public class RMTxStore implements RMStore {
         } finally {
             releaseResources(stmt, null);
             updateConnectionState(con, conex);
+            unlock(lock);
         }        
     }
     
@@ -621,6 +671,14 @@ public class RMTxStore implements RMStore {
     }
     
     public void persistIncoming(DestinationSequence seq, RMMessage msg) {        
+        if (useGroupCommit()) {
+            PendingUpdate update = new PendingUpdate();
+            update.destSeq = seq;
+            update.sid = seq.getIdentifier();
+            update.msg = msg;
+            submitUpdate(update);
+            return;
+        }
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -646,6 +704,15 @@ public class RMTxStore implements RMStore {
         }
     }
     public void persistOutgoing(SourceSequence seq, RMMessage msg) {
+        if (useGroupCommit()) {
+            PendingUpdate update = new PendingUpdate();
+            update.srcSeq = seq;
+            update.sid = seq.getIdentifier();
+            update.msg = msg;
+            update.outbound = true;
+            submitUpdate(update);
+            return;
+        }
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -672,6 +739,14 @@ public class RMTxStore implements RMStore {
     }
     
     public void removeMessages(Identifier sid, Collection<Long> messageNrs, boolean outbound) {
+        if (useGroupCommit()) {
+            PendingUpdate update = new PendingUpdate();
+            update.sid = sid;
+            update.removedMessageNrs = messageNrs;
+            update.outbound = outbound;
+            submitUpdate(update);
+            return;
+        }
         Connection con = verifyConnection();
         PreparedStatement stmt = null;
         SQLException conex = null;
@@ -746,11 +821,7 @@ public class RMTxStore implements RMStore {
             msgin = msg.getInputStream();
             stmt = getStatement(con, outbound ? CREATE_OUTBOUND_MESSAGE_STMT_STR : CREATE_INBOUND_MESSAGE_STMT_STR);
 
-            int i = 1;
-            stmt.setString(i++, id);  
-            stmt.setLong(i++, nr);
-            stmt.setString(i++, to); 
-            stmt.setBinaryStream(i++, msgin, (int)msg.getSize());
+            setMessageParameters(stmt, id, nr, to, msgin, msg.getSize());
             stmt.execute();
             if (LOG.isLoggable(Level.FINE)) {
                 LOG.log(Level.FINE, "Successfully stored {0} message number {1} for sequence {2}",
@@ -768,6 +839,15 @@ public class RMTxStore implements RMStore {
         }
     }
     
+    private static void setMessageParameters(PreparedStatement stmt, String id, long nr, String to, 
+                                             InputStream msgin, long size) throws SQLException {
+        int i = 1;
+        stmt.setString(i++, id);  
+        stmt.setLong(i++, nr);
+        stmt.setString(i++, to); 
+        stmt.setBinaryStream(i++, msgin, (int)size);
+    }
+    
     /**
      * this method is only useful when keepConnection is set to true
      */
@@ -782,15 +862,20 @@ public class RMTxStore implements RMStore {
         try {
             stmt = getStatement(con, UPDATE_SRC_SEQUENCE_STMT_STR);
             
-            stmt.setLong(1, seq.getCurrentMessageNr()); 
-            stmt.setString(2, seq.isLastMessage() ? "1" : "0"); 
-            stmt.setString(3, seq.getIdentifier().getValue());
+            setSourceSequenceParameters(stmt, seq);
             stmt.execute();
         } finally {
             releaseResources(stmt, null);
         }
     }
     
+    private static void setSourceSequenceParameters(PreparedStatement stmt, SourceSequence seq) 
+        throws SQLException {
+        stmt.setLong(1, seq.getCurrentMessageNr()); 
+        stmt.setString(2, seq.isLastMessage() ? "1" : "0"); 
+        stmt.setString(3, seq.getIdentifier().getValue());
+    }
+    
     /**
      * @throws SQLException 
      */
@@ -804,17 +889,22 @@ public class RMTxStore implements RMStore {
         try {
             stmt = getStatement(con, UPDATE_DEST_SEQUENCE_STMT_STR);
 
-            long lastMessageNr = seq.getLastMessageNumber();
-            stmt.setLong(1, lastMessageNr); 
-            InputStream is = PersistenceUtils.getInstance()
-                .serialiseAcknowledgment(seq.getAcknowledgment());
-            stmt.setBinaryStream(2, is, is.available()); 
-            stmt.setString(3, seq.getIdentifier() .getValue());
+            setDestinationSequenceParameters(stmt, seq);
             stmt.execute();
         } finally {
             releaseResources(stmt, null);
         }
     }
+    
+    private static void setDestinationSequenceParameters(PreparedStatement stmt, DestinationSequence seq) 
+        throws SQLException, IOException {
+        long lastMessageNr = seq.getLastMessageNumber();
+        stmt.setLong(1, lastMessageNr); 
+        InputStream is = PersistenceUtils.getInstance()
+            .serialiseAcknowledgment(seq.getAcknowledgment());
+        stmt.setBinaryStream(2, is, is.available()); 
+        stmt.setString(3, seq.getIdentifier() .getValue());
+    }
 
     /**
      * @throws IOException 
@@ -825,6 +915,259 @@ public class RMTxStore implements RMStore {
         updateDestinationSequence(connection, seq);
     }
     
+    // group commit
+    
+    private boolean useGroupCommit() {
+        return groupCommit && connection != null;
+    }
+    
+    /**
+     * The writes which are not grouped run their transactions under the lock held while 
+     * a group is committed, so that committing or rolling back a group never ends their
+     * transaction on the shared connection or the other way round.
+     * @return the lock taken or null if the group commit mode is not used
+     */
+    private Lock lockGroupTransaction() {
+        if (!useGroupCommit()) {
+            return null;
+        }
+        groupTransactionLock.lock();
+        return groupTransactionLock;
+    }
+    
+    private static void unlock(Lock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Queues the update and waits until it has been committed. The first caller 
+     * which finds no group being committed becomes the leader. If other updates are
+     * already waiting it waits for the window to elapse or for the group to fill up, 
+     * then writes and commits the whole group on behalf of the other callers. 
+     * A leader with no other update waiting commits its own update at once.
+     */
+    private void submitUpdate(PendingUpdate update) {
+        List<PendingUpdate> group = null;
+        boolean interrupted = false;
+        synchronized (groupCommitLock) {
+            pendingUpdates.add(update);
+            if (pendingUpdates.size() >= groupCommitMaxSize) {
+                groupCommitLock.notifyAll();
+            }
+            while (!update.done && groupCommitting) {
+                try {
+                    groupCommitLock.wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (!update.done) {
+                groupCommitting = true;
+                long deadline = System.currentTimeMillis() + groupCommitWindow;
+                long left = pendingUpdates.size() > 1 ? groupCommitWindow : 0;
+                while (pendingUpdates.size() < groupCommitMaxSize && left > 0) {
+                    try {
+                        groupCommitLock.wait(left);
+                    } catch (InterruptedException ex) {
+                        interrupted = true;
+                    }
+                    left = deadline - System.currentTimeMillis();
+                }
+                group = pendingUpdates;
+                pendingUpdates = new ArrayList<PendingUpdate>();
+            }
+        }
+        if (group != null) {
+            Exception failure = null;
+            try {
+                failure = commitGroup(group);
+            } catch (RuntimeException ex) {
+                failure = ex;
+            } finally {
+                synchronized (groupCommitLock) {
+                    for (PendingUpdate u : group) {
+                        u.failure = failure;
+                        u.done = true;
+                    }
+                    groupCommitting = false;
+                    groupCommitLock.notifyAll();
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (update.failure != null) {
+            throw new RMStoreException(update.failure);
+        }
+    }
+    
+    /**
+     * Writes the group with one JDBC batch per statement and commits it. Only the latest 
+     * state of a sequence updated several times within the group is written.
+     * @return the failure or null if the group has been committed
+     */
+    private Exception commitGroup(List<PendingUpdate> group) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Committing a group of {0} updates", group.size());
+        }
+        Map<String, DestinationSequence> destSeqs = new LinkedHashMap<String, DestinationSequence>();
+        Map<String, SourceSequence> srcSeqs = new LinkedHashMap<String, SourceSequence>();
+        for (PendingUpdate u : group) {
+            if (u.destSeq != null) {
+                destSeqs.put(u.sid.getValue(), u.destSeq);
+            } else if (u.srcSeq != null) {
+                srcSeqs.put(u.sid.getValue(), u.srcSeq);
+            }
+        }
+        
+        Connection con = verifyConnection();
+        SQLException conex = null;
+        Exception failure = null;
+        List<InputStream> streams = new ArrayList<InputStream>();
+        boolean autoCommit = false;
+        groupTransactionLock.lock();
+        try {
+            beginTransaction();
+            // the group is written as one transaction even if the connection commits each statement
+            autoCommit = con.getAutoCommit();
+            if (autoCommit) {
+                con.setAutoCommit(false);
+            }
+            
+            if (!destSeqs.isEmpty()) {
+                PreparedStatement stmt = getStatement(con, UPDATE_DEST_SEQUENCE_STMT_STR);
+                try {
+                    for (DestinationSequence seq : destSeqs.values()) {
+                        setDestinationSequenceParameters(stmt, seq);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                } finally {
+                    releaseResources(stmt, null);
+                }
+            }
+            if (!srcSeqs.isEmpty()) {
+                PreparedStatement stmt = getStatement(con, UPDATE_SRC_SEQUENCE_STMT_STR);
+                try {
+                    for (SourceSequence seq : srcSeqs.values()) {
+                        setSourceSequenceParameters(stmt, seq);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                } finally {
+                    releaseResources(stmt, null);
+                }
+            }
+            // the messages are inserted before any removal requested within the same group
+            storeMessages(con, group, false, streams);
+            storeMessages(con, group, true, streams);
+            removeMessages(con, group, false);
+            removeMessages(con, group, true);
+            
+            commit(con);
+            
+        } catch (SQLException ex) {
+            conex = ex;
+            failure = ex;
+            abort(con);
+        } catch (IOException ex) {
+            failure = ex;
+            abort(con);
+        } finally {
+            for (InputStream is : streams) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+            if (autoCommit) {
+                try {
+                    con.setAutoCommit(true);
+                } catch (SQLException ex) {
+                    if (failure == null) {
+                        conex = ex;
+                        failure = ex;
+                    }
+                }
+            }
+            updateConnectionState(con, conex);
+            groupTransactionLock.unlock();
+        }
+        return failure;
+    }
+    
+    private void storeMessages(Connection con, List<PendingUpdate> group, boolean outbound, 
+                               List<InputStream> streams) throws SQLException, IOException {
+        PreparedStatement stmt = null;
+        try {
+            for (PendingUpdate u : group) {
+                if (u.outbound != outbound || u.msg == null || u.msg.getCachedOutputStream() == null) {
+                    continue;
+                }
+                if (stmt == null) {
+                    stmt = getStatement(con, outbound 
+                                        ? CREATE_OUTBOUND_MESSAGE_STMT_STR : CREATE_INBOUND_MESSAGE_STMT_STR);
+                }
+                // the streams are read when the batch is executed 
+                InputStream msgin = u.msg.getInputStream();
+                streams.add(msgin);
+                setMessageParameters(stmt, u.sid.getValue(), u.msg.getMessageNumber(), u.msg.getTo(), 
+                                     msgin, u.msg.getSize());
+                stmt.addBatch();
+            }
+            if (stmt != null) {
+                stmt.executeBatch();
+            }
+        } finally {
+            releaseResources(stmt, null);
+        }
+    }
+    
+    private void removeMessages(Connection con, List<PendingUpdate> group, boolean outbound) 
+        throws SQLException {
+        PreparedStatement stmt = null;
+        try {
+            for (PendingUpdate u : group) {
+                if (u.outbound != outbound || u.removedMessageNrs == null) {
+                    continue;
+                }
+                if (stmt == null) {
+                    stmt = getStatement(con, outbound 
+                                        ? DELETE_OUTBOUND_MESSAGE_STMT_STR : DELETE_INBOUND_MESSAGE_STMT_STR);
+                }
+                for (Long messageNr : u.removedMessageNrs) {
+                    stmt.setString(1, u.sid.getValue());
+                    stmt.setLong(2, messageNr);
+                    stmt.addBatch();
+                }
+            }
+            if (stmt != null) {
+                stmt.executeBatch();
+            }
+        } finally {
+            releaseResources(stmt, null);
+        }
+    }
+    
+    /**
+     * An update waiting to be committed with its group, the done and failure fields
+     * are guarded by the group commit lock. 
+     */
+    private static class PendingUpdate {
+        Identifier sid;
+        DestinationSequence destSeq;
+        SourceSequence srcSeq;
+        RMMessage msg;
+        Collection<Long> removedMessageNrs;
+        boolean outbound;
+        boolean done;
+        Exception failure;
+    }
+    
     protected void createTables() throws SQLException {
         Connection con = verifyConnection();
         Statement stmt = null;
@@ -19,11 +19,21 @@
 
 package org.apache.cxf.ws.rm.persistence.jdbc;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.ws.rm.ProtocolVariation;
 import org.apache.cxf.ws.rm.RMUtils;
 import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
 import org.apache.cxf.ws.rm.persistence.RMStoreException;
 import org.apache.cxf.ws.rm.v200702.Identifier;
 import org.easymock.EasyMock;
@@ -112,6 +122,167 @@ public class RMTxStoreTest extends RMTxStoreTestBase {
         store.removeSourceSequence(sid1);
     }
 
+    @Test
+    public void testGroupCommitConcurrentStoreAndRemove() throws Exception {
+        final Identifier sid = createIdentifier("groupSequence1");
+        final SourceSequence seq = createSourceSequence(sid, 20L);
+        final List<RMMessage> msgs = new ArrayList<RMMessage>();
+        final List<SourceSequence> others = new ArrayList<SourceSequence>();
+        for (long x = 1; x <= 20; x++) {
+            msgs.add(createRMMessage(x));
+            others.add(createSourceSequence(createIdentifier("groupSequence1-" + x), 0L));
+        }
+        control.replay();
+        store.setGroupCommit(true);
+        store.setGroupCommitWindow(20L);
+        try {
+            store.createSourceSequence(seq);
+            
+            List<Throwable> errors = runConcurrently(msgs.size(), new Task() {
+                public void run(int x) {
+                    store.persistOutgoing(seq, msgs.get(x));
+                }
+            });
+            assertTrue(errors.toString(), errors.isEmpty());
+            // anything left uncommitted on the shared connection would be lost here 
+            store.getConnection().rollback();
+            assertEquals(20, store.getMessages(sid, true).size());
+            assertEquals(20L, store.getSourceSequence(sid).getCurrentMessageNr());
+            
+            // sequence writes share the connection with the groups and must not interleave
+            errors = runConcurrently(msgs.size(), new Task() {
+                public void run(int x) {
+                    store.createSourceSequence(others.get(x));
+                    store.removeMessages(sid, Collections.singleton(x + 1L), true);
+                    store.removeSourceSequence(others.get(x).getIdentifier());
+                }
+            });
+            assertTrue(errors.toString(), errors.isEmpty());
+            store.getConnection().rollback();
+            assertEquals(0, store.getMessages(sid, true).size());
+            for (SourceSequence other : others) {
+                assertNull(store.getSourceSequence(other.getIdentifier()));
+            }
+        } finally {
+            store.setGroupCommit(false);
+            store.removeSourceSequence(sid);
+        }
+    }
+    
+    @Test
+    public void testGroupCommitRollback() throws Exception {
+        Identifier sid = createIdentifier("groupSequence2");
+        SourceSequence seq = createSourceSequence(sid, 1L);
+        SourceSequence seq2 = createSourceSequence(sid, 2L);
+        RMMessage msg = createRMMessage(1L);
+        RMMessage duplicate = createRMMessage(1L);
+        RMMessage msg2 = createRMMessage(2L);
+        control.replay();
+        store.setGroupCommit(true);
+        try {
+            store.createSourceSequence(seq);
+            store.persistOutgoing(seq, msg);
+            try {
+                store.persistOutgoing(seq2, duplicate);
+                fail("Expected RMStoreException was not thrown.");
+            } catch (RMStoreException ex) {
+                assertTrue(ex.getCause() instanceof SQLException);
+            }
+            // the sequence update of the failed group has been rolled back
+            assertEquals(1L, store.getSourceSequence(sid).getCurrentMessageNr());
+            assertEquals(1, store.getMessages(sid, true).size());
+            
+            store.persistOutgoing(seq2, msg2);
+            assertEquals(2L, store.getSourceSequence(sid).getCurrentMessageNr());
+            assertEquals(2, store.getMessages(sid, true).size());
+        } finally {
+            store.setGroupCommit(false);
+            store.removeMessages(sid, Collections.<Long>emptyList(), true);
+            store.removeSourceSequence(sid);
+        }
+    }
+    
+    @Test
+    public void testGroupCommitLoneCallerNotDelayed() throws Exception {
+        Identifier sid = createIdentifier("groupSequence3");
+        SourceSequence seq = createSourceSequence(sid, 1L);
+        RMMessage msg = createRMMessage(1L);
+        control.replay();
+        store.setGroupCommit(true);
+        store.setGroupCommitWindow(10000L);
+        try {
+            store.createSourceSequence(seq);
+            long start = System.currentTimeMillis();
+            store.persistOutgoing(seq, msg);
+            assertTrue(System.currentTimeMillis() - start < 5000L);
+            assertEquals(1, store.getMessages(sid, true).size());
+        } finally {
+            store.setGroupCommit(false);
+            store.setGroupCommitWindow(2L);
+            store.removeMessages(sid, Collections.singleton(1L), true);
+            store.removeSourceSequence(sid);
+        }
+    }
+    
+    private static Identifier createIdentifier(String s) {
+        Identifier sid = RMUtils.getWSRMFactory().createIdentifier();
+        sid.setValue(s);
+        return sid;
+    }
+    
+    private SourceSequence createSourceSequence(Identifier sid, long currentMessageNr) {
+        SourceSequence seq = control.createMock(SourceSequence.class);
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid).anyTimes();
+        EasyMock.expect(seq.getExpires()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getOfferingSequenceIdentifier()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(CLIENT_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408).anyTimes();
+        EasyMock.expect(seq.getCurrentMessageNr()).andReturn(currentMessageNr).anyTimes();
+        EasyMock.expect(seq.isLastMessage()).andReturn(false).anyTimes();
+        return seq;
+    }
+    
+    private RMMessage createRMMessage(long mn) throws IOException {
+        RMMessage msg = control.createMock(RMMessage.class);
+        byte[] value = ("Message " + mn).getBytes();
+        EasyMock.expect(msg.getMessageNumber()).andReturn(mn).anyTimes();
+        EasyMock.expect(msg.getTo()).andReturn(null).anyTimes();
+        EasyMock.expect(msg.getInputStream()).andReturn(new ByteArrayInputStream(value));
+        EasyMock.expect(msg.getSize()).andReturn((long)value.length).anyTimes();
+        EasyMock.expect(msg.getCachedOutputStream()).andReturn(new CachedOutputStream()).anyTimes();
+        return msg;
+    }
+    
+    private interface Task {
+        void run(int x);
+    }
+    
+    private static List<Throwable> runConcurrently(int threads, final Task task) throws InterruptedException {
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        final CountDownLatch start = new CountDownLatch(1);
+        Collection<Thread> started = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            final int x = i;
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        task.run(x);
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            t.start();
+            started.add(t);
+        }
+        start.countDown();
+        for (Thread t : started) {
+            t.join();
+        }
+        return errors;
+    }
+
     @Override
     protected Connection getConnection() {
         return store.verifyConnection();